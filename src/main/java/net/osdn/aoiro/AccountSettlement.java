@@ -56,73 +56,12 @@ public class AccountSettlement {
 			throw new IllegalStateException("決算日が指定されていません。");
 		}
 
-		// 勘定科目を並べ替えるための順序リストです。
-		List<AccountTitle> order = new ArrayList<>(accountTitles);
-
 		//家事按分
 		if(proportionalDivisions != null) {
-			AccountTitle ownersDrawing = AccountTitle.getByDisplayName(accountTitles, "事業主貸");
-			if(ownersDrawing != null) {
-				List<Debtor> debtors = new ArrayList<Debtor>();
-				List<Creditor> creditors = new ArrayList<Creditor>();
-				
-				for(ProportionalDivision proportionalDivision : proportionalDivisions) {
-					long debtorTotal = 0;
-					long creditorTotal = 0;
-					for(int i = 0; i < journalEntries.size(); i++) {
-						JournalEntry entry = journalEntries.get(i);
-						for(Debtor debtor : entry.getDebtors()) {
-							if(debtor.getAccountTitle().equals(proportionalDivision.getAccountTitle())) {
-								debtorTotal += debtor.getAmount();
-							}
-						}
-						for(Creditor creditor : entry.getCreditors()) {
-							if(creditor.getAccountTitle().equals(proportionalDivision.getAccountTitle())) {
-								creditorTotal += creditor.getAmount();
-							}
-						}
-					}
-					if(debtorTotal > creditorTotal) {
-						double total = (debtorTotal - creditorTotal) * (1.0d - proportionalDivision.getBusinessRatio());
-						long longTotal = Math.round(total);
-						if(longTotal != 0) {
-							creditors.add(new Creditor(proportionalDivision.getAccountTitle(), longTotal));
-						}
-					} else if(creditorTotal > debtorTotal) {
-						double total = (creditorTotal - debtorTotal) * (1.0d - proportionalDivision.getBusinessRatio());
-						long longTotal = Math.round(total);
-						if(longTotal != 0) {
-							debtors.add(new Debtor(proportionalDivision.getAccountTitle(), longTotal));
-						}
-					}
-				}
-				if(debtors.size() > 0) {
-					//ソート
-					Collections.sort(debtors, Comparator.comparingInt(o -> order.indexOf(o.getAccountTitle())));
-
-					long creditorTotal = 0;
-					for(Debtor debtor : debtors) {
-						creditorTotal += debtor.getAmount();
-					}
-					Creditor creditor = new Creditor(ownersDrawing, creditorTotal);
-					JournalEntry entry = new JournalEntry(date, "家事按分", debtors, Arrays.asList(creditor));
-					journalEntries.add(entry);
-				}
-				if(creditors.size() > 0) {
-					//ソート
-					Collections.sort(creditors, Comparator.comparingInt(o -> order.indexOf(o.getAccountTitle())));
-
-					long debtorTotal = 0;
-					for(Creditor creditor : creditors) {
-						debtorTotal += creditor.getAmount();
-					}
-					Debtor debtor = new Debtor(ownersDrawing, debtorTotal);
-					JournalEntry entry = new JournalEntry(date, "家事按分", Arrays.asList(debtor), creditors);
-					journalEntries.add(entry);
-				}
-				if(out != null && (debtors.size() > 0 || creditors.size() > 0)) {
-					out.println("  家事按分の振替が完了しました。");
-				}
+			List<JournalEntry> entries = createProportionalDivisionEntries(date, new TrialBalance(journalEntries), proportionalDivisions);
+			journalEntries.addAll(entries);
+			if(out != null && entries.size() > 0) {
+				out.println("  家事按分の振替が完了しました。");
 			}
 		}
 
@@ -214,7 +153,7 @@ public class AccountSettlement {
 			//損益勘定仕訳
 			if(debtors.size() > 0) {
 				//ソート
-				Collections.sort(debtors, Comparator.comparingInt(o -> order.indexOf(o.getAccountTitle())));
+				Collections.sort(debtors, Comparator.comparingInt(o -> o.getAccountTitle().getOrdinal()));
 				//貸方
 				Creditor creditor = new Creditor(AccountTitle.INCOME_SUMMARY, debtorsTotal);
 				//仕訳
@@ -223,7 +162,7 @@ public class AccountSettlement {
 			}
 			if(creditors.size() > 0) {
 				//ソート
-				Collections.sort(creditors, Comparator.comparingInt(o -> order.indexOf(o.getAccountTitle())));
+				Collections.sort(creditors, Comparator.comparingInt(o -> o.getAccountTitle().getOrdinal()));
 				//借方
 				Debtor debtor = new Debtor(AccountTitle.INCOME_SUMMARY, creditorsTotal);
 				//仕訳
@@ -273,7 +212,7 @@ public class AccountSettlement {
 			//損益勘定仕訳
 			if(creditors.size() > 0) {
 				//ソート
-				Collections.sort(creditors, Comparator.comparingInt(o -> order.indexOf(o.getAccountTitle())));
+				Collections.sort(creditors, Comparator.comparingInt(o -> o.getAccountTitle().getOrdinal()));
 				//借方
 				Debtor debtor = new Debtor(AccountTitle.INCOME_SUMMARY, creditorsTotal);
 				//仕訳
@@ -282,7 +221,7 @@ public class AccountSettlement {
 			}
 			if(debtors.size() > 0) {
 				//ソート
-				Collections.sort(debtors, Comparator.comparingInt(o -> order.indexOf(o.getAccountTitle())));
+				Collections.sort(debtors, Comparator.comparingInt(o -> o.getAccountTitle().getOrdinal()));
 				//貸方
 				Creditor creditor = new Creditor(AccountTitle.INCOME_SUMMARY, debtorsTotal);
 				//仕訳
@@ -389,7 +328,7 @@ public class AccountSettlement {
 			//残高勘定仕訳
 			if(creditors.size() > 0) {
 				//ソート
-				Collections.sort(creditors, Comparator.comparingInt(o -> order.indexOf(o.getAccountTitle())));
+				Collections.sort(creditors, Comparator.comparingInt(o -> o.getAccountTitle().getOrdinal()));
 				//借方
 				Debtor debtor = new Debtor(AccountTitle.BALANCE, creditorsTotal);
 				//仕訳
@@ -398,7 +337,7 @@ public class AccountSettlement {
 			}
 			if(debtors.size() > 0) {
 				//ソート
-				Collections.sort(debtors, Comparator.comparingInt(o -> order.indexOf(o.getAccountTitle())));
+				Collections.sort(debtors, Comparator.comparingInt(o -> o.getAccountTitle().getOrdinal()));
 				//貸方
 				Creditor creditor = new Creditor(AccountTitle.BALANCE, debtorsTotal);
 				//仕訳
@@ -447,7 +386,7 @@ public class AccountSettlement {
 			//残高勘定仕訳
 			if(debtors.size() > 0) {
 				//ソート
-				Collections.sort(debtors, Comparator.comparingInt(o -> order.indexOf(o.getAccountTitle())));
+				Collections.sort(debtors, Comparator.comparingInt(o -> o.getAccountTitle().getOrdinal()));
 				//貸方
 				Creditor creditor = new Creditor(AccountTitle.BALANCE, debtorsTotal);
 				//仕訳
@@ -456,7 +395,7 @@ public class AccountSettlement {
 			}
 			if(creditors.size() > 0) {
 				//ソート
-				Collections.sort(creditors, Comparator.comparingInt(o -> order.indexOf(o.getAccountTitle())));
+				Collections.sort(creditors, Comparator.comparingInt(o -> o.getAccountTitle().getOrdinal()));
 				//借方
 				Debtor debtor = new Debtor(AccountTitle.BALANCE, creditorsTotal);
 				//仕訳
@@ -522,7 +461,7 @@ public class AccountSettlement {
 				String description = isSoloProprietorship ? "資本の残高振替" : "純資産の残高振替";
 				if(debtors.size() > 0) {
 					//ソート
-					Collections.sort(debtors, Comparator.comparingInt(o -> order.indexOf(o.getAccountTitle())));
+					Collections.sort(debtors, Comparator.comparingInt(o -> o.getAccountTitle().getOrdinal()));
 					//貸方
 					Creditor creditor = new Creditor(AccountTitle.BALANCE, debtorsTotal);
 					//仕訳
@@ -531,7 +470,7 @@ public class AccountSettlement {
 				}
 				if(creditors.size() > 0) {
 					//ソート
-					Collections.sort(creditors, Comparator.comparingInt(o -> order.indexOf(o.getAccountTitle())));
+					Collections.sort(creditors, Comparator.comparingInt(o -> o.getAccountTitle().getOrdinal()));
 					//借方
 					Debtor debtor = new Debtor(AccountTitle.BALANCE, creditorsTotal);
 					//仕訳
@@ -545,6 +484,85 @@ public class AccountSettlement {
 		}
 	}
 	
+	/** 決算をおこなわずに家事按分の仕訳を作成して返します。
+	 * 仕訳リストには追加されないので、家事按分の金額を事前に確認するのに役立ちます。
+	 * 
+	 * @param journalEntries 仕訳リスト
+	 * @param proportionalDivisions 家事按分リスト
+	 * @return 家事按分の仕訳リスト
+	 */
+	public List<JournalEntry> getProportionalDivisionEntries(List<JournalEntry> journalEntries, List<ProportionalDivision> proportionalDivisions) {
+		LocalDate date = this.date;
+		if(date == null) {
+			date = getClosingDate(journalEntries, isSoloProprietorship);
+		}
+		if(date == null) {
+			throw new IllegalStateException("決算日が指定されていません。");
+		}
+		return createProportionalDivisionEntries(date, new TrialBalance(journalEntries), proportionalDivisions);
+	}
+
+	/** 合計試算表の勘定科目ごとの合計から家事按分の仕訳を作成します。
+	 * 仕訳を走査せずに合計試算表を参照するので、家事按分の件数に比例した時間で計算できます。
+	 * 
+	 * @param date 仕訳の日付
+	 * @param trialBalance 合計試算表
+	 * @param proportionalDivisions 家事按分リスト
+	 * @return 家事按分の仕訳リスト。事業主貸の勘定科目がない場合や按分する金額がない場合は空のリストを返します。
+	 */
+	public List<JournalEntry> createProportionalDivisionEntries(LocalDate date, TrialBalance trialBalance, List<ProportionalDivision> proportionalDivisions) {
+		List<JournalEntry> entries = new ArrayList<JournalEntry>();
+
+		AccountTitle ownersDrawing = AccountTitle.getByDisplayName(accountTitles, "事業主貸");
+		if(ownersDrawing == null || proportionalDivisions == null) {
+			return entries;
+		}
+
+		List<Debtor> debtors = new ArrayList<Debtor>();
+		List<Creditor> creditors = new ArrayList<Creditor>();
+
+		for(ProportionalDivision proportionalDivision : proportionalDivisions) {
+			long debtorTotal = trialBalance.getDebtorTotal(proportionalDivision.getAccountTitle());
+			long creditorTotal = trialBalance.getCreditorTotal(proportionalDivision.getAccountTitle());
+			if(debtorTotal > creditorTotal) {
+				double total = (debtorTotal - creditorTotal) * (1.0d - proportionalDivision.getBusinessRatio());
+				long longTotal = Math.round(total);
+				if(longTotal != 0) {
+					creditors.add(new Creditor(proportionalDivision.getAccountTitle(), longTotal));
+				}
+			} else if(creditorTotal > debtorTotal) {
+				double total = (creditorTotal - debtorTotal) * (1.0d - proportionalDivision.getBusinessRatio());
+				long longTotal = Math.round(total);
+				if(longTotal != 0) {
+					debtors.add(new Debtor(proportionalDivision.getAccountTitle(), longTotal));
+				}
+			}
+		}
+		if(debtors.size() > 0) {
+			//ソート
+			Collections.sort(debtors, Comparator.comparingInt(o -> o.getAccountTitle().getOrdinal()));
+
+			long creditorTotal = 0;
+			for(Debtor debtor : debtors) {
+				creditorTotal += debtor.getAmount();
+			}
+			Creditor creditor = new Creditor(ownersDrawing, creditorTotal);
+			entries.add(new JournalEntry(date, "家事按分", debtors, Arrays.asList(creditor)));
+		}
+		if(creditors.size() > 0) {
+			//ソート
+			Collections.sort(creditors, Comparator.comparingInt(o -> o.getAccountTitle().getOrdinal()));
+
+			long debtorTotal = 0;
+			for(Creditor creditor : creditors) {
+				debtorTotal += creditor.getAmount();
+			}
+			Debtor debtor = new Debtor(ownersDrawing, debtorTotal);
+			entries.add(new JournalEntry(date, "家事按分", Arrays.asList(debtor), creditors));
+		}
+		return entries;
+	}
+
 	/** 仕訳リストから開始日を求めます。
 	 * 
 	 * @param journalEntries 仕訳リスト
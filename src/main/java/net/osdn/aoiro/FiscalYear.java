@@ -0,0 +1,715 @@
+package net.osdn.aoiro;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.pdfbox.io.MemoryUsageSetting;
+
+import net.osdn.aoiro.loader.yaml.AccountTitlesLoader;
+import net.osdn.aoiro.model.AccountTitle;
+import net.osdn.aoiro.model.Creditor;
+import net.osdn.aoiro.model.Debtor;
+import net.osdn.aoiro.model.JournalEntry;
+import net.osdn.aoiro.model.ProportionalDivision;
+import net.osdn.aoiro.report.BalanceSheet;
+import net.osdn.aoiro.report.ComparativeBalanceSheet;
+import net.osdn.aoiro.report.ComparativeProfitAndLoss;
+import net.osdn.aoiro.report.ComparativeTotals;
+import net.osdn.aoiro.report.DataExporter;
+import net.osdn.aoiro.report.Fingerprint;
+import net.osdn.aoiro.report.GeneralJournal;
+import net.osdn.aoiro.report.GeneralLedger;
+import net.osdn.aoiro.report.HtmlPreview;
+import net.osdn.aoiro.report.MonthlyTotals;
+import net.osdn.aoiro.report.OutputCache;
+import net.osdn.aoiro.report.Pagination;
+import net.osdn.aoiro.report.ProfitAndLoss;
+import net.osdn.aoiro.report.ReportBundle;
+import net.osdn.aoiro.report.StatementOfChangesInEquity;
+import net.osdn.pdf_brewer.FontLoader;
+
+import static net.osdn.aoiro.ErrorMessage.error;
+
+/** 会計年度
+ * 1年度分の仕訳について、決算、帳簿と決算書の出力、次年度の開始仕訳の作成をおこないます。
+ *
+ */
+public class FiscalYear {
+
+	/** PDFで出力する帳簿・決算書の名前（出力順） */
+	public static final List<String> REPORT_NAMES = List.of("仕訳帳", "総勘定元帳", "損益計算書", "貸借対照表", "社員資本等変動計算書");
+
+	private AccountTitlesLoader accountTitlesLoader;
+	private Set<AccountTitle> accountTitles;
+	private List<ProportionalDivision> proportionalDivisions;
+	private List<JournalEntry> journalEntries;
+	private boolean isSoloProprietorship;
+	private boolean skipSettlement;
+	private boolean showMonthlyTotal;
+	private Set<AccountTitle> dailyTotalAccountTitles = new LinkedHashSet<>();
+	private boolean isSettled;
+	private FontLoader fontLoader;
+	private MemoryUsageSetting memUsageSetting;
+	private boolean outputCacheEnabled;
+	private boolean bundleEnabled;
+	private DataExporter.Format exportFormat;
+	private HtmlPreview htmlPreview;
+	private String minusSign = ProfitAndLoss.MINUS_SIGN;
+	private Set<String> reportNames = new LinkedHashSet<>();
+	private BalanceSheet bs;
+
+	/** メッセージ出力先 */
+	private PrintStream out;
+
+	public FiscalYear(AccountTitlesLoader accountTitlesLoader, List<ProportionalDivision> proportionalDivisions, List<JournalEntry> journalEntries, boolean isSoloProprietorship) throws IOException {
+		this.accountTitlesLoader = accountTitlesLoader;
+		this.accountTitles = accountTitlesLoader.getAccountTitles();
+		this.proportionalDivisions = proportionalDivisions;
+		this.journalEntries = journalEntries;
+		this.isSoloProprietorship = isSoloProprietorship;
+	}
+
+	public Set<AccountTitle> getAccountTitles() {
+		return accountTitles;
+	}
+
+	public List<JournalEntry> getJournalEntries() {
+		return journalEntries;
+	}
+
+	public boolean isSoloProprietorship() {
+		return isSoloProprietorship;
+	}
+
+	/** 決算処理をおこなわずに仕訳帳と総勘定元帳だけを出力するかどうかを設定します。
+	 *
+	 * @param skipSettlement 決算処理をおこなわない場合は true
+	 */
+	public void setSkipSettlement(boolean skipSettlement) {
+		this.skipSettlement = skipSettlement;
+	}
+
+	/** 総勘定元帳に月計を印字するかどうかを設定します。
+	 *
+	 * @param showMonthlyTotal 月計を印字する場合は true
+	 */
+	public void setShowMonthlyTotal(boolean showMonthlyTotal) {
+		this.showMonthlyTotal = showMonthlyTotal;
+	}
+
+	/** 総勘定元帳に日計で印字する勘定科目を設定します。
+	 * 日計で印字する勘定科目は、同じ日付の仕訳を借方・貸方ごとに 1行にまとめて印字します。
+	 * 相手勘定科目が異なる仕訳をまとめた行の相手勘定科目は諸口になります。
+	 *
+	 * @param displayNames 日計で印字する勘定科目の表示名
+	 */
+	public void setDailyTotalAccountTitles(Collection<String> displayNames) {
+		Set<AccountTitle> dailyTotalAccountTitles = new LinkedHashSet<>();
+		NEXT_DISPLAY_NAME:
+		for(String displayName : displayNames) {
+			for(AccountTitle accountTitle : accountTitles) {
+				if(accountTitle.getDisplayName().equals(displayName)) {
+					if(!GeneralLedger.isDailyTotalAvailable(accountTitle)) {
+						throw error(" [エラー] 元入金と決算勘定は日計で印字できません: " + displayName);
+					}
+					dailyTotalAccountTitles.add(accountTitle);
+					continue NEXT_DISPLAY_NAME;
+				}
+			}
+			throw error(" [エラー] 日計で印字する勘定科目が見つかりません: " + displayName);
+		}
+		this.dailyTotalAccountTitles = dailyTotalAccountTitles;
+	}
+
+	public void setFontLoader(FontLoader fontLoader) {
+		this.fontLoader = fontLoader;
+	}
+
+	/** 仕訳帳と総勘定元帳のPDFを作成するときのメモリの使用方法を設定します。
+	 * 一時ファイルを使用するように設定すると、ページ数が多い場合でもメモリ使用量が一定になります。
+	 *
+	 * @param memUsageSetting メモリの使用方法。null の場合はメインメモリのみを使用します。
+	 */
+	public void setMemoryUsageSetting(MemoryUsageSetting memUsageSetting) {
+		this.memUsageSetting = memUsageSetting;
+	}
+
+	/** 出力キャッシュを使用するかどうかを設定します。
+	 * 出力キャッシュを使用すると、入力（仕訳、勘定科目と構成、オプション）が前回から変更されていない帳簿・決算書の作成を省略します。
+	 * 総勘定元帳は変更された勘定科目だけを印字し、変更されていない勘定科目は前回印字したページを再利用します。
+	 *
+	 * @param outputCacheEnabled 出力キャッシュを使用する場合は true
+	 */
+	public void setOutputCacheEnabled(boolean outputCacheEnabled) {
+		this.outputCacheEnabled = outputCacheEnabled;
+	}
+
+	/** 帳簿・決算書を 1つのPDFにまとめて出力するかどうかを設定します。
+	 * まとめて出力する場合、帳簿・決算書ごとのPDFの代わりに「帳簿と決算書.pdf」（決算処理をおこなわない場合は「帳簿.pdf」）を出力します。
+	 * フォントはドキュメントで共有され、帳簿・決算書と総勘定元帳の勘定科目ごとにしおりが作成されます。
+	 *
+	 * @param bundleEnabled 1つのPDFにまとめて出力する場合は true
+	 */
+	public void setBundleEnabled(boolean bundleEnabled) {
+		this.bundleEnabled = bundleEnabled;
+	}
+
+	/** 帳簿・決算書をPDFの代わりにデータファイルとして出力する形式を設定します。
+	 * 出力形式を設定すると、総勘定元帳、合計残高試算表、損益計算書、貸借対照表の計算済みのデータを出力し、PDFは作成しません。
+	 *
+	 * @param exportFormat 出力形式。null の場合はPDFを作成します。
+	 */
+	public void setExportFormat(DataExporter.Format exportFormat) {
+		this.exportFormat = exportFormat;
+	}
+
+	/** 帳簿・決算書をPDFの代わりにHTMLプレビューとして出力するかどうかを設定します。
+	 * HTMLプレビューはフォントを埋め込まずにブラウザーのフォントで表示するため、PDFよりもはるかに短い時間で出力できます。
+	 *
+	 * @param enabled HTMLプレビューを出力する場合は true
+	 * @param maxRowsPerFile 仕訳帳と総勘定元帳の 1ファイルの最大行数。0 の場合は 1つのファイルに出力します。
+	 */
+	public void setHtmlPreviewEnabled(boolean enabled, int maxRowsPerFile) {
+		if(enabled) {
+			htmlPreview = new HtmlPreview();
+			htmlPreview.setMaxRowsPerFile(maxRowsPerFile);
+		} else {
+			htmlPreview = null;
+		}
+	}
+
+	/** 決算書で負の金額に付ける符号を設定します。
+	 * 符号はこの会計年度の決算書だけに適用されるため、同じプロセスで複数の会計年度を並行して処理する場合も互いに影響しません。
+	 *
+	 * @param minusSign 負の金額に付ける符号（既定は △）。null の場合はマイナス記号 (-) になります。
+	 */
+	public void setMinusSign(String minusSign) {
+		this.minusSign = minusSign;
+	}
+
+	/** PDFで出力する帳簿・決算書を限定します。
+	 * 名前は拡張子を除いたファイル名（仕訳帳、総勘定元帳、損益計算書、貸借対照表、社員資本等変動計算書）で指定します。
+	 * 帳簿・決算書を 1つのPDFにまとめて出力する場合や、データファイル・HTMLプレビューを出力する場合は適用されません。
+	 *
+	 * @param reportNames 出力する帳簿・決算書の名前。空の場合はすべての帳簿・決算書を出力します。
+	 */
+	public void setReportNames(Collection<String> reportNames) {
+		for(String reportName : reportNames) {
+			if(!REPORT_NAMES.contains(reportName)) {
+				throw error(" [エラー] 帳簿・決算書の名前に誤りがあります: " + reportName);
+			}
+		}
+		this.reportNames = new LinkedHashSet<>(reportNames);
+	}
+
+	public void setPrintStream(PrintStream out) {
+		this.out = out;
+	}
+
+	/** 開始仕訳を設定します。
+	 * 仕訳リストに開始仕訳と同じ日付の開始仕訳・期首棚卸が含まれている場合、それらは取り除かれます。
+	 * 開始仕訳と同じ日付・同じ摘要の仕訳は、決算勘定（繰越利益剰余金など）を含んでいても取り除かれます。
+	 * 指定した開始仕訳は仕訳リストの先頭に追加されます。
+	 * 開始仕訳の勘定科目は、この会計年度の勘定科目.yml に定義された同じ名前の勘定科目に置き換えられます。
+	 *
+	 * @param openingEntries 開始仕訳のリスト（通常は前年度の getNextOpeningJournalEntries で取得したリスト）
+	 */
+	public void setOpeningJournalEntries(List<JournalEntry> openingEntries) {
+		if(isSettled) {
+			throw new IllegalStateException("決算処理が実行済みです。");
+		}
+
+		LocalDate openingDate = null;
+		Set<String> descriptions = new LinkedHashSet<>();
+		List<JournalEntry> entries = new ArrayList<>();
+		for(JournalEntry entry : openingEntries) {
+			List<Debtor> debtors = new ArrayList<>();
+			for(Debtor debtor : entry.getDebtors()) {
+				debtors.add(new Debtor(getAccountTitle(debtor.getAccountTitle()), debtor.getAmount()));
+			}
+			List<Creditor> creditors = new ArrayList<>();
+			for(Creditor creditor : entry.getCreditors()) {
+				creditors.add(new Creditor(getAccountTitle(creditor.getAccountTitle()), creditor.getAmount()));
+			}
+			entries.add(new JournalEntry(entry.getDate(), entry.getDescription(), debtors, creditors));
+			openingDate = entry.getDate();
+			descriptions.add(entry.getDescription());
+		}
+
+		if(openingDate != null) {
+			//前期繰越に繰越利益剰余金（決算勘定）が含まれる場合、JournalEntry#isOpening は締切仕訳と判断して false を返します。
+			//そのため、開始日の仕訳は引き継いだ開始仕訳と同じ摘要であれば、決算勘定を含んでいても開始仕訳として置き換えます。
+			LocalDate date = openingDate;
+			journalEntries.removeIf(entry -> Objects.equals(entry.getDate(), date)
+					&& (descriptions.contains(entry.getDescription())
+							|| entry.isOpening(isSoloProprietorship, date)
+							|| "期首棚卸".equals(entry.getDescription())));
+		}
+		journalEntries.addAll(0, entries);
+	}
+
+	private AccountTitle getAccountTitle(AccountTitle accountTitle) {
+		AccountTitle a = AccountTitle.getByDisplayName(accountTitles, accountTitle.getDisplayName());
+		if(a == null) {
+			throw error(" [エラー] 前年度から繰り越す勘定科目が定義されていません: " + accountTitle.getDisplayName());
+		}
+		return a;
+	}
+
+	/** 決算をおこない、仕訳リストに決算仕訳を追加します。
+	 * 決算処理をおこなわない設定になっている場合や、すでに決算処理をおこなっている場合は何もしません。
+	 */
+	public void settle() {
+		if(skipSettlement || isSettled) {
+			return;
+		}
+		println("決算処理を実行しています . . .");
+		AccountSettlement accountSettlement = new AccountSettlement(accountTitles, isSoloProprietorship);
+		accountSettlement.setPrintStream(out);
+		accountSettlement.addClosingEntries(journalEntries, proportionalDivisions);
+		println("");
+		isSettled = true;
+	}
+
+	/** 次年度の開始仕訳を返します。
+	 * このメソッドは決算処理をおこなった後に呼び出す必要があります。
+	 *
+	 * @return 次年度の開始仕訳のリスト
+	 * @throws IOException I/Oエラーが発生した場合
+	 */
+	public List<JournalEntry> getNextOpeningJournalEntries() throws IOException {
+		return getBalanceSheet().getNextOpeningJournalEntries(new ArrayList<AccountTitle>(accountTitles));
+	}
+
+	private BalanceSheet getBalanceSheet() throws IOException {
+		if(!isSettled) {
+			throw new IllegalStateException("決算処理が実行されていません。");
+		}
+		if(bs == null) {
+			bs = new BalanceSheet(accountTitlesLoader.getBalanceSheetLayout(), journalEntries, isSoloProprietorship);
+		}
+		return bs;
+	}
+
+	/** 帳簿と決算書を出力します。
+	 * 決算処理をおこなっている場合は次年度の開始仕訳も出力します。
+	 * 仕訳帳と総勘定元帳の相互参照（仕丁・元丁）を確定した後、各帳簿・決算書の PDF を並行して作成します。
+	 * メッセージは帳簿・決算書の順番で出力され、エラーが発生した場合は最初に失敗した帳簿・決算書のエラーがスローされます。
+	 * データファイルの出力形式を設定している場合は、PDFの代わりにデータファイルを出力します。
+	 * HTMLプレビューを有効にしている場合は、PDFの代わりにHTMLプレビューを出力します。
+	 *
+	 * @param outputDir 出力先フォルダー
+	 * @throws IOException I/Oエラーが発生した場合
+	 */
+	public void writeTo(Path outputDir) throws IOException {
+		if(isSettled) {
+			println("帳簿と決算書を作成しています . . .");
+		} else {
+			println("帳簿を作成しています . . .");
+		}
+
+		// 仕訳帳と総勘定元帳のページ割り付け
+		// 印字データを作成せずに、仕訳帳の「元丁」と総勘定元帳の「仕丁」をすべて確定します。
+		// これ以降は各帳簿・決算書のPDFを並行して作成することができます。
+		Pagination pagination = new Pagination(accountTitles, journalEntries, isSoloProprietorship, showMonthlyTotal, dailyTotalAccountTitles);
+		// 勘定科目ごとの月別集計（損益計算書の月別売上と総勘定元帳の月計で共有します）
+		MonthlyTotals monthlyTotals = new MonthlyTotals(journalEntries, isSoloProprietorship);
+
+		BalanceSheet bs;
+		if(exportFormat != null) {
+			bs = writeDataTo(outputDir, pagination, monthlyTotals);
+		} else if(htmlPreview != null) {
+			bs = writeHtmlTo(outputDir, pagination, monthlyTotals);
+		} else {
+			bs = writePdfTo(outputDir, pagination, monthlyTotals);
+		}
+
+		if(bs != null) {
+			//帳簿・決算書の作成で警告メッセージがあれば出力します。
+			if(bs.getWarnings().size() > 0) {
+				println("");
+				for(String warning : bs.getWarnings()) {
+					println(warning);
+				}
+			}
+
+			//繰越処理
+			println("");
+			println("繰越処理を実行しています . . .");
+
+			//次年度の開始仕訳
+			bs.createNextOpeningJournalEntriesCompat(new ArrayList<AccountTitle>(accountTitles), outputDir.resolve("次年度の開始仕訳.yml"));
+			println("  次年度の開始仕訳.yml を出力しました。");
+		}
+	}
+
+	/** 帳簿と決算書のPDFを出力します。
+	 *
+	 * @param outputDir 出力先フォルダー
+	 * @param pagination 仕訳帳と総勘定元帳のページ割り付け
+	 * @param monthlyTotals 勘定科目ごとの月別集計
+	 * @return 貸借対照表（決算処理をおこなっていない場合は null）
+	 * @throws IOException I/Oエラーが発生した場合
+	 */
+	private BalanceSheet writePdfTo(Path outputDir, Pagination pagination, MonthlyTotals monthlyTotals) throws IOException {
+		// 仕訳帳
+		GeneralJournal generalJournal = new GeneralJournal(journalEntries, isSoloProprietorship, pagination);
+
+		// 総勘定元帳
+		GeneralLedger generalLedger = new GeneralLedger(accountTitles, journalEntries, isSoloProprietorship, showMonthlyTotal, pagination, monthlyTotals);
+
+		// 出力キャッシュ
+		OutputCache outputCache = outputCacheEnabled ? new OutputCache(outputDir) : null;
+
+		// 出力するファイル名と作成処理（出力順）
+		Map<String, Callable<Void>> tasks = new LinkedHashMap<>();
+		// 出力するファイル名と入力のフィンガープリント（出力キャッシュを使用する場合のみ求めます）
+		Map<String, String> fingerprints = new LinkedHashMap<>();
+		// すべての帳簿・決算書に共通する入力（仕訳、勘定科目、オプション）のフィンガープリントは 1度だけ求めます。
+		String inputFingerprint = (outputCache != null) ? getInputFingerprint() : null;
+
+		generalJournal.setFontLoader(fontLoader);
+		generalJournal.setMemoryUsageSetting(memUsageSetting);
+
+		generalLedger.setFontLoader(fontLoader);
+		generalLedger.setMemoryUsageSetting(memUsageSetting);
+
+		ProfitAndLoss pl = null;
+		BalanceSheet bs = null;
+		StatementOfChangesInEquity ce = null;
+		if(isSettled) {
+			//損益計算書
+			pl = new ProfitAndLoss(accountTitlesLoader.getProfitAndLossLayout(), journalEntries, isSoloProprietorship, monthlyTotals);
+			pl.setFontLoader(fontLoader);
+			pl.setMinusSign(minusSign);
+
+			//貸借対照表
+			bs = getBalanceSheet();
+			bs.setFontLoader(fontLoader);
+			bs.setMinusSign(minusSign);
+
+			//社員資本等変動計算書
+			if(!isSoloProprietorship) {
+				ce = new StatementOfChangesInEquity(accountTitlesLoader.getStatementOfChangesInEquityLayout(), journalEntries);
+				ce.setFontLoader(fontLoader);
+				ce.setMinusSign(minusSign);
+			}
+		}
+
+		if(bundleEnabled) {
+			// 帳簿・決算書を 1つのPDFにまとめて出力します。
+			// フォントを共有する 1つのドキュメントに順番に印字するため、帳簿・決算書ごとに並行して作成することはしません。
+			String filename = isSettled ? "帳簿と決算書.pdf" : "帳簿.pdf";
+			ReportBundle bundle = new ReportBundle(isSettled ? "帳簿と決算書" : "帳簿");
+			bundle.setFontLoader(fontLoader);
+			bundle.setMemoryUsageSetting(memUsageSetting);
+			bundle.add(generalJournal);
+			bundle.add(generalLedger);
+			if(pl != null) {
+				bundle.add(pl);
+			}
+			if(bs != null) {
+				bundle.add(bs);
+			}
+			if(ce != null) {
+				bundle.add(ce);
+			}
+			if(inputFingerprint != null) {
+				StringBuilder layoutYaml = new StringBuilder();
+				if(pl != null) {
+					layoutYaml.append(accountTitlesLoader.getProfitAndLossLayout().getYaml(accountTitles));
+				}
+				if(bs != null) {
+					layoutYaml.append(accountTitlesLoader.getBalanceSheetLayout().getYaml(accountTitles));
+				}
+				if(ce != null) {
+					layoutYaml.append(accountTitlesLoader.getStatementOfChangesInEquityLayout().getYaml(accountTitles));
+				}
+				fingerprints.put(filename, getFingerprint(filename, inputFingerprint, layoutYaml.toString()));
+			}
+			tasks.put(filename, () -> {
+				bundle.writeTo(outputDir.resolve(filename));
+				return null;
+			});
+		} else {
+			if(inputFingerprint != null) {
+				fingerprints.put("仕訳帳.pdf", getFingerprint("仕訳帳.pdf", inputFingerprint, null));
+			}
+			tasks.put("仕訳帳.pdf", () -> {
+				generalJournal.writeTo(outputDir.resolve("仕訳帳.pdf"));
+				return null;
+			});
+
+			generalLedger.setOutputCache(outputCache);
+			if(inputFingerprint != null) {
+				fingerprints.put("総勘定元帳.pdf", getFingerprint("総勘定元帳.pdf", inputFingerprint, null));
+			}
+			tasks.put("総勘定元帳.pdf", () -> {
+				generalLedger.writeTo(outputDir.resolve("総勘定元帳.pdf"));
+				return null;
+			});
+
+			if(pl != null) {
+				ProfitAndLoss profitAndLoss = pl;
+				if(inputFingerprint != null) {
+					fingerprints.put("損益計算書.pdf", getFingerprint("損益計算書.pdf", inputFingerprint, accountTitlesLoader.getProfitAndLossLayout().getYaml(accountTitles)));
+				}
+				tasks.put("損益計算書.pdf", () -> {
+					profitAndLoss.writeTo(outputDir.resolve("損益計算書.pdf"));
+					return null;
+				});
+			}
+			if(bs != null) {
+				BalanceSheet balanceSheet = bs;
+				if(inputFingerprint != null) {
+					fingerprints.put("貸借対照表.pdf", getFingerprint("貸借対照表.pdf", inputFingerprint, accountTitlesLoader.getBalanceSheetLayout().getYaml(accountTitles)));
+				}
+				tasks.put("貸借対照表.pdf", () -> {
+					balanceSheet.writeTo(outputDir.resolve("貸借対照表.pdf"));
+					return null;
+				});
+			}
+			if(ce != null) {
+				StatementOfChangesInEquity statementOfChangesInEquity = ce;
+				if(inputFingerprint != null) {
+					fingerprints.put("社員資本等変動計算書.pdf", getFingerprint("社員資本等変動計算書.pdf", inputFingerprint, accountTitlesLoader.getStatementOfChangesInEquityLayout().getYaml(accountTitles)));
+				}
+				tasks.put("社員資本等変動計算書.pdf", () -> {
+					statementOfChangesInEquity.writeTo(outputDir.resolve("社員資本等変動計算書.pdf"));
+					return null;
+				});
+			}
+		}
+
+		// 出力する帳簿・決算書を限定している場合、それ以外の帳簿・決算書は作成しません。
+		if(!bundleEnabled && !reportNames.isEmpty()) {
+			tasks.keySet().removeIf(filename -> !reportNames.contains(filename.substring(0, filename.lastIndexOf('.'))));
+			fingerprints.keySet().retainAll(tasks.keySet());
+		}
+
+		// 出力キャッシュを使用する場合、入力が前回から変更されていない帳簿・決算書は作成しません。
+		List<String> skipped = new ArrayList<>();
+		if(outputCache != null) {
+			for(Map.Entry<String, String> fingerprint : fingerprints.entrySet()) {
+				if(outputCache.isUpToDate(fingerprint.getKey(), fingerprint.getValue())) {
+					skipped.add(fingerprint.getKey());
+				} else {
+					outputCache.remove(fingerprint.getKey());
+				}
+			}
+		}
+
+		int nThreads = Math.max(1, Math.min(tasks.size() - skipped.size(), Runtime.getRuntime().availableProcessors()));
+		ExecutorService executor = Executors.newFixedThreadPool(nThreads);
+		try {
+			Map<String, Future<Void>> futures = new LinkedHashMap<>();
+			for(Map.Entry<String, Callable<Void>> task : tasks.entrySet()) {
+				if(!skipped.contains(task.getKey())) {
+					futures.put(task.getKey(), executor.submit(task.getValue()));
+				}
+			}
+			for(String filename : tasks.keySet()) {
+				Future<Void> future = futures.get(filename);
+				if(future == null) {
+					println("  " + filename + " は変更されていないため作成を省略しました。");
+					continue;
+				}
+				Util.get(future);
+				if(outputCache != null) {
+					outputCache.put(filename, fingerprints.get(filename));
+				}
+				println("  " + filename + " を出力しました。");
+			}
+		} finally {
+			executor.shutdownNow();
+			if(outputCache != null) {
+				outputCache.save();
+			}
+		}
+		return bs;
+	}
+
+	/** 帳簿と決算書の計算済みのデータを出力します。
+	 * PDFを作成しないため、フォントは使用しません。
+	 *
+	 * @param outputDir 出力先フォルダー
+	 * @param pagination 仕訳帳と総勘定元帳のページ割り付け（総勘定元帳の仕丁に使用します）
+	 * @param monthlyTotals 勘定科目ごとの月別集計
+	 * @return 貸借対照表（決算処理をおこなっていない場合は null）
+	 * @throws IOException I/Oエラーが発生した場合
+	 */
+	private BalanceSheet writeDataTo(Path outputDir, Pagination pagination, MonthlyTotals monthlyTotals) throws IOException {
+		DataExporter exporter = new DataExporter(exportFormat);
+		String extension = "." + exportFormat.getExtension();
+
+		GeneralLedger generalLedger = new GeneralLedger(accountTitles, journalEntries, isSoloProprietorship, showMonthlyTotal, pagination, monthlyTotals);
+		exporter.writeGeneralLedger(generalLedger, outputDir.resolve("総勘定元帳" + extension));
+		println("  総勘定元帳" + extension + " を出力しました。");
+
+		//締切仕訳を除いた合計残高試算表
+		TrialBalance trialBalance = new TrialBalance();
+		for(JournalEntry entry : journalEntries) {
+			if(!entry.isClosing()) {
+				trialBalance.add(entry);
+			}
+		}
+		exporter.writeTrialBalance(trialBalance, accountTitles, outputDir.resolve("合計残高試算表" + extension));
+		println("  合計残高試算表" + extension + " を出力しました。");
+
+		if(!isSettled) {
+			return null;
+		}
+
+		ProfitAndLoss pl = new ProfitAndLoss(accountTitlesLoader.getProfitAndLossLayout(), journalEntries, isSoloProprietorship, monthlyTotals);
+		exporter.writeProfitAndLoss(pl, outputDir.resolve("損益計算書" + extension));
+		println("  損益計算書" + extension + " を出力しました。");
+		exporter.writeMonthlyTotals(pl, outputDir.resolve("月別売上仕入金額" + extension));
+		println("  月別売上仕入金額" + extension + " を出力しました。");
+
+		BalanceSheet bs = getBalanceSheet();
+		exporter.writeBalanceSheet(bs, outputDir.resolve("貸借対照表" + extension));
+		println("  貸借対照表" + extension + " を出力しました。");
+		return bs;
+	}
+
+	/** 複数年度の比較損益計算書と比較貸借対照表のデータを出力します。
+	 * すべての年度の決算済みの仕訳を 1回だけ走査して勘定科目ごと・年度ごとに集計し、金額は年度ごとの列に出力します。
+	 * 損益計算書と貸借対照表の構成は、最後の年度の勘定科目.yml を使用します。
+	 *
+	 * @param fiscalYears 古い年度から順に並んだ決算済みの会計年度のリスト
+	 * @param exportFormat 出力形式
+	 * @param outputDir 出力先フォルダー
+	 * @return 出力したファイルのリスト
+	 * @throws IOException I/Oエラーが発生した場合
+	 */
+	public static List<Path> writeComparativeDataTo(List<FiscalYear> fiscalYears, DataExporter.Format exportFormat, Path outputDir) throws IOException {
+		List<List<JournalEntry>> journalEntriesByPeriod = new ArrayList<>();
+		for(FiscalYear fiscalYear : fiscalYears) {
+			if(!fiscalYear.isSettled) {
+				throw new IllegalStateException("決算処理が実行されていません。");
+			}
+			journalEntriesByPeriod.add(fiscalYear.journalEntries);
+		}
+		FiscalYear lastYear = fiscalYears.get(fiscalYears.size() - 1);
+		ComparativeTotals totals = new ComparativeTotals(journalEntriesByPeriod, lastYear.isSoloProprietorship);
+
+		DataExporter exporter = new DataExporter(exportFormat);
+		String extension = "." + exportFormat.getExtension();
+		List<Path> paths = new ArrayList<>();
+
+		ComparativeProfitAndLoss pl = new ComparativeProfitAndLoss(lastYear.accountTitlesLoader.getProfitAndLossLayout(), totals);
+		Path plPath = outputDir.resolve("比較損益計算書" + extension);
+		exporter.writeComparativeProfitAndLoss(pl, plPath);
+		paths.add(plPath);
+
+		ComparativeBalanceSheet bs = new ComparativeBalanceSheet(lastYear.accountTitlesLoader.getBalanceSheetLayout(), totals);
+		Path bsPath = outputDir.resolve("比較貸借対照表" + extension);
+		exporter.writeComparativeBalanceSheet(bs, bsPath);
+		paths.add(bsPath);
+
+		return paths;
+	}
+
+	/** 帳簿と決算書のHTMLプレビューを出力します。
+	 * PDFを作成しないため、フォントは使用しません。
+	 *
+	 * @param outputDir 出力先フォルダー
+	 * @param pagination 仕訳帳と総勘定元帳のページ割り付け
+	 * @param monthlyTotals 勘定科目ごとの月別集計
+	 * @return 貸借対照表（決算処理をおこなっていない場合は null）
+	 * @throws IOException I/Oエラーが発生した場合
+	 */
+	private BalanceSheet writeHtmlTo(Path outputDir, Pagination pagination, MonthlyTotals monthlyTotals) throws IOException {
+		GeneralJournal generalJournal = new GeneralJournal(journalEntries, isSoloProprietorship, pagination);
+		htmlPreview.writeGeneralJournal(generalJournal, outputDir.resolve("仕訳帳.html"));
+		println("  仕訳帳.html を出力しました。");
+
+		GeneralLedger generalLedger = new GeneralLedger(accountTitles, journalEntries, isSoloProprietorship, showMonthlyTotal, pagination, monthlyTotals);
+		htmlPreview.writeGeneralLedger(generalLedger, outputDir.resolve("総勘定元帳.html"));
+		println("  総勘定元帳.html を出力しました。");
+
+		if(!isSettled) {
+			return null;
+		}
+
+		ProfitAndLoss pl = new ProfitAndLoss(accountTitlesLoader.getProfitAndLossLayout(), journalEntries, isSoloProprietorship, monthlyTotals);
+		pl.setMinusSign(minusSign);
+		htmlPreview.writeProfitAndLoss(pl, outputDir.resolve("損益計算書.html"));
+		println("  損益計算書.html を出力しました。");
+
+		BalanceSheet bs = getBalanceSheet();
+		bs.setMinusSign(minusSign);
+		htmlPreview.writeBalanceSheet(bs, outputDir.resolve("貸借対照表.html"));
+		println("  貸借対照表.html を出力しました。");
+		return bs;
+	}
+
+	/** 帳簿・決算書の入力のフィンガープリントを求めます。
+	 * 仕訳、勘定科目、決算書の構成、帳簿・決算書の印字に影響するオプションが同じであれば同じ値になります。
+	 *
+	 * @param filename 帳簿・決算書のファイル名
+	 * @param inputFingerprint すべての帳簿・決算書に共通する入力のフィンガープリント（getInputFingerprint で求めた値）
+	 * @param layoutYaml 決算書の構成（仕訳帳と総勘定元帳の場合は null）
+	 * @return フィンガープリントの値
+	 */
+	private static String getFingerprint(String filename, String inputFingerprint, String layoutYaml) {
+		return new Fingerprint(filename)
+				.add(inputFingerprint)
+				.add(layoutYaml)
+				.getValue();
+	}
+
+	/** すべての帳簿・決算書に共通する入力のフィンガープリントを求めます。
+	 * 仕訳、勘定科目、帳簿・決算書の印字に影響するオプションが同じであれば同じ値になります。
+	 * 仕訳と勘定科目を YAML にしてハッシュ値を求めるため、帳簿・決算書ごとではなく出力のたびに 1度だけ求めます。
+	 *
+	 * @return フィンガープリントの値
+	 * @throws IOException I/Oエラーが発生した場合
+	 */
+	private String getInputFingerprint() throws IOException {
+		Fingerprint fingerprint = new Fingerprint("入力")
+				.add(Util.getPdfCreator())
+				.add(getFontName("serif"))
+				.add(getFontName("sans-serif"))
+				.add(isSoloProprietorship)
+				.add(isSettled)
+				.add(showMonthlyTotal)
+				.add(minusSign)
+				.add(AccountTitlesLoader.getYaml(accountTitles))
+				.add(dailyTotalAccountTitles.size());
+		for(AccountTitle accountTitle : dailyTotalAccountTitles) {
+			fingerprint.add(accountTitle.getDisplayName());
+		}
+		for(JournalEntry entry : journalEntries) {
+			fingerprint.add(entry.getYaml());
+		}
+		return fingerprint.getValue();
+	}
+
+	private String getFontName(String name) throws IOException {
+		if(fontLoader == null || fontLoader.getFont(name) == null) {
+			return null;
+		}
+		return fontLoader.getFont(name).getName();
+	}
+
+	private void println(String s) {
+		if(out != null) {
+			out.println(s);
+		}
+	}
+}
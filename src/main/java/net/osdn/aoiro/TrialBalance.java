@@ -0,0 +1,263 @@
+package net.osdn.aoiro;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import net.osdn.aoiro.model.Account;
+import net.osdn.aoiro.model.AccountTitle;
+import net.osdn.aoiro.model.Amount;
+import net.osdn.aoiro.model.Creditor;
+import net.osdn.aoiro.model.Debtor;
+import net.osdn.aoiro.model.JournalEntry;
+
+/** 合計試算表
+ * 勘定科目ごとの借方合計と貸方合計を保持します。
+ * 仕訳の追加・削除・変更は差分として反映されるため、仕訳を 1件編集するたびに全仕訳を再集計する必要はありません。
+ * 残高が変わった勘定科目はリスナーに通知されます。
+ *
+ */
+public class TrialBalance {
+
+	/** 合計試算表の変更を受け取るリスナー
+	 *
+	 */
+	public interface Listener {
+
+		/** 合計試算表の残高が変更されたときに呼び出されます。
+		 *
+		 * @param trialBalance 変更された合計試算表
+		 * @param accountTitles 残高が変更された勘定科目のセット
+		 */
+		void trialBalanceChanged(TrialBalance trialBalance, Set<AccountTitle> accountTitles);
+	}
+
+	private static final int INITIAL_CAPACITY = 64;
+
+	/** 勘定科目から配列のインデックスを引くためのマップ */
+	private Map<AccountTitle, Integer> indexes = new HashMap<>();
+
+	/** インデックス順の勘定科目 */
+	private AccountTitle[] accountTitles = new AccountTitle[INITIAL_CAPACITY];
+
+	/** インデックス順の借方合計 */
+	private long[] debtorTotals = new long[INITIAL_CAPACITY];
+
+	/** インデックス順の貸方合計 */
+	private long[] creditorTotals = new long[INITIAL_CAPACITY];
+
+	/** 登録されている勘定科目の数 */
+	private int size;
+
+	private List<Listener> listeners = new ArrayList<>();
+
+	public TrialBalance() {
+	}
+
+	/** 指定した仕訳リストを集計した合計試算表を作成します。
+	 *
+	 * @param journalEntries 仕訳リスト
+	 */
+	public TrialBalance(Collection<JournalEntry> journalEntries) {
+		for(JournalEntry entry : journalEntries) {
+			apply(entry, +1);
+		}
+	}
+
+	/** 合計試算表の変更を受け取るリスナーを追加します。
+	 *
+	 * @param listener リスナー
+	 */
+	public void addListener(Listener listener) {
+		if(listener != null && !listeners.contains(listener)) {
+			listeners.add(listener);
+		}
+	}
+
+	/** 合計試算表の変更を受け取るリスナーを削除します。
+	 *
+	 * @param listener リスナー
+	 */
+	public void removeListener(Listener listener) {
+		listeners.remove(listener);
+	}
+
+	/** 仕訳を合計試算表に加算します。
+	 *
+	 * @param entry 仕訳
+	 */
+	public void add(JournalEntry entry) {
+		fireChanged(apply(entry, +1));
+	}
+
+	/** 複数の仕訳を合計試算表に加算します。
+	 * リスナーへの通知はすべての仕訳を加算した後に 1回だけ行われます。
+	 *
+	 * @param entries 仕訳のコレクション
+	 */
+	public void addAll(Collection<JournalEntry> entries) {
+		Set<AccountTitle> changed = new LinkedHashSet<>();
+		for(JournalEntry entry : entries) {
+			changed.addAll(apply(entry, +1));
+		}
+		fireChanged(changed);
+	}
+
+	/** 仕訳を合計試算表から減算します。
+	 * 加算したときと同じ内容の仕訳を指定する必要があります。
+	 *
+	 * @param entry 仕訳
+	 */
+	public void remove(JournalEntry entry) {
+		fireChanged(apply(entry, -1));
+	}
+
+	/** 仕訳の変更を合計試算表に反映します。
+	 * 変更前の仕訳を減算し、変更後の仕訳を加算します。
+	 *
+	 * @param oldEntry 変更前の仕訳
+	 * @param newEntry 変更後の仕訳
+	 */
+	public void update(JournalEntry oldEntry, JournalEntry newEntry) {
+		Set<AccountTitle> changed = new LinkedHashSet<>();
+		if(oldEntry != null) {
+			changed.addAll(apply(oldEntry, -1));
+		}
+		if(newEntry != null) {
+			changed.addAll(apply(newEntry, +1));
+		}
+		fireChanged(changed);
+	}
+
+	/** 合計試算表に含まれている勘定科目のセットを返します。
+	 * 勘定科目は初めて集計された順に並んでいます。
+	 *
+	 * @return 勘定科目のセット
+	 */
+	public Set<AccountTitle> getAccountTitles() {
+		return Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(accountTitles).subList(0, size)));
+	}
+
+	/** 合計試算表に指定した勘定科目が含まれているかどうかを返します。
+	 *
+	 * @param accountTitle 勘定科目
+	 * @return 勘定科目が含まれている場合は true、そうでなければ false を返します。
+	 */
+	public boolean contains(AccountTitle accountTitle) {
+		return indexes.containsKey(accountTitle);
+	}
+
+	/** 指定した勘定科目の借方合計を返します。
+	 *
+	 * @param accountTitle 勘定科目
+	 * @return 借方合計
+	 */
+	public long getDebtorTotal(AccountTitle accountTitle) {
+		Integer i = indexes.get(accountTitle);
+		return i != null ? debtorTotals[i] : 0;
+	}
+
+	/** 指定した勘定科目の貸方合計を返します。
+	 *
+	 * @param accountTitle 勘定科目
+	 * @return 貸方合計
+	 */
+	public long getCreditorTotal(AccountTitle accountTitle) {
+		Integer i = indexes.get(accountTitle);
+		return i != null ? creditorTotals[i] : 0;
+	}
+
+	/** 指定した勘定科目の残高を返します。
+	 * 残高は勘定科目のノーマルバランスで計算されます。
+	 * 資産・費用は借方合計-貸方合計、負債・資本・収益は貸方合計-借方合計となります。
+	 *
+	 * @param accountTitle 勘定科目
+	 * @return 残高
+	 */
+	public long getBalance(AccountTitle accountTitle) {
+		Integer i = indexes.get(accountTitle);
+		if(i == null) {
+			return 0;
+		}
+		if(accountTitle.getType() != null && accountTitle.getType().getNormalBalance() == Creditor.class) {
+			return creditorTotals[i] - debtorTotals[i];
+		} else {
+			return debtorTotals[i] - creditorTotals[i];
+		}
+	}
+
+	/** 指定した勘定科目の残高を勘定科目のノーマルバランスで返します。
+	 *
+	 * @param accountTitle 勘定科目
+	 * @return 勘定科目が合計試算表に含まれている場合は残高、そうでなければ null を返します。
+	 */
+	public Amount getAmount(AccountTitle accountTitle) {
+		if(!indexes.containsKey(accountTitle)) {
+			return null;
+		}
+		Class<? extends Account> normalBalance = Debtor.class;
+		if(accountTitle.getType() != null) {
+			normalBalance = accountTitle.getType().getNormalBalance();
+		}
+		return new Amount(normalBalance, getBalance(accountTitle));
+	}
+
+	/** 仕訳の借方・貸方を符号付きで合計に反映します。
+	 *
+	 * @param entry 仕訳
+	 * @param sign 加算する場合は +1、減算する場合は -1
+	 * @return 合計が変更された勘定科目のセット
+	 */
+	private Set<AccountTitle> apply(JournalEntry entry, int sign) {
+		Set<AccountTitle> changed = new LinkedHashSet<>();
+		for(Debtor debtor : entry.getDebtors()) {
+			int i = indexOf(debtor.getAccountTitle());
+			debtorTotals[i] += sign * debtor.getAmount();
+			changed.add(debtor.getAccountTitle());
+		}
+		for(Creditor creditor : entry.getCreditors()) {
+			int i = indexOf(creditor.getAccountTitle());
+			creditorTotals[i] += sign * creditor.getAmount();
+			changed.add(creditor.getAccountTitle());
+		}
+		return changed;
+	}
+
+	/** 勘定科目のインデックスを返します。
+	 * 勘定科目がまだ登録されていない場合は新しいインデックスを割り当てます。
+	 *
+	 * @param accountTitle 勘定科目
+	 * @return インデックス
+	 */
+	private int indexOf(AccountTitle accountTitle) {
+		Integer i = indexes.get(accountTitle);
+		if(i == null) {
+			if(size == accountTitles.length) {
+				int capacity = size * 2;
+				accountTitles = Arrays.copyOf(accountTitles, capacity);
+				debtorTotals = Arrays.copyOf(debtorTotals, capacity);
+				creditorTotals = Arrays.copyOf(creditorTotals, capacity);
+			}
+			i = size++;
+			accountTitles[i] = accountTitle;
+			indexes.put(accountTitle, i);
+		}
+		return i;
+	}
+
+	private void fireChanged(Set<AccountTitle> changed) {
+		if(changed.isEmpty()) {
+			return;
+		}
+		Set<AccountTitle> accountTitles = Collections.unmodifiableSet(changed);
+		for(Listener listener : new ArrayList<>(listeners)) {
+			listener.trialBalanceChanged(this, accountTitles);
+		}
+	}
+}
@@ -1,18 +1,23 @@
 package net.osdn.aoiro;
 
+import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.net.URI;
 import java.net.URL;
 import java.nio.file.Path;
 import java.security.CodeSource;
 import java.security.ProtectionDomain;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 public class Util {
 
+	// 同じプロセスで複数の会計年度を並行して処理できるように、以下のフィールドは Util.class で同期してアクセスします。
 	private static Path appDir;
 	private static String pdfCreatorName;
 	private static String pdfCreatorVersion;
 	
-	public static Path getApplicationDirectory() {
+	public static synchronized Path getApplicationDirectory() {
 		if(appDir == null) {
 			appDir = getApplicationDirectory(Util.class);
 		}
@@ -55,12 +60,12 @@ public class Util {
 		return version;
 	}
 
-	public static void setPdfCreator(String name, String version) {
+	public static synchronized void setPdfCreator(String name, String version) {
 		Util.pdfCreatorName = name;
 		Util.pdfCreatorVersion = version;
 	}
 
-	public static String getPdfCreator() {
+	public static synchronized String getPdfCreator() {
 		String name = Util.pdfCreatorName;
 		if(name == null) {
 			name = "aoiro";
@@ -84,4 +89,31 @@ public class Util {
 			return name + " " + version;
 		}
 	}
+
+	/** 非同期処理の結果を待って取得します。
+	 * 非同期処理で発生した例外（I/Oエラー、実行時例外、エラー）はそのままスローされます。
+	 * それ以外の例外は I/Oエラーとしてスローされます。
+	 *
+	 * @param future 非同期処理
+	 * @return 非同期処理の結果
+	 * @throws IOException I/Oエラーが発生した場合、または待機中に割り込まれた場合
+	 */
+	public static <T> T get(Future<T> future) throws IOException {
+		try {
+			return future.get();
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		} catch(ExecutionException e) {
+			Throwable cause = e.getCause();
+			if(cause instanceof IOException) {
+				throw (IOException)cause;
+			} else if(cause instanceof RuntimeException) {
+				throw (RuntimeException)cause;
+			} else if(cause instanceof Error) {
+				throw (Error)cause;
+			}
+			throw new IOException(cause);
+		}
+	}
 }
@@ -0,0 +1,412 @@
+package net.osdn.aoiro.cui;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.pdfbox.io.MemoryUsageSetting;
+
+import net.osdn.aoiro.ErrorMessage;
+import net.osdn.aoiro.FiscalYear;
+import net.osdn.aoiro.Util;
+import net.osdn.aoiro.report.DataExporter;
+import net.osdn.aoiro.report.SharedFontLoader;
+
+import static net.osdn.aoiro.ErrorMessage.error;
+
+/** 一括処理
+ * 複数の顧客の仕訳データファイルを 1つのプロセスでまとめて決算し、帳簿と決算書を出力します。
+ * 指定したフォルダー以下から仕訳データファイルを探して、並列数を制限したスレッドプールで顧客ごとに処理します。
+ *
+ * フォントとテンプレートはすべての顧客で共有します。
+ * 勘定科目と家事按分は顧客ごとに読み込みます。勘定科目の構成情報には決算書の金額が設定されるため、顧客間では共有できません。
+ * ある顧客でエラーが発生しても、他の顧客の処理は続行します。
+ * すべての処理が終わると、成功・失敗と処理時間の一覧を出力します。
+ *
+ */
+public class Batch {
+
+	/** 既定の仕訳データファイル名 */
+	private static final String DEFAULT_JOURNAL_ENTRIES_FILENAME = "仕訳データ.yml";
+
+	public static void main(String[] args) {
+		boolean succeeded = false;
+		try {
+			Batch batch = new Batch();
+			List<String> filenames = new ArrayList<String>();
+			List<String> listFilenames = new ArrayList<String>();
+			String journalEntriesFilename = DEFAULT_JOURNAL_ENTRIES_FILENAME;
+			String resultFilename = null;
+
+			for (int i = 0; i < args.length; i++) {
+				if (args[i].equals("-o")) {
+					batch.skipSettlement = true;
+				} else if (args[i].equals("-m")) {
+					batch.showMonthlyTotal = true;
+				} else if (args[i].equals("-d")) {
+					if(i + 1 >= args.length) {
+						throw error(" [エラー] -d オプションには日計で印字する勘定科目をカンマ区切りで指定してください。");
+					}
+					for(String displayName : args[++i].split(",")) {
+						if(!displayName.isBlank()) {
+							batch.dailyTotalAccountTitles.add(displayName.strip());
+						}
+					}
+				} else if (args[i].equals("-p")) {
+					batch.isSoloProprietorship = Boolean.TRUE;
+				} else if (args[i].equals("-c")) {
+					batch.isSoloProprietorship = Boolean.FALSE;
+				} else if (args[i].equals("-s")) {
+					//メインメモリの使用量を最大 16MB に制限し、それを超えるデータは一時ファイルに保存します。
+					batch.memUsageSetting = MemoryUsageSetting.setupMixed(16L * 1024 * 1024);
+				} else if (args[i].equals("-i")) {
+					batch.outputCacheEnabled = true;
+				} else if (args[i].equals("-b")) {
+					batch.bundleEnabled = true;
+				} else if (args[i].equals("-e")) {
+					batch.exportFormat = (i + 1 < args.length) ? DataExporter.Format.of(args[++i]) : null;
+					if(batch.exportFormat == null) {
+						throw error(" [エラー] -e オプションには出力形式 csv、tsv、json のいずれかを指定してください。");
+					}
+				} else if (args[i].equals("-v")) {
+					batch.htmlPreviewEnabled = true;
+					if(i + 1 < args.length && args[i + 1].matches("[0-9]+")) {
+						batch.htmlPreviewMaxRows = Integer.parseInt(args[++i]);
+					}
+				} else if (args[i].equals("-j")) {
+					if(i + 1 >= args.length || !args[i + 1].matches("[0-9]+") || Integer.parseInt(args[i + 1]) == 0) {
+						throw error(" [エラー] -j オプションには 1 以上の並列数を指定してください。");
+					}
+					batch.nThreads = Integer.parseInt(args[++i]);
+				} else if (args[i].equals("-n")) {
+					if(i + 1 >= args.length) {
+						throw error(" [エラー] -n オプションには仕訳データファイルの名前を指定してください。");
+					}
+					journalEntriesFilename = args[++i];
+				} else if (args[i].equals("-l")) {
+					if(i + 1 >= args.length) {
+						throw error(" [エラー] -l オプションには顧客フォルダーの一覧ファイルを指定してください。");
+					}
+					listFilenames.add(args[++i]);
+				} else if (args[i].equals("-r")) {
+					if(i + 1 >= args.length) {
+						throw error(" [エラー] -r オプションには処理結果を出力するファイルを指定してください。");
+					}
+					resultFilename = args[++i];
+				} else {
+					filenames.add(args[i]);
+				}
+			}
+
+			if(filenames.isEmpty() && listFilenames.isEmpty()) {
+				if(System.getProperty("java.application.name") != null) {
+					System.out.println("Usage: aoiro.exe batch <options> <顧客フォルダー> [<顧客フォルダー> ...]");
+				} else {
+					System.out.println("Usage: java -jar aoiro.jar batch <options> <顧客フォルダー> [<顧客フォルダー> ...]");
+				}
+				System.out.println("Options:");
+				System.out.println("  -j <並列数>");
+				System.out.println("        同時に処理する顧客の数を指定します。（既定値: CPUのコア数）");
+				System.out.println("  -n <ファイル名>");
+				System.out.println("        顧客フォルダーから探す仕訳データファイルの名前を指定します。（既定値: " + DEFAULT_JOURNAL_ENTRIES_FILENAME + "）");
+				System.out.println("  -l <一覧ファイル>");
+				System.out.println("        顧客フォルダー（または仕訳データファイル）を 1行に 1つずつ記述したファイルを指定します。# で始まる行は無視します。");
+				System.out.println("  -r <結果ファイル>");
+				System.out.println("        顧客ごとの成功・失敗と処理時間をタブ区切りのテキストファイルに出力します。");
+				System.out.println("  -o -m -d -p -c -s -i -b -e -v");
+				System.out.println("        すべての顧客に適用します。各オプションの説明は batch を指定せずに実行すると表示されます。");
+				System.out.println();
+				System.out.println("顧客フォルダーはサブフォルダーも含めて仕訳データファイルを探し、見つかったファイルをそれぞれ 1つの会計年度として処理します。");
+				System.out.println("勘定科目.yml と 家事按分.yml は仕訳データファイルと同じフォルダー（なければ既定のフォルダー）から読み込みます。");
+				System.out.println();
+				return;
+			}
+
+			Set<Path> journalEntryPaths = new LinkedHashSet<Path>();
+			for(String filename : filenames) {
+				journalEntryPaths.addAll(findJournalEntryPaths(Paths.get(filename), journalEntriesFilename));
+			}
+			for(String listFilename : listFilenames) {
+				Path listPath = Paths.get(listFilename);
+				if(!Files.isRegularFile(listPath)) {
+					throw error(" [エラー] ファイルが見つかりません: " + listPath);
+				}
+				Path baseDir = listPath.toAbsolutePath().getParent();
+				for(String line : Files.readAllLines(listPath, StandardCharsets.UTF_8)) {
+					line = line.strip();
+					if(line.isEmpty() || line.startsWith("#")) {
+						continue;
+					}
+					journalEntryPaths.addAll(findJournalEntryPaths(baseDir.resolve(line), journalEntriesFilename));
+				}
+			}
+			if(journalEntryPaths.isEmpty()) {
+				throw error(" [エラー] 仕訳データファイルが見つかりません: " + journalEntriesFilename);
+			}
+
+			List<Result> results = batch.process(new ArrayList<Path>(journalEntryPaths));
+			printSummary(results, batch.nThreads);
+			if(resultFilename != null) {
+				writeResults(Paths.get(resultFilename), results);
+			}
+			succeeded = results.stream().allMatch(Result::isSucceeded);
+		} catch(ErrorMessage e) {
+			System.err.println("\r\n" + e.getMessage() + "\r\n");
+		} catch(Exception e) {
+			System.err.println();
+			e.printStackTrace();
+		}
+		if(!succeeded) {
+			System.exit(1);
+		}
+	}
+
+	private boolean skipSettlement;
+	private boolean showMonthlyTotal;
+	private List<String> dailyTotalAccountTitles = new ArrayList<String>();
+	private MemoryUsageSetting memUsageSetting;
+	private boolean outputCacheEnabled;
+	private boolean bundleEnabled;
+	private DataExporter.Format exportFormat;
+	private boolean htmlPreviewEnabled;
+	private int htmlPreviewMaxRows;
+	private Boolean isSoloProprietorship;
+	private int nThreads = Runtime.getRuntime().availableProcessors();
+
+	/** すべての顧客で共有するフォント（データやHTMLを出力する場合は null。すべての顧客の処理が終わると閉じます） */
+	private SharedFontLoader fontLoader;
+
+	/** 仕訳データファイルを顧客ごとに処理します。
+	 * 処理が終わった顧客から順に、成功・失敗と処理時間をコンソールに出力します。
+	 * 失敗した顧客は、その顧客の処理中に出力されたメッセージも合わせて出力します。
+	 *
+	 * @param journalEntryPaths 仕訳データファイルのリスト
+	 * @return 仕訳データファイルと同じ順序の処理結果のリスト
+	 * @throws Exception 顧客ごとのエラー以外のエラーが発生した場合
+	 */
+	private List<Result> process(List<Path> journalEntryPaths) throws Exception {
+		if(exportFormat == null && !htmlPreviewEnabled) {
+			fontLoader = Main.createFontLoader();
+		}
+
+		System.out.println(journalEntryPaths.size() + "件の仕訳データファイルを並列数 " + nThreads + " で処理します。");
+		System.out.println();
+
+		List<Result> results = new ArrayList<Result>();
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(nThreads, journalEntryPaths.size()));
+		try {
+			CompletionService<Result> completionService = new ExecutorCompletionService<Result>(executor);
+			for(int i = 0; i < journalEntryPaths.size(); i++) {
+				int index = i;
+				Path journalEntryPath = journalEntryPaths.get(i);
+				completionService.submit(() -> process(index, journalEntryPath));
+			}
+			for(int i = 0; i < journalEntryPaths.size(); i++) {
+				Result result = Util.get(completionService.take());
+				results.add(result);
+				System.out.println(" (" + (i + 1) + "/" + journalEntryPaths.size() + ") "
+						+ (result.isSucceeded() ? "成功" : "失敗") + " " + formatSeconds(result.millis) + " | " + result.journalEntryPath);
+				if(!result.isSucceeded()) {
+					System.out.print(result.log);
+					System.out.println(result.errorMessage);
+					System.out.println();
+				}
+			}
+		} finally {
+			executor.shutdownNow();
+			if(fontLoader != null) {
+				//共有するフォントは、実行中の帳簿と決算書の作成が終わってから閉じます。
+				executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+				fontLoader.close();
+				fontLoader = null;
+			}
+		}
+
+		results.sort(Comparator.comparingInt(result -> result.index));
+		return results;
+	}
+
+	/** 1つの仕訳データファイルを決算し、帳簿と決算書を仕訳データファイルと同じフォルダーに出力します。
+	 * 処理中のメッセージは顧客ごとにまとめて、処理結果に格納されます。
+	 *
+	 * @param index 仕訳データファイルのリストでのインデックス
+	 * @param journalEntryPath 仕訳データファイル
+	 * @return 処理結果
+	 */
+	private Result process(int index, Path journalEntryPath) {
+		ByteArrayOutputStream buf = new ByteArrayOutputStream();
+		PrintStream out = new PrintStream(buf, true, StandardCharsets.UTF_8);
+		String errorMessage = null;
+		long start = System.nanoTime();
+		try {
+			boolean isSoloProprietorship = (this.isSoloProprietorship != null)
+					? this.isSoloProprietorship : Main.isSoloProprietorship(journalEntryPath);
+			FiscalYear fiscalYear = Main.load(journalEntryPath, isSoloProprietorship, out);
+			fiscalYear.setSkipSettlement(skipSettlement);
+			fiscalYear.setShowMonthlyTotal(showMonthlyTotal);
+			fiscalYear.setDailyTotalAccountTitles(dailyTotalAccountTitles);
+			fiscalYear.setMemoryUsageSetting(memUsageSetting);
+			fiscalYear.setOutputCacheEnabled(outputCacheEnabled);
+			fiscalYear.setBundleEnabled(bundleEnabled);
+			fiscalYear.setExportFormat(exportFormat);
+			fiscalYear.setHtmlPreviewEnabled(htmlPreviewEnabled, htmlPreviewMaxRows);
+			fiscalYear.setPrintStream(out);
+
+			//決算
+			fiscalYear.settle();
+
+			//帳簿と決算書
+			fiscalYear.setFontLoader(fontLoader);
+			fiscalYear.writeTo(journalEntryPath.getParent());
+		} catch(ErrorMessage e) {
+			errorMessage = e.getMessage();
+		} catch(Exception e) {
+			e.printStackTrace(out);
+			errorMessage = " [エラー] " + e;
+		}
+		long millis = (System.nanoTime() - start) / 1000000;
+		out.flush();
+		return new Result(index, journalEntryPath, errorMessage, millis, buf.toString(StandardCharsets.UTF_8));
+	}
+
+	/** 指定したフォルダー以下（サブフォルダーを含む）から仕訳データファイルを探します。
+	 * 名前が . で始まるフォルダー（出力キャッシュの .aoiro など）は探しません。
+	 * ファイルを指定した場合は、そのファイルを仕訳データファイルとして返します。
+	 *
+	 * @param path 顧客フォルダーまたは仕訳データファイル
+	 * @param journalEntriesFilename 仕訳データファイルの名前
+	 * @return 見つかった仕訳データファイルのリスト（パス順）
+	 * @throws IOException I/Oエラーが発生した場合
+	 */
+	private static List<Path> findJournalEntryPaths(Path path, String journalEntriesFilename) throws IOException {
+		path = path.toAbsolutePath().normalize();
+		List<Path> journalEntryPaths = new ArrayList<Path>();
+		if(Files.isRegularFile(path)) {
+			journalEntryPaths.add(path);
+			return journalEntryPaths;
+		}
+		if(!Files.isDirectory(path)) {
+			throw error(" [エラー] フォルダーが見つかりません: " + path);
+		}
+		Path root = path;
+		Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+			@Override
+			public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+				if(!dir.equals(root) && dir.getFileName().toString().startsWith(".")) {
+					return FileVisitResult.SKIP_SUBTREE;
+				}
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+				if(attrs.isRegularFile() && file.getFileName().toString().equals(journalEntriesFilename)) {
+					journalEntryPaths.add(file);
+				}
+				return FileVisitResult.CONTINUE;
+			}
+		});
+		journalEntryPaths.sort(null);
+		return journalEntryPaths;
+	}
+
+	/** 処理結果の集計と失敗した顧客の一覧をコンソールに出力します。
+	 *
+	 * @param results 処理結果のリスト
+	 * @param nThreads 並列数
+	 */
+	private static void printSummary(List<Result> results, int nThreads) {
+		long succeeded = results.stream().filter(Result::isSucceeded).count();
+		long failed = results.size() - succeeded;
+		long totalMillis = results.stream().mapToLong(r -> r.millis).sum();
+		Result slowest = results.stream().max((r1, r2) -> Long.compare(r1.millis, r2.millis)).get();
+
+		System.out.println();
+		System.out.println("一括処理の結果: 成功 " + succeeded + "件、失敗 " + failed + "件（合計 " + results.size() + "件）");
+		System.out.println(" 処理時間の合計 " + formatSeconds(totalMillis) + "（並列数 " + nThreads + "）");
+		System.out.println(" 最も時間がかかった顧客 " + formatSeconds(slowest.millis) + " | " + slowest.journalEntryPath);
+		if(failed > 0) {
+			System.out.println();
+			System.out.println("失敗した顧客:");
+			for(Result result : results) {
+				if(!result.isSucceeded()) {
+					System.out.println(" " + result.journalEntryPath);
+					System.out.println(" " + result.errorMessage.strip());
+				}
+			}
+		}
+		System.out.println();
+	}
+
+	/** 顧客ごとの処理結果をタブ区切りのテキストファイルに出力します。
+	 * 列は 結果、処理時間（ミリ秒）、仕訳データファイル、エラーメッセージ の順です。
+	 *
+	 * @param file 出力先のファイル
+	 * @param results 処理結果のリスト
+	 * @throws IOException I/Oエラーが発生した場合
+	 */
+	private static void writeResults(Path file, List<Result> results) throws IOException {
+		StringBuilder sb = new StringBuilder();
+		sb.append("結果\t処理時間\t仕訳データファイル\tエラー\r\n");
+		for(Result result : results) {
+			sb.append(result.isSucceeded() ? "成功" : "失敗");
+			sb.append('\t');
+			sb.append(result.millis);
+			sb.append('\t');
+			sb.append(result.journalEntryPath);
+			sb.append('\t');
+			if(!result.isSucceeded()) {
+				sb.append(result.errorMessage.strip().replaceAll("\\s*[\\r\\n\\t]+\\s*", " "));
+			}
+			sb.append("\r\n");
+		}
+		Files.writeString(file, sb.toString(), StandardCharsets.UTF_8);
+		System.out.println("処理結果を出力しました: " + file.toAbsolutePath().normalize());
+	}
+
+	private static String formatSeconds(long millis) {
+		return (millis / 1000) + "." + (millis % 1000 / 100) + "秒";
+	}
+
+	/** 顧客ごとの処理結果 */
+	private static class Result {
+		/** 仕訳データファイルのリストでのインデックス（処理結果を入力と同じ順序に並べ替えるために使用します） */
+		private final int index;
+		private final Path journalEntryPath;
+		/** エラーメッセージ（成功した場合は null） */
+		private final String errorMessage;
+		/** 処理時間（ミリ秒） */
+		private final long millis;
+		/** 処理中に出力されたメッセージ */
+		private final String log;
+
+		private Result(int index, Path journalEntryPath, String errorMessage, long millis, String log) {
+			this.index = index;
+			this.journalEntryPath = journalEntryPath;
+			this.errorMessage = errorMessage;
+			this.millis = millis;
+			this.log = log;
+		}
+
+		private boolean isSucceeded() {
+			return errorMessage == null;
+		}
+	}
+}
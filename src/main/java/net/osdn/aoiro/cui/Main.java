@@ -1,18 +1,27 @@
 package net.osdn.aoiro.cui;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.PrintStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.pdfbox.io.MemoryUsageSetting;
 
-import net.osdn.aoiro.AccountSettlement;
 import net.osdn.aoiro.ErrorMessage;
+import net.osdn.aoiro.FiscalYear;
 import net.osdn.aoiro.Util;
 import net.osdn.aoiro.loader.yaml.AccountTitlesLoader;
 import net.osdn.aoiro.loader.yaml.JournalEntriesLoader;
@@ -20,14 +29,8 @@ import net.osdn.aoiro.loader.yaml.ProportionalDivisionsLoader;
 import net.osdn.aoiro.model.AccountTitle;
 import net.osdn.aoiro.model.JournalEntry;
 import net.osdn.aoiro.model.ProportionalDivision;
-import net.osdn.aoiro.report.BalanceSheet;
-import net.osdn.aoiro.report.GeneralJournal;
-import net.osdn.aoiro.report.GeneralLedger;
-import net.osdn.aoiro.report.ProfitAndLoss;
-import net.osdn.aoiro.report.StatementOfChangesInEquity;
-import net.osdn.aoiro.report.layout.BalanceSheetLayout;
-import net.osdn.aoiro.report.layout.ProfitAndLossLayout;
-import net.osdn.aoiro.report.layout.StatementOfChangesInEquityLayout;
+import net.osdn.aoiro.report.DataExporter;
+import net.osdn.aoiro.report.SharedFontLoader;
 import net.osdn.pdf_brewer.FontLoader;
 
 import static net.osdn.aoiro.ErrorMessage.error;
@@ -38,206 +41,377 @@ public class Main {
 
 		System.setProperty("org.apache.commons.logging.Log", "org.apache.commons.logging.impl.NoOpLog");
 		
+		if(args.length > 0 && args[0].equals("batch")) {
+			Batch.main(Arrays.copyOfRange(args, 1, args.length));
+			return;
+		}
+		if(args.length > 0 && args[0].equals("server")) {
+			Server.main(Arrays.copyOfRange(args, 1, args.length));
+			return;
+		}
+
 		try {
 			boolean skipSettlement = false;
 			boolean showMonthlyTotal = false;
+			List<String> dailyTotalAccountTitles = new ArrayList<String>();
+			MemoryUsageSetting memUsageSetting = null;
+			boolean outputCacheEnabled = false;
+			boolean bundleEnabled = false;
+			DataExporter.Format exportFormat = null;
+			boolean htmlPreviewEnabled = false;
+			int htmlPreviewMaxRows = 0;
+			boolean watchEnabled = false;
 			Boolean isSoloProprietorship = null;
-			String filename = null;
-
-			if(args.length >= 1) {
-				for (int i = 0; i < args.length; i++) {
-					if (args[i].equals("-o")) {
-						skipSettlement = true;
+			List<String> filenames = new ArrayList<String>();
+
+			for (int i = 0; i < args.length; i++) {
+				if (args[i].equals("-o")) {
+					skipSettlement = true;
+				} else if (args[i].equals("-m")) {
+					showMonthlyTotal = true;
+				} else if (args[i].equals("-d")) {
+					if(i + 1 >= args.length) {
+						throw error(" [エラー] -d オプションには日計で印字する勘定科目をカンマ区切りで指定してください。");
 					}
-					if (args[i].equals("-m")) {
-						showMonthlyTotal = true;
+					for(String displayName : args[++i].split(",")) {
+						if(!displayName.isBlank()) {
+							dailyTotalAccountTitles.add(displayName.strip());
+						}
 					}
-					if (args[i].equals("-p")) {
-						isSoloProprietorship = Boolean.TRUE;
+				} else if (args[i].equals("-p")) {
+					isSoloProprietorship = Boolean.TRUE;
+				} else if (args[i].equals("-c")) {
+					isSoloProprietorship = Boolean.FALSE;
+				} else if (args[i].equals("-s")) {
+					//メインメモリの使用量を最大 16MB に制限し、それを超えるデータは一時ファイルに保存します。
+					memUsageSetting = MemoryUsageSetting.setupMixed(16L * 1024 * 1024);
+				} else if (args[i].equals("-i")) {
+					outputCacheEnabled = true;
+				} else if (args[i].equals("-b")) {
+					bundleEnabled = true;
+				} else if (args[i].equals("-e")) {
+					exportFormat = (i + 1 < args.length) ? DataExporter.Format.of(args[++i]) : null;
+					if(exportFormat == null) {
+						throw error(" [エラー] -e オプションには出力形式 csv、tsv、json のいずれかを指定してください。");
 					}
-					if (args[i].equals("-c")) {
-						isSoloProprietorship = Boolean.FALSE;
+				} else if (args[i].equals("-v")) {
+					htmlPreviewEnabled = true;
+					if(i + 1 < args.length && args[i + 1].matches("[0-9]+")) {
+						htmlPreviewMaxRows = Integer.parseInt(args[++i]);
 					}
+				} else if (args[i].equals("-w")) {
+					watchEnabled = true;
+				} else {
+					filenames.add(args[i]);
 				}
-				filename = args[args.length - 1];
 			}
 
-			if(filename == null) {
+			if(filenames.isEmpty()) {
 				if(System.getProperty("java.application.name") != null) {
-					System.out.println("Usage: aoiro.exe <options> <仕訳データファイル>");
+					System.out.println("Usage: aoiro.exe <options> <仕訳データファイル> [<次年度の仕訳データファイル> ...]");
 				} else {
-					System.out.println("Usage: java -jar aoiro.jar <options> <仕訳データファイル>");
+					System.out.println("Usage: java -jar aoiro.jar <options> <仕訳データファイル> [<次年度の仕訳データファイル> ...]");
 				}
 				System.out.println("Options:");
 				System.out.println("  -o    決算処理をせずに仕訳帳と総勘定元帳を出力します。");
 				System.out.println("  -m    総勘定元帳に月計を印字します。");
+				System.out.println("  -d <勘定科目>[,<勘定科目> ...]");
+				System.out.println("        指定した勘定科目の総勘定元帳を日計（同じ日付の仕訳を借方・貸方ごとに 1行）で印字します。");
 				System.out.println("  -p    個人事業主用のデータファイルを使用します。");
 				System.out.println("  -c    法人用のデータファイルを使用します。");
+				System.out.println("  -s    仕訳帳と総勘定元帳の作成中のデータを一時ファイルに保存してメモリ使用量を抑えます。");
+				System.out.println("  -i    前回から変更されていない帳簿・決算書と総勘定元帳の勘定科目の作成を省略します。");
+				System.out.println("  -b    帳簿と決算書を 1つのPDFファイル（しおり付き）にまとめて出力します。");
+				System.out.println("  -e <csv|tsv|json>");
+				System.out.println("        PDFの代わりに総勘定元帳、合計残高試算表、損益計算書、貸借対照表のデータを出力します。");
+				System.out.println("  -v [<行数>]");
+				System.out.println("        PDFの代わりに確認用のHTMLを出力します。行数を指定すると仕訳帳と総勘定元帳をその行数ごとのファイルに分けます。");
+				System.out.println("  -w    仕訳データファイル、勘定科目.yml、家事按分.yml の変更を監視して、変更されるたびに帳簿と決算書を作成し直します。");
+				System.out.println("        変更されていない帳簿・決算書と総勘定元帳の勘定科目は作成を省略します。（-i オプションが有効になります）");
+				System.out.println();
+				System.out.println("仕訳データファイルを年度順に複数指定すると、前年度の期末残高を次年度の開始仕訳として引き継ぎます。");
+				System.out.println("帳簿と決算書は仕訳データファイルと同じフォルダーに出力されるため、年度ごとに別のフォルダーの仕訳データファイルを指定してください。");
+				System.out.println("次年度の仕訳データファイルに含まれている開始仕訳は、引き継いだ開始仕訳に置き換えられます。");
+				System.out.println("複数指定して -e オプションも指定すると、最後の年度のフォルダーに比較損益計算書・比較貸借対照表のデータも出力します。");
+				System.out.println();
+				System.out.println("複数の顧客フォルダーを一括で処理するには最初の引数に batch を指定します。（例: aoiro batch <フォルダー> ...）");
+				System.out.println("常駐してHTTPで帳簿と決算書を作成するには最初の引数に server を指定します。（例: aoiro server -port 8931）");
 				System.out.println();
 				pause();
 				return;
 			}
 
-			Path journalEntryPath = Paths.get(filename);
-			if(!Files.exists(journalEntryPath) || Files.isDirectory(journalEntryPath)) {
-				System.err.println("ファイルが見つかりません: " + journalEntryPath);
-				pause();
-				return;
+			List<Path> journalEntryPaths = new ArrayList<Path>();
+			for(String filename : filenames) {
+				Path journalEntryPath = Paths.get(filename);
+				if(!Files.exists(journalEntryPath) || Files.isDirectory(journalEntryPath)) {
+					System.err.println("ファイルが見つかりません: " + journalEntryPath);
+					pause();
+					return;
+				}
+				journalEntryPaths.add(journalEntryPath.toAbsolutePath().normalize());
 			}
-			journalEntryPath = journalEntryPath.toAbsolutePath().normalize();
 
 			if(isSoloProprietorship == null) {
-				isSoloProprietorship = isSoloProprietorship(journalEntryPath);
+				isSoloProprietorship = isSoloProprietorship(journalEntryPaths.get(0));
 			}
-			Path defaultDir = Util.getApplicationDirectory().resolve("default");
-			if (isSoloProprietorship) {
-				System.out.println("次のデータファイルを使用して処理を実行します。");
-				defaultDir = defaultDir.resolve("個人");
-			} else {
-				System.out.println("次のデータファイルを使用して処理を実行します。");
-				defaultDir = defaultDir.resolve("法人");
-			}
-			Path inputDir = journalEntryPath.getParent();
-			Path outputDir = inputDir;
-
-			int processNumber = 0;
 
-			// 勘定科目.yml
-			Path accountTitlesPath = getAccountTitlePath(inputDir, defaultDir);
-			if (accountTitlesPath == null) {
-				throw error(" [エラー] ファイルが見つかりません: 勘定科目.yml");
+			if(watchEnabled) {
+				if(journalEntryPaths.size() > 1) {
+					throw error(" [エラー] -w オプションを使用する場合は仕訳データファイルを 1つだけ指定してください。");
+				}
+				Watcher watcher = new Watcher(journalEntryPaths.get(0), isSoloProprietorship, skipSettlement, showMonthlyTotal, dailyTotalAccountTitles, memUsageSetting, bundleEnabled, exportFormat, htmlPreviewEnabled, htmlPreviewMaxRows);
+				watcher.run();
+				return;
 			}
 
-			System.out.println(" (" + (++processNumber) + ") 勘定科目 | " + accountTitlesPath);
-			AccountTitlesLoader accountTitlesLoader = new AccountTitlesLoader(accountTitlesPath);
-			Set<AccountTitle> accountTitles = accountTitlesLoader.getAccountTitles();
+			if(journalEntryPaths.size() == 1) {
+				Path journalEntryPath = journalEntryPaths.get(0);
+				FiscalYear fiscalYear = load(journalEntryPath, isSoloProprietorship, System.out);
+				fiscalYear.setSkipSettlement(skipSettlement);
+				fiscalYear.setShowMonthlyTotal(showMonthlyTotal);
+				fiscalYear.setDailyTotalAccountTitles(dailyTotalAccountTitles);
+				fiscalYear.setMemoryUsageSetting(memUsageSetting);
+				fiscalYear.setOutputCacheEnabled(outputCacheEnabled);
+				fiscalYear.setBundleEnabled(bundleEnabled);
+				fiscalYear.setExportFormat(exportFormat);
+				fiscalYear.setHtmlPreviewEnabled(htmlPreviewEnabled, htmlPreviewMaxRows);
+				fiscalYear.setPrintStream(System.out);
 
-			// 家事按分.yml
-			Path proportionalDivisionsPath = null;
-			if (isSoloProprietorship) {
-				proportionalDivisionsPath = getProportionalDivisionsPath(inputDir, defaultDir);
-				if (proportionalDivisionsPath == null) {
-					throw error(" [エラー] ファイルが見つかりません: 家事按分.yml");
+				//決算
+				fiscalYear.settle();
+
+				//帳簿と決算書（データやHTMLを出力する場合はフォントを使用しません）
+				if(exportFormat == null && !htmlPreviewEnabled) {
+					try(SharedFontLoader fontLoader = createFontLoader()) {
+						fiscalYear.setFontLoader(fontLoader);
+						fiscalYear.writeTo(journalEntryPath.getParent());
+					}
+				} else {
+					fiscalYear.writeTo(journalEntryPath.getParent());
+				}
+			} else {
+				if(skipSettlement) {
+					throw error(" [エラー] 仕訳データファイルを複数指定した場合は -o オプションを使用できません。\r\n 次年度の開始仕訳を作成するには決算処理が必要です。");
 				}
+				processMultipleYears(journalEntryPaths, isSoloProprietorship, showMonthlyTotal, dailyTotalAccountTitles, memUsageSetting, outputCacheEnabled, bundleEnabled, exportFormat, htmlPreviewEnabled, htmlPreviewMaxRows);
 			}
 
-			List<ProportionalDivision> proportionalDivisions = null;
-			if (proportionalDivisionsPath != null) {
-				System.out.println(" (" + (++processNumber) + ") 家事按分 | " + proportionalDivisionsPath);
-				ProportionalDivisionsLoader proportionalDivisionsLoader = new ProportionalDivisionsLoader(proportionalDivisionsPath, accountTitles);
-				proportionalDivisions = proportionalDivisionsLoader.getProportionalDivisions();
+			//終了
+			System.out.println();
+			System.out.println("すべての処理が終了しました。");
+		} catch(ErrorMessage e) {
+			System.err.println("\r\n" + e.getMessage() + "\r\n");
+		} catch(Exception e) {
+			System.err.println();
+			e.printStackTrace();
+		}
+		pause();
+	}
+
+	/** 複数年度の仕訳データファイルを年度順に処理します。
+	 * 各年度の決算は順番におこない、前年度の期末残高をメモリ上で次年度の開始仕訳として引き継ぎます。
+	 * すべての年度の決算が終わった後、各年度の帳簿と決算書を並行して出力します。
+	 * 出力中のメッセージは年度ごとにまとめて、年度順にコンソールへ出力されます。
+	 * 各年度の帳簿と決算書は仕訳データファイルと同じフォルダーに出力されるため、同じフォルダーの仕訳データファイルを複数指定することはできません。
+	 * データを出力する場合は、すべての年度の比較損益計算書と比較貸借対照表のデータも最後の年度のフォルダーに出力します。
+	 *
+	 * @param journalEntryPaths 年度順に並んだ仕訳データファイルのリスト
+	 * @param isSoloProprietorship 個人事業主の場合は true
+	 * @param showMonthlyTotal 総勘定元帳に月計を印字する場合は true
+	 * @param dailyTotalAccountTitles 総勘定元帳に日計で印字する勘定科目の表示名
+	 * @param memUsageSetting 仕訳帳と総勘定元帳のPDFを作成するときのメモリの使用方法（null の場合はメインメモリのみ）
+	 * @param outputCacheEnabled 変更されていない帳簿・決算書の作成を省略する場合は true
+	 * @param bundleEnabled 帳簿と決算書を 1つのPDFにまとめて出力する場合は true
+	 * @param exportFormat PDFの代わりにデータを出力する形式（null の場合はPDFを出力）
+	 * @param htmlPreviewEnabled PDFの代わりにHTMLを出力する場合は true
+	 * @param htmlPreviewMaxRows HTMLの 1ファイルの最大行数（0 の場合は制限なし）
+	 * @throws Exception 処理中にエラーが発生した場合
+	 */
+	private static void processMultipleYears(List<Path> journalEntryPaths, boolean isSoloProprietorship, boolean showMonthlyTotal, List<String> dailyTotalAccountTitles, MemoryUsageSetting memUsageSetting, boolean outputCacheEnabled, boolean bundleEnabled, DataExporter.Format exportFormat, boolean htmlPreviewEnabled, int htmlPreviewMaxRows) throws Exception {
+		//同じフォルダーに並行して出力すると、帳簿と決算書・次年度の開始仕訳・出力キャッシュを互いに上書きしてしまいます。
+		Set<Path> outputDirs = new HashSet<Path>();
+		for(Path journalEntryPath : journalEntryPaths) {
+			if(!outputDirs.add(journalEntryPath.toAbsolutePath().normalize().getParent())) {
+				throw error(" [エラー] 同じフォルダーにある仕訳データファイルを複数指定することはできません: " + journalEntryPath
+						+ "\r\n 帳簿と決算書は仕訳データファイルと同じフォルダーに出力されるため、年度ごとにフォルダーを分けてください。");
 			}
+		}
 
-			// 仕訳データ.yml
-			JournalEntriesLoader journalsLoader = new JournalEntriesLoader(journalEntryPath, accountTitles);
-			List<JournalEntry> journalEntries = journalsLoader.getJournalEntries();
-			System.out.println(" (" + (++processNumber) + ") 仕訳　　 | " + journalEntryPath + " (" + journalEntries.size() + "件)");
-			System.out.println();
+		List<FiscalYear> fiscalYears = new ArrayList<FiscalYear>();
+
+		for(int i = 0; i < journalEntryPaths.size(); i++) {
+			FiscalYear fiscalYear = load(journalEntryPaths.get(i), isSoloProprietorship, System.out);
+			fiscalYear.setShowMonthlyTotal(showMonthlyTotal);
+			fiscalYear.setDailyTotalAccountTitles(dailyTotalAccountTitles);
+			fiscalYear.setMemoryUsageSetting(memUsageSetting);
+			fiscalYear.setOutputCacheEnabled(outputCacheEnabled);
+			fiscalYear.setBundleEnabled(bundleEnabled);
+			fiscalYear.setExportFormat(exportFormat);
+			fiscalYear.setHtmlPreviewEnabled(htmlPreviewEnabled, htmlPreviewMaxRows);
+			fiscalYear.setPrintStream(System.out);
+
+			if(i > 0) {
+				//前年度の期末残高を開始仕訳として引き継ぎます。
+				fiscalYear.setOpeningJournalEntries(fiscalYears.get(i - 1).getNextOpeningJournalEntries());
+				System.out.println("前年度の期末残高を開始仕訳として引き継ぎました。");
+				System.out.println();
+			}
 
-			accountTitlesLoader.validate();
+			//決算
+			fiscalYear.settle();
+			fiscalYears.add(fiscalYear);
+		}
 
-			if (!skipSettlement) {
-				//決算
-				System.out.println("決算処理を実行しています . . .");
-				AccountSettlement accountSettlement = new AccountSettlement(accountTitles, isSoloProprietorship);
-				accountSettlement.setPrintStream(System.out);
-				accountSettlement.addClosingEntries(journalEntries, proportionalDivisions);
-				System.out.println("");
+		//帳簿と決算書（データやHTMLを出力する場合はフォントを使用しません）
+		SharedFontLoader fontLoader = (exportFormat == null && !htmlPreviewEnabled) ? createFontLoader() : null;
+		int nThreads = Math.min(fiscalYears.size(), Runtime.getRuntime().availableProcessors());
+		ExecutorService executor = Executors.newFixedThreadPool(nThreads);
+		try {
+			List<Future<String>> futures = new ArrayList<Future<String>>();
+			for(int i = 0; i < fiscalYears.size(); i++) {
+				FiscalYear fiscalYear = fiscalYears.get(i);
+				Path outputDir = journalEntryPaths.get(i).getParent();
+				futures.add(executor.submit(() -> {
+					ByteArrayOutputStream buf = new ByteArrayOutputStream();
+					PrintStream out = new PrintStream(buf, true, StandardCharsets.UTF_8);
+					fiscalYear.setPrintStream(out);
+					fiscalYear.setFontLoader(fontLoader);
+					fiscalYear.writeTo(outputDir);
+					out.flush();
+					return buf.toString(StandardCharsets.UTF_8);
+				}));
 			}
+			for(int i = 0; i < futures.size(); i++) {
+				System.out.println(" (" + (i + 1) + "/" + futures.size() + ") " + journalEntryPaths.get(i));
+				System.out.print(Util.get(futures.get(i)));
+				System.out.println();
+			}
+		} finally {
+			executor.shutdownNow();
+			if(fontLoader != null) {
+				//共有するフォントは、実行中の帳簿と決算書の作成が終わってから閉じます。
+				executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+				fontLoader.close();
+			}
+		}
 
-			if (skipSettlement) {
-				System.out.println("帳簿を作成しています . . .");
-			} else {
-				System.out.println("帳簿と決算書を作成しています . . .");
+		//比較財務諸表（データを出力する場合は最後の年度のフォルダーに出力します）
+		if(exportFormat != null) {
+			Path outputDir = journalEntryPaths.get(journalEntryPaths.size() - 1).getParent();
+			System.out.println("比較財務諸表を作成しています . . .");
+			for(Path path : FiscalYear.writeComparativeDataTo(fiscalYears, exportFormat, outputDir)) {
+				System.out.println("  " + path.getFileName() + " を出力しました。");
 			}
+			System.out.println();
+		}
+	}
 
-			// 仕訳帳
-			GeneralJournal generalJournal = new GeneralJournal(journalEntries, isSoloProprietorship);
-
-			// 総勘定元帳
-			GeneralLedger generalLedger = new GeneralLedger(accountTitles, journalEntries, isSoloProprietorship, showMonthlyTotal);
-
-			Set<String> fontFileNames = new HashSet<String>();
-			//
-			File fontDir;
-			if(Files.isDirectory(Util.getApplicationDirectory().resolve("fonts"))) {
-				// for generic
-				fontDir = Util.getApplicationDirectory().resolve("fonts").toFile();
-				fontFileNames.addAll(FontLoader.FILENAMES_NOTO_GOTHIC);
-				fontFileNames.addAll(FontLoader.FILENAMES_NOTO_MINCHO);
-				fontFileNames.addAll(FontLoader.FILENAMES_IPA_GOTHIC);
-				fontFileNames.addAll(FontLoader.FILENAMES_IPA_MINCHO);
-			} else {
-				// for Windows
-				fontDir = FontLoader.getDefaultFontDir();
-				fontFileNames.addAll(FontLoader.FILENAMES_YUGOTHIC);
-				fontFileNames.addAll(FontLoader.FILENAMES_YUMINCHO);
+	/** 仕訳データファイルと同じフォルダー（または既定のフォルダー）から勘定科目、家事按分を読み込み、会計年度を作成します。
+	 *
+	 * @param journalEntryPath 仕訳データファイル
+	 * @param isSoloProprietorship 個人事業主の場合は true
+	 * @param out 使用したデータファイルを出力するストリーム
+	 * @return 会計年度
+	 * @throws IOException I/Oエラーが発生した場合
+	 */
+	static FiscalYear load(Path journalEntryPath, boolean isSoloProprietorship, PrintStream out) throws IOException {
+		Path defaultDir = getDefaultDir(isSoloProprietorship);
+		out.println("次のデータファイルを使用して処理を実行します。");
+		Path inputDir = journalEntryPath.getParent();
+
+		int processNumber = 0;
+
+		// 勘定科目.yml
+		Path accountTitlesPath = getAccountTitlePath(inputDir, defaultDir);
+		if (accountTitlesPath == null) {
+			throw error(" [エラー] ファイルが見つかりません: 勘定科目.yml");
+		}
+
+		out.println(" (" + (++processNumber) + ") 勘定科目 | " + accountTitlesPath);
+		AccountTitlesLoader accountTitlesLoader = new AccountTitlesLoader(accountTitlesPath);
+		Set<AccountTitle> accountTitles = accountTitlesLoader.getAccountTitles();
+
+		// 家事按分.yml
+		Path proportionalDivisionsPath = null;
+		if (isSoloProprietorship) {
+			proportionalDivisionsPath = getProportionalDivisionsPath(inputDir, defaultDir);
+			if (proportionalDivisionsPath == null) {
+				throw error(" [エラー] ファイルが見つかりません: 家事按分.yml");
 			}
-			FontLoader fontLoader = new FontLoader(fontDir, fontFileNames, null);
-
-			// 仕訳帳をファイルに出力します。
-			// この処理は総勘定元帳（GeneralLedger）を作成してから呼び出す必要があります。GeneralLedgerによって仕訳帳の「元丁」が設定されるからです。
-			generalJournal.setFontLoader(fontLoader);
-			generalJournal.writeTo(outputDir.resolve("仕訳帳.pdf"));
-			System.out.println("  仕訳帳.pdf を出力しました。");
-
-			// 総勘定元帳をファイルに出力します。
-			// この処理は仕訳帳（GeneralJournal）を作成してから呼び出す必要があります。GeneralJournalによって総勘定元帳の「仕丁」が設定されるからです。
-			generalLedger.setFontLoader(fontLoader);
-			generalLedger.writeTo(outputDir.resolve("総勘定元帳.pdf"));
-			System.out.println("  総勘定元帳.pdf を出力しました。");
-
-			if (!skipSettlement) {
-				//損益計算書
-				ProfitAndLossLayout plLayout = accountTitlesLoader.getProfitAndLossLayout();
-				ProfitAndLoss pl = new ProfitAndLoss(plLayout, journalEntries, isSoloProprietorship);
-				pl.setFontLoader(fontLoader);
-				pl.writeTo(outputDir.resolve("損益計算書.pdf"));
-				System.out.println("  損益計算書.pdf を出力しました。");
-
-				//貸借対照表
-				BalanceSheetLayout bsLayout = accountTitlesLoader.getBalanceSheetLayout();
-				BalanceSheet bs = new BalanceSheet(bsLayout, journalEntries, isSoloProprietorship);
-				bs.setFontLoader(fontLoader);
-				bs.writeTo(outputDir.resolve("貸借対照表.pdf"));
-				System.out.println("  貸借対照表.pdf を出力しました。");
-
-				//社員資本等変動計算書
-				if (!isSoloProprietorship) {
-					StatementOfChangesInEquityLayout sceLayout = accountTitlesLoader.getStatementOfChangesInEquityLayout();
-					StatementOfChangesInEquity ce = new StatementOfChangesInEquity(sceLayout, journalEntries);
-					ce.setFontLoader(fontLoader);
-					ce.writeTo(outputDir.resolve("社員資本等変動計算書.pdf"));
-					System.out.println("  社員資本等変動計算書.pdf を出力しました。");
-				}
+		}
 
-				//帳簿・決算書の作成で警告メッセージがあれば出力します。
-				if (bs.getWarnings().size() > 0) {
-					System.out.println();
-					for (String warning : bs.getWarnings()) {
-						System.out.println(warning);
-					}
-				}
+		List<ProportionalDivision> proportionalDivisions = null;
+		if (proportionalDivisionsPath != null) {
+			out.println(" (" + (++processNumber) + ") 家事按分 | " + proportionalDivisionsPath);
+			ProportionalDivisionsLoader proportionalDivisionsLoader = new ProportionalDivisionsLoader(proportionalDivisionsPath, accountTitles);
+			proportionalDivisions = proportionalDivisionsLoader.getProportionalDivisions();
+		}
 
-				//繰越処理
-				System.out.println("");
-				System.out.println("繰越処理を実行しています . . .");
+		// 仕訳データ.yml
+		JournalEntriesLoader journalsLoader = new JournalEntriesLoader(journalEntryPath, accountTitles);
+		List<JournalEntry> journalEntries = journalsLoader.getJournalEntries();
+		out.println(" (" + (++processNumber) + ") 仕訳　　 | " + journalEntryPath + " (" + journalEntries.size() + "件)");
+		out.println();
 
-				//次年度の開始仕訳
-				bs.createNextOpeningJournalEntriesCompat(new ArrayList<AccountTitle>(accountTitles), outputDir.resolve("次年度の開始仕訳.yml"));
-				System.out.println("  次年度の開始仕訳.yml を出力しました。");
+		accountTitlesLoader.validate();
+
+		return new FiscalYear(accountTitlesLoader, proportionalDivisions, journalEntries, isSoloProprietorship);
+	}
+
+	/** 仕訳データファイルの処理に使用するデータファイルを返します。
+	 * 仕訳データファイルと、同じフォルダー（または既定のフォルダー）の勘定科目、家事按分（個人事業主の場合）を返します。
+	 * 見つからないデータファイルは含まれません。
+	 *
+	 * @param journalEntryPath 仕訳データファイル
+	 * @param isSoloProprietorship 個人事業主の場合は true
+	 * @return データファイルのリスト
+	 */
+	static List<Path> getInputPaths(Path journalEntryPath, boolean isSoloProprietorship) {
+		Path defaultDir = getDefaultDir(isSoloProprietorship);
+		Path inputDir = journalEntryPath.getParent();
+		List<Path> paths = new ArrayList<Path>();
+		paths.add(journalEntryPath);
+		Path accountTitlesPath = getAccountTitlePath(inputDir, defaultDir);
+		if(accountTitlesPath != null) {
+			paths.add(accountTitlesPath);
+		}
+		if(isSoloProprietorship) {
+			Path proportionalDivisionsPath = getProportionalDivisionsPath(inputDir, defaultDir);
+			if(proportionalDivisionsPath != null) {
+				paths.add(proportionalDivisionsPath);
 			}
+		}
+		return paths;
+	}
 
-			//終了
-			System.out.println();
-			System.out.println("すべての処理が終了しました。");
-		} catch(ErrorMessage e) {
-			System.err.println("\r\n" + e.getMessage() + "\r\n");
-		} catch(Exception e) {
-			System.err.println();
-			e.printStackTrace();
+	private static Path getDefaultDir(boolean isSoloProprietorship) {
+		return Util.getApplicationDirectory().resolve("default").resolve(isSoloProprietorship ? "個人" : "法人");
+	}
+
+	/** 帳簿と決算書の作成に使用するフォントローダーを作成します。
+	 * フォントローダーは解析したフォントを共有するため、使用後に閉じてください。
+	 *
+	 * @return フォントローダー
+	 */
+	static SharedFontLoader createFontLoader() {
+		Set<String> fontFileNames = new HashSet<String>();
+		//
+		File fontDir;
+		if(Files.isDirectory(Util.getApplicationDirectory().resolve("fonts"))) {
+			// for generic
+			fontDir = Util.getApplicationDirectory().resolve("fonts").toFile();
+			fontFileNames.addAll(FontLoader.FILENAMES_NOTO_GOTHIC);
+			fontFileNames.addAll(FontLoader.FILENAMES_NOTO_MINCHO);
+			fontFileNames.addAll(FontLoader.FILENAMES_IPA_GOTHIC);
+			fontFileNames.addAll(FontLoader.FILENAMES_IPA_MINCHO);
+		} else {
+			// for Windows
+			fontDir = FontLoader.getDefaultFontDir();
+			fontFileNames.addAll(FontLoader.FILENAMES_YUGOTHIC);
+			fontFileNames.addAll(FontLoader.FILENAMES_YUMINCHO);
 		}
-		pause();
+		return new SharedFontLoader(fontDir, fontFileNames, null);
 	}
 	
 	private static Path getAccountTitlePath(Path inputPath, Path defaultPath) {
@@ -0,0 +1,402 @@
+package net.osdn.aoiro.cui;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+
+import javax.management.ObjectName;
+
+import org.apache.pdfbox.io.MemoryUsageSetting;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import net.osdn.aoiro.ErrorMessage;
+import net.osdn.aoiro.FiscalYear;
+import net.osdn.aoiro.report.SharedFontLoader;
+
+import static net.osdn.aoiro.ErrorMessage.error;
+
+/** 常駐サーバー
+ * localhost で HTTP の要求を受け付けて、仕訳データファイルの読み込み・決算と帳簿・決算書の作成をおこないます。
+ * 読み込んだ会計年度（仕訳、勘定科目、家事按分と決算の結果）は最近使用した順に一定数をキャッシュします。
+ * フォントとテンプレートはプロセス全体で共有するため、2回目以降の作成では JVM の起動、クラスの読み込み、フォントの解析が不要になります。
+ *
+ * 要求のパラメーターは UTF-8 で URL エンコードします。応答は処理中のメッセージ（text/plain）です。
+ * <pre>
+ * /load?path=&lt;仕訳データファイル&gt;
+ *     仕訳データファイルを読み込んで決算し、キャッシュします。キャッシュしている場合も読み込み直します。
+ * /render?path=&lt;仕訳データファイル&gt;[&amp;report=&lt;帳簿・決算書&gt;[,...]]
+ *     帳簿と決算書を仕訳データファイルと同じフォルダーに出力します。report を指定するとその帳簿・決算書だけを出力します。
+ *     キャッシュしていない場合や、仕訳データ・勘定科目・家事按分のファイルが変更されている場合は読み込み直します。
+ * /close?path=&lt;仕訳データファイル&gt;
+ *     キャッシュから取り除きます。
+ * /status
+ *     キャッシュしている仕訳データファイルと要求の統計を返します。
+ * </pre>
+ * 要求の統計は JMX（net.osdn.aoiro:type=Server）でも参照できます。
+ *
+ */
+public class Server {
+
+	/** 既定のポート番号 */
+	private static final int DEFAULT_PORT = 8931;
+
+	/** 既定のキャッシュする会計年度の数 */
+	private static final int DEFAULT_CACHE_SIZE = 8;
+
+	public static void main(String[] args) {
+		try {
+			Server server = new Server();
+			int port = DEFAULT_PORT;
+
+			for (int i = 0; i < args.length; i++) {
+				if (args[i].equals("-port")) {
+					if(i + 1 >= args.length || !args[i + 1].matches("[0-9]{1,5}") || Integer.parseInt(args[i + 1]) > 65535) {
+						throw error(" [エラー] -port オプションにはポート番号を指定してください。");
+					}
+					port = Integer.parseInt(args[++i]);
+				} else if (args[i].equals("-cache")) {
+					if(i + 1 >= args.length || !args[i + 1].matches("[0-9]+") || Integer.parseInt(args[i + 1]) == 0) {
+						throw error(" [エラー] -cache オプションには 1 以上のキャッシュする会計年度の数を指定してください。");
+					}
+					server.cacheSize = Integer.parseInt(args[++i]);
+				} else if (args[i].equals("-j")) {
+					if(i + 1 >= args.length || !args[i + 1].matches("[0-9]+") || Integer.parseInt(args[i + 1]) == 0) {
+						throw error(" [エラー] -j オプションには 1 以上の並列数を指定してください。");
+					}
+					server.nThreads = Integer.parseInt(args[++i]);
+				} else if (args[i].equals("-m")) {
+					server.showMonthlyTotal = true;
+				} else if (args[i].equals("-d")) {
+					if(i + 1 >= args.length) {
+						throw error(" [エラー] -d オプションには日計で印字する勘定科目をカンマ区切りで指定してください。");
+					}
+					for(String displayName : args[++i].split(",")) {
+						if(!displayName.isBlank()) {
+							server.dailyTotalAccountTitles.add(displayName.strip());
+						}
+					}
+				} else if (args[i].equals("-p")) {
+					server.isSoloProprietorship = Boolean.TRUE;
+				} else if (args[i].equals("-c")) {
+					server.isSoloProprietorship = Boolean.FALSE;
+				} else if (args[i].equals("-s")) {
+					//メインメモリの使用量を最大 16MB に制限し、それを超えるデータは一時ファイルに保存します。
+					server.memUsageSetting = MemoryUsageSetting.setupMixed(16L * 1024 * 1024);
+				} else if (args[i].equals("-i")) {
+					server.outputCacheEnabled = true;
+				} else {
+					if(System.getProperty("java.application.name") != null) {
+						System.out.println("Usage: aoiro.exe server <options>");
+					} else {
+						System.out.println("Usage: java -jar aoiro.jar server <options>");
+					}
+					System.out.println("Options:");
+					System.out.println("  -port <ポート番号>");
+					System.out.println("        要求を受け付けるポート番号を指定します。（既定値: " + DEFAULT_PORT + "）");
+					System.out.println("  -cache <会計年度の数>");
+					System.out.println("        読み込んだ会計年度を最近使用した順にキャッシュする数を指定します。（既定値: " + DEFAULT_CACHE_SIZE + "）");
+					System.out.println("  -j <並列数>");
+					System.out.println("        同時に処理する要求の数を指定します。（既定値: CPUのコア数）");
+					System.out.println("  -m -d -p -c -s -i");
+					System.out.println("        すべての要求に適用します。各オプションの説明は server を指定せずに実行すると表示されます。");
+					System.out.println();
+					System.out.println("要求は localhost からのみ受け付けます。");
+					System.out.println("  /load?path=<仕訳データファイル>");
+					System.out.println("  /render?path=<仕訳データファイル>[&report=<帳簿・決算書>[,...]]");
+					System.out.println("  /close?path=<仕訳データファイル>");
+					System.out.println("  /status");
+					System.out.println();
+					return;
+				}
+			}
+
+			server.start(port);
+			System.out.println("http://localhost:" + port + "/ で要求を受け付けています。終了するには Ctrl+C を押してください。");
+			System.out.println();
+		} catch(ErrorMessage e) {
+			System.err.println("\r\n" + e.getMessage() + "\r\n");
+		} catch(Exception e) {
+			System.err.println();
+			e.printStackTrace();
+		}
+	}
+
+	private int cacheSize = DEFAULT_CACHE_SIZE;
+	private int nThreads = Runtime.getRuntime().availableProcessors();
+	private boolean showMonthlyTotal;
+	private List<String> dailyTotalAccountTitles = new ArrayList<String>();
+	private MemoryUsageSetting memUsageSetting;
+	private boolean outputCacheEnabled;
+	private Boolean isSoloProprietorship;
+
+	/** すべての要求で共有するフォント（サーバーはプロセスが終了するまで要求を受け付けるため閉じません） */
+	private SharedFontLoader fontLoader;
+
+	/** 仕訳データファイル → キャッシュした会計年度（最近使用した順） */
+	private final Map<Path, CachedFiscalYear> cache = new LinkedHashMap<Path, CachedFiscalYear>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Path, CachedFiscalYear> eldest) {
+			return size() > cacheSize;
+		}
+	};
+
+	private final ServerMetrics metrics = new ServerMetrics(() -> {
+		synchronized (cache) {
+			return cache.size();
+		}
+	});
+
+	/** localhost の指定したポートで要求の受け付けを開始します。
+	 *
+	 * @param port ポート番号
+	 * @throws Exception サーバーを開始できなかった場合
+	 */
+	private void start(int port) throws Exception {
+		fontLoader = Main.createFontLoader();
+
+		ManagementFactory.getPlatformMBeanServer().registerMBean(metrics, new ObjectName("net.osdn.aoiro:type=Server"));
+
+		HttpServer httpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+		httpServer.createContext("/load", exchange -> handle(exchange, this::load));
+		httpServer.createContext("/render", exchange -> handle(exchange, this::render));
+		httpServer.createContext("/close", exchange -> handle(exchange, this::close));
+		httpServer.createContext("/status", exchange -> handle(exchange, this::status));
+		httpServer.setExecutor(Executors.newFixedThreadPool(nThreads));
+		httpServer.start();
+	}
+
+	/** 要求を処理して、処理中のメッセージを応答として返します。
+	 * 入力に誤りがある場合は 400、それ以外のエラーの場合は 500 のステータスコードを返します。
+	 *
+	 * @param exchange 要求と応答
+	 * @param command 要求の処理
+	 * @throws IOException 応答を返せなかった場合
+	 */
+	private void handle(HttpExchange exchange, Command command) throws IOException {
+		long start = System.nanoTime();
+		ByteArrayOutputStream buf = new ByteArrayOutputStream();
+		PrintStream out = new PrintStream(buf, true, StandardCharsets.UTF_8);
+		int status = 200;
+		try {
+			command.execute(getParameters(exchange.getRequestURI()), out);
+		} catch(ErrorMessage e) {
+			status = 400;
+			out.println(e.getMessage());
+		} catch(Exception e) {
+			status = 500;
+			e.printStackTrace(out);
+		}
+		long millis = (System.nanoTime() - start) / 1000000;
+		metrics.addRequest(status == 200);
+		System.out.println(status + " " + millis + "ms " + exchange.getRequestURI().getPath() + " " + getParameters(exchange.getRequestURI()).getOrDefault("path", ""));
+
+		out.flush();
+		byte[] body = buf.toByteArray();
+		exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=UTF-8");
+		exchange.sendResponseHeaders(status, body.length > 0 ? body.length : -1);
+		try(OutputStream os = exchange.getResponseBody()) {
+			os.write(body);
+		}
+	}
+
+	/** 仕訳データファイルを読み込んで決算し、キャッシュします。 */
+	private void load(Map<String, String> params, PrintStream out) throws IOException {
+		CachedFiscalYear entry = getEntry(getJournalEntryPath(params));
+		synchronized (entry) {
+			load(entry, out);
+		}
+	}
+
+	/** 帳簿と決算書を出力します。
+	 * キャッシュしていない場合や入力のファイルが変更されている場合は、読み込み直してから出力します。
+	 */
+	private void render(Map<String, String> params, PrintStream out) throws IOException {
+		long start = System.nanoTime();
+		List<String> reportNames = new ArrayList<String>();
+		for(String reportName : params.getOrDefault("report", "").split(",")) {
+			if(!reportName.isBlank()) {
+				reportNames.add(reportName.strip());
+			}
+		}
+
+		CachedFiscalYear entry = getEntry(getJournalEntryPath(params));
+		boolean cacheHit;
+		synchronized (entry) {
+			cacheHit = entry.fiscalYear != null && !entry.isModified();
+			if(!cacheHit) {
+				load(entry, out);
+			}
+			FiscalYear fiscalYear = entry.fiscalYear;
+			fiscalYear.setPrintStream(out);
+			fiscalYear.setFontLoader(fontLoader);
+			fiscalYear.setReportNames(reportNames);
+			fiscalYear.writeTo(entry.journalEntryPath.getParent());
+		}
+		metrics.addRender(cacheHit, (System.nanoTime() - start) / 1000000);
+	}
+
+	/** 仕訳データファイルをキャッシュから取り除きます。 */
+	private void close(Map<String, String> params, PrintStream out) {
+		Path journalEntryPath = Paths.get(getParameter(params, "path")).toAbsolutePath().normalize();
+		synchronized (cache) {
+			if(cache.remove(journalEntryPath) != null) {
+				out.println("キャッシュから取り除きました: " + journalEntryPath);
+			} else {
+				out.println("キャッシュにありません: " + journalEntryPath);
+			}
+		}
+	}
+
+	/** キャッシュしている仕訳データファイル（最近使用した順）と要求の統計を出力します。 */
+	private void status(Map<String, String> params, PrintStream out) {
+		List<Path> journalEntryPaths;
+		synchronized (cache) {
+			journalEntryPaths = new ArrayList<Path>(cache.keySet());
+		}
+		out.println(metrics);
+		out.println("キャッシュ " + journalEntryPaths.size() + "/" + cacheSize);
+		for(int i = journalEntryPaths.size() - 1; i >= 0; i--) {
+			out.println(" " + journalEntryPaths.get(i));
+		}
+	}
+
+	/** 仕訳データファイルを読み込んで決算し、キャッシュに設定します。
+	 * 読み込みに失敗した場合、キャッシュの会計年度は破棄されます。
+	 *
+	 * @param entry キャッシュ
+	 * @param out メッセージの出力先
+	 * @throws IOException I/Oエラーが発生した場合
+	 */
+	private void load(CachedFiscalYear entry, PrintStream out) throws IOException {
+		entry.fiscalYear = null;
+		metrics.addLoad();
+
+		boolean isSoloProprietorship = (this.isSoloProprietorship != null)
+				? this.isSoloProprietorship : Main.isSoloProprietorship(entry.journalEntryPath);
+		// 読み込む前に最終更新日時を記録して、読み込み中に変更された場合も次の要求で読み込み直すようにします。
+		Map<Path, FileTime> lastModifiedTimes = getLastModifiedTimes(Main.getInputPaths(entry.journalEntryPath, isSoloProprietorship));
+
+		FiscalYear fiscalYear = Main.load(entry.journalEntryPath, isSoloProprietorship, out);
+		fiscalYear.setShowMonthlyTotal(showMonthlyTotal);
+		fiscalYear.setDailyTotalAccountTitles(dailyTotalAccountTitles);
+		fiscalYear.setMemoryUsageSetting(memUsageSetting);
+		fiscalYear.setOutputCacheEnabled(outputCacheEnabled);
+		fiscalYear.setPrintStream(out);
+
+		//決算
+		fiscalYear.settle();
+
+		entry.fiscalYear = fiscalYear;
+		entry.isSoloProprietorship = isSoloProprietorship;
+		entry.lastModifiedTimes = lastModifiedTimes;
+	}
+
+	private CachedFiscalYear getEntry(Path journalEntryPath) {
+		synchronized (cache) {
+			CachedFiscalYear entry = cache.get(journalEntryPath);
+			if(entry == null) {
+				entry = new CachedFiscalYear(journalEntryPath);
+				cache.put(journalEntryPath, entry);
+			}
+			return entry;
+		}
+	}
+
+	private static Path getJournalEntryPath(Map<String, String> params) {
+		Path journalEntryPath = Paths.get(getParameter(params, "path")).toAbsolutePath().normalize();
+		if(!Files.isRegularFile(journalEntryPath)) {
+			throw error(" [エラー] ファイルが見つかりません: " + journalEntryPath);
+		}
+		return journalEntryPath;
+	}
+
+	private static String getParameter(Map<String, String> params, String name) {
+		String value = params.get(name);
+		if(value == null || value.isBlank()) {
+			throw error(" [エラー] パラメーター " + name + " を指定してください。");
+		}
+		return value;
+	}
+
+	private static Map<String, String> getParameters(URI uri) {
+		Map<String, String> params = new HashMap<String, String>();
+		String query = uri.getRawQuery();
+		if(query != null) {
+			for(String param : query.split("&")) {
+				int i = param.indexOf('=');
+				String name = URLDecoder.decode(i >= 0 ? param.substring(0, i) : param, StandardCharsets.UTF_8);
+				String value = URLDecoder.decode(i >= 0 ? param.substring(i + 1) : "", StandardCharsets.UTF_8);
+				params.put(name, value);
+			}
+		}
+		return params;
+	}
+
+	/** ファイルの最終更新日時を返します。
+	 *
+	 * @param paths ファイルのリスト
+	 * @return ファイル → 最終更新日時（ファイルが存在しない場合は null）
+	 */
+	private static Map<Path, FileTime> getLastModifiedTimes(List<Path> paths) {
+		Map<Path, FileTime> lastModifiedTimes = new HashMap<Path, FileTime>();
+		for(Path path : paths) {
+			try {
+				lastModifiedTimes.put(path, Files.getLastModifiedTime(path));
+			} catch(IOException e) {
+				lastModifiedTimes.put(path, null);
+			}
+		}
+		return lastModifiedTimes;
+	}
+
+	/** 要求の処理 */
+	@FunctionalInterface
+	private interface Command {
+		void execute(Map<String, String> params, PrintStream out) throws Exception;
+	}
+
+	/** キャッシュした会計年度
+	 * 同じ会計年度に対する要求は、このオブジェクトで同期して 1つずつ処理します。
+	 */
+	private static class CachedFiscalYear {
+		private final Path journalEntryPath;
+		private FiscalYear fiscalYear;
+		private boolean isSoloProprietorship;
+		/** 読み込んだデータファイル → 読み込んだときの最終更新日時 */
+		private Map<Path, FileTime> lastModifiedTimes;
+
+		private CachedFiscalYear(Path journalEntryPath) {
+			this.journalEntryPath = journalEntryPath;
+		}
+
+		/** 読み込んだ後にデータファイルが変更されたかどうかを返します。
+		 * 仕訳データファイルのフォルダーに勘定科目や家事按分が追加された場合も変更されたと判定します。
+		 *
+		 * @return 変更された場合は true
+		 */
+		private boolean isModified() {
+			return !getLastModifiedTimes(Main.getInputPaths(journalEntryPath, isSoloProprietorship)).equals(lastModifiedTimes);
+		}
+	}
+}
@@ -0,0 +1,122 @@
+package net.osdn.aoiro.cui;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+
+/** 常駐サーバーの要求の統計
+ * 複数のスレッドから同時に更新されるため、値はすべてアトミックに更新します。
+ *
+ */
+public class ServerMetrics implements ServerMetricsMBean {
+
+	private final AtomicLong requestCount = new AtomicLong();
+	private final AtomicLong errorCount = new AtomicLong();
+	private final AtomicLong loadCount = new AtomicLong();
+	private final AtomicLong renderCount = new AtomicLong();
+	private final AtomicLong cacheHitCount = new AtomicLong();
+	private final AtomicLong cacheMissCount = new AtomicLong();
+	private final AtomicLong lastRenderMillis = new AtomicLong();
+	private final AtomicLong maxRenderMillis = new AtomicLong();
+	private final AtomicLong totalRenderMillis = new AtomicLong();
+	private final IntSupplier cachedFiscalYearCount;
+
+	/** 要求の統計を作成します。
+	 *
+	 * @param cachedFiscalYearCount キャッシュしている会計年度の数を返す関数
+	 */
+	public ServerMetrics(IntSupplier cachedFiscalYearCount) {
+		this.cachedFiscalYearCount = cachedFiscalYearCount;
+	}
+
+	/** 要求を記録します。
+	 *
+	 * @param succeeded 要求が成功した場合は true
+	 */
+	void addRequest(boolean succeeded) {
+		requestCount.incrementAndGet();
+		if(!succeeded) {
+			errorCount.incrementAndGet();
+		}
+	}
+
+	/** 仕訳データファイルを読み込んだことを記録します。 */
+	void addLoad() {
+		loadCount.incrementAndGet();
+	}
+
+	/** 帳簿と決算書を作成したことを記録します。
+	 *
+	 * @param cacheHit キャッシュした会計年度をそのまま使用した場合は true
+	 * @param millis 処理時間（ミリ秒）
+	 */
+	void addRender(boolean cacheHit, long millis) {
+		renderCount.incrementAndGet();
+		if(cacheHit) {
+			cacheHitCount.incrementAndGet();
+		} else {
+			cacheMissCount.incrementAndGet();
+		}
+		lastRenderMillis.set(millis);
+		maxRenderMillis.accumulateAndGet(millis, Math::max);
+		totalRenderMillis.addAndGet(millis);
+	}
+
+	@Override
+	public long getRequestCount() {
+		return requestCount.get();
+	}
+
+	@Override
+	public long getErrorCount() {
+		return errorCount.get();
+	}
+
+	@Override
+	public long getLoadCount() {
+		return loadCount.get();
+	}
+
+	@Override
+	public long getRenderCount() {
+		return renderCount.get();
+	}
+
+	@Override
+	public long getCacheHitCount() {
+		return cacheHitCount.get();
+	}
+
+	@Override
+	public long getCacheMissCount() {
+		return cacheMissCount.get();
+	}
+
+	@Override
+	public int getCachedFiscalYearCount() {
+		return cachedFiscalYearCount.getAsInt();
+	}
+
+	@Override
+	public long getLastRenderMillis() {
+		return lastRenderMillis.get();
+	}
+
+	@Override
+	public long getMaxRenderMillis() {
+		return maxRenderMillis.get();
+	}
+
+	@Override
+	public double getAverageRenderMillis() {
+		long count = renderCount.get();
+		return count == 0 ? 0.0 : (double)totalRenderMillis.get() / count;
+	}
+
+	@Override
+	public String toString() {
+		return "要求 " + getRequestCount() + "件（エラー " + getErrorCount() + "件）、"
+				+ "読み込み " + getLoadCount() + "回、"
+				+ "作成 " + getRenderCount() + "回（キャッシュ使用 " + getCacheHitCount() + "回）、"
+				+ "作成の処理時間 平均 " + Math.round(getAverageRenderMillis()) + "ms / 最大 " + getMaxRenderMillis() + "ms";
+	}
+}
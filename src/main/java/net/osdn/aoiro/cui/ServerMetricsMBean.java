@@ -0,0 +1,67 @@
+package net.osdn.aoiro.cui;
+
+/** 常駐サーバーの要求の統計を JMX で公開するためのインターフェースです。
+ *
+ */
+public interface ServerMetricsMBean {
+
+	/** 受け付けた要求の数を返します。
+	 *
+	 * @return 要求の数
+	 */
+	long getRequestCount();
+
+	/** エラーになった要求の数を返します。
+	 *
+	 * @return エラーになった要求の数
+	 */
+	long getErrorCount();
+
+	/** 仕訳データファイルを読み込んで決算した回数を返します。
+	 *
+	 * @return 読み込んだ回数
+	 */
+	long getLoadCount();
+
+	/** 帳簿と決算書を作成した回数を返します。
+	 *
+	 * @return 作成した回数
+	 */
+	long getRenderCount();
+
+	/** キャッシュした会計年度をそのまま使用して帳簿と決算書を作成した回数を返します。
+	 *
+	 * @return キャッシュを使用した回数
+	 */
+	long getCacheHitCount();
+
+	/** キャッシュにない（または入力が変更された）ため、読み込み直して帳簿と決算書を作成した回数を返します。
+	 *
+	 * @return 読み込み直した回数
+	 */
+	long getCacheMissCount();
+
+	/** キャッシュしている会計年度の数を返します。
+	 *
+	 * @return 会計年度の数
+	 */
+	int getCachedFiscalYearCount();
+
+	/** 最後に帳簿と決算書を作成した要求の処理時間を返します。
+	 *
+	 * @return 処理時間（ミリ秒）
+	 */
+	long getLastRenderMillis();
+
+	/** 帳簿と決算書を作成した要求の最大の処理時間を返します。
+	 *
+	 * @return 処理時間（ミリ秒）
+	 */
+	long getMaxRenderMillis();
+
+	/** 帳簿と決算書を作成した要求の平均の処理時間を返します。
+	 *
+	 * @return 処理時間（ミリ秒）
+	 */
+	double getAverageRenderMillis();
+}
@@ -0,0 +1,296 @@
+package net.osdn.aoiro.cui;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.pdfbox.io.MemoryUsageSetting;
+
+import net.osdn.aoiro.ErrorMessage;
+import net.osdn.aoiro.FiscalYear;
+import net.osdn.aoiro.loader.yaml.AccountTitlesLoader;
+import net.osdn.aoiro.loader.yaml.JournalEntriesLoader;
+import net.osdn.aoiro.loader.yaml.ProportionalDivisionsLoader;
+import net.osdn.aoiro.model.AccountTitle;
+import net.osdn.aoiro.model.JournalEntry;
+import net.osdn.aoiro.model.ProportionalDivision;
+import net.osdn.aoiro.report.DataExporter;
+import net.osdn.aoiro.report.SharedFontLoader;
+
+import static net.osdn.aoiro.ErrorMessage.error;
+
+/** 監視モード
+ * 仕訳データファイルと勘定科目.yml、家事按分.yml の変更を監視して、変更されるたびに決算と帳簿・決算書の作成をやり直します。
+ *
+ * 勘定科目と家事按分は、ファイルが変更されていなければ前回読み込んだものを再利用し、仕訳データファイルだけを読み込み直します。
+ * 帳簿・決算書は出力キャッシュを使用して作成するため、入力が変わらない帳簿・決算書と総勘定元帳の勘定科目は作成を省略します。
+ * エディターの保存で連続して発生する変更は、変更が一定時間なくなるまで待ってからまとめて処理します。
+ *
+ */
+public class Watcher {
+
+	/** 最後の変更からこの時間（ミリ秒）変更がなければ処理を開始します。 */
+	private static final long DEBOUNCE_MILLIS = 300;
+
+	private static final String ACCOUNT_TITLES_FILENAME = "勘定科目.yml";
+	private static final String PROPORTIONAL_DIVISIONS_FILENAME = "家事按分.yml";
+
+	private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("HH:mm:ss");
+
+	private Path journalEntryPath;
+	private boolean isSoloProprietorship;
+	private boolean skipSettlement;
+	private boolean showMonthlyTotal;
+	private List<String> dailyTotalAccountTitles;
+	private MemoryUsageSetting memUsageSetting;
+	private boolean bundleEnabled;
+	private DataExporter.Format exportFormat;
+	private boolean htmlPreviewEnabled;
+	private int htmlPreviewMaxRows;
+	/** 変更のたびに作成する帳簿と決算書で共有するフォント（データやHTMLを出力する場合は null。監視を終了すると閉じます） */
+	private SharedFontLoader fontLoader;
+
+	/** 前回読み込んだ勘定科目 */
+	private AccountTitlesLoader accountTitlesLoader;
+	/** 前回読み込んだ家事按分 */
+	private List<ProportionalDivision> proportionalDivisions;
+	/** 前回読み込んだデータファイル → 読み込んだときの最終更新日時 */
+	private Map<Path, FileTime> lastModifiedTimes = new HashMap<Path, FileTime>();
+
+	/** 監視モードを作成します。
+	 *
+	 * @param journalEntryPath 仕訳データファイル
+	 * @param isSoloProprietorship 個人事業主の場合は true
+	 * @param skipSettlement 決算処理をおこなわない場合は true
+	 * @param showMonthlyTotal 総勘定元帳に月計を印字する場合は true
+	 * @param dailyTotalAccountTitles 総勘定元帳に日計で印字する勘定科目の表示名
+	 * @param memUsageSetting 仕訳帳と総勘定元帳のPDFを作成するときのメモリの使用方法（null の場合はメインメモリのみ）
+	 * @param bundleEnabled 帳簿と決算書を 1つのPDFにまとめて出力する場合は true
+	 * @param exportFormat PDFの代わりにデータを出力する形式（null の場合はPDFを出力）
+	 * @param htmlPreviewEnabled PDFの代わりにHTMLを出力する場合は true
+	 * @param htmlPreviewMaxRows HTMLの 1ファイルの最大行数（0 の場合は制限なし）
+	 */
+	public Watcher(Path journalEntryPath, boolean isSoloProprietorship, boolean skipSettlement, boolean showMonthlyTotal, List<String> dailyTotalAccountTitles, MemoryUsageSetting memUsageSetting, boolean bundleEnabled, DataExporter.Format exportFormat, boolean htmlPreviewEnabled, int htmlPreviewMaxRows) {
+		this.journalEntryPath = journalEntryPath;
+		this.isSoloProprietorship = isSoloProprietorship;
+		this.skipSettlement = skipSettlement;
+		this.showMonthlyTotal = showMonthlyTotal;
+		this.dailyTotalAccountTitles = dailyTotalAccountTitles;
+		this.memUsageSetting = memUsageSetting;
+		this.bundleEnabled = bundleEnabled;
+		this.exportFormat = exportFormat;
+		this.htmlPreviewEnabled = htmlPreviewEnabled;
+		this.htmlPreviewMaxRows = htmlPreviewMaxRows;
+	}
+
+	/** 帳簿と決算書を作成した後、データファイルの変更を監視します。
+	 * このメソッドはスレッドが割り込まれるまで戻りません。
+	 * 処理中にエラーが発生した場合はエラーを出力して、次の変更を待ちます。
+	 *
+	 * @throws IOException ファイルの監視を開始できなかった場合
+	 */
+	public void run() throws IOException {
+		//データやHTMLを出力する場合はフォントを使用しません。
+		if(exportFormat == null && !htmlPreviewEnabled) {
+			fontLoader = Main.createFontLoader();
+		}
+
+		try(WatchService watchService = FileSystems.getDefault().newWatchService()) {
+			Set<Path> registeredDirs = new LinkedHashSet<Path>();
+			while(true) {
+				long start = System.nanoTime();
+				try {
+					process();
+					System.out.println();
+					System.out.println("[" + LocalTime.now().format(TIME_FORMATTER) + "] 処理が終了しました。(" + (System.nanoTime() - start) / 1000000 + "ms)");
+				} catch(ErrorMessage e) {
+					System.err.println("\r\n" + e.getMessage() + "\r\n");
+				} catch(Exception e) {
+					System.err.println();
+					e.printStackTrace();
+				}
+
+				//仕訳データファイルのフォルダーは、勘定科目.yml や家事按分.yml が追加された場合に備えて常に監視します。
+				Set<Path> dirs = new LinkedHashSet<Path>();
+				dirs.add(journalEntryPath.getParent());
+				for(Path path : Main.getInputPaths(journalEntryPath, isSoloProprietorship)) {
+					dirs.add(path.getParent());
+				}
+				for(Path dir : dirs) {
+					if(registeredDirs.add(dir)) {
+						dir.register(watchService,
+								StandardWatchEventKinds.ENTRY_CREATE,
+								StandardWatchEventKinds.ENTRY_MODIFY,
+								StandardWatchEventKinds.ENTRY_DELETE);
+					}
+				}
+
+				System.out.println("データファイルの変更を監視しています。終了するには Ctrl+C を押してください。");
+				System.out.println();
+
+				Set<Path> changedPaths = waitForChanges(watchService);
+				for(Path path : changedPaths) {
+					System.out.println("[" + LocalTime.now().format(TIME_FORMATTER) + "] 変更を検出しました: " + path);
+				}
+				System.out.println();
+			}
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			if(fontLoader != null) {
+				fontLoader.close();
+				fontLoader = null;
+			}
+		}
+	}
+
+	/** データファイルが変更されるまで待ちます。
+	 * 変更を検出した後も、変更が一定時間なくなるまで待ってから戻ります。
+	 *
+	 * @param watchService ファイルの監視
+	 * @return 変更されたデータファイル
+	 * @throws InterruptedException 待機中に割り込まれた場合
+	 */
+	private Set<Path> waitForChanges(WatchService watchService) throws InterruptedException {
+		Set<Path> changedPaths = new LinkedHashSet<Path>();
+		while(changedPaths.isEmpty()) {
+			addChangedPaths(watchService.take(), changedPaths);
+		}
+		//エディターの保存では書き込みや名前の変更が連続して発生するため、まとめて 1回の変更として扱います。
+		WatchKey key;
+		while((key = watchService.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+			addChangedPaths(key, changedPaths);
+		}
+		return changedPaths;
+	}
+
+	private void addChangedPaths(WatchKey key, Set<Path> changedPaths) {
+		Path dir = (Path)key.watchable();
+		List<Path> inputPaths = Main.getInputPaths(journalEntryPath, isSoloProprietorship);
+		for(WatchEvent<?> event : key.pollEvents()) {
+			if(event.kind() == StandardWatchEventKinds.OVERFLOW) {
+				//変更を取りこぼした可能性があるため、すべてのデータファイルが変更されたものとして扱います。
+				changedPaths.addAll(inputPaths);
+				continue;
+			}
+			Path path = dir.resolve((Path)event.context());
+			if(inputPaths.contains(path)) {
+				changedPaths.add(path);
+			} else if(dir.equals(journalEntryPath.getParent())) {
+				String filename = path.getFileName().toString();
+				if(filename.equals(ACCOUNT_TITLES_FILENAME) || (isSoloProprietorship && filename.equals(PROPORTIONAL_DIVISIONS_FILENAME))) {
+					changedPaths.add(path);
+				}
+			}
+		}
+		key.reset();
+	}
+
+	/** データファイルを読み込んで決算し、帳簿と決算書を作成します。
+	 * 勘定科目と家事按分は、前回から変更されていなければ読み込みを省略します。
+	 *
+	 * @throws IOException I/Oエラーが発生した場合
+	 */
+	private void process() throws IOException {
+		Path accountTitlesPath = null;
+		Path proportionalDivisionsPath = null;
+		for(Path path : Main.getInputPaths(journalEntryPath, isSoloProprietorship)) {
+			if(path.equals(journalEntryPath)) {
+				continue;
+			}
+			if(path.getFileName().toString().equals(ACCOUNT_TITLES_FILENAME)) {
+				accountTitlesPath = path;
+			} else if(path.getFileName().toString().equals(PROPORTIONAL_DIVISIONS_FILENAME)) {
+				proportionalDivisionsPath = path;
+			}
+		}
+
+		System.out.println("次のデータファイルを使用して処理を実行します。");
+		int processNumber = 0;
+
+		// 勘定科目.yml
+		if(accountTitlesPath == null) {
+			throw error(" [エラー] ファイルが見つかりません: " + ACCOUNT_TITLES_FILENAME);
+		}
+		boolean accountTitlesChanged = (accountTitlesLoader == null || isModified(accountTitlesPath));
+		if(accountTitlesChanged) {
+			//読み込みに失敗した場合に前回の勘定科目を使用しないように、先に破棄します。
+			accountTitlesLoader = null;
+			proportionalDivisions = null;
+			FileTime lastModifiedTime = getLastModifiedTime(accountTitlesPath);
+			AccountTitlesLoader loader = new AccountTitlesLoader(accountTitlesPath);
+			loader.getAccountTitles();
+			loader.validate();
+			accountTitlesLoader = loader;
+			lastModifiedTimes.put(accountTitlesPath, lastModifiedTime);
+		}
+		System.out.println(" (" + (++processNumber) + ") 勘定科目 | " + accountTitlesPath + (accountTitlesChanged ? "" : " (変更なし)"));
+		Set<AccountTitle> accountTitles = accountTitlesLoader.getAccountTitles();
+
+		// 家事按分.yml
+		if(isSoloProprietorship) {
+			if(proportionalDivisionsPath == null) {
+				throw error(" [エラー] ファイルが見つかりません: " + PROPORTIONAL_DIVISIONS_FILENAME);
+			}
+			boolean proportionalDivisionsChanged = (proportionalDivisions == null || isModified(proportionalDivisionsPath));
+			if(proportionalDivisionsChanged) {
+				proportionalDivisions = null;
+				FileTime lastModifiedTime = getLastModifiedTime(proportionalDivisionsPath);
+				proportionalDivisions = new ProportionalDivisionsLoader(proportionalDivisionsPath, accountTitles).getProportionalDivisions();
+				lastModifiedTimes.put(proportionalDivisionsPath, lastModifiedTime);
+			}
+			System.out.println(" (" + (++processNumber) + ") 家事按分 | " + proportionalDivisionsPath + (proportionalDivisionsChanged ? "" : " (変更なし)"));
+		}
+
+		// 仕訳データ.yml
+		// 決算で仕訳リストに決算仕訳が追加されるため、仕訳データファイルは毎回読み込みます。
+		List<JournalEntry> journalEntries = new JournalEntriesLoader(journalEntryPath, accountTitles).getJournalEntries();
+		System.out.println(" (" + (++processNumber) + ") 仕訳　　 | " + journalEntryPath + " (" + journalEntries.size() + "件)");
+		System.out.println();
+
+		FiscalYear fiscalYear = new FiscalYear(accountTitlesLoader, proportionalDivisions, journalEntries, isSoloProprietorship);
+		fiscalYear.setSkipSettlement(skipSettlement);
+		fiscalYear.setShowMonthlyTotal(showMonthlyTotal);
+		fiscalYear.setDailyTotalAccountTitles(dailyTotalAccountTitles);
+		fiscalYear.setMemoryUsageSetting(memUsageSetting);
+		fiscalYear.setOutputCacheEnabled(true);
+		fiscalYear.setBundleEnabled(bundleEnabled);
+		fiscalYear.setExportFormat(exportFormat);
+		fiscalYear.setHtmlPreviewEnabled(htmlPreviewEnabled, htmlPreviewMaxRows);
+		fiscalYear.setPrintStream(System.out);
+
+		//決算
+		fiscalYear.settle();
+
+		//帳簿と決算書
+		fiscalYear.setFontLoader(fontLoader);
+		fiscalYear.writeTo(journalEntryPath.getParent());
+	}
+
+	private boolean isModified(Path path) {
+		return !lastModifiedTimes.containsKey(path) || !Objects.equals(lastModifiedTimes.get(path), getLastModifiedTime(path));
+	}
+
+	private static FileTime getLastModifiedTime(Path path) {
+		try {
+			return Files.getLastModifiedTime(path);
+		} catch(IOException e) {
+			return null;
+		}
+	}
+}
@@ -112,6 +112,8 @@ public class AccountTitlesLoader {
 			@SuppressWarnings("unchecked")
 			Map<String, Object> map = (Map<String, Object>)obj;
 			Object obj2;
+			// 勘定科目の表示順です。勘定科目.yml に定義された順に 0 から割り当てます。
+			int ordinal = 0;
 
 			obj2 = map.get("資産");
 			if(obj2 == null) {
@@ -124,10 +126,11 @@ public class AccountTitlesLoader {
 			for(String displayName : assets) {
 				AccountTitle accountTitle = builtinAccountTitles.get(displayName);
 				if(accountTitle == null) {
-					accountTitle = new AccountTitle(AccountType.Assets, displayName);
+					accountTitle = new AccountTitle(AccountType.Assets, displayName, false, ordinal);
 				}
 				accountTitles.add(accountTitle);
 				accountTitleByDisplayName.put(displayName, accountTitle);
+				ordinal++;
 			}
 
 			obj2 = map.get("負債");
@@ -141,10 +144,11 @@ public class AccountTitlesLoader {
 			for(String displayName : liabilities) {
 				AccountTitle accountTitle = builtinAccountTitles.get(displayName);
 				if(accountTitle == null) {
-					accountTitle = new AccountTitle(AccountType.Liabilities, displayName);
+					accountTitle = new AccountTitle(AccountType.Liabilities, displayName, false, ordinal);
 				}
 				accountTitles.add(accountTitle);
 				accountTitleByDisplayName.put(displayName, accountTitle);
+				ordinal++;
 			}
 
 			obj2 = map.get("純資産");
@@ -164,10 +168,11 @@ public class AccountTitlesLoader {
 				for(String displayName : equity) {
 					AccountTitle accountTitle = builtinAccountTitles.get(displayName);
 					if(accountTitle == null) {
-						accountTitle = new AccountTitle(AccountType.Equity, displayName);
+						accountTitle = new AccountTitle(AccountType.Equity, displayName, false, ordinal);
 					}
 					accountTitles.add(accountTitle);
 					accountTitleByDisplayName.put(displayName, accountTitle);
+					ordinal++;
 				}
 			}
 
@@ -182,10 +187,11 @@ public class AccountTitlesLoader {
 			for(String displayName : revenue) {
 				AccountTitle accountTitle = builtinAccountTitles.get(displayName);
 				if(accountTitle == null) {
-					accountTitle = new AccountTitle(AccountType.Revenue, displayName);
+					accountTitle = new AccountTitle(AccountType.Revenue, displayName, false, ordinal);
 				}
 				accountTitles.add(accountTitle);
 				accountTitleByDisplayName.put(displayName, accountTitle);
+				ordinal++;
 			}
 
 			obj2 = map.get("費用");
@@ -199,10 +205,11 @@ public class AccountTitlesLoader {
 			for(String displayName : expense) {
 				AccountTitle accountTitle = builtinAccountTitles.get(displayName);
 				if(accountTitle == null) {
-					accountTitle = new AccountTitle(AccountType.Expense, displayName);
+					accountTitle = new AccountTitle(AccountType.Expense, displayName, false, ordinal);
 				}
 				accountTitles.add(accountTitle);
 				accountTitleByDisplayName.put(displayName, accountTitle);
+				ordinal++;
 			}
 		}
 		
@@ -14,12 +14,6 @@ public abstract class Account {
 	
 	/** 金額 */
 	private long amount;
-	
-	/** 仕訳帳ページ番号 (仕丁) */
-	private int journalPageNumber = 0;
-	
-	/** 総勘定元帳ページ番号 (元丁) */
-	private int ledgerPageNumber = 0;
 
 	/** 勘定科目を取得します。
 	 * 
@@ -53,38 +47,6 @@ public abstract class Account {
 		this.amount = amount;
 	}
 	
-	/** 総勘定元帳に記載する仕訳帳ページ番号(仕丁)を取得します。
-	 * 
-	 * @return 仕訳帳ページ番号(仕丁)。仕訳帳記載が完了していない場合は 0 が返されます。
-	 */
-	public int getJournalPageNumber() {
-		return journalPageNumber;
-	}
-	
-	/** 総勘定元帳に記載する仕訳帳ページ番号(仕丁)を設定します。
-	 * 
-	 * @param pageNumber 仕訳帳ページ番号(仕丁)
-	 */
-	public void setJournalPageNumber(int pageNumber) {
-		this.journalPageNumber = pageNumber;
-	}
-	
-	/** 仕訳帳に記載する総勘定元帳ページ番号(元丁)を取得します。
-	 * 
-	 * @return 総勘定元帳ページ番号(元丁)。総勘定元帳記載が完了していない場合は 0 が返されます。
-	 */
-	public int getLedgerPageNumber() {
-		return ledgerPageNumber;
-	}
-	
-	/** 仕訳帳に記載する総勘定元帳ページ番号(元丁)を設定します。
-	 * 
-	 * @param pageNumber 総勘定元帳ページ番号(元丁)
-	 */
-	public void setLedgerPageNumber(int pageNumber) {
-		this.ledgerPageNumber = pageNumber;
-	}
-
 	@Override
 	public boolean equals(Object o) {
 		if (this == o) return true;
@@ -8,39 +8,59 @@ import java.util.Set;
  *
  */
 public class AccountTitle {
+
+	/** ビルトイン決算勘定の表示順です。
+	 * 表示順は勘定科目の種類に関係なく比較されるため、勘定科目.yml に定義されたすべての勘定科目の後に並びます。
+	 */
+	public static final int BUILTIN_ORDINAL = Integer.MAX_VALUE;
 	
 	/** 諸口 */
-	public static AccountTitle SUNDRIES = new AccountTitle(null, "諸口", false);
+	public static final AccountTitle SUNDRIES = new AccountTitle(null, "諸口", false);
 	
 	/** 決算勘定「損益」です。収益・費用がこの損益勘定に振り替えられます。*/
-	public static AccountTitle INCOME_SUMMARY = new AccountTitle(AccountType.Revenue, "損益", true);
+	public static final AccountTitle INCOME_SUMMARY = new AccountTitle(AccountType.Revenue, "損益", true, BUILTIN_ORDINAL);
 	
 	/** 決算勘定「残高」です。資産・負債・資本がこの損益勘定に振り替えられます。*/
-	public static AccountTitle BALANCE = new AccountTitle(AccountType.Assets, "残高", true);
+	public static final AccountTitle BALANCE = new AccountTitle(AccountType.Assets, "残高", true, BUILTIN_ORDINAL);
 	
 	/** 決算勘定「繰越利益剰余金」です。収益-費用で算出されます。法人で使用する勘定科目です。*/
-	public static AccountTitle RETAINED_EARNINGS = new AccountTitle(AccountType.Equity, "繰越利益剰余金", true);
+	public static final AccountTitle RETAINED_EARNINGS = new AccountTitle(AccountType.Equity, "繰越利益剰余金", true, BUILTIN_ORDINAL);
 	
 	/** 決算勘定「控除前の所得金額」です。収益-費用で算出されます。個人事業主で使用する勘定科目です。*/
-	public static AccountTitle PRETAX_INCOME = new AccountTitle(AccountType.Equity, "控除前の所得金額", true);
+	public static final AccountTitle PRETAX_INCOME = new AccountTitle(AccountType.Equity, "控除前の所得金額", true, BUILTIN_ORDINAL);
 	
 	/** 種類 */
-	private AccountType type;
+	private final AccountType type;
 	
 	/** 表示名 */
-	private String displayName;
+	private final String displayName;
 	
 	/** 決算勘定 */
-	private boolean isClosing;
+	private final boolean isClosing;
+
+	/** 表示順 */
+	private final int ordinal;
 
 	public AccountTitle(AccountType type, String displayName) {
 		this(type, displayName, false);
 	}
 
 	public AccountTitle(AccountType type, String displayName, boolean isClosing) {
+		this(type, displayName, isClosing, -1);
+	}
+
+	/** 表示順を指定して勘定科目を作成します。
+	 * 
+	 * @param type 勘定科目の種類
+	 * @param displayName 勘定科目名
+	 * @param isClosing 決算勘定の場合は true
+	 * @param ordinal 勘定科目.yml に定義された順序で 0 から始まる表示順。表示順が定まらない場合は -1
+	 */
+	public AccountTitle(AccountType type, String displayName, boolean isClosing, int ordinal) {
 		this.type = type;
 		this.displayName = displayName;
 		this.isClosing = isClosing;
+		this.ordinal = ordinal;
 	}
 
 	/** 勘定科目の種類を取得します。
@@ -67,6 +87,17 @@ public class AccountTitle {
 		return isClosing;
 	}
 
+	/** 勘定科目の表示順を返します。
+	 * 表示順は勘定科目.yml に定義された順序で 0 から始まります。
+	 * 決算仕訳の並べ替えや次年度の開始仕訳の並べ替えで使用され、勘定科目リストを検索する必要がありません。
+	 * 勘定科目.yml に定義されていない勘定科目は -1、ビルトイン決算勘定は {@link #BUILTIN_ORDINAL} を返します。
+	 * 
+	 * @return 表示順
+	 */
+	public int getOrdinal() {
+		return ordinal;
+	}
+
 	
 	@Override
 	public String toString() {
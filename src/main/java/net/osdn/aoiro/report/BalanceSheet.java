@@ -1,9 +1,6 @@
 package net.osdn.aoiro.report;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.AtomicMoveNotSupportedException;
@@ -17,6 +14,7 @@ import java.time.chrono.JapaneseChronology;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -39,12 +37,15 @@ import net.osdn.pdf_brewer.BrewerData;
 import net.osdn.pdf_brewer.FontLoader;
 import net.osdn.pdf_brewer.PdfBrewer;
 
+import static net.osdn.aoiro.ErrorMessage.error;
+
 /** 貸借対照表
  * 
  */
 public class BalanceSheet {
 
-	public static String MINUS_SIGN = "△";
+	/** 負の金額に付ける既定の符号 */
+	public static final String MINUS_SIGN = "△";
 	private static final int ROWS = 40;
 	private static final double ROW_HEIGHT = 6.0;
 	
@@ -60,10 +61,11 @@ public class BalanceSheet {
 	private List<Node<Entry<List<AccountTitle>, Amount[]>>> liabilitiesList;
 	private List<Node<Entry<List<AccountTitle>, Amount[]>>> equityList;
 	
-	private List<String> pageData = new ArrayList<String>();
-	private List<String> printData;
+	private PrintData pageData;
+	private PrintData printData;
 	private FontLoader fontLoader;
 	private boolean bindingMarginEnabled = true;
+	private String minusSign = MINUS_SIGN;
 
 	private List<String> warnings = new ArrayList<String>();
 
@@ -75,13 +77,7 @@ public class BalanceSheet {
 		this.openingDate = AccountSettlement.getOpeningDate(journalEntries, isSoloProprietorship);
 		this.closingDate = AccountSettlement.getClosingDate(journalEntries, isSoloProprietorship);
 		
-		InputStream in = getClass().getResourceAsStream("/templates/貸借対照表.pb");
-		BufferedReader r = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
-		String line;
-		while((line = r.readLine()) != null) {
-			pageData.add(line);
-		}
-		r.close();
+		pageData = Templates.get("貸借対照表");
 		
 		//期首残高(元入金)と期末残高の算出
 		for(JournalEntry entry : journalEntries) {
@@ -231,6 +227,10 @@ public class BalanceSheet {
 		return journalEntries;
 	}
 
+	public BalanceSheetLayout getLayout() {
+		return bsLayout;
+	}
+
 	public Map<AccountTitle, Amount> getOpeningBalances() {
 		return openingBalances;
 	}
@@ -330,65 +330,65 @@ public class BalanceSheet {
 		String closingMonth = Integer.toString(this.closingDate.getMonthValue());
 		String closingDay = Integer.toString(this.closingDate.getDayOfMonth());
 
-		printData = new ArrayList<String>();
+		printData = new PrintData();
 		if(bindingMarginEnabled) {
-			printData.add("\\media A4");
+			printData.media("A4");
 
 			//穴あけパンチの位置を合わせるための中心線を先頭ページのみ印字します。
-			printData.add("\\line-style thin dot");
-			printData.add("\\line 0 148.5 5 148.5");
+			printData.lineStyle(0, "thin dot");
+			printData.line(0, 0, 148.5, 5, 148.5);
 
-			printData.add("\\box 15 0 0 0");
-			printData.add("\\line-style thin dot");
-			printData.add("\\line 0 0 0 -0");
-			printData.add("\\box 25 0 -10 -10");
+			printData.box(0, 15, 0, 0, 0);
+			printData.lineStyle(0, "thin dot");
+			printData.line(0, 0, 0, 0, -0.0);
+			printData.box(0, 25, 0, -10, -10);
 		} else {
 			// 綴じ代なしの場合は15mm分だけ横幅を短くして195mmとします。(A4本来の横幅は210mm)
 			// 穴あけパンチ用の中心線も出力しません。
-			printData.add("\\media 195 297");
+			printData.media("195 297");
 
-			printData.add("\\box 10 0 -10 -10");
+			printData.box(0, 10, 0, -10, -10);
 		}
 
-		printData.addAll(pageData);
+		printData.addTemplate(pageData);
 
 		//日付
-		printData.add("\t\\box 0 16 -0 7");
-		printData.add("\t\\font serif 10");
-		printData.add("\t\\align center");
-		printData.add("\t\\text " + openingDate + " ～ " + closingDate);
-		printData.add("\t\\box 0 31 -0 6");
-		printData.add("\t\\align center center");
-		printData.add("\t\t\\box 37.0 0 5 -0");
-		printData.add("\t\t\\text " + openingMonth);
-		printData.add("\t\t\\box 44.7 0 5 -0");
-		printData.add("\t\t\\text " + openingDay);
-		printData.add("\t\t\\box 124.5 0 5 -0");
-		printData.add("\t\t\\text " + openingMonth);
-		printData.add("\t\t\\box 132.2 0 5 -0");
-		printData.add("\t\t\\text " + openingDay);
-		printData.add("\t\t\\box 63.0 0 5 -0");
-		printData.add("\t\t\\text " + closingMonth);
-		printData.add("\t\t\\box 70.7 0 5 -0");
-		printData.add("\t\t\\text " + closingDay);
-		printData.add("\t\t\\box 150.5 0 5 -0");
-		printData.add("\t\t\\text " + closingMonth);
-		printData.add("\t\t\\box 158.2 0 5 -0");
-		printData.add("\t\t\\text " + closingDay);
+		printData.box(1, 0, 16, -0.0, 7);
+		printData.font(1, "serif 10");
+		printData.align(1, "center");
+		printData.text(1, openingDate + " ～ " + closingDate);
+		printData.box(1, 0, 31, -0.0, 6);
+		printData.align(1, "center center");
+		printData.box(2, 37.0, 0, 5, -0.0);
+		printData.text(2, openingMonth);
+		printData.box(2, 44.7, 0, 5, -0.0);
+		printData.text(2, openingDay);
+		printData.box(2, 124.5, 0, 5, -0.0);
+		printData.text(2, openingMonth);
+		printData.box(2, 132.2, 0, 5, -0.0);
+		printData.text(2, openingDay);
+		printData.box(2, 63.0, 0, 5, -0.0);
+		printData.text(2, closingMonth);
+		printData.box(2, 70.7, 0, 5, -0.0);
+		printData.text(2, closingDay);
+		printData.box(2, 150.5, 0, 5, -0.0);
+		printData.text(2, closingMonth);
+		printData.box(2, 158.2, 0, 5, -0.0);
+		printData.text(2, closingDay);
 
 		//負債・資本の部のタイトル変更
 		//2006年の新会社法で貸借対照表の「資本の部」が「純資産の部」に変更になりました。
 		//しかし、国税庁が用意している個人の確定申告用の決算書（貸借対照表）では「資本の部」という表示のままとなっています。
 		//国税庁が用意している決算書（貸借対照表）への転記しやすさを考え、
 		//aoiroでは会社の場合は「純資産の部」、個人事業主の場合は「資本の部」と表記を切り替えるようにしています。
-		printData.add("\t\\box 0 25 -0 6");
-		printData.add("\t\t\\font sans-serif 9");
-		printData.add("\t\t\\align center");
-		printData.add("\t\t\\box 87.5 0 87.5 -0");
+		printData.box(1, 0, 25, -0.0, 6);
+		printData.font(2, "sans-serif 9");
+		printData.align(2, "center");
+		printData.box(2, 87.5, 0, 87.5, -0.0);
 		if(isSoloProprietorship) {
-			printData.add("\t\t\\text 負　債　・　資　本　の　部");
+			printData.text(2, "負　債　・　資　本　の　部");
 		} else {
-			printData.add("\t\t\\text 負　債　・　純　資　産　の　部");
+			printData.text(2, "負　債　・　純　資　産　の　部");
 		}
 
 		// 貸借対照表に出現するもっとも大きな金額を求めます。後の工程で最大金額の桁数に応じて表示位置を調整します。
@@ -546,29 +546,29 @@ public class BalanceSheet {
 		}
 
 		int rows = Math.max(assetsRows, liabilitiesRows + equityRows);
-		printData.add("\t\\box 0 0 -0 -0");
-		printData.add("\t\\line-style thin solid");
-		printData.add("\t\\line " + String.format("87.3 %.2f 87.3 %.2f", 25.2, 37.0 + rows * ROW_HEIGHT));
-		printData.add("\t\\line " + String.format("87.7 %.2f 87.7 %.2f", 25.2, 37.0 + rows * ROW_HEIGHT));
-		printData.add("\t\\line " + String.format("35.5 %.2f 35.5 %.2f", 31.0, 37.0 + rows * ROW_HEIGHT));
-		printData.add("\t\\line " + String.format("61.5 %.2f 61.5 %.2f", 31.0, 37.0 + rows * ROW_HEIGHT));
-		printData.add("\t\\line " + String.format("123  %.2f 123  %.2f", 31.0, 37.0 + rows * ROW_HEIGHT));
-		printData.add("\t\\line " + String.format("149  %.2f 149  %.2f", 31.0, 37.0 + rows * ROW_HEIGHT));
-
-		printData.add("\t\\box 0 37 -0 -0");
-		printData.add("\t\\font serif 10");
-		printData.add("\t\\line-style thin dot");
+		printData.box(1, 0, 0, -0.0, -0.0);
+		printData.lineStyle(1, "thin solid");
+		printData.line(1, 87.3, 25.2, 87.3, 37.0 + rows * ROW_HEIGHT);
+		printData.line(1, 87.7, 25.2, 87.7, 37.0 + rows * ROW_HEIGHT);
+		printData.line(1, 35.5, 31.0, 35.5, 37.0 + rows * ROW_HEIGHT);
+		printData.line(1, 61.5, 31.0, 61.5, 37.0 + rows * ROW_HEIGHT);
+		printData.line(1, 123, 31.0, 123, 37.0 + rows * ROW_HEIGHT);
+		printData.line(1, 149, 31.0, 149, 37.0 + rows * ROW_HEIGHT);
+
+		printData.box(1, 0, 37, -0.0, -0.0);
+		printData.font(1, "serif 10");
+		printData.lineStyle(1, "thin dot");
 
 		double y = 0.0;
 		for(int i = 1; i < rows; i++) {
-			printData.add("\t\\line " + String.format("0 %.2f -0 %.2f", y, y));
+			printData.line(1, 0, y, -0.0, y);
 			y += ROW_HEIGHT;
 		}
-		printData.add("\t\\line-style thin solid");
-		printData.add("\t\\line " + String.format("0 %.2f -0 %.2f", y, y));
+		printData.lineStyle(1, "thin solid");
+		printData.line(1, 0, y, -0.0, y);
 		y += ROW_HEIGHT;
-		printData.add("\t\\line " + String.format("0 %.2f -0 %.2f", y, y));
-		printData.add("\t\\line " + String.format("0 %.2f -0 %.2f", y + 0.4, y + 0.4));
+		printData.line(1, 0, y, -0.0, y);
+		printData.line(1, 0, y + 0.4, -0.0, y + 0.4);
 
 		//資産
 		y = 0.0;
@@ -581,9 +581,9 @@ public class BalanceSheet {
 
 			// 事業主貸の期首欄には斜線を引きます。
 			if("事業主貸".equals(node.getName())) {
-				printData.add("\t\t\\box " + String.format("35.5 %.2f 26 %.2f", y, ROW_HEIGHT));
-				printData.add("\t\t\\line-style thin dot");
-				printData.add("\t\t\\line -0 0.15 0 -0.15");
+				printData.box(2, 35.5, y, 26, ROW_HEIGHT);
+				printData.lineStyle(2, "thin dot");
+				printData.line(2, -0.0, 0.15, 0, -0.15);
 			}
 			//対象の仕訳が存在しない科目は印字をスキップします。（ただし、常に表示する見出しに含まれていない場合に限る。）
 			if(openingAmount == null && closingAmount == null && !bsLayout.isAlwaysShown(displayName)) {
@@ -594,17 +594,17 @@ public class BalanceSheet {
 					&& (closingAmount == null || closingAmount.getValue() == 0) && bsLayout.isHidden(displayName)) {
 				continue;
 			}
-			printData.add("\t\t\\box " + String.format("2 %.2f 35.5 %.2f", y, ROW_HEIGHT));
-			printData.add("\t\t\\align center left");
-			printData.add("\t\t\\text " + displayName);
-			printData.add("\t\t\\align center right");
+			printData.box(2, 2, y, 35.5, ROW_HEIGHT);
+			printData.align(2, "center left");
+			printData.text(2, displayName);
+			printData.align(2, "center right");
 			if(openingAmount != null) {
-				printData.add("\t\t\\box " + String.format("35.5 %.2f %.2f %.2f", y, amountPrintWidth, ROW_HEIGHT));
-				printData.add("\t\t\\text " + formatMoney(sign * openingAmount.getValue()));
+				printData.box(2, 35.5, y, amountPrintWidth, ROW_HEIGHT);
+				printData.text(2, formatMoney(sign * openingAmount.getValue()));
 			}
 			if(closingAmount != null) {
-				printData.add("\t\t\\box " + String.format("61.5 %.2f %.2f %.2f", y, amountPrintWidth, ROW_HEIGHT));
-				printData.add("\t\t\\text " + formatMoney(sign * closingAmount.getValue()));
+				printData.box(2, 61.5, y, amountPrintWidth, ROW_HEIGHT);
+				printData.text(2, formatMoney(sign * closingAmount.getValue()));
 			}
 			y += ROW_HEIGHT;
 		}
@@ -626,23 +626,23 @@ public class BalanceSheet {
 					&& (closingAmount == null || closingAmount.getValue() == 0) && bsLayout.isHidden(displayName)) {
 				continue;
 			}
-			printData.add("\t\t\\box " + String.format("89.5 %.2f 35.5 %.2f", y, ROW_HEIGHT));
-			printData.add("\t\t\\align center left");
-			printData.add("\t\t\\text " + displayName);
-			printData.add("\t\t\\align center right");
+			printData.box(2, 89.5, y, 35.5, ROW_HEIGHT);
+			printData.align(2, "center left");
+			printData.text(2, displayName);
+			printData.align(2, "center right");
 			if(openingAmount != null) {
-				printData.add("\t\t\\box " + String.format("123 %.2f %.2f %.2f", y, amountPrintWidth, ROW_HEIGHT));
-				printData.add("\t\t\\text " + formatMoney(sign * openingAmount.getValue()));
+				printData.box(2, 123, y, amountPrintWidth, ROW_HEIGHT);
+				printData.text(2, formatMoney(sign * openingAmount.getValue()));
 			}
 			if(closingAmount != null) {
-				printData.add("\t\t\\box " + String.format("149 %.2f %.2f %.2f", y, amountPrintWidth, ROW_HEIGHT));
-				printData.add("\t\t\\text " + formatMoney(sign * closingAmount.getValue()));
+				printData.box(2, 149, y, amountPrintWidth, ROW_HEIGHT);
+				printData.text(2, formatMoney(sign * closingAmount.getValue()));
 			}
 			y += ROW_HEIGHT;
 		}
 		//資本（純資産）
 		y = (rows - equityList.size()) * ROW_HEIGHT;
-		printData.add("\t\\line " + String.format("87.7 %.2f -0 %.2f", y, y));
+		printData.line(1, 87.7, y, -0.0, y);
 		for(int i = 1; i < equityList.size(); i++) {
 			Node<Entry<List<AccountTitle>, Amount[]>> node = equityList.get(i);
 			String displayName = node.getName();
@@ -652,9 +652,9 @@ public class BalanceSheet {
 
 			// 事業主借および控除前の所得金額の期首欄には斜線を引きます。
 			if("事業主借".equals(node.getName()) || "控除前の所得金額".equals(node.getName())) {
-				printData.add("\t\t\\box " + String.format("123 %.2f 26 %.2f", y, ROW_HEIGHT));
-				printData.add("\t\t\\line-style thin dot");
-				printData.add("\t\t\\line -0 0.15 0 -0.15");
+				printData.box(2, 123, y, 26, ROW_HEIGHT);
+				printData.lineStyle(2, "thin dot");
+				printData.line(2, -0.0, 0.15, 0, -0.15);
 			}
 			//対象の仕訳が存在しない科目は印字をスキップします。（ただし、常に表示する見出しに含まれていない場合に限る。）
 			if(openingAmount == null && closingAmount == null && !bsLayout.isAlwaysShown(displayName)) {
@@ -665,17 +665,17 @@ public class BalanceSheet {
 					&& (closingAmount == null || closingAmount.getValue() == 0) && bsLayout.isHidden(displayName)) {
 				continue;
 			}
-			printData.add("\t\t\\box " + String.format("89.5 %.2f 35.5 %.2f", y, ROW_HEIGHT));
-			printData.add("\t\t\\align center left");
-			printData.add("\t\t\\text " + displayName);
-			printData.add("\t\t\\align center right");
+			printData.box(2, 89.5, y, 35.5, ROW_HEIGHT);
+			printData.align(2, "center left");
+			printData.text(2, displayName);
+			printData.align(2, "center right");
 			if(openingAmount != null) {
-				printData.add("\t\t\\box " + String.format("123 %.2f %.2f %.2f", y, amountPrintWidth, ROW_HEIGHT));
-				printData.add("\t\t\\text " + formatMoney(sign * openingAmount.getValue()));
+				printData.box(2, 123, y, amountPrintWidth, ROW_HEIGHT);
+				printData.text(2, formatMoney(sign * openingAmount.getValue()));
 			}
 			if(closingAmount != null) {
-				printData.add("\t\t\\box " + String.format("149 %.2f %.2f %.2f", y, amountPrintWidth, ROW_HEIGHT));
-				printData.add("\t\t\\text " + formatMoney(sign * closingAmount.getValue()));
+				printData.box(2, 149, y, amountPrintWidth, ROW_HEIGHT);
+				printData.text(2, formatMoney(sign * closingAmount.getValue()));
 			}
 			y += ROW_HEIGHT;
 		}
@@ -688,15 +688,15 @@ public class BalanceSheet {
 			String displayName = "合計";
 			Amount openingAmount = node.getValue().getValue()[0];
 			Amount closingAmount = node.getValue().getValue()[1];
-			printData.add("\t\t\\font serif 10 bold");
-			printData.add("\t\t\\box " + String.format("2 %.2f 35.5 %.2f", y, ROW_HEIGHT));
-			printData.add("\t\t\\align center left");
-			printData.add("\t\t\\text " + displayName);
-			printData.add("\t\t\\align center right");
-			printData.add("\t\t\\box " + String.format("35.5 %.2f %.2f %.2f", y, amountPrintWidth, ROW_HEIGHT));
-			printData.add("\t\t\\text " + formatMoney(openingAmount != null ? openingAmount.getValue() : 0));
-			printData.add("\t\t\\box " + String.format("61.5 %.2f %.2f %.2f", y, amountPrintWidth, ROW_HEIGHT));
-			printData.add("\t\t\\text " + formatMoney(closingAmount != null ? closingAmount.getValue() : 0));
+			printData.font(2, "serif 10 bold");
+			printData.box(2, 2, y, 35.5, ROW_HEIGHT);
+			printData.align(2, "center left");
+			printData.text(2, displayName);
+			printData.align(2, "center right");
+			printData.box(2, 35.5, y, amountPrintWidth, ROW_HEIGHT);
+			printData.text(2, formatMoney(openingAmount != null ? openingAmount.getValue() : 0));
+			printData.box(2, 61.5, y, amountPrintWidth, ROW_HEIGHT);
+			printData.text(2, formatMoney(closingAmount != null ? closingAmount.getValue() : 0));
 		}
 		if(liabilitiesList.size() > 0 || equityList.size() > 0) {
 			//合計（負債、資本）
@@ -723,15 +723,15 @@ public class BalanceSheet {
 					closingAmount += c.getValue();
 				}
 			}
-			printData.add("\t\t\\font serif 10 bold");
-			printData.add("\t\t\\box " + String.format("89.5 %.2f 35.5 %.2f", y, ROW_HEIGHT));
-			printData.add("\t\t\\align center left");
-			printData.add("\t\t\\text " + displayName);
-			printData.add("\t\t\\align center right");
-			printData.add("\t\t\\box " + String.format("123 %.2f %.2f %.2f", y, amountPrintWidth, ROW_HEIGHT));
-			printData.add("\t\t\\text " + formatMoney(openingAmount));
-			printData.add("\t\t\\box " + String.format("149 %.2f %.2f %.2f", y, amountPrintWidth, ROW_HEIGHT));
-			printData.add("\t\t\\text " + formatMoney(closingAmount));
+			printData.font(2, "serif 10 bold");
+			printData.box(2, 89.5, y, 35.5, ROW_HEIGHT);
+			printData.align(2, "center left");
+			printData.text(2, displayName);
+			printData.align(2, "center right");
+			printData.box(2, 123, y, amountPrintWidth, ROW_HEIGHT);
+			printData.text(2, formatMoney(openingAmount));
+			printData.box(2, 149, y, amountPrintWidth, ROW_HEIGHT);
+			printData.text(2, formatMoney(closingAmount));
 		}
 	}
 
@@ -743,17 +743,29 @@ public class BalanceSheet {
 		this.bindingMarginEnabled = enabled;
 	}
 
+	/** 負の金額に付ける符号を返します。
+	 *
+	 * @return 負の金額に付ける符号
+	 */
+	public String getMinusSign() {
+		return minusSign;
+	}
+
+	/** 負の金額に付ける符号を設定します。
+	 * 符号はこの決算書だけに適用され、同じプロセスで作成する他の決算書には影響しません。
+	 *
+	 * @param minusSign 負の金額に付ける符号。null の場合はマイナス記号 (-) になります。
+	 */
+	public void setMinusSign(String minusSign) {
+		this.minusSign = minusSign;
+	}
+
 	public void writeTo(Path path) throws IOException {
 		prepare();
 
-		PdfBrewer brewer;
-		if(fontLoader != null) {
-			brewer = new PdfBrewer(fontLoader);
-		} else {
-			brewer = new PdfBrewer();
-		}
+		PdfBrewer brewer = new SharedFontPdfBrewer(fontLoader);
 		brewer.setCreator(Util.getPdfCreator());
-		BrewerData pb = new BrewerData(printData, brewer.getFontLoader());
+		BrewerData pb = printData.toBrewerData(brewer.getFontLoader());
 		brewer.setTitle("貸借対照表");
 		brewer.process(pb);
 		brewer.save(path);
@@ -763,51 +775,63 @@ public class BalanceSheet {
 	public void writeTo(OutputStream out) throws IOException {
 		prepare();
 
-		PdfBrewer brewer;
-		if(fontLoader != null) {
-			brewer = new PdfBrewer(fontLoader);
-		} else {
-			brewer = new PdfBrewer();
-		}
+		PdfBrewer brewer = new SharedFontPdfBrewer(fontLoader);
 		brewer.setCreator(Util.getPdfCreator());
-		BrewerData pb = new BrewerData(printData, brewer.getFontLoader());
+		BrewerData pb = printData.toBrewerData(brewer.getFontLoader());
 		brewer.setTitle("貸借対照表");
 		brewer.process(pb);
 		brewer.save(out);
 		brewer.close();
 	}
 
-	/** 次年度の開始仕訳を作成します。
-	 * このメソッドはJSON文字列がエスケープされます。
+	/** 貸借対照表を指定した PdfBrewer の新しいページから印字します。
+	 * 帳簿・決算書を 1つのPDFにまとめる場合に使用します。
 	 *
-	 * @param path 次年度の開始仕訳を保存するファイル。nullを指定した場合、ファイル出力はおこないません。
-	 * @return 次年度の開始仕訳のYAML文字列
-	 * @throws IOException 
+	 * @param brewer 印字データを出力する PdfBrewer
+	 * @throws IOException I/Oエラーが発生した場合
 	 */
-	public String createNextOpeningJournalEntries(List<AccountTitle> accountTitles, Path path) throws IOException {
-		List<Entry<AccountTitle, Amount>> debtors = new ArrayList<>();
-		long debtorsTotal = 0;
-		List<Entry<AccountTitle, Amount>> creditors = new ArrayList<>();
-		long creditorsTotal = 0;
-		
-		StringBuilder sb = new StringBuilder();
-		String nextOpeningDate = null;
+	void printTo(PdfBrewer brewer) throws IOException {
+		prepare();
+		brewer.process(printData.toBrewerData(brewer.getFontLoader()));
+	}
+
+	/** 次年度の開始仕訳を仕訳リストとして作成します。
+	 * createNextOpeningJournalEntries と createNextOpeningJournalEntriesCompat は、このリストを YAML 文字列にして出力します。
+	 * YAMLを経由せずに次年度の仕訳リストへ直接追加できるので、複数年度をまとめて処理する場合に使用します。
+	 *
+	 * @param accountTitles 勘定科目リスト
+	 * @return 次年度の開始仕訳のリスト
+	 */
+	public List<JournalEntry> getNextOpeningJournalEntries(List<AccountTitle> accountTitles) {
+		AccountTitle openingInventory = AccountTitle.getByDisplayName(new HashSet<>(accountTitles), "期首商品棚卸高");
+		return getNextOpeningJournalEntries(accountTitles, openingInventory);
+	}
+
+	/** 次年度の開始仕訳を仕訳リストとして作成します。
+	 *
+	 * @param accountTitles 勘定科目リスト
+	 * @param openingInventory 期首棚卸に使用する期首商品棚卸高の勘定科目。null の場合、期末商品棚卸高があるとエラーになります。
+	 * @return 次年度の開始仕訳のリスト
+	 */
+	private List<JournalEntry> getNextOpeningJournalEntries(List<AccountTitle> accountTitles, AccountTitle openingInventory) {
+		List<JournalEntry> entries = new ArrayList<>();
+
+		LocalDate nextOpeningDate = null;
 		if(this.closingDate != null) {
-			nextOpeningDate = DateTimeFormatter.ISO_LOCAL_DATE.format(this.closingDate.plusDays(1));
+			nextOpeningDate = this.closingDate.plusDays(1);
 		}
 
-		if(isSoloProprietorship) {
-			//個人事業主の場合は、事業主貸（資産）、事業主借（負債）、所得金額（資本）が次期の元入金に加算されます。
-			//事業主貸、事業主借を除く資産と負債を集計して次期開始仕訳を作成します。
-			//相手勘定科目はすべて元入金になります。
+		List<Debtor> debtors = new ArrayList<>();
+		long debtorsTotal = 0;
+		List<Creditor> creditors = new ArrayList<>();
+		long creditorsTotal = 0;
 
-			List<Entry<AccountTitle, Amount>> list = new ArrayList<>(closingBalances.entrySet());
-			Collections.sort(list, (o1, o2) -> {
-				return accountTitles.indexOf(o1.getKey()) - accountTitles.indexOf(o2.getKey());
-			});
-			for(Entry<AccountTitle, Amount> e : list) {
-				AccountTitle accountTitle = e.getKey();
-				Amount amount = e.getValue();
+		List<Entry<AccountTitle, Amount>> list = new ArrayList<>(closingBalances.entrySet());
+		Collections.sort(list, Comparator.comparingInt(o -> o.getKey().getOrdinal()));
+		for(Entry<AccountTitle, Amount> e : list) {
+			AccountTitle accountTitle = e.getKey();
+			long value = e.getValue().getValue();
+			if(isSoloProprietorship) {
 				// 事業主貸・事業主借・元入金 は繰り越しません。
 				if(accountTitle.getDisplayName().equals("事業主貸") || accountTitle.getDisplayName().equals("事業主借") || accountTitle.getDisplayName().equals("元入金")) {
 					continue;
@@ -816,193 +840,135 @@ public class BalanceSheet {
 				if(accountTitle.equals(AccountTitle.PRETAX_INCOME)) {
 					continue;
 				}
-				if(accountTitle.getType() == AccountType.Assets) {
-					if(amount.getValue() == 0) {
-						continue;
-					} else if(amount.getValue() > 0) {
-						debtors.add(e);
-						debtorsTotal += amount.getValue();
-					} else {
-						creditors.add(e);
-						creditorsTotal -= amount.getValue();
-					}
-				} else if(accountTitle.getType() == AccountType.Liabilities || accountTitle.getType() == AccountType.Equity) {
-					if(amount.getValue() == 0) {
-						continue;
-					} else if(amount.getValue() > 0) {
-						creditors.add(e);
-						creditorsTotal += amount.getValue();
-					} else {
-						debtors.add(e);
-						debtorsTotal -= amount.getValue();
-					}
+			}
+			if(value == 0) {
+				continue;
+			}
+			if(accountTitle.getType() == AccountType.Assets) {
+				if(value > 0) {
+					debtors.add(new Debtor(accountTitle, value));
+					debtorsTotal += value;
+				} else {
+					creditors.add(new Creditor(accountTitle, -value));
+					creditorsTotal -= value;
+				}
+			} else if(accountTitle.getType() == AccountType.Liabilities || accountTitle.getType() == AccountType.Equity) {
+				if(value > 0) {
+					creditors.add(new Creditor(accountTitle, value));
+					creditorsTotal += value;
+				} else {
+					debtors.add(new Debtor(accountTitle, -value));
+					debtorsTotal -= value;
 				}
 			}
+		}
+
+		String description;
+		if(isSoloProprietorship) {
+			//個人事業主の場合は、事業主貸（資産）、事業主借（負債）、所得金額（資本）が次期の元入金に加算されます。
+			//相手勘定科目はすべて元入金になります。
+			description = "元入金";
 			AccountTitle capital = AccountTitle.getByDisplayName(new HashSet<>(accountTitles), "元入金");
 			if(capital != null) {
-				Map.Entry<AccountTitle, Amount> e = Map.entry(capital, new Amount(Creditor.class, (debtorsTotal - creditorsTotal)));
 				if(debtorsTotal >= creditorsTotal) {
-					creditors.add(e);
+					creditors.add(new Creditor(capital, debtorsTotal - creditorsTotal));
 				} else {
-					debtors.add(e);
-				}
-			}
-			if(debtors.size() > 0 && creditors.size() > 0) {
-				sb.append("- \"日付\" : \"" + nextOpeningDate + "\"\r\n");
-				sb.append("  \"摘要\" : \"元入金\"\r\n");
-				sb.append("  \"借方\" : [ ");
-				for(int i = 0; i < debtors.size(); i++) {
-					AccountTitle accountTitle = debtors.get(i).getKey();
-					Amount amount = debtors.get(i).getValue();
-					sb.append("{ \"勘定科目\" : \"" + YamlBeansUtil.escape(accountTitle.getDisplayName()) + "\", \"金額\" : " + Math.abs(amount.getValue()) + " }");
-					if(i + 1 < debtors.size()) {
-						sb.append(", ");
-					}
-				}
-				sb.append(" ]\r\n");
-				sb.append("  \"貸方\" : [ ");
-				for(int i = 0; i < creditors.size(); i++) {
-					AccountTitle accountTitle = creditors.get(i).getKey();
-					Amount amount = creditors.get(i).getValue();
-					sb.append("{ \"勘定科目\" : \"" + YamlBeansUtil.escape(accountTitle.getDisplayName()) + "\", \"金額\" : " + Math.abs(amount.getValue()) + " }");
-					if(i + 1 < creditors.size()) {
-						sb.append(", ");
-					}
+					debtors.add(new Debtor(capital, creditorsTotal - debtorsTotal));
 				}
-				sb.append(" ]\r\n");
-				sb.append("\r\n");
 			}
 		} else {
 			//法人の場合は資産、負債、純資産をすべて繰り越します。
-			List<Entry<AccountTitle, Amount>> list = new ArrayList<>(closingBalances.entrySet());
-			Collections.sort(list, (o1, o2) -> {
-				return accountTitles.indexOf(o1.getKey()) - accountTitles.indexOf(o2.getKey());
-			});
-			for(Entry<AccountTitle, Amount> e : list) {
-				AccountTitle accountTitle = e.getKey();
-				Amount amount = e.getValue();
-				if(accountTitle.getType() == AccountType.Assets) {
-					if(amount.getValue() == 0) {
-						continue;
-					} else if(amount.getValue() > 0) {
-						debtors.add(e);
-					} else {
-						creditors.add(e);
-					}
-				} else if(accountTitle.getType() == AccountType.Liabilities || accountTitle.getType() == AccountType.Equity) {
-					if(amount.getValue() == 0) {
-						continue;
-					} else if(amount.getValue() > 0) {
-						creditors.add(e);
-					} else {
-						debtors.add(e);
-					}
-				}
-			}
-			
-			if(debtors.size() > 0 && creditors.size() > 0) {
-				sb.append("- \"日付\" : \"" + nextOpeningDate + "\"\r\n");
-				sb.append("  \"摘要\" : \"前期繰越\"\r\n");
-				sb.append("  \"借方\" : [ ");
-				for(int i = 0; i < debtors.size(); i++) {
-					AccountTitle accountTitle = debtors.get(i).getKey();
-					Amount amount = debtors.get(i).getValue();
-					sb.append("{ \"勘定科目\" : \"" + YamlBeansUtil.escape(accountTitle.getDisplayName()) + "\", \"金額\" : " + Math.abs(amount.getValue()) + " }");
-					if(i + 1 < debtors.size()) {
-						sb.append(", ");
-					}
-				}
-				sb.append(" ]\r\n");
-				sb.append("  \"貸方\" : [ ");
-				for(int i = 0; i < creditors.size(); i++) {
-					AccountTitle accountTitle = creditors.get(i).getKey();
-					Amount amount = creditors.get(i).getValue();
-					sb.append("{ \"勘定科目\" : \"" + YamlBeansUtil.escape(accountTitle.getDisplayName()) + "\", \"金額\" : " + Math.abs(amount.getValue()) + " }");
-					if(i + 1 < creditors.size()) {
-						sb.append(", ");
-					}
-				}
-				sb.append(" ]\r\n");
-				sb.append("\r\n");
-			}
+			description = "前期繰越";
 		}
-		
+		if(debtors.size() > 0 && creditors.size() > 0) {
+			entries.add(new JournalEntry(nextOpeningDate, description, debtors, creditors));
+		}
+
 		//期末商品棚卸高 を 期首商品棚卸高として開始仕訳に追加します。
 		// ただし、自動作成された期首商品棚卸高の振替仕訳は開始仕訳としては扱われません。（isOpeningはfalseを返します。）
 		for(JournalEntry entry : journalEntries) {
 			if(entry.isClosing()) {
 				continue;
 			}
+			if(openingInventory == null && hasAccountTitle(entry, "期末商品棚卸高")) {
+				throw error(" [エラー] 次年度の開始仕訳を作成できません。\r\n 期首商品棚卸高が勘定科目に定義されていません。");
+			}
 			for(Creditor creditor : entry.getCreditors()) {
 				if(creditor.getAccountTitle().getDisplayName().equals("期末商品棚卸高")) {
-					sb.append("- \"日付\" : \"" + nextOpeningDate + "\"\r\n");
-					sb.append("  \"摘要\" : \"期首棚卸\"\r\n");
-					sb.append("  \"借方\" : [ { \"勘定科目\" : \"期首商品棚卸高\", \"金額\" : " + creditor.getAmount() + " } ]\r\n");
-					sb.append("  \"貸方\" : [ ");
-					for(int i = 0; i < entry.getDebtors().size(); i++) {
-						Debtor debtor = entry.getDebtors().get(i);
-						sb.append("{ \"勘定科目\" : \"" + YamlBeansUtil.escape(debtor.getAccountTitle().getDisplayName()) + "\", \"金額\": " + debtor.getAmount() + " }");
-						if(i + 1 < entry.getDebtors().size()) {
-							sb.append(", ");
-						}
+					List<Creditor> c = new ArrayList<>();
+					for(Debtor debtor : entry.getDebtors()) {
+						c.add(new Creditor(debtor.getAccountTitle(), debtor.getAmount()));
 					}
-					sb.append(" ]\r\n");
-					sb.append("\r\n");
+					entries.add(new JournalEntry(nextOpeningDate, "期首棚卸",
+							new ArrayList<>(List.of(new Debtor(openingInventory, creditor.getAmount()))), c));
 					break;
 				}
 			}
 			for(Debtor debtor : entry.getDebtors()) {
 				if(debtor.getAccountTitle().getDisplayName().equals("期末商品棚卸高")) {
-					sb.append("- \"日付\" : \"" + nextOpeningDate + "\"\r\n");
-					sb.append("  \"摘要\" : \"期首棚卸\"\r\n");
-					sb.append("  \"借方\" : [ ");
-					for(int i = 0; i < entry.getCreditors().size(); i++) {
-						Creditor creditor = entry.getCreditors().get(i);
-						sb.append("{ \"勘定科目\" : \"" + YamlBeansUtil.escape(creditor.getAccountTitle().getDisplayName()) + "\", \"金額\" : " + creditor.getAmount() + " }");
-						if(i + 1 < entry.getCreditors().size()) {
-							sb.append(", ");
-						}
+					List<Debtor> d = new ArrayList<>();
+					for(Creditor creditor : entry.getCreditors()) {
+						d.add(new Debtor(creditor.getAccountTitle(), creditor.getAmount()));
 					}
-					sb.append(" ]\r\n");
-					sb.append("\r\n");
+					entries.add(new JournalEntry(nextOpeningDate, "期首棚卸",
+							d, new ArrayList<>(List.of(new Creditor(openingInventory, debtor.getAmount())))));
 					break;
 				}
 			}
 		}
-		
-		
-		String s = sb.toString();
-		
-		if(path != null && Files.isDirectory(path.getParent())) {
-			Path tmpFile = null;
-			try {
-				Path dir = path.getParent();
-				// 会計年度フォルダーが存在する場合のみ次年度の開始仕訳を作成します。
-				tmpFile = dir.resolve("次年度の開始仕訳.tmp");
-				Files.writeString(tmpFile, s, StandardCharsets.UTF_8,
-						StandardOpenOption.CREATE,
-						StandardOpenOption.TRUNCATE_EXISTING,
-						StandardOpenOption.WRITE,
-						StandardOpenOption.SYNC);
 
-				try {
-					Files.move(tmpFile, path,
-							StandardCopyOption.REPLACE_EXISTING,
-							StandardCopyOption.ATOMIC_MOVE);
-				} catch(AtomicMoveNotSupportedException e) {
-					// 特定の環境において同一ドライブ・同一フォルダー内でのファイル移動であっても
-					// AtomicMoveNotSupportedException がスローされることがあるようです。
-					// AtomicMoveNotSupportedException がスローされた場合、ATOMIC_MOVE なしで移動を試みます。
-					Files.move(tmpFile, path,
-							StandardCopyOption.REPLACE_EXISTING);
+		return entries;
+	}
+
+	private static boolean hasAccountTitle(JournalEntry entry, String displayName) {
+		for(Debtor debtor : entry.getDebtors()) {
+			if(debtor.getAccountTitle().getDisplayName().equals(displayName)) {
+				return true;
+			}
+		}
+		for(Creditor creditor : entry.getCreditors()) {
+			if(creditor.getAccountTitle().getDisplayName().equals(displayName)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/** 次年度の開始仕訳を作成します。
+	 * このメソッドはJSON文字列がエスケープされます。
+	 *
+	 * @param path 次年度の開始仕訳を保存するファイル。nullを指定した場合、ファイル出力はおこないません。
+	 * @return 次年度の開始仕訳のYAML文字列
+	 * @throws IOException 
+	 */
+	public String createNextOpeningJournalEntries(List<AccountTitle> accountTitles, Path path) throws IOException {
+		StringBuilder sb = new StringBuilder();
+		for(JournalEntry entry : getNextOpeningJournalEntriesForYaml(accountTitles)) {
+			sb.append("- \"日付\" : \"" + formatDate(entry.getDate()) + "\"\r\n");
+			sb.append("  \"摘要\" : \"" + YamlBeansUtil.escape(entry.getDescription()) + "\"\r\n");
+			sb.append("  \"借方\" : [ ");
+			for(int i = 0; i < entry.getDebtors().size(); i++) {
+				Debtor debtor = entry.getDebtors().get(i);
+				sb.append("{ \"勘定科目\" : \"" + YamlBeansUtil.escape(debtor.getAccountTitle().getDisplayName()) + "\", \"金額\" : " + debtor.getAmount() + " }");
+				if(i + 1 < entry.getDebtors().size()) {
+					sb.append(", ");
 				}
-			} finally {
-				if(tmpFile != null) {
-					try { Files.deleteIfExists(tmpFile); } catch(Exception ignore) {}
+			}
+			sb.append(" ]\r\n");
+			sb.append("  \"貸方\" : [ ");
+			for(int i = 0; i < entry.getCreditors().size(); i++) {
+				Creditor creditor = entry.getCreditors().get(i);
+				sb.append("{ \"勘定科目\" : \"" + YamlBeansUtil.escape(creditor.getAccountTitle().getDisplayName()) + "\", \"金額\" : " + creditor.getAmount() + " }");
+				if(i + 1 < entry.getCreditors().size()) {
+					sb.append(", ");
 				}
 			}
+			sb.append(" ]\r\n");
+			sb.append("\r\n");
 		}
-		
+
+		String s = sb.toString();
+		writeNextOpeningJournalEntries(path, s);
 		return s;
 	}
 
@@ -1015,194 +981,63 @@ public class BalanceSheet {
 	 * @throws IOException
 	 */
 	public String createNextOpeningJournalEntriesCompat(List<AccountTitle> accountTitles, Path path) throws IOException {
-		List<Entry<AccountTitle, Amount>> debtors = new ArrayList<>();
-		long debtorsTotal = 0;
-		List<Entry<AccountTitle, Amount>> creditors = new ArrayList<>();
-		long creditorsTotal = 0;
-
 		StringBuilder sb = new StringBuilder();
-		String nextOpeningDate = null;
-		if(this.closingDate != null) {
-			nextOpeningDate = DateTimeFormatter.ISO_LOCAL_DATE.format(this.closingDate.plusDays(1));
-		}
-
-		if(isSoloProprietorship) {
-			//個人事業主の場合は、事業主貸（資産）、事業主借（負債）、所得金額（資本）が次期の元入金に加算されます。
-			//事業主貸、事業主借を除く資産と負債を集計して次期開始仕訳を作成します。
-			//相手勘定科目はすべて元入金になります。
-
-			List<Entry<AccountTitle, Amount>> list = new ArrayList<>(closingBalances.entrySet());
-			Collections.sort(list, (o1, o2) -> {
-				return accountTitles.indexOf(o1.getKey()) - accountTitles.indexOf(o2.getKey());
-			});
-			for(Entry<AccountTitle, Amount> e : list) {
-				AccountTitle accountTitle = e.getKey();
-				Amount amount = e.getValue();
-				// 事業主貸・事業主借・元入金 は繰り越しません。
-				if(accountTitle.getDisplayName().equals("事業主貸") || accountTitle.getDisplayName().equals("事業主借") || accountTitle.getDisplayName().equals("元入金")) {
-					continue;
-				}
-				// 控除前の所得金額 は繰り越しません。
-				if(accountTitle.equals(AccountTitle.PRETAX_INCOME)) {
-					continue;
-				}
-				if(accountTitle.getType() == AccountType.Assets) {
-					if(amount.getValue() == 0) {
-						continue;
-					} else if(amount.getValue() > 0) {
-						debtors.add(e);
-						debtorsTotal += amount.getValue();
-					} else {
-						creditors.add(e);
-						creditorsTotal -= amount.getValue();
-					}
-				} else if(accountTitle.getType() == AccountType.Liabilities || accountTitle.getType() == AccountType.Equity) {
-					if(amount.getValue() == 0) {
-						continue;
-					} else if(amount.getValue() > 0) {
-						creditors.add(e);
-						creditorsTotal += amount.getValue();
-					} else {
-						debtors.add(e);
-						debtorsTotal -= amount.getValue();
-					}
-				}
-			}
-			AccountTitle capital = AccountTitle.getByDisplayName(new HashSet<>(accountTitles), "元入金");
-			if(capital != null) {
-				Map.Entry<AccountTitle, Amount> e = Map.entry(capital, new Amount(Creditor.class, (debtorsTotal - creditorsTotal)));
-				if(debtorsTotal >= creditorsTotal) {
-					creditors.add(e);
-				} else {
-					debtors.add(e);
-				}
-			}
-			if(debtors.size() > 0 && creditors.size() > 0) {
-				sb.append("- 日付: " + nextOpeningDate + "\r\n");
-				sb.append("  摘要: 元入金\r\n");
-				sb.append("  借方: [ ");
-				for(int i = 0; i < debtors.size(); i++) {
-					AccountTitle accountTitle = debtors.get(i).getKey();
-					Amount amount = debtors.get(i).getValue();
-					sb.append("{勘定科目: " + accountTitle.getDisplayName() + ", 金額: " + Math.abs(amount.getValue()) + "}");
-					if(i + 1 < debtors.size()) {
-						sb.append(", ");
-					}
-				}
-				sb.append(" ]\r\n");
-				sb.append("  貸方: [ ");
-				for(int i = 0; i < creditors.size(); i++) {
-					AccountTitle accountTitle = creditors.get(i).getKey();
-					Amount amount = creditors.get(i).getValue();
-					sb.append("{勘定科目: " + accountTitle.getDisplayName() + ", 金額: " + Math.abs(amount.getValue()) + "}");
-					if(i + 1 < creditors.size()) {
-						sb.append(", ");
-					}
-				}
-				sb.append(" ]\r\n");
-				sb.append("\r\n");
-			}
-		} else {
-			//法人の場合は資産、負債、純資産をすべて繰り越します。
-			List<Entry<AccountTitle, Amount>> list = new ArrayList<>(closingBalances.entrySet());
-			Collections.sort(list, (o1, o2) -> {
-				return accountTitles.indexOf(o1.getKey()) - accountTitles.indexOf(o2.getKey());
-			});
-			for(Entry<AccountTitle, Amount> e : list) {
-				AccountTitle accountTitle = e.getKey();
-				Amount amount = e.getValue();
-				if(accountTitle.getType() == AccountType.Assets) {
-					if(amount.getValue() == 0) {
-						continue;
-					} else if(amount.getValue() > 0) {
-						debtors.add(e);
-					} else {
-						creditors.add(e);
-					}
-				} else if(accountTitle.getType() == AccountType.Liabilities || accountTitle.getType() == AccountType.Equity) {
-					if(amount.getValue() == 0) {
-						continue;
-					} else if(amount.getValue() > 0) {
-						creditors.add(e);
-					} else {
-						debtors.add(e);
-					}
+		for(JournalEntry entry : getNextOpeningJournalEntriesForYaml(accountTitles)) {
+			sb.append("- 日付: " + formatDate(entry.getDate()) + "\r\n");
+			sb.append("  摘要: " + entry.getDescription() + "\r\n");
+			sb.append("  借方: [ ");
+			for(int i = 0; i < entry.getDebtors().size(); i++) {
+				Debtor debtor = entry.getDebtors().get(i);
+				sb.append("{勘定科目: " + debtor.getAccountTitle().getDisplayName() + ", 金額: " + debtor.getAmount() + "}");
+				if(i + 1 < entry.getDebtors().size()) {
+					sb.append(", ");
 				}
 			}
-
-			if(debtors.size() > 0 && creditors.size() > 0) {
-				sb.append("- 日付: " + nextOpeningDate + "\r\n");
-				sb.append("  摘要: 前期繰越\r\n");
-				sb.append("  借方: [ ");
-				for(int i = 0; i < debtors.size(); i++) {
-					AccountTitle accountTitle = debtors.get(i).getKey();
-					Amount amount = debtors.get(i).getValue();
-					sb.append("{勘定科目: " + accountTitle.getDisplayName() + ", 金額: " + Math.abs(amount.getValue()) + "}");
-					if(i + 1 < debtors.size()) {
-						sb.append(", ");
-					}
-				}
-				sb.append(" ]\r\n");
-				sb.append("  貸方: [ ");
-				for(int i = 0; i < creditors.size(); i++) {
-					AccountTitle accountTitle = creditors.get(i).getKey();
-					Amount amount = creditors.get(i).getValue();
-					sb.append("{勘定科目: " + accountTitle.getDisplayName() + ", 金額: " + Math.abs(amount.getValue()) + "}");
-					if(i + 1 < creditors.size()) {
-						sb.append(", ");
-					}
+			sb.append(" ]\r\n");
+			sb.append("  貸方: [ ");
+			for(int i = 0; i < entry.getCreditors().size(); i++) {
+				Creditor creditor = entry.getCreditors().get(i);
+				sb.append("{勘定科目: " + creditor.getAccountTitle().getDisplayName() + ", 金額: " + creditor.getAmount() + "}");
+				if(i + 1 < entry.getCreditors().size()) {
+					sb.append(", ");
 				}
-				sb.append(" ]\r\n");
-				sb.append("\r\n");
 			}
+			sb.append(" ]\r\n");
+			sb.append("\r\n");
 		}
 
-		//期末商品棚卸高 を 期首商品棚卸高として開始仕訳に追加します。
-		// ただし、自動作成された期首商品棚卸高の振替仕訳は開始仕訳としては扱われません。（isOpeningはfalseを返します。）
-		for(JournalEntry entry : journalEntries) {
-			if(entry.isClosing()) {
-				continue;
-			}
-			for(Creditor creditor : entry.getCreditors()) {
-				if(creditor.getAccountTitle().getDisplayName().equals("期末商品棚卸高")) {
-					sb.append("- 日付: " + nextOpeningDate + "\r\n");
-					sb.append("  摘要: 期首棚卸\r\n");
-					sb.append("  借方: [ {勘定科目: 期首商品棚卸高, 金額: " + creditor.getAmount() + "} ]\r\n");
-					sb.append("  貸方: [ ");
-					for(int i = 0; i < entry.getDebtors().size(); i++) {
-						Debtor debtor = entry.getDebtors().get(i);
-						sb.append("{勘定科目: " + debtor.getAccountTitle().getDisplayName() + ", 金額: " + debtor.getAmount() + "}");
-						if(i + 1 < entry.getDebtors().size()) {
-							sb.append(", ");
-						}
-					}
-					sb.append(" ]\r\n");
-					sb.append("\r\n");
-					break;
-				}
-			}
-			for(Debtor debtor : entry.getDebtors()) {
-				if(debtor.getAccountTitle().getDisplayName().equals("期末商品棚卸高")) {
-					sb.append("- 日付: " + nextOpeningDate + "\r\n");
-					sb.append("  摘要: 期首棚卸\r\n");
-					sb.append("  借方: [ ");
-					for(int i = 0; i < entry.getCreditors().size(); i++) {
-						Creditor creditor = entry.getCreditors().get(i);
-						sb.append("{勘定科目: " + creditor.getAccountTitle().getDisplayName() + ", 金額: " + creditor.getAmount() + "}");
-						if(i + 1 < entry.getCreditors().size()) {
-							sb.append(", ");
-						}
-					}
-					sb.append(" ]\r\n");
-					sb.append("\r\n");
-					break;
-				}
-			}
-		}
+		String s = sb.toString();
+		writeNextOpeningJournalEntries(path, s);
+		return s;
+	}
 
+	/** YAML文字列として出力する次年度の開始仕訳を作成します。
+	 * YAML文字列は勘定科目の表示名だけを出力するため、期首商品棚卸高が勘定科目に定義されていなくてもエラーにしません。
+	 * （次年度の勘定科目.yml に期首商品棚卸高を定義すれば、出力した開始仕訳をそのまま使用できます。）
+	 *
+	 * @param accountTitles 勘定科目リスト
+	 * @return 次年度の開始仕訳のリスト
+	 */
+	private List<JournalEntry> getNextOpeningJournalEntriesForYaml(List<AccountTitle> accountTitles) {
+		AccountTitle openingInventory = AccountTitle.getByDisplayName(new HashSet<>(accountTitles), "期首商品棚卸高");
+		if(openingInventory == null) {
+			openingInventory = new AccountTitle(AccountType.Expense, "期首商品棚卸高");
+		}
+		return getNextOpeningJournalEntries(accountTitles, openingInventory);
+	}
 
-		String s = sb.toString();
+	private static String formatDate(LocalDate date) {
+		return date != null ? DateTimeFormatter.ISO_LOCAL_DATE.format(date) : null;
+	}
 
+	/** 次年度の開始仕訳のYAML文字列をファイルに保存します。
+	 * 会計年度フォルダーが存在しない場合やファイルを指定していない場合は何もしません。
+	 *
+	 * @param path 次年度の開始仕訳を保存するファイル
+	 * @param s 次年度の開始仕訳のYAML文字列
+	 * @throws IOException I/Oエラーが発生した場合
+	 */
+	private static void writeNextOpeningJournalEntries(Path path, String s) throws IOException {
 		if(path != null && Files.isDirectory(path.getParent())) {
 			Path tmpFile = null;
 			try {
@@ -1232,15 +1067,10 @@ public class BalanceSheet {
 				}
 			}
 		}
-
-		return s;
 	}
 
-	private static String formatMoney(long amount) {
-		if(MINUS_SIGN != null && amount < 0) {
-			return MINUS_SIGN + String.format("%,d", -amount);
-		}
-		return String.format("%,d", amount);
+	private String formatMoney(long amount) {
+		return NumberText.format(amount, minusSign);
 	}
 	
 	private void dump(Node<Entry<List<AccountTitle>, Amount[]>> node) {
@@ -0,0 +1,139 @@
+package net.osdn.aoiro.report;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map.Entry;
+
+import net.osdn.aoiro.model.Account;
+import net.osdn.aoiro.model.AccountTitle;
+import net.osdn.aoiro.model.Amount;
+import net.osdn.aoiro.model.Creditor;
+import net.osdn.aoiro.model.Debtor;
+import net.osdn.aoiro.model.Node;
+import net.osdn.aoiro.report.layout.BalanceSheetLayout;
+
+/** 比較貸借対照表
+ * 複数の会計期間の期末残高を 1つの構成ツリーにまとめます。各ノードの金額は期間ごとの期末残高の配列（古い期間が先頭）になります。
+ * 構成ツリー (BalanceSheetLayout) はコピーして使用するため、レイアウトのノードは変更されません。
+ *
+ */
+public class ComparativeBalanceSheet {
+
+	private ComparativeTotals totals;
+	private Node<Entry<List<AccountTitle>, Amount[]>> root;
+	private List<Node<Entry<List<AccountTitle>, Amount[]>>> assetsList;
+	private List<Node<Entry<List<AccountTitle>, Amount[]>>> liabilitiesList;
+	private List<Node<Entry<List<AccountTitle>, Amount[]>>> equityList;
+
+	public ComparativeBalanceSheet(BalanceSheetLayout bsLayout, ComparativeTotals totals) {
+		this.totals = totals;
+		this.root = copy(bsLayout.getRoot());
+
+		//再帰集計
+		retrieve(null, root);
+
+		//リスト
+		for(Node<Entry<List<AccountTitle>, Amount[]>> child : root.getChildren()) {
+			if(child.getName().equals("資産")) {
+				assetsList = getList(child);
+			} else if(child.getName().equals("負債")) {
+				liabilitiesList = getList(child);
+			} else if(child.getName().equals("資本") || child.getName().equals("純資産")) {
+				equityList = getList(child);
+			}
+		}
+		if(assetsList == null) {
+			assetsList = new ArrayList<Node<Entry<List<AccountTitle>, Amount[]>>>();
+		}
+		if(liabilitiesList == null) {
+			liabilitiesList = new ArrayList<Node<Entry<List<AccountTitle>, Amount[]>>>();
+		}
+		if(equityList == null) {
+			equityList = new ArrayList<Node<Entry<List<AccountTitle>, Amount[]>>>();
+		}
+	}
+
+	public ComparativeTotals getTotals() {
+		return totals;
+	}
+
+	/** 期間ごとの期末残高を保持した構成ツリーのルートノードを返します。
+	 *
+	 * @return ルートノード
+	 */
+	public Node<Entry<List<AccountTitle>, Amount[]>> getRoot() {
+		return root;
+	}
+
+	// BalanceSheet#getAssetsList() と同じ順序の資産のリストデータです。金額は期間ごとの期末残高の配列になります。
+	public List<Node<Entry<List<AccountTitle>, Amount[]>>> getAssetsList() {
+		return assetsList;
+	}
+
+	// BalanceSheet#getLiabilitiesList() と同じ順序の負債のリストデータです。金額は期間ごとの期末残高の配列になります。
+	public List<Node<Entry<List<AccountTitle>, Amount[]>>> getLiabilitiesList() {
+		return liabilitiesList;
+	}
+
+	// BalanceSheet#getEquityList() と同じ順序の資本（純資産）のリストデータです。金額は期間ごとの期末残高の配列になります。
+	public List<Node<Entry<List<AccountTitle>, Amount[]>>> getEquityList() {
+		return equityList;
+	}
+
+	private Node<Entry<List<AccountTitle>, Amount[]>> copy(Node<Entry<List<AccountTitle>, Amount[]>> node) {
+		List<AccountTitle> accountTitles = node.getValue() != null ? node.getValue().getKey() : null;
+		Node<Entry<List<AccountTitle>, Amount[]>> copy = new Node<>(node.getLevel(), node.getName(),
+				new AbstractMap.SimpleEntry<List<AccountTitle>, Amount[]>(accountTitles, null));
+		copy.setSubTotal(node.isSubTotal());
+		for(Node<Entry<List<AccountTitle>, Amount[]>> child : node.getChildren()) {
+			copy.getChildren().add(copy(child));
+		}
+		return copy;
+	}
+
+	private Amount[] retrieve(Class<? extends Account> normalBalance, Node<Entry<List<AccountTitle>, Amount[]>> node) {
+		if(normalBalance == null && node.getLevel() == 1) {
+			if(node.getName().equals("資産")) {
+				normalBalance = Debtor.class;
+			} else if(node.getName().equals("負債") || node.getName().equals("資本") || node.getName().equals("純資産")) {
+				normalBalance = Creditor.class;
+			}
+		}
+
+		Amount[] amounts = new Amount[totals.getPeriodCount()];
+		for(Node<Entry<List<AccountTitle>, Amount[]>> child : node.getChildren()) {
+			add(normalBalance, amounts, retrieve(normalBalance, child));
+		}
+		if(node.getValue().getKey() != null) {
+			for(AccountTitle accountTitle : node.getValue().getKey()) {
+				add(normalBalance, amounts, totals.getClosingBalances(accountTitle));
+			}
+		}
+		node.getValue().setValue(amounts);
+		return amounts;
+	}
+
+	private static void add(Class<? extends Account> normalBalance, Amount[] amounts, Amount[] a) {
+		if(a == null) {
+			return;
+		}
+		for(int i = 0; i < amounts.length; i++) {
+			if(a[i] != null) {
+				if(amounts[i] == null) {
+					amounts[i] = new Amount(normalBalance != null ? normalBalance : a[i].getNormalBalance(), 0);
+				}
+				amounts[i].increase(a[i]);
+			}
+		}
+	}
+
+	protected List<Node<Entry<List<AccountTitle>, Amount[]>>> getList(Node<Entry<List<AccountTitle>, Amount[]>> node) {
+		List<Node<Entry<List<AccountTitle>, Amount[]>>> list = new ArrayList<Node<Entry<List<AccountTitle>, Amount[]>>>();
+		list.add(node);
+		for(Node<Entry<List<AccountTitle>, Amount[]>> child : node.getChildren()) {
+			list.addAll(getList(child));
+		}
+		return list;
+	}
+}
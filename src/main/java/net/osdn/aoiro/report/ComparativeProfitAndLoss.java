@@ -0,0 +1,125 @@
+package net.osdn.aoiro.report;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map.Entry;
+
+import net.osdn.aoiro.model.AccountTitle;
+import net.osdn.aoiro.model.Amount;
+import net.osdn.aoiro.model.Creditor;
+import net.osdn.aoiro.model.Node;
+import net.osdn.aoiro.report.layout.ProfitAndLossLayout;
+
+/** 比較損益計算書
+ * 複数の会計期間の損益計算書を 1つの構成ツリーにまとめます。各ノードの金額は期間ごとの配列（古い期間が先頭）になります。
+ * 構成ツリー (ProfitAndLossLayout) はコピーして使用するため、レイアウトのノードは変更されません。
+ *
+ */
+public class ComparativeProfitAndLoss {
+
+	private ComparativeTotals totals;
+	private Node<Entry<List<AccountTitle>, Amount[]>> root;
+	private List<Node<Entry<List<AccountTitle>, Amount[]>>> list;
+
+	public ComparativeProfitAndLoss(ProfitAndLossLayout plLayout, ComparativeTotals totals) {
+		this.totals = totals;
+		this.root = copy(plLayout.getRoot());
+
+		//再帰集計
+		retrieve(root);
+
+		//リスト
+		list = createList(root);
+	}
+
+	public ComparativeTotals getTotals() {
+		return totals;
+	}
+
+	/** 期間ごとの金額を保持した構成ツリーのルートノードを返します。
+	 *
+	 * @return ルートノード
+	 */
+	public Node<Entry<List<AccountTitle>, Amount[]>> getRoot() {
+		return root;
+	}
+
+	// ProfitAndLoss#getList() と同じ順序のリストデータです。金額は期間ごとの配列になります。
+	public List<Node<Entry<List<AccountTitle>, Amount[]>>> getList() {
+		return list;
+	}
+
+	private Node<Entry<List<AccountTitle>, Amount[]>> copy(Node<Entry<List<AccountTitle>, Amount>> node) {
+		List<AccountTitle> accountTitles = node.getValue() != null ? node.getValue().getKey() : null;
+		Node<Entry<List<AccountTitle>, Amount[]>> copy = new Node<>(node.getLevel(), node.getName(),
+				new AbstractMap.SimpleEntry<List<AccountTitle>, Amount[]>(accountTitles, null));
+		copy.setSubTotal(node.isSubTotal());
+		for(Node<Entry<List<AccountTitle>, Amount>> child : node.getChildren()) {
+			copy.getChildren().add(copy(child));
+		}
+		return copy;
+	}
+
+	private Amount[] retrieve(Node<Entry<List<AccountTitle>, Amount[]>> node) {
+		Amount[] amounts = new Amount[totals.getPeriodCount()];
+		for(Node<Entry<List<AccountTitle>, Amount[]>> child : node.getChildren()) {
+			add(amounts, retrieve(child));
+		}
+		if(node.getValue().getKey() != null) {
+			for(AccountTitle accountTitle : node.getValue().getKey()) {
+				add(amounts, totals.getIncomeSummaries(accountTitle));
+			}
+		}
+		node.getValue().setValue(amounts);
+		return amounts;
+	}
+
+	private static void add(Amount[] amounts, Amount[] a) {
+		if(a == null) {
+			return;
+		}
+		for(int i = 0; i < amounts.length; i++) {
+			if(a[i] != null) {
+				if(amounts[i] == null) {
+					amounts[i] = new Amount(a[i].getNormalBalance(), a[i].getValue());
+				} else {
+					amounts[i].increase(a[i]);
+				}
+			}
+		}
+	}
+
+	protected List<Node<Entry<List<AccountTitle>, Amount[]>>> createList(Node<Entry<List<AccountTitle>, Amount[]>> plRoot) {
+		List<Node<Entry<List<AccountTitle>, Amount[]>>> list = new ArrayList<>();
+
+		Amount[] cumulativeAmounts = new Amount[totals.getPeriodCount()];
+		for(int i = 0; i < cumulativeAmounts.length; i++) {
+			cumulativeAmounts[i] = new Amount(Creditor.class, 0);
+		}
+		for(Node<Entry<List<AccountTitle>, Amount[]>> topLevelNode : plRoot.getChildren()) {
+			Amount[] amounts = topLevelNode.getValue().getValue();
+			Amount[] subTotals = new Amount[cumulativeAmounts.length];
+			for(int i = 0; i < cumulativeAmounts.length; i++) {
+				cumulativeAmounts[i].increase(amounts[i]);
+				subTotals[i] = cumulativeAmounts[i].clone();
+			}
+			topLevelNode.getValue().setValue(subTotals);
+			topLevelNode.setSubTotal(true);
+			for(Node<Entry<List<AccountTitle>, Amount[]>> childNode : topLevelNode.getChildren()) {
+				list.addAll(getSubList(childNode));
+			}
+			list.add(topLevelNode);
+		}
+		return list;
+	}
+
+	protected List<Node<Entry<List<AccountTitle>, Amount[]>>> getSubList(Node<Entry<List<AccountTitle>, Amount[]>> node) {
+		List<Node<Entry<List<AccountTitle>, Amount[]>>> list = new ArrayList<>();
+		list.add(node);
+		for(Node<Entry<List<AccountTitle>, Amount[]>> child : node.getChildren()) {
+			list.addAll(getSubList(child));
+		}
+		return list;
+	}
+}
@@ -0,0 +1,134 @@
+package net.osdn.aoiro.report;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.osdn.aoiro.AccountSettlement;
+import net.osdn.aoiro.model.Account;
+import net.osdn.aoiro.model.AccountTitle;
+import net.osdn.aoiro.model.Amount;
+import net.osdn.aoiro.model.Creditor;
+import net.osdn.aoiro.model.Debtor;
+import net.osdn.aoiro.model.JournalEntry;
+
+/** 比較財務諸表の集計データ
+ * 複数の会計期間の決算済み仕訳を 1回だけ走査して、勘定科目ごと・期間ごとに損益振替額と期末残高を集計します。
+ * 比較損益計算書 (ComparativeProfitAndLoss) と比較貸借対照表 (ComparativeBalanceSheet) はこの集計データを共有します。
+ *
+ */
+public class ComparativeTotals {
+
+	private int periodCount;
+	private List<LocalDate> openingDates = new ArrayList<>();
+	private List<LocalDate> closingDates = new ArrayList<>();
+
+	/** 勘定科目ごと・期間ごとの損益振替額（損益計算書の金額） */
+	private Map<AccountTitle, Amount[]> incomeSummaries = new HashMap<>();
+
+	/** 勘定科目ごと・期間ごとの残高振替額（貸借対照表の期末残高） */
+	private Map<AccountTitle, Amount[]> closingBalances = new HashMap<>();
+
+	/** 会計期間ごとの仕訳リストから集計データを作成します。
+	 * 仕訳リストは決算仕訳を含んでいる必要があります。
+	 *
+	 * @param journalEntriesByPeriod 古い期間から順に並んだ会計期間ごとの仕訳リスト
+	 * @param isSoloProprietorship 個人事業主の場合は true
+	 */
+	public ComparativeTotals(List<List<JournalEntry>> journalEntriesByPeriod, boolean isSoloProprietorship) {
+		this.periodCount = journalEntriesByPeriod.size();
+
+		for(int period = 0; period < periodCount; period++) {
+			List<JournalEntry> journalEntries = journalEntriesByPeriod.get(period);
+			openingDates.add(AccountSettlement.getOpeningDate(journalEntries, isSoloProprietorship));
+			closingDates.add(AccountSettlement.getClosingDate(journalEntries, isSoloProprietorship));
+
+			for(JournalEntry entry : journalEntries) {
+				Map<AccountTitle, Amount[]> totals;
+				AccountTitle closingAccountTitle;
+				if(entry.isIncomeSummary()) {
+					totals = incomeSummaries;
+					closingAccountTitle = AccountTitle.INCOME_SUMMARY;
+				} else if(entry.isBalance()) {
+					totals = closingBalances;
+					closingAccountTitle = AccountTitle.BALANCE;
+				} else {
+					continue;
+				}
+				//振替仕訳は残高の逆側に記入されるので、ノーマルバランスと逆側の金額を残高として加算します。
+				for(Debtor debtor : entry.getDebtors()) {
+					if(!debtor.getAccountTitle().equals(closingAccountTitle)) {
+						add(totals, debtor.getAccountTitle(), period, Debtor.class, debtor.getAmount());
+					}
+				}
+				for(Creditor creditor : entry.getCreditors()) {
+					if(!creditor.getAccountTitle().equals(closingAccountTitle)) {
+						add(totals, creditor.getAccountTitle(), period, Creditor.class, creditor.getAmount());
+					}
+				}
+			}
+		}
+	}
+
+	private void add(Map<AccountTitle, Amount[]> totals, AccountTitle accountTitle, int period, Class<? extends Account> side, long value) {
+		Amount[] amounts = totals.get(accountTitle);
+		if(amounts == null) {
+			amounts = new Amount[periodCount];
+			totals.put(accountTitle, amounts);
+		}
+		Class<? extends Account> normalBalance = accountTitle.getType().getNormalBalance();
+		if(amounts[period] == null) {
+			amounts[period] = new Amount(normalBalance, 0);
+		}
+		if(normalBalance != side) {
+			amounts[period].increase(value);
+		} else {
+			amounts[period].decrease(value);
+		}
+	}
+
+	/** 会計期間の数を返します。
+	 *
+	 * @return 会計期間の数
+	 */
+	public int getPeriodCount() {
+		return periodCount;
+	}
+
+	/** 会計期間ごとの期首日のリストを返します。
+	 *
+	 * @return 期首日のリスト
+	 */
+	public List<LocalDate> getOpeningDates() {
+		return Collections.unmodifiableList(openingDates);
+	}
+
+	/** 会計期間ごとの決算日のリストを返します。
+	 *
+	 * @return 決算日のリスト
+	 */
+	public List<LocalDate> getClosingDates() {
+		return Collections.unmodifiableList(closingDates);
+	}
+
+	/** 指定した勘定科目の期間ごとの損益振替額を返します。
+	 *
+	 * @param accountTitle 勘定科目
+	 * @return 期間ごとの金額の配列。その期間に損益振替がない要素は null です。勘定科目に損益振替がまったくない場合は null を返します。
+	 */
+	public Amount[] getIncomeSummaries(AccountTitle accountTitle) {
+		return incomeSummaries.get(accountTitle);
+	}
+
+	/** 指定した勘定科目の期間ごとの期末残高を返します。
+	 *
+	 * @param accountTitle 勘定科目
+	 * @return 期間ごとの金額の配列。その期間に残高振替がない要素は null です。勘定科目に残高振替がまったくない場合は null を返します。
+	 */
+	public Amount[] getClosingBalances(AccountTitle accountTitle) {
+		return closingBalances.get(accountTitle);
+	}
+}
@@ -0,0 +1,429 @@
+package net.osdn.aoiro.report;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map.Entry;
+
+import net.osdn.aoiro.TrialBalance;
+import net.osdn.aoiro.model.AccountTitle;
+import net.osdn.aoiro.model.Amount;
+import net.osdn.aoiro.model.Node;
+
+/** 帳簿・決算書のデータ出力
+ * 総勘定元帳、合計残高試算表、損益計算書、貸借対照表の計算済みのデータを CSV、TSV、JSON で出力します。
+ * 複数年度を処理する場合は、比較損益計算書と比較貸借対照表のデータも出力できます。
+ * PDFを作成しないため、フォントの読み込みや印字データの作成はおこないません。
+ * 行は計算済みのデータから 1行ずつ書き出すため、仕訳が多い場合でもメモリに保持するのは 1行分だけです。
+ *
+ * 文字コードは UTF-8 です。金額はカンマ区切りや△を付けずに符号付きの整数で出力し、日付は yyyy-MM-dd 形式で出力します。
+ *
+ */
+public class DataExporter {
+
+	/** 出力形式 */
+	public enum Format {
+
+		/** カンマ区切り (RFC 4180) */
+		CSV("csv"),
+
+		/** タブ区切り */
+		TSV("tsv"),
+
+		/** オブジェクトの配列 */
+		JSON("json");
+
+		private String extension;
+
+		private Format(String extension) {
+			this.extension = extension;
+		}
+
+		/** ファイルの拡張子を返します。
+		 *
+		 * @return ファイルの拡張子（ピリオドを含みません）
+		 */
+		public String getExtension() {
+			return extension;
+		}
+
+		/** 拡張子または名前から出力形式を返します。
+		 *
+		 * @param name 拡張子または名前（大文字と小文字は区別しません）
+		 * @return 出力形式。該当する出力形式がない場合は null
+		 */
+		public static Format of(String name) {
+			for(Format format : values()) {
+				if(format.extension.equalsIgnoreCase(name)) {
+					return format;
+				}
+			}
+			return null;
+		}
+	}
+
+	private Format format;
+
+	public DataExporter(Format format) {
+		this.format = format;
+	}
+
+	public Format getFormat() {
+		return format;
+	}
+
+	/** 総勘定元帳の明細行を出力します。
+	 * 明細行の内容は総勘定元帳に印字される内容と同じです。（GeneralLedger#forEachRow を参照）
+	 *
+	 * @param generalLedger 総勘定元帳
+	 * @param path 出力先のファイル
+	 * @throws IOException I/Oエラーが発生した場合
+	 */
+	public void writeGeneralLedger(GeneralLedger generalLedger, Path path) throws IOException {
+		try(Writer w = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+			writeGeneralLedger(generalLedger, w);
+		}
+	}
+
+	public void writeGeneralLedger(GeneralLedger generalLedger, Writer writer) throws IOException {
+		Table table = new Table(writer, "勘定科目", "日付", "摘要", "仕訳摘要", "仕丁", "借方", "貸方", "借貸", "残高");
+		generalLedger.forEachRow(row -> table.row(
+				row.getAccountTitle().getDisplayName(),
+				row.getDate().toString(),
+				row.getSummary(),
+				row.getDescription(),
+				row.getJournalPageNumber() >= 1 ? (Object)row.getJournalPageNumber() : null,
+				row.getDebtorAmount() != 0 ? (Object)row.getDebtorAmount() : null,
+				row.getCreditorAmount() != 0 ? (Object)row.getCreditorAmount() : null,
+				row.getBalanceSign(),
+				row.getBalance()));
+		table.end();
+	}
+
+	/** 合計残高試算表を出力します。
+	 * 残高は勘定科目の通常のバランスを正として出力します。
+	 *
+	 * @param trialBalance 合計試算表
+	 * @param accountTitles 出力する勘定科目（この順番で出力します。合計試算表に含まれていない勘定科目は出力しません。）
+	 * @param path 出力先のファイル
+	 * @throws IOException I/Oエラーが発生した場合
+	 */
+	public void writeTrialBalance(TrialBalance trialBalance, Collection<AccountTitle> accountTitles, Path path) throws IOException {
+		try(Writer w = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+			writeTrialBalance(trialBalance, accountTitles, w);
+		}
+	}
+
+	public void writeTrialBalance(TrialBalance trialBalance, Collection<AccountTitle> accountTitles, Writer writer) throws IOException {
+		Table table = new Table(writer, "勘定科目", "借方合計", "貸方合計", "残高");
+		for(AccountTitle accountTitle : accountTitles) {
+			if(!trialBalance.contains(accountTitle)) {
+				continue;
+			}
+			table.row(
+					accountTitle.getDisplayName(),
+					trialBalance.getDebtorTotal(accountTitle),
+					trialBalance.getCreditorTotal(accountTitle),
+					trialBalance.getBalance(accountTitle));
+		}
+		table.end();
+	}
+
+	/** 損益計算書の項目を出力します。
+	 * 項目は ProfitAndLoss#getList() の順番で出力します。金額のない項目は空欄（JSON の場合は null）になります。
+	 *
+	 * @param profitAndLoss 損益計算書
+	 * @param path 出力先のファイル
+	 * @throws IOException I/Oエラーが発生した場合
+	 */
+	public void writeProfitAndLoss(ProfitAndLoss profitAndLoss, Path path) throws IOException {
+		try(Writer w = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+			writeProfitAndLoss(profitAndLoss, w);
+		}
+	}
+
+	public void writeProfitAndLoss(ProfitAndLoss profitAndLoss, Writer writer) throws IOException {
+		Table table = new Table(writer, "階層", "科目", "小計", "金額");
+		for(Node<Entry<List<AccountTitle>, Amount>> node : profitAndLoss.getList()) {
+			table.row(
+					node.getLevel(),
+					node.getName(),
+					node.isSubTotal(),
+					getValue(node.getValue().getValue()));
+		}
+		table.end();
+	}
+
+	/** 損益計算書の月別の売上（収入）金額と仕入金額を出力します。
+	 *
+	 * @param profitAndLoss 損益計算書
+	 * @param path 出力先のファイル
+	 * @throws IOException I/Oエラーが発生した場合
+	 */
+	public void writeMonthlyTotals(ProfitAndLoss profitAndLoss, Path path) throws IOException {
+		try(Writer w = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+			writeMonthlyTotals(profitAndLoss, w);
+		}
+	}
+
+	public void writeMonthlyTotals(ProfitAndLoss profitAndLoss, Writer writer) throws IOException {
+		Table table = new Table(writer, "月", "売上", "仕入");
+		for(Entry<String, Amount[]> monthlyTotal : profitAndLoss.getMonthlyTotals()) {
+			table.row(
+					monthlyTotal.getKey(),
+					getValue(monthlyTotal.getValue()[0]),
+					getValue(monthlyTotal.getValue()[1]));
+		}
+		table.end();
+	}
+
+	/** 貸借対照表の資産、負債、資本（純資産）の項目を出力します。
+	 * 項目は BalanceSheet#getAssetsList()、getLiabilitiesList()、getEquityList() の順番で出力します。
+	 * 金額のない項目は空欄（JSON の場合は null）になります。
+	 *
+	 * @param balanceSheet 貸借対照表
+	 * @param path 出力先のファイル
+	 * @throws IOException I/Oエラーが発生した場合
+	 */
+	public void writeBalanceSheet(BalanceSheet balanceSheet, Path path) throws IOException {
+		try(Writer w = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+			writeBalanceSheet(balanceSheet, w);
+		}
+	}
+
+	public void writeBalanceSheet(BalanceSheet balanceSheet, Writer writer) throws IOException {
+		Table table = new Table(writer, "区分", "階層", "科目", "期首", "期末");
+		writeBalanceSheetList(table, "資産", balanceSheet.getAssetsList());
+		writeBalanceSheetList(table, "負債", balanceSheet.getLiabilitiesList());
+		writeBalanceSheetList(table, "資本", balanceSheet.getEquityList());
+		table.end();
+	}
+
+	private static void writeBalanceSheetList(Table table, String section, List<Node<Entry<List<AccountTitle>, Amount[]>>> list) throws IOException {
+		for(Node<Entry<List<AccountTitle>, Amount[]>> node : list) {
+			Amount[] amounts = node.getValue().getValue();
+			table.row(
+					section,
+					node.getLevel(),
+					node.getName(),
+					amounts != null ? getValue(amounts[0]) : null,
+					amounts != null ? getValue(amounts[1]) : null);
+		}
+	}
+
+	/** 比較損益計算書の項目を出力します。
+	 * 項目は ComparativeProfitAndLoss#getList() の順番で出力し、金額は期間ごとに決算日を見出しにした列に出力します。
+	 * 金額のない項目は空欄（JSON の場合は null）になります。
+	 *
+	 * @param profitAndLoss 比較損益計算書
+	 * @param path 出力先のファイル
+	 * @throws IOException I/Oエラーが発生した場合
+	 */
+	public void writeComparativeProfitAndLoss(ComparativeProfitAndLoss profitAndLoss, Path path) throws IOException {
+		try(Writer w = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+			writeComparativeProfitAndLoss(profitAndLoss, w);
+		}
+	}
+
+	public void writeComparativeProfitAndLoss(ComparativeProfitAndLoss profitAndLoss, Writer writer) throws IOException {
+		ComparativeTotals totals = profitAndLoss.getTotals();
+		Table table = new Table(writer, getComparativeColumns(totals, "階層", "科目", "小計"));
+		for(Node<Entry<List<AccountTitle>, Amount[]>> node : profitAndLoss.getList()) {
+			Object[] values = new Object[3 + totals.getPeriodCount()];
+			values[0] = node.getLevel();
+			values[1] = node.getName();
+			values[2] = node.isSubTotal();
+			setValues(values, 3, node.getValue().getValue());
+			table.row(values);
+		}
+		table.end();
+	}
+
+	/** 比較貸借対照表の資産、負債、資本（純資産）の項目を出力します。
+	 * 項目は ComparativeBalanceSheet#getAssetsList()、getLiabilitiesList()、getEquityList() の順番で出力し、
+	 * 期末残高は期間ごとに決算日を見出しにした列に出力します。金額のない項目は空欄（JSON の場合は null）になります。
+	 *
+	 * @param balanceSheet 比較貸借対照表
+	 * @param path 出力先のファイル
+	 * @throws IOException I/Oエラーが発生した場合
+	 */
+	public void writeComparativeBalanceSheet(ComparativeBalanceSheet balanceSheet, Path path) throws IOException {
+		try(Writer w = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+			writeComparativeBalanceSheet(balanceSheet, w);
+		}
+	}
+
+	public void writeComparativeBalanceSheet(ComparativeBalanceSheet balanceSheet, Writer writer) throws IOException {
+		ComparativeTotals totals = balanceSheet.getTotals();
+		Table table = new Table(writer, getComparativeColumns(totals, "区分", "階層", "科目"));
+		writeComparativeBalanceSheetList(table, totals, "資産", balanceSheet.getAssetsList());
+		writeComparativeBalanceSheetList(table, totals, "負債", balanceSheet.getLiabilitiesList());
+		writeComparativeBalanceSheetList(table, totals, "資本", balanceSheet.getEquityList());
+		table.end();
+	}
+
+	private static void writeComparativeBalanceSheetList(Table table, ComparativeTotals totals, String section, List<Node<Entry<List<AccountTitle>, Amount[]>>> list) throws IOException {
+		for(Node<Entry<List<AccountTitle>, Amount[]>> node : list) {
+			Object[] values = new Object[3 + totals.getPeriodCount()];
+			values[0] = section;
+			values[1] = node.getLevel();
+			values[2] = node.getName();
+			setValues(values, 3, node.getValue().getValue());
+			table.row(values);
+		}
+	}
+
+	/** 比較財務諸表の見出しを返します。期間ごとの列の見出しは決算日（yyyy-MM-dd 形式）です。 */
+	private static String[] getComparativeColumns(ComparativeTotals totals, String... columns) {
+		String[] comparativeColumns = new String[columns.length + totals.getPeriodCount()];
+		System.arraycopy(columns, 0, comparativeColumns, 0, columns.length);
+		for(int i = 0; i < totals.getPeriodCount(); i++) {
+			comparativeColumns[columns.length + i] = String.valueOf(totals.getClosingDates().get(i));
+		}
+		return comparativeColumns;
+	}
+
+	private static void setValues(Object[] values, int offset, Amount[] amounts) {
+		if(amounts != null) {
+			for(int i = 0; i < amounts.length; i++) {
+				values[offset + i] = getValue(amounts[i]);
+			}
+		}
+	}
+
+	private static Long getValue(Amount amount) {
+		return amount != null ? amount.getValue() : null;
+	}
+
+	/** 表の出力
+	 * 出力形式に合わせて、見出しと行を 1行ずつ書き出します。
+	 * 値は文字列、数値、真偽値、null のいずれかです。
+	 */
+	private class Table {
+
+		private Writer writer;
+		private String[] columns;
+		private int rowCount;
+
+		private Table(Writer writer, String... columns) throws IOException {
+			this.writer = (writer instanceof BufferedWriter) ? writer : new BufferedWriter(writer);
+			this.columns = columns;
+			if(format == Format.JSON) {
+				this.writer.write("[");
+			} else {
+				row((Object[])columns);
+				rowCount = 0;
+			}
+		}
+
+		private void row(Object... values) throws IOException {
+			if(format == Format.JSON) {
+				writer.write(rowCount == 0 ? "\n  {" : ",\n  {");
+				for(int i = 0; i < columns.length; i++) {
+					if(i > 0) {
+						writer.write(", ");
+					}
+					writeJsonString(columns[i]);
+					writer.write(": ");
+					Object value = values[i];
+					if(value == null || value instanceof Number || value instanceof Boolean) {
+						writer.write(String.valueOf(value));
+					} else {
+						writeJsonString(value.toString());
+					}
+				}
+				writer.write("}");
+			} else {
+				for(int i = 0; i < values.length; i++) {
+					if(i > 0) {
+						writer.write(format == Format.TSV ? '\t' : ',');
+					}
+					if(values[i] != null) {
+						if(format == Format.TSV) {
+							writeTsvField(values[i].toString());
+						} else {
+							writeCsvField(values[i].toString());
+						}
+					}
+				}
+				writer.write("\r\n");
+			}
+			rowCount++;
+		}
+
+		private void end() throws IOException {
+			if(format == Format.JSON) {
+				writer.write(rowCount == 0 ? "]\n" : "\n]\n");
+			}
+			writer.flush();
+		}
+
+		private void writeCsvField(String s) throws IOException {
+			boolean isQuoteRequired = false;
+			for(int i = 0; i < s.length(); i++) {
+				char c = s.charAt(i);
+				if(c == ',' || c == '"' || c == '\r' || c == '\n') {
+					isQuoteRequired = true;
+					break;
+				}
+			}
+			if(!isQuoteRequired) {
+				writer.write(s);
+				return;
+			}
+			writer.write('"');
+			for(int i = 0; i < s.length(); i++) {
+				char c = s.charAt(i);
+				if(c == '"') {
+					writer.write('"');
+				}
+				writer.write(c);
+			}
+			writer.write('"');
+		}
+
+		private void writeTsvField(String s) throws IOException {
+			// TSV には引用符がないため、区切り文字と改行は空白に置き換えます。
+			for(int i = 0; i < s.length(); i++) {
+				char c = s.charAt(i);
+				writer.write((c == '\t' || c == '\r' || c == '\n') ? ' ' : c);
+			}
+		}
+
+		private void writeJsonString(String s) throws IOException {
+			writer.write('"');
+			for(int i = 0; i < s.length(); i++) {
+				char c = s.charAt(i);
+				switch(c) {
+				case '"':
+					writer.write("\\\"");
+					break;
+				case '\\':
+					writer.write("\\\\");
+					break;
+				case '\n':
+					writer.write("\\n");
+					break;
+				case '\r':
+					writer.write("\\r");
+					break;
+				case '\t':
+					writer.write("\\t");
+					break;
+				default:
+					if(c < 0x20) {
+						writer.write(String.format("\\u%04x", (int)c));
+					} else {
+						writer.write(c);
+					}
+				}
+			}
+			writer.write('"');
+		}
+	}
+}
@@ -0,0 +1,92 @@
+package net.osdn.aoiro.report;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.fontbox.ttf.TrueTypeCollection;
+import org.apache.fontbox.ttf.TrueTypeFont;
+
+import net.osdn.pdf_brewer.FontLoader;
+
+/** PDFへの埋め込みに使用するフォント
+ * TrueTypeコレクション (.ttc) に含まれるフォントは、コレクションのファイルを 1度だけ開いて解析し、以降は同じフォントを返します。
+ * 開いたコレクションは close で閉じます。閉じた後に返したフォントを使用することはできません。
+ *
+ */
+class EmbeddableFonts implements Closeable {
+
+	private FontLoader fontLoader;
+
+	/** TrueTypeコレクションのファイルと、そのファイルから読み込んだコレクション */
+	private Map<File, TrueTypeCollection> collections = new HashMap<>();
+
+	/** 埋め込みに使用するフォント（フォントローダーのフォント → 埋め込みに使用するフォント） */
+	private Map<TrueTypeFont, TrueTypeFont> fonts = new HashMap<>();
+
+	/** 指定したフォントローダーのフォントを埋め込むための EmbeddableFonts を作成します。
+	 *
+	 * @param fontLoader フォントローダー
+	 */
+	EmbeddableFonts(FontLoader fontLoader) {
+		this.fontLoader = fontLoader;
+	}
+
+	/** 埋め込みに使用するフォントを返します。
+	 * コレクションに含まれないフォントはフォントローダーのフォントをそのまま返します。
+	 *
+	 * @param ttf フォントローダーから取得したフォント
+	 * @return 埋め込みに使用するフォント
+	 * @throws IOException I/Oエラーが発生した場合
+	 */
+	synchronized TrueTypeFont get(TrueTypeFont ttf) throws IOException {
+		if(collections == null) {
+			throw new IllegalStateException("closed");
+		}
+		TrueTypeFont font = fonts.get(ttf);
+		if(font == null) {
+			File ttcFile = fontLoader.getTtcFile(ttf);
+			if(ttcFile != null) {
+				TrueTypeCollection collection = collections.get(ttcFile);
+				if(collection == null) {
+					collection = new TrueTypeCollection(ttcFile);
+					collections.put(ttcFile, collection);
+				}
+				font = collection.getFontByName(ttf.getName());
+			}
+			if(font == null) {
+				font = ttf;
+			}
+			fonts.put(ttf, font);
+		}
+		return font;
+	}
+
+	/** 開いたTrueTypeコレクションを閉じます。
+	 *
+	 * @throws IOException I/Oエラーが発生した場合
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		if(collections == null) {
+			return;
+		}
+		IOException exception = null;
+		for(TrueTypeCollection collection : collections.values()) {
+			try {
+				collection.close();
+			} catch(IOException e) {
+				if(exception == null) {
+					exception = e;
+				}
+			}
+		}
+		collections = null;
+		fonts = null;
+		if(exception != null) {
+			throw exception;
+		}
+	}
+}
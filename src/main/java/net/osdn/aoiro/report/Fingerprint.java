@@ -0,0 +1,101 @@
+package net.osdn.aoiro.report;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/** フィンガープリント
+ * 帳簿・決算書の作成に使用する入力（仕訳、勘定科目と構成、オプション）を順番に追加して、SHA-256 のハッシュ値を求めます。
+ * 入力が同じであれば同じ値になり、1つでも異なれば異なる値になるため、出力済みの帳簿・決算書を再利用できるかどうかの判定に使用します。
+ *
+ */
+public class Fingerprint {
+
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	private MessageDigest digest;
+	private String value;
+
+	/** 指定した種類のフィンガープリントを作成します。
+	 *
+	 * @param kind 種類（帳簿・決算書のファイル名など）
+	 */
+	public Fingerprint(String kind) {
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch(NoSuchAlgorithmException e) {
+			// SHA-256 はすべての Java プラットフォームでサポートされています。
+			throw new IllegalStateException(e);
+		}
+		add(kind);
+	}
+
+	/** 文字列を追加します。
+	 * 文字列の境界が区別されるように、文字列の前にバイト数を追加します。
+	 *
+	 * @param s 文字列（null を指定することもできます）
+	 * @return このフィンガープリント
+	 */
+	public Fingerprint add(String s) {
+		if(s == null) {
+			return add(-1L);
+		}
+		byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+		add((long)bytes.length);
+		digest.update(bytes);
+		return this;
+	}
+
+	/** 数値を追加します。
+	 *
+	 * @param n 数値
+	 * @return このフィンガープリント
+	 */
+	public Fingerprint add(long n) {
+		checkState();
+		for(int i = 56; i >= 0; i -= 8) {
+			digest.update((byte)(n >>> i));
+		}
+		return this;
+	}
+
+	/** 真偽値を追加します。
+	 *
+	 * @param b 真偽値
+	 * @return このフィンガープリント
+	 */
+	public Fingerprint add(boolean b) {
+		checkState();
+		digest.update((byte)(b ? 1 : 0));
+		return this;
+	}
+
+	/** フィンガープリントの値を 16進数の文字列で返します。
+	 * このメソッドを呼び出した後は値を追加できません。
+	 *
+	 * @return フィンガープリントの値（64文字の 16進数）
+	 */
+	public String getValue() {
+		if(value == null) {
+			byte[] hash = digest.digest();
+			char[] chars = new char[hash.length * 2];
+			for(int i = 0; i < hash.length; i++) {
+				chars[i * 2] = HEX[(hash[i] >> 4) & 0x0F];
+				chars[i * 2 + 1] = HEX[hash[i] & 0x0F];
+			}
+			value = new String(chars);
+		}
+		return value;
+	}
+
+	@Override
+	public String toString() {
+		return getValue();
+	}
+
+	private void checkState() {
+		if(value != null) {
+			throw new IllegalStateException("フィンガープリントの値は確定しています。");
+		}
+	}
+}
@@ -1,22 +1,18 @@
 package net.osdn.aoiro.report;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.io.OutputStream;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.time.LocalDate;
-import java.util.ArrayList;
 import java.util.List;
 
+import org.apache.pdfbox.io.MemoryUsageSetting;
+
 import net.osdn.aoiro.AccountSettlement;
 import net.osdn.aoiro.Util;
 import net.osdn.aoiro.model.Creditor;
 import net.osdn.aoiro.model.Debtor;
 import net.osdn.aoiro.model.JournalEntry;
-import net.osdn.pdf_brewer.BrewerData;
 import net.osdn.pdf_brewer.FontLoader;
 import net.osdn.pdf_brewer.PdfBrewer;
 
@@ -25,29 +21,34 @@ import net.osdn.pdf_brewer.PdfBrewer;
  */
 public class GeneralJournal {
 	
-	private static final int ROWS = 50;
+	static final int ROWS = 50;
 	private static final double ROW_HEIGHT = 5.0;
 	
 	private List<JournalEntry> entries;
 	int financialYear;
 	boolean isFromNewYearsDay;
 	
-	private List<String> pageData = new ArrayList<String>();
-	private List<String> printData;
+	private PrintData pageData;
+	private PrintData printData;
+	private PdfBrewer brewer;
+	private Pagination pagination;
 	private FontLoader fontLoader;
+	private MemoryUsageSetting memUsageSetting;
 	private boolean bindingMarginEnabled = true;
 	private boolean pageNumberEnabled = true;
 
-	public GeneralJournal(List<JournalEntry> journalEntries, boolean isSoloProprietorship) throws IOException {
+	/** 仕訳帳を作成します。
+	 * 
+	 * @param journalEntries 仕訳リスト
+	 * @param isSoloProprietorship 個人事業主の場合は true
+	 * @param pagination 同じ仕訳リストで作成した仕訳帳と総勘定元帳のページ割り付け（元丁の印字に使用します）
+	 * @throws IOException I/Oエラーが発生した場合
+	 */
+	public GeneralJournal(List<JournalEntry> journalEntries, boolean isSoloProprietorship, Pagination pagination) throws IOException {
 		this.entries = journalEntries;
+		this.pagination = pagination;
 		
-		InputStream in = getClass().getResourceAsStream("/templates/仕訳帳.pb");
-		BufferedReader r = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
-		String line;
-		while((line = r.readLine()) != null) {
-			pageData.add(line);
-		}
-		r.close();
+		pageData = Templates.get("仕訳帳");
 		
 		LocalDate closing = AccountSettlement.getClosingDate(entries, isSoloProprietorship);
 		if(closing.getMonthValue() == 12 && closing.getDayOfMonth() == 31) {
@@ -59,39 +60,38 @@ public class GeneralJournal {
 			financialYear = closing.getYear() - 1;
 			isFromNewYearsDay = false;
 		}
-		
-		//総勘定元帳と相互にページ番号を印字するために
-		//writeToを呼び出してPDFを作成する前にprepareを呼び出しておく必要があります。
-		prepare();
 	}
 
 	public List<JournalEntry> getJournalEntries() {
 		return entries;
 	}
+
+	Pagination getPagination() {
+		return pagination;
+	}
 	
-	protected void prepare() {
+	/** 仕訳帳の印字データを作成します。
+	 * 印字データは 1ページずつ作成し、ページが完成するたびに PdfBrewer に渡して印字します。
+	 * そのため、ページ数に関係なくメモリに保持する印字データは 1ページ分だけになります。
+	 * 
+	 * @param brewer 印字データを出力する PdfBrewer
+	 * @throws IOException I/Oエラーが発生した場合
+	 */
+	protected void prepare(PdfBrewer brewer) throws IOException {
 		int pageNumber = 0;
 		int restOfRows = 0;
 		int currentRow = 0;
 		long debtorTotal = 0;
 		long creditorTotal = 0;
 
-		printData = new ArrayList<String>();
+		this.brewer = brewer;
+		printData = createPrintData();
 		if(bindingMarginEnabled) {
-			printData.add("\\media A4");
-
 			//穴あけパンチの位置を合わせるための中心線を先頭ページのみ印字します。
-			printData.add("\\line-style thin dot");
-			printData.add("\\line 0 148.5 5 148.5");
-		} else {
-			// 綴じ代なしの場合は15mm分だけ横幅を短くして195mmとします。(A4本来の横幅は210mm)
-			// 穴あけパンチ用の中心線も出力しません。
-			printData.add("\\media 195 297");
+			printData.lineStyle(0, "thin dot");
+			printData.line(0, 0, 148.5, 5, 148.5);
 		}
 
-		// 摘要が2行折り返しで印字されても枠内に収まるように行の高さを 1.15 に変更しています。（デフォルトは 1.8）
-		printData.add("\\line-height 1.15");
-
 		for(int i = 0; i < entries.size(); i++) {
 			JournalEntry entry = entries.get(i);
 			int month = entry.getDate().getMonthValue();
@@ -121,147 +121,141 @@ public class GeneralJournal {
 			//仕訳の印字に必要な行数が残り行数を超えているときに改ページします。
 			if(rowsRequired > restOfRows) {
 				if(++pageNumber >= 2) {
-					printData.add("\\new-page");
+					flushPage();
+					printData = createPrintData();
 				}
 				if(!bindingMarginEnabled) {
 					//綴じ代なし
-					printData.add("\\box 10 0 -10 -10");
+					printData.box(0, 10, 0, -10, -10);
 
 					//テンプレート
-					printData.addAll(pageData);
+					printData.addTemplate(pageData);
 
 					if(pageNumberEnabled) {
 						if(pageNumber % 2 == 1) {
 							//ページ番号(奇数ページ)
-							printData.add("\t\\box 0 0 -3 22");
-							printData.add("\t\\font serif 10.5");
-							printData.add("\t\\align bottom right");
-							printData.add("\t\\text " + pageNumber);
+							printData.box(1, 0, 0, -3, 22);
+							printData.font(1, "serif 10.5");
+							printData.align(1, "bottom right");
+							printData.text(1, NumberText.valueOf(pageNumber));
 						} else {
 							//ページ番号(偶数ページ)
-							printData.add("\t\\box 3 0 10 22");
-							printData.add("\t\\font serif 10.5");
-							printData.add("\t\\align bottom left");
-							printData.add("\t\\text " + pageNumber);
+							printData.box(1, 3, 0, 10, 22);
+							printData.font(1, "serif 10.5");
+							printData.align(1, "bottom left");
+							printData.text(1, NumberText.valueOf(pageNumber));
 						}
 					}
 				} else if(pageNumber % 2 == 1) {
 					//綴じ代(奇数ページ)
-					printData.add("\\box 15 0 0 0");
-					printData.add("\\line-style thin dot");
-					printData.add("\\line 0 0 0 -0");
-					printData.add("\\box 25 0 -10 -10");
+					printData.box(0, 15, 0, 0, 0);
+					printData.lineStyle(0, "thin dot");
+					printData.line(0, 0, 0, 0, -0.0);
+					printData.box(0, 25, 0, -10, -10);
 					
 					//テンプレート
-					printData.addAll(pageData);
+					printData.addTemplate(pageData);
 
 					if(pageNumberEnabled) {
 						//ページ番号(奇数ページ)
-						printData.add("\t\\box 0 0 -3 22");
-						printData.add("\t\\font serif 10.5");
-						printData.add("\t\\align bottom right");
-						printData.add("\t\\text " + pageNumber);
+						printData.box(1, 0, 0, -3, 22);
+						printData.font(1, "serif 10.5");
+						printData.align(1, "bottom right");
+						printData.text(1, NumberText.valueOf(pageNumber));
 					}
 				} else {
 					//綴じ代(偶数ページ)
-					printData.add("\\box 0 0 -15 0");
-					printData.add("\\line-style thin dot");
-					printData.add("\\line -0 0 -0 -0");
-					printData.add("\\box 10 0 -25 -10");
+					printData.box(0, 0, 0, -15, 0);
+					printData.lineStyle(0, "thin dot");
+					printData.line(0, -0.0, 0, -0.0, -0.0);
+					printData.box(0, 10, 0, -25, -10);
 
 					//テンプレート
-					printData.addAll(pageData);
+					printData.addTemplate(pageData);
 
 					if(pageNumberEnabled) {
 						//ページ番号(偶数ページ)
-						printData.add("\t\\box 3 0 10 22");
-						printData.add("\t\\font serif 10.5");
-						printData.add("\t\\align bottom left");
-						printData.add("\t\\text " + pageNumber);
+						printData.box(1, 3, 0, 10, 22);
+						printData.font(1, "serif 10.5");
+						printData.align(1, "bottom left");
+						printData.text(1, NumberText.valueOf(pageNumber));
 					}
 				}
 				//年
 				if(isFromNewYearsDay) {
-					printData.add("\t\\box 0 25 14.5 6");
-					printData.add("\t\\align center right");
-					printData.add("\t\\font sans-serif 8");
-					printData.add("\t\\text 年");
-					printData.add("\t\\box 0 25 10.5 6");
-					printData.add("\t\\font serif 10");
-					printData.add("\t\\align center right");
-					printData.add("\t\\text " + financialYear);
+					printData.box(1, 0, 25, 14.5, 6);
+					printData.align(1, "center right");
+					printData.font(1, "sans-serif 8");
+					printData.text(1, "年");
+					printData.box(1, 0, 25, 10.5, 6);
+					printData.font(1, "serif 10");
+					printData.align(1, "center right");
+					printData.text(1, String.valueOf(financialYear));
 				} else {
-					printData.add("\t\\box 0 25 14.7 6");
-					printData.add("\t\\align center right");
-					printData.add("\t\\font sans-serif 8");
-					printData.add("\t\\text 年度");
-					printData.add("\t\\box 0 25 8.6 6");
-					printData.add("\t\\font serif 10");
-					printData.add("\t\\align center right");
-					printData.add("\t\\text " + financialYear);
+					printData.box(1, 0, 25, 14.7, 6);
+					printData.align(1, "center right");
+					printData.font(1, "sans-serif 8");
+					printData.text(1, "年度");
+					printData.box(1, 0, 25, 8.6, 6);
+					printData.font(1, "serif 10");
+					printData.align(1, "center right");
+					printData.text(1, String.valueOf(financialYear));
 				}
 				
 				//明細印字領域
-				printData.add("\t\\box 0 37 -0 -0");
+				printData.box(1, 0, 37, -0.0, -0.0);
 				
 				restOfRows = ROWS;
 				currentRow = 0;
 				
 				//2ページ目以降は前頁繰越を印字します。
 				if(pageNumber >= 2) {
-					printData.add("\t\t\\box " + String.format("0 %.2f -0 %.2f", currentRow * ROW_HEIGHT, ROW_HEIGHT));
-					printData.add("\t\t\t\\box " + String.format("16 0 75 %.2f", ROW_HEIGHT));
-					printData.add("\t\t\t\\align center right");
-					printData.add("\t\t\t\\font serif 10");
-					printData.add("\t\t\t\\text 前頁繰越");
-					printData.add("\t\t\t\\box " + String.format("101 0 32 %.2f", ROW_HEIGHT));
-					printData.add("\t\t\t\\text " + String.format("%,d",  debtorTotal));
-					printData.add("\t\t\t\\box " + String.format("138 0 32 %.2f", ROW_HEIGHT));
-					printData.add("\t\t\t\\text " + String.format("%,d",  creditorTotal));
+					printData.box(2, 0, currentRow * ROW_HEIGHT, -0.0, ROW_HEIGHT);
+					printData.box(3, 16, 0, 75, ROW_HEIGHT);
+					printData.align(3, "center right");
+					printData.font(3, "serif 10");
+					printData.text(3, "前頁繰越");
+					printData.box(3, 101, 0, 32, ROW_HEIGHT);
+					printData.text(3, NumberText.format(debtorTotal));
+					printData.box(3, 138, 0, 32, ROW_HEIGHT);
+					printData.text(3, NumberText.format(creditorTotal));
 					currentRow++;
 					restOfRows--;
 				}
 			}
 			
-			//総勘定元帳に記載する仕訳帳ページ(仕丁)を設定します。
-			for(Debtor debtor : entry.getDebtors()) {
-				debtor.setJournalPageNumber(pageNumber);
-			}
-			for(Creditor creditor : entry.getCreditors()) {
-				creditor.setJournalPageNumber(pageNumber);
-			}
-			
 			//日付
-			printData.add("\t\t\\box " + String.format("0 %.2f -0 %.2f", currentRow * ROW_HEIGHT, ROW_HEIGHT));
-			printData.add("\t\t\\font serif 10");
-			printData.add("\t\t\t\\box " + String.format("0 0 6 %.2f", ROW_HEIGHT));
-			printData.add("\t\t\t\\align center right");
-			printData.add("\t\t\t\\text " + month);
-			printData.add("\t\t\t\\box " + String.format("8 0 6.2 %.2f", ROW_HEIGHT));
-			printData.add("\t\t\t\\align center right");
-			printData.add("\t\t\t\\text " + day);
+			printData.box(2, 0, currentRow * ROW_HEIGHT, -0.0, ROW_HEIGHT);
+			printData.font(2, "serif 10");
+			printData.box(3, 0, 0, 6, ROW_HEIGHT);
+			printData.align(3, "center right");
+			printData.text(3, NumberText.valueOf(month));
+			printData.box(3, 8, 0, 6.2, ROW_HEIGHT);
+			printData.align(3, "center right");
+			printData.text(3, NumberText.valueOf(day));
 			double y = 0.0;
 			//借方
 			if(entry.getDebtors().size() >= 2) {
-				printData.add("\t\t\t\\box " + String.format("18 0 34 %.2f", ROW_HEIGHT));
-				printData.add("\t\t\t\\align center left");
-				printData.add("\t\t\t\\text 諸口");
+				printData.box(3, 18, 0, 34, ROW_HEIGHT);
+				printData.align(3, "center left");
+				printData.text(3, "諸口");
 				y += ROW_HEIGHT;
 			}
 			for(int j = 0; j < entry.getDebtors().size(); j++) {
 				Debtor debtor = entry.getDebtors().get(j);
 				debtorTotal += debtor.getAmount();
-				printData.add("\t\t\t\\box " + String.format("16 %.2f 77 %.2f", y, ROW_HEIGHT));
-				printData.add("\t\t\t\\align center left");
-				printData.add("\t\t\t\\text " + "（" + debtor.getAccountTitle().getDisplayName() + "）");
-				printData.add("\t\t\t\\box " + String.format("101 %.2f 32 %.2f", y, ROW_HEIGHT));
-				printData.add("\t\t\t\\align center right");
-				printData.add("\t\t\t\\text " + String.format("%,d", debtor.getAmount()));
+				printData.box(3, 16, y, 77, ROW_HEIGHT);
+				printData.align(3, "center left");
+				printData.text(3, "（" + debtor.getAccountTitle().getDisplayName() + "）");
+				printData.box(3, 101, y, 32, ROW_HEIGHT);
+				printData.align(3, "center right");
+				printData.text(3, NumberText.format(debtor.getAmount()));
 				//元丁
-				if(debtor.getLedgerPageNumber() >= 1) {
-					printData.add("\t\t\t\\box " + String.format("93 %.2f 8 %.2f", y, ROW_HEIGHT));
-					printData.add("\t\t\t\\align center");
-					printData.add("\t\t\t\\text " + debtor.getLedgerPageNumber());
+				int ledgerPageNumber = pagination.getLedgerPageNumber(debtor);
+				if(ledgerPageNumber >= 1) {
+					printData.box(3, 93, y, 8, ROW_HEIGHT);
+					printData.align(3, "center");
+					printData.text(3, NumberText.valueOf(ledgerPageNumber));
 				}
 				y += ROW_HEIGHT;
 			}
@@ -270,76 +264,78 @@ public class GeneralJournal {
 				//借方が諸口で貸方が1行しかない場合は借方の諸口行に貸方を記入します。
 				Creditor creditor = entry.getCreditors().get(0);
 				creditorTotal += creditor.getAmount();
-				printData.add("\t\t\t\\box " + String.format("16 0 77 %.2f", ROW_HEIGHT));
-				printData.add("\t\t\t\\align center right");
-				printData.add("\t\t\t\\text " + "（" + creditor.getAccountTitle().getDisplayName() + "）");
-				printData.add("\t\t\t\\box " + String.format("138 0 32 %.2f", ROW_HEIGHT));
-				printData.add("\t\t\t\\align center right");
-				printData.add("\t\t\t\\text " + String.format("%,d", creditor.getAmount()));
+				printData.box(3, 16, 0, 77, ROW_HEIGHT);
+				printData.align(3, "center right");
+				printData.text(3, "（" + creditor.getAccountTitle().getDisplayName() + "）");
+				printData.box(3, 138, 0, 32, ROW_HEIGHT);
+				printData.align(3, "center right");
+				printData.text(3, NumberText.format(creditor.getAmount()));
 				//元丁
-				if(creditor.getLedgerPageNumber() >= 1) {
-					printData.add("\t\t\t\\box " + String.format("93 0 8 %.2f", ROW_HEIGHT));
-					printData.add("\t\t\t\\align center");
-					printData.add("\t\t\t\\text " + creditor.getLedgerPageNumber());
+				int ledgerPageNumber = pagination.getLedgerPageNumber(creditor);
+				if(ledgerPageNumber >= 1) {
+					printData.box(3, 93, 0, 8, ROW_HEIGHT);
+					printData.align(3, "center");
+					printData.text(3, NumberText.valueOf(ledgerPageNumber));
 				}
 			} else {
 				if(entry.getCreditors().size() >= 2) {
-					printData.add("\t\t\t\\box " + String.format("54.5 0 36.5 %.2f", ROW_HEIGHT));
-					printData.add("\t\t\t\\align center right");
-					printData.add("\t\t\t\\text 諸口");
+					printData.box(3, 54.5, 0, 36.5, ROW_HEIGHT);
+					printData.align(3, "center right");
+					printData.text(3, "諸口");
 				}
 				for(int j = 0; j < entry.getCreditors().size(); j++) {
 					Creditor creditor = entry.getCreditors().get(j);
 					creditorTotal += creditor.getAmount();
-					printData.add("\t\t\t\\box " + String.format("16 %.2f 77 %.2f", y, ROW_HEIGHT));
-					printData.add("\t\t\t\\align center right");
-					printData.add("\t\t\t\\text " + "（" + creditor.getAccountTitle().getDisplayName() + "）");
-					printData.add("\t\t\t\\box " + String.format("138 %.2f 32 %.2f", y, ROW_HEIGHT));
-					printData.add("\t\t\t\\align center right");
-					printData.add("\t\t\t\\text " + String.format("%,d", creditor.getAmount()));
+					printData.box(3, 16, y, 77, ROW_HEIGHT);
+					printData.align(3, "center right");
+					printData.text(3, "（" + creditor.getAccountTitle().getDisplayName() + "）");
+					printData.box(3, 138, y, 32, ROW_HEIGHT);
+					printData.align(3, "center right");
+					printData.text(3, NumberText.format(creditor.getAmount()));
 					//元丁
-					if(creditor.getLedgerPageNumber() >= 1) {
-						printData.add("\t\t\t\\box " + String.format("93 %.2f 8 %.2f", y, ROW_HEIGHT));
-						printData.add("\t\t\t\\align center");
-						printData.add("\t\t\t\\text " + creditor.getLedgerPageNumber());
+					int ledgerPageNumber = pagination.getLedgerPageNumber(creditor);
+					if(ledgerPageNumber >= 1) {
+						printData.box(3, 93, y, 8, ROW_HEIGHT);
+						printData.align(3, "center");
+						printData.text(3, NumberText.valueOf(ledgerPageNumber));
 					}
 					y += ROW_HEIGHT;
 				}
 			}
 			//摘要
-			printData.add("\t\t\t\\box " + String.format("18 %.2f 75 %.2f", y, ROW_HEIGHT));
-			printData.add("\t\t\t\\font serif 8");
-			printData.add("\t\t\t\\align center left");
-			printData.add("\t\t\t\\text " + entry.getDescription());
+			printData.box(3, 18, y, 75, ROW_HEIGHT);
+			printData.font(3, "serif 8");
+			printData.align(3, "center left");
+			printData.text(3, entry.getDescription());
 			
 			//締切線 (改ページ前および最終明細の摘要欄には締切線を引きません)
 			if(!isCarriedForward && (i + 1 < entries.size())) {
-				printData.add("\t\t\t\\box " + String.format("16 %.2f 77 %.2f", y, ROW_HEIGHT));
-				printData.add("\t\t\t\\line-style medium solid");
-				printData.add("\t\t\t\\line 0.325 -0 -0.325 -0");
+				printData.box(3, 16, y, 77, ROW_HEIGHT);
+				printData.lineStyle(3, "medium solid");
+				printData.line(3, 0.325, -0.0, -0.325, -0.0);
 			}
 			
 			//次頁繰越の印字が必要な場合
 			if(isCarriedForward) {
 				if((ROWS - currentRow - rowsRequired) * ROW_HEIGHT > 0) {
-					printData.add("\t\t\t\\box " + String.format("16 %.2f 77 %.2f", y + ROW_HEIGHT, (ROWS - currentRow - rowsRequired) * ROW_HEIGHT));
-					printData.add("\t\t\t\\line-style medium solid");
-					printData.add("\t\t\t\\line -0.325 0.15 0.325 -0.15");
+					printData.box(3, 16, y + ROW_HEIGHT, 77, (ROWS - currentRow - rowsRequired) * ROW_HEIGHT);
+					printData.lineStyle(3, "medium solid");
+					printData.line(3, -0.325, 0.15, 0.325, -0.15);
 				}
 				
-				printData.add("\t\t\\line-style medium solid");
-				printData.add("\t\t\\box " + String.format("16 %.2f 77 %.2f", (ROWS - 1) * ROW_HEIGHT, ROW_HEIGHT));
-				printData.add("\t\t\\line 0.325 0 -0.325 0");
-				printData.add("\t\t\\box " + String.format("101 %.2f -0 %.2f", (ROWS - 1) * ROW_HEIGHT, ROW_HEIGHT));
-				printData.add("\t\t\\line 0.325 0 -0.125 0");
-				printData.add("\t\t\\box " + String.format("16 %.2f 75 %.2f", (ROWS - 1) * ROW_HEIGHT, ROW_HEIGHT));
-				printData.add("\t\t\\align center right");
-				printData.add("\t\t\\font serif 10");
-				printData.add("\t\t\\text 次頁繰越");
-				printData.add("\t\t\\box " + String.format("101 %.2f 32 %.2f", (ROWS - 1) * ROW_HEIGHT, ROW_HEIGHT));
-				printData.add("\t\t\\text " + String.format("%,d", debtorTotal));
-				printData.add("\t\t\\box " + String.format("138 %.2f 32 %.2f", (ROWS - 1) * ROW_HEIGHT, ROW_HEIGHT));
-				printData.add("\t\t\\text " + String.format("%,d", creditorTotal));
+				printData.lineStyle(2, "medium solid");
+				printData.box(2, 16, (ROWS - 1) * ROW_HEIGHT, 77, ROW_HEIGHT);
+				printData.line(2, 0.325, 0, -0.325, 0);
+				printData.box(2, 101, (ROWS - 1) * ROW_HEIGHT, -0.0, ROW_HEIGHT);
+				printData.line(2, 0.325, 0, -0.125, 0);
+				printData.box(2, 16, (ROWS - 1) * ROW_HEIGHT, 75, ROW_HEIGHT);
+				printData.align(2, "center right");
+				printData.font(2, "serif 10");
+				printData.text(2, "次頁繰越");
+				printData.box(2, 101, (ROWS - 1) * ROW_HEIGHT, 32, ROW_HEIGHT);
+				printData.text(2, NumberText.format(debtorTotal));
+				printData.box(2, 138, (ROWS - 1) * ROW_HEIGHT, 32, ROW_HEIGHT);
+				printData.text(2, NumberText.format(creditorTotal));
 			}
 
 			currentRow += rowsRequired;
@@ -347,21 +343,52 @@ public class GeneralJournal {
 
 			//期末締切線
 			if(i == entries.size() - 1) {
-				printData.add("\t\t\\box " + String.format("0 %.2f -0 %.2f", (currentRow - 1) * ROW_HEIGHT, ROW_HEIGHT + 0.5));
-				printData.add("\t\t\\line-style medium solid");
-				printData.add("\t\t\\line 101.325 0 -0.125 0");
-				printData.add("\t\t\\line 0.125 -0.5 15.675 -0.5");
-				printData.add("\t\t\\line 0.125 -0.0 15.675 -0.0");
-				printData.add("\t\t\\line 101.325 -0.5 -0.125 -0.5");
-				printData.add("\t\t\\line 101.325 -0.0 -0.125 -0.0");
-				printData.add("\t\t\t\\align center right");
-				printData.add("\t\t\t\\font serif 10");
-				printData.add("\t\t\t\\box " + String.format("101 0 32 %.2f", ROW_HEIGHT));
-				printData.add("\t\t\t\\text " + String.format("%,d", debtorTotal));
-				printData.add("\t\t\t\\box " + String.format("138 0 32 %.2f", ROW_HEIGHT));
-				printData.add("\t\t\t\\text " + String.format("%,d", creditorTotal));
+				printData.box(2, 0, (currentRow - 1) * ROW_HEIGHT, -0.0, ROW_HEIGHT + 0.5);
+				printData.lineStyle(2, "medium solid");
+				printData.line(2, 101.325, 0, -0.125, 0);
+				printData.line(2, 0.125, -0.5, 15.675, -0.5);
+				printData.line(2, 0.125, -0.0, 15.675, -0.0);
+				printData.line(2, 101.325, -0.5, -0.125, -0.5);
+				printData.line(2, 101.325, -0.0, -0.125, -0.0);
+				printData.align(3, "center right");
+				printData.font(3, "serif 10");
+				printData.box(3, 101, 0, 32, ROW_HEIGHT);
+				printData.text(3, NumberText.format(debtorTotal));
+				printData.box(3, 138, 0, 32, ROW_HEIGHT);
+				printData.text(3, NumberText.format(creditorTotal));
 			}
 		}
+		flushPage();
+		this.brewer = null;
+	}
+
+	/** 1ページ分の印字データを作成します。
+	 * 
+	 * @return 用紙サイズと行の高さだけを設定した印字データ
+	 */
+	private PrintData createPrintData() {
+		PrintData printData = new PrintData();
+		if(bindingMarginEnabled) {
+			printData.media("A4");
+		} else {
+			// 綴じ代なしの場合は15mm分だけ横幅を短くして195mmとします。(A4本来の横幅は210mm)
+			// 穴あけパンチ用の中心線も出力しません。
+			printData.media("195 297");
+		}
+
+		// 摘要が2行折り返しで印字されても枠内に収まるように行の高さを 1.15 に変更しています。（デフォルトは 1.8）
+		printData.lineHeight(0, "1.15");
+		return printData;
+	}
+
+	/** 作成したページの印字データを PdfBrewer で印字して破棄します。
+	 * PdfBrewer の process は呼び出すたびに新しいページから印字します。
+	 * 
+	 * @throws IOException I/Oエラーが発生した場合
+	 */
+	private void flushPage() throws IOException {
+		brewer.process(printData.toBrewerData(brewer.getFontLoader()));
+		printData = null;
 	}
 
 	/** 指定した仕訳を印字するのに必要な行数を取得します。
@@ -369,7 +396,7 @@ public class GeneralJournal {
 	 * @param entry 仕訳
 	 * @return 指定した仕訳を印字するのに必要な行数を返します。
 	 */
-	public int getRowsRequired(JournalEntry entry) {
+	public static int getRowsRequired(JournalEntry entry) {
 		int rowsRequired = 0;
 		//借方が2つ以上ある場合は「諸口」のために1行加算します。
 		if(entry.getDebtors().size() >= 2) {
@@ -401,37 +428,39 @@ public class GeneralJournal {
 		this.pageNumberEnabled = enabled;
 	}
 
-	public void writeTo(Path path) throws IOException {
-		prepare();
+	/** PDFを作成するときのメモリの使用方法を設定します。
+	 * 一時ファイルを使用するように設定すると、印字したページは一時ファイルに書き出されるため、
+	 * ページ数が多い場合でもメモリ使用量が一定になります。
+	 * 
+	 * @param memUsageSetting メモリの使用方法。null の場合はメインメモリのみを使用します。
+	 */
+	public void setMemoryUsageSetting(MemoryUsageSetting memUsageSetting) {
+		this.memUsageSetting = memUsageSetting;
+	}
 
-		PdfBrewer brewer;
-		if(fontLoader != null) {
-			brewer = new PdfBrewer(fontLoader);
-		} else {
-			brewer = new PdfBrewer();
+	public void writeTo(Path path) throws IOException {
+		//ページ番号（元丁・仕丁）は Pagination で確定しているため、ここでは仕訳データを読み取るだけです。
+		//そのため、同じ仕訳データを使用する総勘定元帳と並行して作成することができます。
+		PdfBrewer brewer = new SharedFontPdfBrewer(fontLoader, memUsageSetting);
+		try {
+			brewer.setCreator(Util.getPdfCreator());
+			brewer.setTitle("仕訳帳");
+			prepare(brewer);
+			brewer.save(path);
+		} finally {
+			brewer.close();
 		}
-		brewer.setCreator(Util.getPdfCreator());
-		BrewerData pb = new BrewerData(printData, brewer.getFontLoader());
-		brewer.setTitle("仕訳帳");
-		brewer.process(pb);
-		brewer.save(path);
-		brewer.close();
 	}
 
 	public void writeTo(OutputStream out) throws IOException {
-		prepare();
-
-		PdfBrewer brewer;
-		if(fontLoader != null) {
-			brewer = new PdfBrewer(fontLoader);
-		} else {
-			brewer = new PdfBrewer();
+		PdfBrewer brewer = new SharedFontPdfBrewer(fontLoader, memUsageSetting);
+		try {
+			brewer.setCreator(Util.getPdfCreator());
+			brewer.setTitle("仕訳帳");
+			prepare(brewer);
+			brewer.save(out);
+		} finally {
+			brewer.close();
 		}
-		brewer.setCreator(Util.getPdfCreator());
-		BrewerData pb = new BrewerData(printData, brewer.getFontLoader());
-		brewer.setTitle("仕訳帳");
-		brewer.process(pb);
-		brewer.save(out);
-		brewer.close();
 	}
 }
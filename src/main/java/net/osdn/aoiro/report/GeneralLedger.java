@@ -1,27 +1,32 @@
 package net.osdn.aoiro.report;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.io.OutputStream;
-import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
 
 import net.osdn.aoiro.AccountSettlement;
 import net.osdn.aoiro.Util;
 import net.osdn.aoiro.model.Account;
 import net.osdn.aoiro.model.AccountTitle;
-import net.osdn.aoiro.model.AccountType;
 import net.osdn.aoiro.model.Creditor;
 import net.osdn.aoiro.model.Debtor;
 import net.osdn.aoiro.model.JournalEntry;
-import net.osdn.pdf_brewer.BrewerData;
 import net.osdn.pdf_brewer.FontLoader;
 import net.osdn.pdf_brewer.PdfBrewer;
 
@@ -30,8 +35,11 @@ import net.osdn.pdf_brewer.PdfBrewer;
  */
 public class GeneralLedger {
 
-	private static final int ROWS = 50;
+	static final int ROWS = 50;
 	private static final double ROW_HEIGHT = 5.0;
+
+	/** 勘定科目ごとに分割して並行して作成する総勘定元帳の最小ページ数 */
+	private static final int PARALLEL_THRESHOLD_PAGES = 100;
 	
 	private Set<AccountTitle> accountTitles;
 	private List<JournalEntry> entries;
@@ -42,43 +50,66 @@ public class GeneralLedger {
 	int financialYear;
 	boolean isFromNewYearsDay;
 	
-	private List<String> pageData = new ArrayList<>();
-	private List<String> printData;
+	private PrintData pageData;
+	private PrintData printData;
+	private PdfBrewer brewer;
 	private FontLoader fontLoader;
+	private MemoryUsageSetting memUsageSetting;
 	private boolean bindingMarginEnabled = true;
 	private boolean pageNumberEnabled = true;
 
-	public GeneralLedger(Set<AccountTitle> accountTitles, List<JournalEntry> journalEntries, boolean isSoloProprietorship, boolean showMonthlyTotal) throws IOException {
-		this.accountTitles = new LinkedHashSet<>(accountTitles);
-
-		// ビルトインの勘定科目（損益・控除前の所得金額・繰越利益剰余金・残高）を総勘定元帳のページ後半にまとめるために
-		// ビルトインの勘定科目は一度、取り除いて(remove)、追加(add) することで LinkedHashSet の後に再配置します。
-		this.accountTitles.remove(AccountTitle.INCOME_SUMMARY);
-		this.accountTitles.add(AccountTitle.INCOME_SUMMARY);
-
-		this.accountTitles.remove(AccountTitle.RETAINED_EARNINGS);
-		this.accountTitles.add(AccountTitle.RETAINED_EARNINGS);
-
-		this.accountTitles.remove(AccountTitle.PRETAX_INCOME);
-		this.accountTitles.add(AccountTitle.PRETAX_INCOME);
-
-		this.accountTitles.remove(AccountTitle.BALANCE);
-		this.accountTitles.add(AccountTitle.BALANCE);
-
+	/** 仕訳帳と総勘定元帳のページ割り付け */
+	private Pagination pagination;
+	/** 月計の対象月（開始仕訳は前期繰越計）の判定に使用する勘定科目ごとの月別集計 */
+	private MonthlyTotals monthlyTotals;
+	/** この総勘定元帳の先頭ページ番号（勘定科目ごとに分割した場合は 2以上になることがあります） */
+	private int firstPageNumber = 1;
+	/** 出力キャッシュ（null の場合は勘定科目ごとの本文を再利用しません） */
+	private OutputCache outputCache;
+	/** 綴じ代の線とページ番号を除いた本文だけを印字する場合は true（出力キャッシュに保存する勘定科目ごとの本文） */
+	private boolean bodyOnly;
+	/** 印字するページ範囲（範囲外のページも繰越金額を求めるために印字データは作成しますが、PdfBrewer には渡しません） */
+	private int fromPageNumber = 1;
+	private int toPageNumber = Integer.MAX_VALUE;
+	/** 作成中の印字データのページ番号 */
+	private int currentPageNumber;
+
+	/** 総勘定元帳を作成します。
+	 * 
+	 * @param accountTitles 勘定科目
+	 * @param journalEntries 仕訳リスト
+	 * @param isSoloProprietorship 個人事業主の場合は true
+	 * @param showMonthlyTotal 月計を印字する場合は true
+	 * @param pagination 同じ引数で作成した仕訳帳と総勘定元帳のページ割り付け（仕丁の印字と並行印字の分割に使用します）
+	 * @throws IOException I/Oエラーが発生した場合
+	 */
+	public GeneralLedger(Set<AccountTitle> accountTitles, List<JournalEntry> journalEntries, boolean isSoloProprietorship, boolean showMonthlyTotal, Pagination pagination) throws IOException {
+		this(accountTitles, journalEntries, isSoloProprietorship, showMonthlyTotal, pagination, new MonthlyTotals(journalEntries, isSoloProprietorship));
+	}
 
+	/** 総勘定元帳を作成します。
+	 * 月計の対象月は、損益計算書と共有する勘定科目ごとの月別集計と同じ規則で判定します。
+	 * 月計の金額は、印字した借方・貸方の金額を勘定科目ごとに合計して求めます。
+	 * 
+	 * @param accountTitles 勘定科目
+	 * @param journalEntries 仕訳リスト
+	 * @param isSoloProprietorship 個人事業主の場合は true
+	 * @param showMonthlyTotal 月計を印字する場合は true
+	 * @param pagination 同じ引数で作成した仕訳帳と総勘定元帳のページ割り付け（仕丁の印字と並行印字の分割に使用します）
+	 * @param monthlyTotals 同じ仕訳リストから作成した勘定科目ごとの月別集計
+	 * @throws IOException I/Oエラーが発生した場合
+	 */
+	public GeneralLedger(Set<AccountTitle> accountTitles, List<JournalEntry> journalEntries, boolean isSoloProprietorship, boolean showMonthlyTotal, Pagination pagination, MonthlyTotals monthlyTotals) throws IOException {
+		this.accountTitles = getLedgerAccountTitles(accountTitles);
+		this.pagination = pagination;
+		this.monthlyTotals = monthlyTotals;
 		this.entries = journalEntries;
 		this.isSoloProprietorship = isSoloProprietorship;
 		this.showMonthlyTotal = showMonthlyTotal;
 
 		this.openingDate = AccountSettlement.getOpeningDate(journalEntries, isSoloProprietorship);
 		
-		InputStream in = getClass().getResourceAsStream("/templates/総勘定元帳.pb");
-		BufferedReader r = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
-		String line;
-		while((line = r.readLine()) != null) {
-			pageData.add(line);
-		}
-		r.close();
+		pageData = Templates.get("総勘定元帳");
 		
 		LocalDate closing = AccountSettlement.getClosingDate(entries, isSoloProprietorship);
 		if(closing.getMonthValue() == 12 && closing.getDayOfMonth() == 31) {
@@ -90,31 +121,81 @@ public class GeneralLedger {
 			financialYear = closing.getYear() - 1;
 			isFromNewYearsDay = false;
 		}
-		
-		//仕訳帳と相互にページ番号を印字するために
-		//writeToを呼び出してPDFを作成する前にprepareを呼び出しておく必要があります。
-		prepare();
+	}
+
+	/** 総勘定元帳に印字する順序に並べ替えた勘定科目を返します。
+	 * 
+	 * @param accountTitles 勘定科目
+	 * @return 総勘定元帳に印字する順序の勘定科目
+	 */
+	static Set<AccountTitle> getLedgerAccountTitles(Set<AccountTitle> accountTitles) {
+		Set<AccountTitle> ledgerAccountTitles = new LinkedHashSet<>(accountTitles);
+
+		// ビルトインの勘定科目（損益・控除前の所得金額・繰越利益剰余金・残高）を総勘定元帳のページ後半にまとめるために
+		// ビルトインの勘定科目は一度、取り除いて(remove)、追加(add) することで LinkedHashSet の後に再配置します。
+		ledgerAccountTitles.remove(AccountTitle.INCOME_SUMMARY);
+		ledgerAccountTitles.add(AccountTitle.INCOME_SUMMARY);
+
+		ledgerAccountTitles.remove(AccountTitle.RETAINED_EARNINGS);
+		ledgerAccountTitles.add(AccountTitle.RETAINED_EARNINGS);
+
+		ledgerAccountTitles.remove(AccountTitle.PRETAX_INCOME);
+		ledgerAccountTitles.add(AccountTitle.PRETAX_INCOME);
+
+		ledgerAccountTitles.remove(AccountTitle.BALANCE);
+		ledgerAccountTitles.add(AccountTitle.BALANCE);
+
+		return ledgerAccountTitles;
+	}
+
+	/** 指定した総勘定元帳の一部の勘定科目だけを印字する総勘定元帳を作成します。
+	 *
+	 * @param ledger 分割元の総勘定元帳
+	 * @param accountTitles 印字する勘定科目（分割元の勘定科目の連続した一部）
+	 * @param firstPageNumber 先頭の勘定科目の開始ページ番号
+	 */
+	private GeneralLedger(GeneralLedger ledger, Set<AccountTitle> accountTitles, int firstPageNumber) {
+		this.accountTitles = accountTitles;
+		this.entries = ledger.entries;
+		this.isSoloProprietorship = ledger.isSoloProprietorship;
+		this.showMonthlyTotal = ledger.showMonthlyTotal;
+		this.openingDate = ledger.openingDate;
+		this.financialYear = ledger.financialYear;
+		this.isFromNewYearsDay = ledger.isFromNewYearsDay;
+		this.pageData = ledger.pageData;
+		this.fontLoader = ledger.fontLoader;
+		this.memUsageSetting = ledger.memUsageSetting;
+		this.bindingMarginEnabled = ledger.bindingMarginEnabled;
+		this.pageNumberEnabled = ledger.pageNumberEnabled;
+		this.pagination = ledger.pagination;
+		this.monthlyTotals = ledger.monthlyTotals;
+		this.firstPageNumber = firstPageNumber;
 	}
 
 	public List<JournalEntry> getJournalEntries() {
 		return entries;
 	}
+
+	Pagination getPagination() {
+		return pagination;
+	}
 	
-	protected void prepare() {
-		int pageNumber = 0;
+	/** 総勘定元帳の印字データを作成します。
+	 * 印字データは 1ページずつ作成し、ページが完成するたびに PdfBrewer に渡して印字します。
+	 * そのため、ページ数に関係なくメモリに保持する印字データは 1ページ分だけになります。
+	 * 
+	 * @param brewer 印字データを出力する PdfBrewer
+	 * @throws IOException I/Oエラーが発生した場合
+	 */
+	protected void prepare(PdfBrewer brewer) throws IOException {
+		int pageNumber = firstPageNumber - 1;
 		AccountTitle currentAccountTitle = null;
 		
-		printData = new ArrayList<String>();
-		if(bindingMarginEnabled) {
-			printData.add("\\media A4");
-
-			//穴あけパンチの位置を合わせるための中心線を先頭ページのみ印字します。
-			printData.add("\\line-style thin dot");
-			printData.add("\\line 0 148.5 5 148.5");
-		} else {
-			// 綴じ代なしの場合は15mm分だけ横幅を短くして195mmとします。(A4本来の横幅は210mm)
-			// 穴あけパンチ用の中心線も出力しません。
-			printData.add("\\media 195 297");
+		this.brewer = brewer;
+		currentPageNumber = firstPageNumber;
+		printData = createPrintData();
+		if(!bodyOnly && firstPageNumber == 1) {
+			printPunchLine(printData);
 		}
 
 		for(AccountTitle accountTitle : accountTitles) {
@@ -123,11 +204,12 @@ public class GeneralLedger {
 			String sign = "";
 			long debtorTotal = 0;
 			long creditorTotal = 0;
-			long accountTitleTotal = 0;
 			long monthlyDebtorTotal = 0;
 			long monthlyCreditorTotal = 0;
+			long accountTitleTotal = 0;
 
 			List<JournalEntry> entries = getJournalEntriesByAccount(accountTitle);
+
 			for(int j = 0; j < entries.size(); j++) {
 				JournalEntry entry = entries.get(j);
 				int month = entry.getDate().getMonthValue();
@@ -137,13 +219,13 @@ public class GeneralLedger {
 				boolean isLastEntryInMonth = false;
 				if(showMonthlyTotal) {
 					// 開始仕訳は1月計に含めないようにするために0月として扱います。
-					monthlyTotalMonth = entry.isOpening(isSoloProprietorship, openingDate) ? 0 : month;
+					monthlyTotalMonth = monthlyTotals.getMonth(entry);
 					if(!entry.isClosing()) {
 						if(j + 1 == entries.size()) {
 							isLastEntryInMonth = true;
 						} else if(j + 1 < entries.size()) {
 							JournalEntry nextEntry = entries.get(j + 1);
-							int nextEntryMonth = nextEntry.isOpening(isSoloProprietorship, openingDate) ? 0 : nextEntry.getDate().getMonthValue();
+							int nextEntryMonth = monthlyTotals.getMonth(nextEntry);
 							if(monthlyTotalMonth != nextEntryMonth) {
 								isLastEntryInMonth = true;
 							} else if(nextEntry.isClosing()) {
@@ -155,12 +237,10 @@ public class GeneralLedger {
 
 				//この勘定科目を含む勘定のリストを取得します。
 				List<Account> accounts = getAccountsByAccountTitle(entry, accountTitle);
-				List<Account> capitals = null;
 				//勘定科目が「元入金」の場合はリストの要素数を1にします。
 				//元入金の場合は相手勘定科目をすべて出力するため、1つの仕訳に「元入金」が複数含まれていても繰り返し処理する必要がないためです。
-				//2つ目以降の「元入金」は capitals に保持して、1つ目の要素と一緒に pageNumber を設定していきます。
+				//2つ目以降の「元入金」の元丁は Pagination で 1つ目の要素と同じページ番号になります。
 				if(accountTitle.getDisplayName().equals("元入金") && accounts.size() >= 2) {
-					capitals = accounts.subList(1, accounts.size());
 					accounts = accounts.subList(0, 1);
 				}
 				
@@ -171,16 +251,6 @@ public class GeneralLedger {
 					for(int l = 0; l < counterpartAccounts.size(); l++) {
 						Account counterpartAccount = counterpartAccounts.get(l);
 
-						//月計に加算します。
-						if(showMonthlyTotal) {
-							if(account instanceof Debtor) {
-								monthlyDebtorTotal += counterpartAccount.getAmount();
-							}
-							if(account instanceof Creditor) {
-								monthlyCreditorTotal += counterpartAccount.getAmount();
-							}
-						}
-
 						//この仕訳の後で改ページが必要かどうか
 						boolean isCarriedForward = false;
 						
@@ -212,146 +282,71 @@ public class GeneralLedger {
 							}
 						}
 
-						//仕訳帳に記載する総勘定元帳ページ(元丁)を設定します。
-						if(account.getLedgerPageNumber() <= 0) {
-							account.setLedgerPageNumber(pageNumber);
-							if(capitals != null) {
-								for(Account capital : capitals) {
-									capital.setLedgerPageNumber(pageNumber);
-								}
-							}
-						}
-
 						//日付
-						printData.add("\t\t\\box " + String.format("0 %.2f -0 %.2f", currentRow * ROW_HEIGHT, ROW_HEIGHT));
-						printData.add("\t\t\\font serif 10");
-						printData.add("\t\t\t\\box " + String.format("0 0 6 %.2f", ROW_HEIGHT));
-						printData.add("\t\t\t\\align center right");
-						printData.add("\t\t\t\\text " + month);
-						printData.add("\t\t\t\\box " + String.format("8 0 6.2 %.2f", ROW_HEIGHT));
-						printData.add("\t\t\t\\align center right");
-						printData.add("\t\t\t\\text " + day);
+						printData.box(2, 0, currentRow * ROW_HEIGHT, -0.0, ROW_HEIGHT);
+						printData.font(2, "serif 10");
+						printData.box(3, 0, 0, 6, ROW_HEIGHT);
+						printData.align(3, "center right");
+						printData.text(3, NumberText.valueOf(month));
+						printData.box(3, 8, 0, 6.2, ROW_HEIGHT);
+						printData.align(3, "center right");
+						printData.text(3, NumberText.valueOf(day));
 						
 						//摘要
-						printData.add("\t\t\\box " + String.format("17.5 %.2f 49.5 %.2f", currentRow * ROW_HEIGHT, ROW_HEIGHT));
-						printData.add("\t\t\\font serif 9");
-						printData.add("\t\t\\align center left");
-						if(isSoloProprietorship && entry.isOpening(isSoloProprietorship, openingDate) && !account.getAccountTitle().getDisplayName().equals("元入金")) {
-							//個人事業主かつ開始仕訳、さらに表題の勘定科目が元入金ではない場合、
-							//つまり、表題が元入金の相手勘定科目の場合、摘要の相手勘定科目を「元入金」とします。
-							printData.add("\t\t\\text 元入金");
-							//摘要欄に勘定科目だけではなく仕訳摘要も印字します。ただし、締切仕訳や仕訳摘要と勘定科目が同じ場合は印字しません。
-							if(!entry.isClosing()
-									&& !entry.getDescription().isBlank()
-									&& !entry.getDescription().equals("元入金")) {
-								printData.add("\t\t\\font serif 6");
-								printData.add("\t\t\\text  / " + entry.getDescription());
-							}
-						} else if(!isSoloProprietorship && entry.isOpening(isSoloProprietorship, openingDate)) {
-							//法人かつ開始仕訳の場合、摘要のみを印字します。
-							printData.add("\t\t\\text " + entry.getDescription());
-						} else {
-							printData.add("\t\t\\text " + counterpartAccount.getAccountTitle().getDisplayName());
-							//摘要欄に勘定科目だけではなく仕訳摘要も印字します。ただし、締切仕訳や仕訳摘要と勘定科目が同じ場合は印字しません。
-							if(!entry.isClosing()
-									&& !entry.getDescription().isBlank()
-									&& !entry.getDescription().equals(account.getAccountTitle().getDisplayName())
-									&& !entry.getDescription().equals(counterpartAccount.getAccountTitle().getDisplayName())) {
-								printData.add("\t\t\\font serif 6");
-								printData.add("\t\t\\text  / " + entry.getDescription());
-							}
+						printData.box(2, 17.5, currentRow * ROW_HEIGHT, 49.5, ROW_HEIGHT);
+						printData.font(2, "serif 9");
+						printData.align(2, "center left");
+						printData.text(2, getSummary(entry, account, counterpartAccount));
+						//摘要欄に勘定科目だけではなく仕訳摘要も印字します。
+						String description = getSummaryDescription(entry, account, counterpartAccount);
+						if(description != null) {
+							printData.font(2, "serif 6");
+							printData.text(2, " / " + description);
 						}
 
 						//仕丁
-						if(account.getJournalPageNumber() >= 1) {
-							printData.add("\t\t\\box " + String.format("67 %.2f 8 %.2f", currentRow * ROW_HEIGHT, ROW_HEIGHT));
-							printData.add("\t\t\\font serif 10");
-							printData.add("\t\t\\align center");
-							printData.add("\t\t\\text " + account.getJournalPageNumber());
+						int journalPageNumber = pagination.getJournalPageNumber(entry);
+						if(journalPageNumber >= 1) {
+							printData.box(2, 67, currentRow * ROW_HEIGHT, 8, ROW_HEIGHT);
+							printData.font(2, "serif 10");
+							printData.align(2, "center");
+							printData.text(2, NumberText.valueOf(journalPageNumber));
 						}
 
-						if(account.getAccountTitle().getDisplayName().equals("元入金")) {
-							//元入金の場合のみ、相手勘定科目を基準に借方・貸方金額を印字していきます。
-							//相手勘定科目が貸方の場合、元入金の借方に金額を印字します。（逆になることに注意！）
-							if(counterpartAccount instanceof Creditor) {
-								printData.add("\t\t\\box " + String.format("75 %.2f 25 %.2f", currentRow * ROW_HEIGHT, ROW_HEIGHT));
-								printData.add("\t\t\\font serif 10");
-								printData.add("\t\t\\align center right");
-								printData.add("\t\t\\text " + String.format("%,d", counterpartAccount.getAmount()));
-								//資産、費用の場合は増加、負債、資本（純資産）、収益の場合は減少
-								if(account.getAccountTitle().getType().getNormalBalance() == Debtor.class) {
-									accountTitleTotal += counterpartAccount.getAmount();
-								} else {
-									accountTitleTotal -= counterpartAccount.getAmount();
-								}
-								debtorTotal += counterpartAccount.getAmount();
-							}
-							//相手勘定科目が借方の場合、元入金の貸方に金額を印字します。（逆になることに注意！）
-							if(counterpartAccount instanceof Debtor) {
-								printData.add("\t\t\\box " + String.format("105 %.2f 25 %.2f", currentRow * ROW_HEIGHT, ROW_HEIGHT));
-								printData.add("\t\t\\font serif 10");
-								printData.add("\t\t\\align center right");
-								printData.add("\t\t\\text " + String.format("%,d", counterpartAccount.getAmount()));
-								//負債、資本（純資産）、収益の場合は増加、資産、費用の場合は減少
-								if(account.getAccountTitle().getType().getNormalBalance() == Creditor.class) {
-									accountTitleTotal += counterpartAccount.getAmount();
-								} else {
-									accountTitleTotal -= counterpartAccount.getAmount();
-								}
-								creditorTotal += counterpartAccount.getAmount();
-							}
+						//借方または貸方
+						//元入金の場合は相手勘定科目を基準にするため、相手勘定科目が貸方の場合に借方に印字します。
+						boolean isDebtor = isDebtorAmount(account, counterpartAccount);
+						printData.box(2, isDebtor ? 75 : 105, currentRow * ROW_HEIGHT, 25, ROW_HEIGHT);
+						printData.font(2, "serif 10");
+						printData.align(2, "center right");
+						printData.text(2, NumberText.format(counterpartAccount.getAmount()));
+						accountTitleTotal += getBalanceChange(account, isDebtor, counterpartAccount.getAmount());
+						if(isDebtor) {
+							debtorTotal += counterpartAccount.getAmount();
 						} else {
-							//元入金以外の場合
-
-							//借方
-							if(account instanceof Debtor) {
-								printData.add("\t\t\\box " + String.format("75 %.2f 25 %.2f", currentRow * ROW_HEIGHT, ROW_HEIGHT));
-								printData.add("\t\t\\font serif 10");
-								printData.add("\t\t\\align center right");
-								printData.add("\t\t\\text " + String.format("%,d", counterpartAccount.getAmount()));
-								//資産、費用の場合は増加、負債、資本（純資産）、収益の場合は減少
-								if(account.getAccountTitle().getType().getNormalBalance() == Debtor.class) {
-									accountTitleTotal += counterpartAccount.getAmount();
-								} else {
-									accountTitleTotal -= counterpartAccount.getAmount();
-								}
-								debtorTotal += counterpartAccount.getAmount();
-							}
-
-							//貸方
-							if(account instanceof Creditor) {
-								printData.add("\t\t\\box " + String.format("105 %.2f 25 %.2f", currentRow * ROW_HEIGHT, ROW_HEIGHT));
-								printData.add("\t\t\\font serif 10");
-								printData.add("\t\t\\align center right");
-								printData.add("\t\t\\text " + String.format("%,d", counterpartAccount.getAmount()));
-								//負債、資本（純資産）、収益の場合は増加、資産、費用の場合は減少
-								if(account.getAccountTitle().getType().getNormalBalance() == Creditor.class) {
-									accountTitleTotal += counterpartAccount.getAmount();
-								} else {
-									accountTitleTotal -= counterpartAccount.getAmount();
-								}
-								creditorTotal += counterpartAccount.getAmount();
+							creditorTotal += counterpartAccount.getAmount();
+						}
+						//月計に加算します。（印字した金額と同じ借方・貸方に加算します）
+						if(showMonthlyTotal) {
+							if(isDebtor) {
+								monthlyDebtorTotal += counterpartAccount.getAmount();
+							} else {
+								monthlyCreditorTotal += counterpartAccount.getAmount();
 							}
 						}
 
 						//借または貸
-						AccountType type = account.getAccountTitle().getType();
-						if(type.getNormalBalance() == Debtor.class) {
-							sign = (accountTitleTotal >= 0) ? "借" : "貸";
-						}
-						if(type.getNormalBalance() == Creditor.class) {
-							sign = (accountTitleTotal >= 0) ? "貸" : "借";
-						}
-						printData.add("\t\t\\box " + String.format("135 %.2f 8 %.2f", currentRow * ROW_HEIGHT, ROW_HEIGHT));
-						printData.add("\t\t\\font serif 10");
-						printData.add("\t\t\\align center");
-						printData.add("\t\t\\text " + sign);
+						sign = getBalanceSign(account.getAccountTitle(), accountTitleTotal);
+						printData.box(2, 135, currentRow * ROW_HEIGHT, 8, ROW_HEIGHT);
+						printData.font(2, "serif 10");
+						printData.align(2, "center");
+						printData.text(2, sign);
 						
 						//残高
-						printData.add("\t\t\\box " + String.format("143 %.2f 27 %.2f", currentRow * ROW_HEIGHT, ROW_HEIGHT));
-						printData.add("\t\t\\font serif 10");
-						printData.add("\t\t\\align center right");
-						printData.add("\t\t\\text " + String.format("%,d", Math.abs(accountTitleTotal)));
+						printData.box(2, 143, currentRow * ROW_HEIGHT, 27, ROW_HEIGHT);
+						printData.font(2, "serif 10");
+						printData.align(2, "center right");
+						printData.text(2, NumberText.format(Math.abs(accountTitleTotal)));
 
 						if(isCarriedForward) {
 							carryForwardToNextPage(currentRow + 1, sign, accountTitleTotal);
@@ -393,29 +388,29 @@ public class GeneralLedger {
 								}
 							}
 
-							printData.add("\t\t\\box " + String.format("16 %.2f 49 %.2f", currentRow * ROW_HEIGHT, ROW_HEIGHT));
-							printData.add("\t\t\\font serif 10 bold");
-							printData.add("\t\t\\align center right");
+							printData.box(2, 16, currentRow * ROW_HEIGHT, 49, ROW_HEIGHT);
+							printData.font(2, "serif 10 bold");
+							printData.align(2, "center right");
 							if(monthlyTotalMonth == 0) {
-								printData.add("\t\t\\text 前期繰越計");
+								printData.text(2, "前期繰越計");
 							} else {
-								printData.add("\t\t\\text " + month + "月計");
+								printData.text(2, month + "月計");
 							}
 
-							printData.add("\t\t\\box " + String.format("0 %.2f -0 %.2f", currentRow * ROW_HEIGHT, ROW_HEIGHT + 0.5));
-							printData.add("\t\t\\line-style medium solid");
+							printData.box(2, 0, currentRow * ROW_HEIGHT, -0.0, ROW_HEIGHT + 0.5);
+							printData.lineStyle(2, "medium solid");
 							//合計線
-							printData.add("\t\t\\line 75.325 0 134.675 0");
+							printData.line(2, 75.325, 0, 134.675, 0);
 							//借方合計
-							printData.add("\t\t\\box " + String.format("75 %.2f 25 %.2f", currentRow * ROW_HEIGHT, ROW_HEIGHT));
-							printData.add("\t\t\\font serif 10.5 bold");
-							printData.add("\t\t\\align center right");
-							printData.add("\t\t\\text " + String.format("%,d", monthlyDebtorTotal));
+							printData.box(2, 75, currentRow * ROW_HEIGHT, 25, ROW_HEIGHT);
+							printData.font(2, "serif 10.5 bold");
+							printData.align(2, "center right");
+							printData.text(2, NumberText.format(monthlyDebtorTotal));
 							//貸方合計
-							printData.add("\t\t\\box " + String.format("105 %.2f 25 %.2f", currentRow * ROW_HEIGHT, ROW_HEIGHT));
-							printData.add("\t\t\\font serif 10.5 bold");
-							printData.add("\t\t\\align center right");
-							printData.add("\t\t\\text " + String.format("%,d", monthlyCreditorTotal));
+							printData.box(2, 105, currentRow * ROW_HEIGHT, 25, ROW_HEIGHT);
+							printData.font(2, "serif 10.5 bold");
+							printData.align(2, "center right");
+							printData.text(2, NumberText.format(monthlyCreditorTotal));
 
 							monthlyDebtorTotal = 0;
 							monthlyCreditorTotal = 0;
@@ -433,154 +428,231 @@ public class GeneralLedger {
 			
 			//期末締切線
 			if(entries.size() > 0 && entries.get(entries.size() - 1).isClosing()) {
-				printData.add("\t\t\\box " + String.format("0 %.2f -0 %.2f", currentRow * ROW_HEIGHT, ROW_HEIGHT + 0.5));
-				printData.add("\t\t\\line-style medium solid");
+				printData.box(2, 0, currentRow * ROW_HEIGHT, -0.0, ROW_HEIGHT + 0.5);
+				printData.lineStyle(2, "medium solid");
 				//合計線
-				printData.add("\t\t\\line 75.325 0 134.675 0");
+				printData.line(2, 75.325, 0, 134.675, 0);
 				//締切線
-				printData.add("\t\t\\line 0.125 -0.5 15.675 -0.5");
-				printData.add("\t\t\\line 0.125 -0.0 15.675 -0.0");
-				printData.add("\t\t\\line 75.325 -0.5 134.675 -0.5");
-				printData.add("\t\t\\line 75.325 -0.0 134.675 -0.0");
+				printData.line(2, 0.125, -0.5, 15.675, -0.5);
+				printData.line(2, 0.125, -0.0, 15.675, -0.0);
+				printData.line(2, 75.325, -0.5, 134.675, -0.5);
+				printData.line(2, 75.325, -0.0, 134.675, -0.0);
 				//借方合計
-				printData.add("\t\t\\box " + String.format("75 %.2f 25 %.2f", currentRow * ROW_HEIGHT, ROW_HEIGHT));
-				printData.add("\t\t\\font serif 10");
-				printData.add("\t\t\\align center right");
-				printData.add("\t\t\\text " + String.format("%,d", debtorTotal));
+				printData.box(2, 75, currentRow * ROW_HEIGHT, 25, ROW_HEIGHT);
+				printData.font(2, "serif 10");
+				printData.align(2, "center right");
+				printData.text(2, NumberText.format(debtorTotal));
 				//貸方合計
-				printData.add("\t\t\\box " + String.format("105 %.2f 25 %.2f", currentRow * ROW_HEIGHT, ROW_HEIGHT));
-				printData.add("\t\t\\font serif 10");
-				printData.add("\t\t\\align center right");
-				printData.add("\t\t\\text " + String.format("%,d", creditorTotal));
+				printData.box(2, 105, currentRow * ROW_HEIGHT, 25, ROW_HEIGHT);
+				printData.font(2, "serif 10");
+				printData.align(2, "center right");
+				printData.text(2, NumberText.format(creditorTotal));
 			}
 		}
+		flushPage();
+		this.brewer = null;
 	}
 
-	private void newPage(int pageNumber, String accountTitleDisplayName) {
-		if(pageNumber >= 2) {
-			printData.add("\\new-page");
+	/** 1ページ分の印字データを作成します。
+	 * 
+	 * @return 用紙サイズだけを設定した印字データ
+	 */
+	private PrintData createPrintData() {
+		PrintData printData = new PrintData();
+		if(bindingMarginEnabled) {
+			printData.media("A4");
+		} else {
+			// 綴じ代なしの場合は15mm分だけ横幅を短くして195mmとします。(A4本来の横幅は210mm)
+			// 穴あけパンチ用の中心線も出力しません。
+			printData.media("195 297");
 		}
+		return printData;
+	}
+
+	/** 作成したページの印字データを PdfBrewer で印字して破棄します。
+	 * PdfBrewer の process は呼び出すたびに新しいページから印字します。
+	 * 
+	 * @throws IOException I/Oエラーが発生した場合
+	 */
+	private void flushPage() throws IOException {
+		if(currentPageNumber >= fromPageNumber && currentPageNumber <= toPageNumber) {
+			brewer.process(printData.toBrewerData(brewer.getFontLoader()));
+		}
+		printData = null;
+	}
+
+	private void newPage(int pageNumber, String accountTitleDisplayName) throws IOException {
+		if(pageNumber > firstPageNumber) {
+			flushPage();
+			printData = createPrintData();
+		}
+		currentPageNumber = pageNumber;
+		if(bodyOnly) {
+			//本文は奇数ページの位置に印字します。偶数ページでは結合時に左に移動します。
+			printData.box(0, bindingMarginEnabled ? 25 : 10, 0, -10, -10);
+
+			//テンプレート
+			printData.addTemplate(pageData);
+		} else {
+			printFrame(printData, pageNumber, true);
+		}
+		//勘定科目
+		printData.box(1, 0, 16, -0.0, 9);
+		printData.font(1, "serif 14");
+		printData.align(1, "center");
+		printData.text(1, accountTitleDisplayName);
+
+		//年
+		if(isFromNewYearsDay) {
+			printData.box(1, 0, 25, 14.5, 6);
+			printData.align(1, "center right");
+			printData.font(1, "sans-serif 8");
+			printData.text(1, "年");
+			printData.box(1, 0, 25, 10.5, 6);
+			printData.font(1, "serif 10");
+			printData.align(1, "center right");
+			printData.text(1, String.valueOf(financialYear));
+		} else {
+			printData.box(1, 0, 25, 14.7, 6);
+			printData.align(1, "center right");
+			printData.font(1, "sans-serif 8");
+			printData.text(1, "年度");
+			printData.box(1, 0, 25, 8.6, 6);
+			printData.font(1, "serif 10");
+			printData.align(1, "center right");
+			printData.text(1, String.valueOf(financialYear));
+		}
+
+		//明細印字領域
+		printData.box(1, 0, 37, -0.0, -0.0);
+	}
+
+	/** 穴あけパンチの位置を合わせるための中心線を印字します。先頭ページのみ印字します。
+	 * 
+	 * @param printData 印字データ
+	 */
+	private void printPunchLine(PrintData printData) {
+		if(bindingMarginEnabled) {
+			printData.lineStyle(0, "thin dot");
+			printData.line(0, 0, 148.5, 5, 148.5);
+		}
+	}
+
+	/** 綴じ代の線とページ番号を印字し、明細を印字する領域を設定します。
+	 * 
+	 * @param printData 印字データ
+	 * @param pageNumber ページ番号
+	 * @param withTemplate テンプレートも印字する場合は true
+	 */
+	private void printFrame(PrintData printData, int pageNumber, boolean withTemplate) {
 		if(!bindingMarginEnabled) {
 			//綴じ代なし
-			printData.add("\\box 10 0 -10 -10");
+			printData.box(0, 10, 0, -10, -10);
 
 			//テンプレート
-			printData.addAll(pageData);
+			if(withTemplate) {
+				printData.addTemplate(pageData);
+			}
 
 			if(pageNumberEnabled) {
 				if(pageNumber % 2 == 1) {
 					//ページ番号(奇数ページ)
-					printData.add("\t\\box 0 0 -3 22");
-					printData.add("\t\\font serif 10.5");
-					printData.add("\t\\align bottom right");
-					printData.add("\t\\text " + pageNumber);
+					printData.box(1, 0, 0, -3, 22);
+					printData.font(1, "serif 10.5");
+					printData.align(1, "bottom right");
+					printData.text(1, NumberText.valueOf(pageNumber));
 				} else {
 					//ページ番号(偶数ページ)
-					printData.add("\t\\box 3 0 10 22");
-					printData.add("\t\\font serif 10.5");
-					printData.add("\t\\align bottom left");
-					printData.add("\t\\text " + pageNumber);
+					printData.box(1, 3, 0, 10, 22);
+					printData.font(1, "serif 10.5");
+					printData.align(1, "bottom left");
+					printData.text(1, NumberText.valueOf(pageNumber));
 				}
 			}
 		} else if(pageNumber % 2 == 1) {
 			//綴じ代(奇数ページ)
-			printData.add("\\box 15 0 0 0");
-			printData.add("\\line-style thin dot");
-			printData.add("\\line 0 0 0 -0");
-			printData.add("\\box 25 0 -10 -10");
+			printData.box(0, 15, 0, 0, 0);
+			printData.lineStyle(0, "thin dot");
+			printData.line(0, 0, 0, 0, -0.0);
+			printData.box(0, 25, 0, -10, -10);
 
 			//テンプレート
-			printData.addAll(pageData);
+			if(withTemplate) {
+				printData.addTemplate(pageData);
+			}
 
 			if(pageNumberEnabled) {
 				//ページ番号(奇数ページ)
-				printData.add("\t\\box 0 0 -3 22");
-				printData.add("\t\\font serif 10.5");
-				printData.add("\t\\align bottom right");
-				printData.add("\t\\text " + pageNumber);
+				printData.box(1, 0, 0, -3, 22);
+				printData.font(1, "serif 10.5");
+				printData.align(1, "bottom right");
+				printData.text(1, NumberText.valueOf(pageNumber));
 			}
 		} else {
 			//綴じ代(偶数ページ)
-			printData.add("\\box 0 0 -15 0");
-			printData.add("\\line-style thin dot");
-			printData.add("\\line -0 0 -0 -0");
-			printData.add("\\box 10 0 -25 -10");
+			printData.box(0, 0, 0, -15, 0);
+			printData.lineStyle(0, "thin dot");
+			printData.line(0, -0.0, 0, -0.0, -0.0);
+			printData.box(0, 10, 0, -25, -10);
 
 			//テンプレート
-			printData.addAll(pageData);
+			if(withTemplate) {
+				printData.addTemplate(pageData);
+			}
 
 			if(pageNumberEnabled) {
 				//ページ番号(偶数ページ)
-				printData.add("\t\\box 3 0 10 22");
-				printData.add("\t\\font serif 10.5");
-				printData.add("\t\\align bottom left");
-				printData.add("\t\\text " + pageNumber);
+				printData.box(1, 3, 0, 10, 22);
+				printData.font(1, "serif 10.5");
+				printData.align(1, "bottom left");
+				printData.text(1, NumberText.valueOf(pageNumber));
 			}
 		}
-		//勘定科目
-		printData.add("\t\\box 0 16 -0 9");
-		printData.add("\t\\font serif 14");
-		printData.add("\t\\align center");
-		printData.add("\t\\text " + accountTitleDisplayName);
-
-		//年
-		if(isFromNewYearsDay) {
-			printData.add("\t\\box 0 25 14.5 6");
-			printData.add("\t\\align center right");
-			printData.add("\t\\font sans-serif 8");
-			printData.add("\t\\text 年");
-			printData.add("\t\\box 0 25 10.5 6");
-			printData.add("\t\\font serif 10");
-			printData.add("\t\\align center right");
-			printData.add("\t\\text " + financialYear);
-		} else {
-			printData.add("\t\\box 0 25 14.7 6");
-			printData.add("\t\\align center right");
-			printData.add("\t\\font sans-serif 8");
-			printData.add("\t\\text 年度");
-			printData.add("\t\\box 0 25 8.6 6");
-			printData.add("\t\\font serif 10");
-			printData.add("\t\\align center right");
-			printData.add("\t\\text " + financialYear);
-		}
-
-		//明細印字領域
-		printData.add("\t\\box 0 37 -0 -0");
 	}
 
 	private void carryForwardFromPreviousPage(int currentRow, String sign, long accountTitleTotal) {
 		//前頁繰越
-		printData.add("\t\t\\box " + String.format("16 %.2f 49 %.2f", currentRow * ROW_HEIGHT, ROW_HEIGHT));
-		printData.add("\t\t\\font serif 10");
-		printData.add("\t\t\\align center right");
-		printData.add("\t\t\\text 前頁繰越");
+		printData.box(2, 16, currentRow * ROW_HEIGHT, 49, ROW_HEIGHT);
+		printData.font(2, "serif 10");
+		printData.align(2, "center right");
+		printData.text(2, "前頁繰越");
 		//借または貸
-		printData.add("\t\t\\box " + String.format("135 %.2f 8 %.2f", currentRow * ROW_HEIGHT, ROW_HEIGHT));
-		printData.add("\t\t\\font serif 10");
-		printData.add("\t\t\\align center");
-		printData.add("\t\t\\text " + sign);
+		printData.box(2, 135, currentRow * ROW_HEIGHT, 8, ROW_HEIGHT);
+		printData.font(2, "serif 10");
+		printData.align(2, "center");
+		printData.text(2, sign);
 		//残高
-		printData.add("\t\t\\box " + String.format("143 %.2f 27 %.2f", currentRow * ROW_HEIGHT, ROW_HEIGHT));
-		printData.add("\t\t\\font serif 10");
-		printData.add("\t\t\\align center right");
-		printData.add("\t\t\\text " + String.format("%,d", Math.abs(accountTitleTotal)));
+		printData.box(2, 143, currentRow * ROW_HEIGHT, 27, ROW_HEIGHT);
+		printData.font(2, "serif 10");
+		printData.align(2, "center right");
+		printData.text(2, NumberText.format(Math.abs(accountTitleTotal)));
 	}
 
 	private void carryForwardToNextPage(int row, String sign, long accountTitleTotal) {
-		printData.add("\t\t\\box " + String.format("16 %.2f 49 %.2f", row * ROW_HEIGHT, ROW_HEIGHT));
-		printData.add("\t\t\\font serif 10");
-		printData.add("\t\t\\align center right");
-		printData.add("\t\t\\text 次頁繰越");
+		printData.box(2, 16, row * ROW_HEIGHT, 49, ROW_HEIGHT);
+		printData.font(2, "serif 10");
+		printData.align(2, "center right");
+		printData.text(2, "次頁繰越");
 		//仮または貸
-		printData.add("\t\t\\box " + String.format("135 %.2f 8 %.2f", row * ROW_HEIGHT, ROW_HEIGHT));
-		printData.add("\t\t\\font serif 10");
-		printData.add("\t\t\\align center");
-		printData.add("\t\t\\text " + sign);
+		printData.box(2, 135, row * ROW_HEIGHT, 8, ROW_HEIGHT);
+		printData.font(2, "serif 10");
+		printData.align(2, "center");
+		printData.text(2, sign);
 		//残高
-		printData.add("\t\t\\box " + String.format("143 %.2f 27 %.2f", row * ROW_HEIGHT, ROW_HEIGHT));
-		printData.add("\t\t\\font serif 10");
-		printData.add("\t\t\\align center right");
-		printData.add("\t\t\\text " + String.format("%,d", Math.abs(accountTitleTotal)));
+		printData.box(2, 143, row * ROW_HEIGHT, 27, ROW_HEIGHT);
+		printData.font(2, "serif 10");
+		printData.align(2, "center right");
+		printData.text(2, NumberText.format(Math.abs(accountTitleTotal)));
+	}
+
+	/** 指定した勘定科目を日計で印字できるかどうかを返します。
+	 * 元入金と決算勘定は相手勘定科目を個別に印字するため、日計で印字できません。
+	 * 
+	 * @param accountTitle 勘定科目
+	 * @return 日計で印字できる場合は true
+	 */
+	public static boolean isDailyTotalAvailable(AccountTitle accountTitle) {
+		return !accountTitle.getDisplayName().equals("元入金") && !accountTitle.isClosing();
 	}
 
 	/** 指定した仕訳と勘定科目から勘定リストを取得します。
@@ -589,7 +661,7 @@ public class GeneralLedger {
 	 * @param accountTitle 勘定科目
 	 * @return 勘定リスト
 	 */
-	public List<Account> getAccountsByAccountTitle(JournalEntry entry, AccountTitle accountTitle) {
+	public static List<Account> getAccountsByAccountTitle(JournalEntry entry, AccountTitle accountTitle) {
 		List<Account> accounts = new ArrayList<>();
 		for(int k = 0; k < entry.getDebtors().size(); k++) {
 			Debtor debtor = entry.getDebtors().get(k);
@@ -655,7 +727,7 @@ public class GeneralLedger {
 	 * @param account 勘定
 	 * @return 相手勘定リスト
 	 */
-	public List<Account> getCounterpartAccounts(JournalEntry entry, Account account) {
+	public static List<Account> getCounterpartAccounts(JournalEntry entry, Account account) {
 		List<Account> counterpartAccounts = new ArrayList<>(); //相手勘定科目
 
 		// 相手勘定が1件で決算勘定の場合は必ず相手勘定科目を出力します。
@@ -727,6 +799,128 @@ public class GeneralLedger {
 		return counterpartAccounts;
 	}
 
+	/** 摘要欄に印字する相手勘定科目を返します。
+	 * 
+	 * @param entry 仕訳
+	 * @param account 勘定
+	 * @param counterpartAccount 相手勘定
+	 * @return 摘要欄に印字する相手勘定科目（法人の開始仕訳の場合は仕訳摘要）
+	 */
+	private String getSummary(JournalEntry entry, Account account, Account counterpartAccount) {
+		if(isSoloProprietorship && entry.isOpening(isSoloProprietorship, openingDate) && !account.getAccountTitle().getDisplayName().equals("元入金")) {
+			//個人事業主かつ開始仕訳、さらに表題の勘定科目が元入金ではない場合、
+			//つまり、表題が元入金の相手勘定科目の場合、摘要の相手勘定科目を「元入金」とします。
+			return "元入金";
+		} else if(!isSoloProprietorship && entry.isOpening(isSoloProprietorship, openingDate)) {
+			//法人かつ開始仕訳の場合、摘要のみを印字します。
+			return entry.getDescription();
+		} else {
+			return counterpartAccount.getAccountTitle().getDisplayName();
+		}
+	}
+
+	/** 摘要欄に相手勘定科目と並べて印字する仕訳摘要を返します。
+	 * 締切仕訳や、仕訳摘要が勘定科目と同じ場合は印字しません。
+	 * 
+	 * @param entry 仕訳
+	 * @param account 勘定
+	 * @param counterpartAccount 相手勘定
+	 * @return 仕訳摘要。印字しない場合は null
+	 */
+	private String getSummaryDescription(JournalEntry entry, Account account, Account counterpartAccount) {
+		if(entry.isClosing() || entry.getDescription().isBlank()) {
+			return null;
+		}
+		if(isSoloProprietorship && entry.isOpening(isSoloProprietorship, openingDate) && !account.getAccountTitle().getDisplayName().equals("元入金")) {
+			return entry.getDescription().equals("元入金") ? null : entry.getDescription();
+		} else if(!isSoloProprietorship && entry.isOpening(isSoloProprietorship, openingDate)) {
+			return null;
+		} else {
+			if(entry.getDescription().equals(account.getAccountTitle().getDisplayName())
+					|| entry.getDescription().equals(counterpartAccount.getAccountTitle().getDisplayName())) {
+				return null;
+			}
+			return entry.getDescription();
+		}
+	}
+
+	/** 相手勘定の金額を借方欄に印字するかどうかを返します。
+	 * 元入金の場合のみ相手勘定科目を基準にするため、相手勘定科目が貸方の場合に借方欄に印字します。（逆になることに注意！）
+	 * 
+	 * @param account 勘定
+	 * @param counterpartAccount 相手勘定
+	 * @return 借方欄に印字する場合は true、貸方欄に印字する場合は false
+	 */
+	private static boolean isDebtorAmount(Account account, Account counterpartAccount) {
+		if(account.getAccountTitle().getDisplayName().equals("元入金")) {
+			return counterpartAccount instanceof Creditor;
+		}
+		return account instanceof Debtor;
+	}
+
+	/** 借方欄または貸方欄に印字した金額による残高の増減を返します。
+	 * 資産、費用は借方で増加、負債、資本（純資産）、収益は貸方で増加します。
+	 * 
+	 * @param account 勘定
+	 * @param isDebtor 借方欄に印字した場合は true
+	 * @param amount 金額
+	 * @return 残高の増減
+	 */
+	private static long getBalanceChange(Account account, boolean isDebtor, long amount) {
+		Class<? extends Account> normalBalance = account.getAccountTitle().getType().getNormalBalance();
+		return (normalBalance == (isDebtor ? Debtor.class : Creditor.class)) ? amount : -amount;
+	}
+
+	/** 残高の「借」または「貸」を返します。
+	 * 
+	 * @param accountTitle 勘定科目
+	 * @param accountTitleTotal 通常のバランスを正とする残高
+	 * @return 「借」または「貸」
+	 */
+	private static String getBalanceSign(AccountTitle accountTitle, long accountTitleTotal) {
+		if(accountTitle.getType().getNormalBalance() == Debtor.class) {
+			return (accountTitleTotal >= 0) ? "借" : "貸";
+		} else {
+			return (accountTitleTotal >= 0) ? "貸" : "借";
+		}
+	}
+
+	/** 総勘定元帳の明細行を印字する順番で処理します。
+	 * 印字データを作成しないため、フォントを読み込まずに PDFの作成よりもはるかに短い時間で処理できます。
+	 * 明細行の内容（摘要、仕丁、借方・貸方、残高）は総勘定元帳に印字される内容と同じです。
+	 * 前頁繰越・次頁繰越、月計、締切行は含まれません。
+	 * 
+	 * @param handler 明細行を処理するハンドラー
+	 * @throws IOException ハンドラーでI/Oエラーが発生した場合
+	 */
+	public void forEachRow(RowHandler handler) throws IOException {
+		for(AccountTitle accountTitle : accountTitles) {
+			long accountTitleTotal = 0;
+			for(JournalEntry entry : getJournalEntriesByAccount(accountTitle)) {
+				List<Account> accounts = getAccountsByAccountTitle(entry, accountTitle);
+				if(accountTitle.getDisplayName().equals("元入金") && accounts.size() >= 2) {
+					accounts = accounts.subList(0, 1);
+				}
+				for(Account account : accounts) {
+					for(Account counterpartAccount : getCounterpartAccounts(entry, account)) {
+						boolean isDebtor = isDebtorAmount(account, counterpartAccount);
+						accountTitleTotal += getBalanceChange(account, isDebtor, counterpartAccount.getAmount());
+						handler.handle(new Row(
+								accountTitle,
+								entry,
+								getSummary(entry, account, counterpartAccount),
+								getSummaryDescription(entry, account, counterpartAccount),
+								pagination.getJournalPageNumber(entry),
+								isDebtor ? counterpartAccount.getAmount() : 0,
+								isDebtor ? 0 : counterpartAccount.getAmount(),
+								getBalanceSign(accountTitle, accountTitleTotal),
+								Math.abs(accountTitleTotal)));
+					}
+				}
+			}
+		}
+	}
+
 	public void setFontLoader(FontLoader fontLoader) {
 		this.fontLoader = fontLoader;
 	}
@@ -739,46 +933,367 @@ public class GeneralLedger {
 		this.pageNumberEnabled = enabled;
 	}
 
-	public void writeTo(Path path) throws IOException {
-		prepare();
+	/** PDFを作成するときのメモリの使用方法を設定します。
+	 * 一時ファイルを使用するように設定すると、印字したページは一時ファイルに書き出されるため、
+	 * ページ数が多い場合でもメモリ使用量が一定になります。
+	 * 
+	 * @param memUsageSetting メモリの使用方法。null の場合はメインメモリのみを使用します。
+	 */
+	public void setMemoryUsageSetting(MemoryUsageSetting memUsageSetting) {
+		this.memUsageSetting = memUsageSetting;
+	}
 
-		PdfBrewer brewer;
-		if(fontLoader != null) {
-			brewer = new PdfBrewer(fontLoader);
-		} else {
-			brewer = new PdfBrewer();
+	/** 勘定科目ごとの本文を再利用するための出力キャッシュを設定します。
+	 * 出力キャッシュを設定すると、勘定科目ごとに本文のフィンガープリントを求め、前回と同じ本文はキャッシュに保存したページを再利用します。
+	 * 
+	 * @param outputCache 出力キャッシュ。null の場合はすべての勘定科目を印字します。
+	 */
+	public void setOutputCache(OutputCache outputCache) {
+		this.outputCache = outputCache;
+	}
+
+	public void writeTo(Path path) throws IOException {
+		//ページ番号（元丁・仕丁）は Pagination で確定しているため、ここでは仕訳データを読み取るだけです。
+		//そのため、同じ仕訳データを使用する仕訳帳と並行して作成することができます。
+		List<SharedFontPdfBrewer> brewers = new ArrayList<>();
+		try {
+			render(brewers).save(path);
+		} finally {
+			for(PdfBrewer brewer : brewers) {
+				brewer.close();
+			}
 		}
-		brewer.setCreator(Util.getPdfCreator());
-		BrewerData pb = new BrewerData(printData, brewer.getFontLoader());
-		brewer.setTitle("総勘定元帳");
-		brewer.process(pb);
-		brewer.save(path);
-		brewer.close();
 	}
 
 	public void writeTo(OutputStream out) throws IOException {
-		prepare();
+		List<SharedFontPdfBrewer> brewers = new ArrayList<>();
+		try {
+			render(brewers).save(out);
+		} finally {
+			for(PdfBrewer brewer : brewers) {
+				brewer.close();
+			}
+		}
+	}
+
+	/** 指定した勘定科目のページだけを印字した総勘定元帳を出力します。
+	 * ページ番号、仕丁、前頁繰越・次頁繰越は総勘定元帳全体を出力した場合と同じになります。
+	 * 
+	 * @param path 出力先のファイル
+	 * @param accountTitle 勘定科目
+	 * @throws IOException I/Oエラーが発生した場合
+	 */
+	public void writeTo(Path path, AccountTitle accountTitle) throws IOException {
+		writeTo(path, pagination.getLedgerFirstPageNumber(accountTitle), pagination.getLedgerLastPageNumber(accountTitle));
+	}
+
+	/** 指定した勘定科目のページだけを印字した総勘定元帳を出力します。
+	 * ページ番号、仕丁、前頁繰越・次頁繰越は総勘定元帳全体を出力した場合と同じになります。
+	 * 
+	 * @param out 出力先のストリーム
+	 * @param accountTitle 勘定科目
+	 * @throws IOException I/Oエラーが発生した場合
+	 */
+	public void writeTo(OutputStream out, AccountTitle accountTitle) throws IOException {
+		writeTo(out, pagination.getLedgerFirstPageNumber(accountTitle), pagination.getLedgerLastPageNumber(accountTitle));
+	}
+
+	/** 指定したページ範囲だけを印字した総勘定元帳を出力します。
+	 * ページ割り付けを使用して範囲に含まれる勘定科目だけを印字するため、処理時間は総勘定元帳全体ではなく範囲に含まれる勘定科目のページ数に比例します。
+	 * ページ番号、仕丁、前頁繰越・次頁繰越は総勘定元帳全体を出力した場合と同じになります。
+	 * 
+	 * @param path 出力先のファイル
+	 * @param fromPageNumber 開始ページ番号
+	 * @param toPageNumber 終了ページ番号（このページを含みます）
+	 * @throws IOException I/Oエラーが発生した場合
+	 */
+	public void writeTo(Path path, int fromPageNumber, int toPageNumber) throws IOException {
+		PdfBrewer brewer = render(fromPageNumber, toPageNumber);
+		try {
+			brewer.save(path);
+		} finally {
+			brewer.close();
+		}
+	}
+
+	/** 指定したページ範囲だけを印字した総勘定元帳を出力します。
+	 * ページ割り付けを使用して範囲に含まれる勘定科目だけを印字するため、処理時間は総勘定元帳全体ではなく範囲に含まれる勘定科目のページ数に比例します。
+	 * ページ番号、仕丁、前頁繰越・次頁繰越は総勘定元帳全体を出力した場合と同じになります。
+	 * 
+	 * @param out 出力先のストリーム
+	 * @param fromPageNumber 開始ページ番号
+	 * @param toPageNumber 終了ページ番号（このページを含みます）
+	 * @throws IOException I/Oエラーが発生した場合
+	 */
+	public void writeTo(OutputStream out, int fromPageNumber, int toPageNumber) throws IOException {
+		PdfBrewer brewer = render(fromPageNumber, toPageNumber);
+		try {
+			brewer.save(out);
+		} finally {
+			brewer.close();
+		}
+	}
+
+	/** 印字する勘定科目と、その勘定科目の開始ページ番号を総勘定元帳の順番で返します。
+	 * 仕訳がなく印字しない勘定科目は含まれません。
+	 * 
+	 * @return 勘定科目 → 開始ページ番号
+	 */
+	Map<AccountTitle, Integer> getFirstPageNumbers() {
+		Map<AccountTitle, Integer> firstPageNumbers = new LinkedHashMap<>();
+		for(AccountTitle accountTitle : accountTitles) {
+			int first = pagination.getLedgerFirstPageNumber(accountTitle);
+			if(first > 0) {
+				firstPageNumbers.put(accountTitle, first);
+			}
+		}
+		return firstPageNumbers;
+	}
+
+	/** 指定したページ範囲を印字します。
+	 * 範囲に含まれるページがある勘定科目だけを、範囲の先頭を含む勘定科目の開始ページから印字します。
+	 * 
+	 * @param fromPageNumber 開始ページ番号
+	 * @param toPageNumber 終了ページ番号（このページを含みます）
+	 * @return 指定したページ範囲を印字した PdfBrewer（呼び出し元で閉じます）
+	 * @throws IOException I/Oエラーが発生した場合
+	 */
+	private PdfBrewer render(int fromPageNumber, int toPageNumber) throws IOException {
+		if(fromPageNumber < 1 || fromPageNumber > toPageNumber || toPageNumber > pagination.getLedgerPageCount()) {
+			throw new IllegalArgumentException("ページ範囲が正しくありません: " + fromPageNumber + "-" + toPageNumber
+					+ " (総ページ数 " + pagination.getLedgerPageCount() + ")");
+		}
+
+		Set<AccountTitle> rangeAccountTitles = new LinkedHashSet<>();
+		int rangeFirstPageNumber = 0;
+		for(AccountTitle accountTitle : accountTitles) {
+			int first = pagination.getLedgerFirstPageNumber(accountTitle);
+			int last = pagination.getLedgerLastPageNumber(accountTitle);
+			if(first > 0 && first <= toPageNumber && last >= fromPageNumber) {
+				if(rangeAccountTitles.isEmpty()) {
+					rangeFirstPageNumber = first;
+				}
+				rangeAccountTitles.add(accountTitle);
+			}
+		}
+		GeneralLedger range = new GeneralLedger(this, rangeAccountTitles, rangeFirstPageNumber);
+		range.fromPageNumber = fromPageNumber;
+		range.toPageNumber = toPageNumber;
+
+		SharedFontPdfBrewer brewer = new SharedFontPdfBrewer(fontLoader, memUsageSetting);
+		try {
+			brewer.setCreator(Util.getPdfCreator());
+			brewer.setTitle("総勘定元帳");
+			range.prepare(brewer);
+		} catch(IOException | RuntimeException | Error e) {
+			brewer.close();
+			throw e;
+		}
+		return brewer;
+	}
+
+	/** 総勘定元帳を印字します。
+	 * ページ数が多い場合は勘定科目を連続したページ範囲ごとに分割し、フォーク/ジョイン・プールで並行して印字してから
+	 * 先頭の PdfBrewer にページ順に結合します。
+	 * 結合したページは元の PdfBrewer のドキュメントを参照するため、作成したすべての PdfBrewer を保存後に閉じる必要があります。
+	 * 
+	 * @param brewers 作成した PdfBrewer を追加するリスト（呼び出し元で閉じます）
+	 * @return すべてのページを印字した PdfBrewer
+	 * @throws IOException I/Oエラーが発生した場合
+	 */
+	private PdfBrewer render(List<SharedFontPdfBrewer> brewers) throws IOException {
+		if(outputCache != null) {
+			return renderSections(brewers);
+		}
+
+		List<GeneralLedger> shards = split(ForkJoinPool.getCommonPoolParallelism());
+		List<Callable<Void>> tasks = new ArrayList<>();
+		for(GeneralLedger shard : shards) {
+			SharedFontPdfBrewer brewer = new SharedFontPdfBrewer(fontLoader, memUsageSetting);
+			brewers.add(brewer);
+			tasks.add(() -> {
+				shard.prepare(brewer);
+				return null;
+			});
+		}
 
-		PdfBrewer brewer;
-		if(fontLoader != null) {
-			brewer = new PdfBrewer(fontLoader);
+		SharedFontPdfBrewer brewer = brewers.get(0);
+		brewer.setCreator(Util.getPdfCreator());
+		brewer.setTitle("総勘定元帳");
+
+		if(shards.size() == 1) {
+			shards.get(0).prepare(brewer);
 		} else {
-			brewer = new PdfBrewer();
+			for(Future<Void> future : ForkJoinPool.commonPool().invokeAll(tasks)) {
+				Util.get(future);
+			}
+			for(int i = 1; i < brewers.size(); i++) {
+				brewer.appendPages(brewers.get(i));
+			}
+		}
+		return brewer;
+	}
+
+	/** 出力キャッシュを使用して総勘定元帳を印字します。
+	 * 勘定科目ごとの本文のうち、出力キャッシュにないものだけをフォーク/ジョイン・プールで並行して印字して保存します。
+	 * その後、ページごとに綴じ代の線とページ番号を印字し、保存した本文をフォームXObjectとして重ねます。
+	 * 偶数ページでは綴じ代の位置が変わるため、本文を左に 15mm 移動します。
+	 * 
+	 * @param brewers 作成した PdfBrewer を追加するリスト（呼び出し元で閉じます）
+	 * @return すべてのページを印字した PdfBrewer
+	 * @throws IOException I/Oエラーが発生した場合
+	 */
+	private PdfBrewer renderSections(List<SharedFontPdfBrewer> brewers) throws IOException {
+		Map<AccountTitle, Path> sections = new LinkedHashMap<>();
+		List<Callable<Void>> tasks = new ArrayList<>();
+		for(AccountTitle accountTitle : accountTitles) {
+			if(pagination.getLedgerFirstPageNumber(accountTitle) == 0) {
+				continue;
+			}
+			Path file = outputCache.getLedgerSectionPath(getSectionFingerprint(accountTitle));
+			sections.put(accountTitle, file);
+			if(!Files.isRegularFile(file)) {
+				tasks.add(() -> {
+					writeSection(accountTitle, file);
+					return null;
+				});
+			}
 		}
+		for(Future<Void> future : ForkJoinPool.commonPool().invokeAll(tasks)) {
+			Util.get(future);
+		}
+
+		SharedFontPdfBrewer brewer = new SharedFontPdfBrewer(fontLoader, memUsageSetting);
+		brewers.add(brewer);
 		brewer.setCreator(Util.getPdfCreator());
-		BrewerData pb = new BrewerData(printData, brewer.getFontLoader());
 		brewer.setTitle("総勘定元帳");
-		brewer.process(pb);
-		brewer.save(out);
-		brewer.close();
+
+		int pageNumber = 0;
+		for(Map.Entry<AccountTitle, Path> section : sections.entrySet()) {
+			PDDocument document = brewer.load(section.getValue());
+			for(int i = 0; i < document.getNumberOfPages(); i++) {
+				PrintData printData = createPrintData();
+				if(++pageNumber == 1) {
+					printPunchLine(printData);
+				}
+				printFrame(printData, pageNumber, false);
+				brewer.process(printData.toBrewerData(brewer.getFontLoader()));
+				brewer.drawPage(document, i, (bindingMarginEnabled && pageNumber % 2 == 0) ? -15.0 : 0.0);
+			}
+		}
+
+		List<String> fingerprints = new ArrayList<>();
+		for(Path file : sections.values()) {
+			String filename = file.getFileName().toString();
+			fingerprints.add(filename.substring(0, filename.length() - ".pdf".length()));
+		}
+		outputCache.retainLedgerSections(fingerprints);
+		return brewer;
+	}
+
+	/** 指定した勘定科目の本文を印字して、出力キャッシュのファイルに保存します。
+	 * 
+	 * @param accountTitle 勘定科目
+	 * @param file 保存先のファイル
+	 * @throws IOException I/Oエラーが発生した場合
+	 */
+	private void writeSection(AccountTitle accountTitle, Path file) throws IOException {
+		GeneralLedger section = new GeneralLedger(this, new LinkedHashSet<>(Collections.singleton(accountTitle)), 1);
+		section.bodyOnly = true;
+		Path tmpFile = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+		try {
+			SharedFontPdfBrewer brewer = new SharedFontPdfBrewer(fontLoader, memUsageSetting);
+			try {
+				section.prepare(brewer);
+				brewer.save(tmpFile);
+			} finally {
+				brewer.close();
+			}
+			Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING);
+		} finally {
+			Files.deleteIfExists(tmpFile);
+		}
+	}
+
+	/** 指定した勘定科目の本文のフィンガープリントを求めます。
+	 * 本文に印字する仕訳と仕丁、本文の印字に影響するオプションが同じであれば同じ値になります。
+	 * ページ番号は本文に含まれないため、開始ページ番号はフィンガープリントに含めません。
+	 * 
+	 * @param accountTitle 勘定科目
+	 * @return フィンガープリントの値
+	 * @throws IOException I/Oエラーが発生した場合
+	 */
+	private String getSectionFingerprint(AccountTitle accountTitle) throws IOException {
+		Fingerprint fingerprint = new Fingerprint("総勘定元帳")
+				.add(Util.getPdfCreator())
+				.add(getFontName("serif"))
+				.add(getFontName("sans-serif"))
+				.add(isSoloProprietorship)
+				.add(showMonthlyTotal)
+				.add(bindingMarginEnabled)
+				.add(String.valueOf(openingDate))
+				.add(financialYear)
+				.add(isFromNewYearsDay)
+				.add(accountTitle.getDisplayName())
+				.add(String.valueOf(accountTitle.getType()));
+		for(JournalEntry entry : getJournalEntriesByAccount(accountTitle)) {
+			fingerprint.add(entry.getYaml());
+			fingerprint.add(pagination.getJournalPageNumber(entry));
+		}
+		return fingerprint.getValue();
+	}
+
+	private String getFontName(String name) throws IOException {
+		if(fontLoader == null || fontLoader.getFont(name) == null) {
+			return null;
+		}
+		return fontLoader.getFont(name).getName();
+	}
+
+	/** 総勘定元帳を並行して印字するために、勘定科目を連続したページ範囲ごとに分割します。
+	 * 勘定科目は必ず新しいページから始まるため、開始ページ番号が決まっていれば他の勘定科目と独立して印字できます。
+	 * 分割した総勘定元帳ごとに埋め込みフォントが作成されるため、勘定科目ごとではなく並列度に応じたページ数で分割します。
+	 * ページ数が少ない場合は分割しません。
+	 * 
+	 * @param parallelism 並列度
+	 * @return 分割した総勘定元帳のリスト（ページ順）
+	 */
+	private List<GeneralLedger> split(int parallelism) {
+		List<GeneralLedger> shards = new ArrayList<>();
+		int pageCount = pagination.getLedgerPageCount();
+		if(parallelism <= 1 || pageCount < PARALLEL_THRESHOLD_PAGES) {
+			shards.add(this);
+			return shards;
+		}
+
+		int pagesPerShard = (pageCount + parallelism - 1) / parallelism;
+		Set<AccountTitle> shardAccountTitles = new LinkedHashSet<>();
+		int shardFirstPageNumber = 1;
+		for(AccountTitle accountTitle : accountTitles) {
+			int pageNumber = pagination.getLedgerFirstPageNumber(accountTitle);
+			if(pageNumber > 0 && pageNumber - shardFirstPageNumber >= pagesPerShard) {
+				shards.add(new GeneralLedger(this, shardAccountTitles, shardFirstPageNumber));
+				shardAccountTitles = new LinkedHashSet<>();
+				shardFirstPageNumber = pageNumber;
+			}
+			shardAccountTitles.add(accountTitle);
+		}
+		shards.add(new GeneralLedger(this, shardAccountTitles, shardFirstPageNumber));
+		return shards;
 	}
 
 	/** 指定した勘定科目を含む仕訳データを取得します。
 	 * 
 	 * @param accountTitle 勘定科目
-	 * @return 指定した勘定科目を含む仕訳データのリスト
+	 * @return 指定した勘定科目を含む仕訳データのリスト（日計で印字する勘定科目の場合は日計の仕訳のリスト）
 	 */
 	protected List<JournalEntry> getJournalEntriesByAccount(AccountTitle accountTitle) {
+		//日計で印字する勘定科目は、ページ割り付けで日付と借方・貸方ごとにまとめた仕訳を使用します。
+		List<JournalEntry> dailyTotalEntries = pagination.getDailyTotalEntries(accountTitle);
+		if(dailyTotalEntries != null) {
+			return dailyTotalEntries;
+		}
+
 		List<JournalEntry> entriesByAccount = new ArrayList<JournalEntry>();
 		if(accountTitle != null) {
 			NEXT_JOURNAL_ENTRY:
@@ -799,4 +1314,114 @@ public class GeneralLedger {
 		}
 		return entriesByAccount;
 	}
+
+	/** 総勘定元帳の明細行を処理するハンドラー
+	 * 
+	 */
+	public interface RowHandler {
+
+		/** 総勘定元帳の明細行を処理します。
+		 * 
+		 * @param row 明細行
+		 * @throws IOException I/Oエラーが発生した場合
+		 */
+		void handle(Row row) throws IOException;
+	}
+
+	/** 総勘定元帳の明細行
+	 * 
+	 */
+	public static class Row {
+
+		private AccountTitle accountTitle;
+		private JournalEntry journalEntry;
+		private String summary;
+		private String description;
+		private int journalPageNumber;
+		private long debtorAmount;
+		private long creditorAmount;
+		private String balanceSign;
+		private long balance;
+
+		private Row(AccountTitle accountTitle, JournalEntry journalEntry, String summary, String description,
+				int journalPageNumber, long debtorAmount, long creditorAmount, String balanceSign, long balance) {
+			this.accountTitle = accountTitle;
+			this.journalEntry = journalEntry;
+			this.summary = summary;
+			this.description = description;
+			this.journalPageNumber = journalPageNumber;
+			this.debtorAmount = debtorAmount;
+			this.creditorAmount = creditorAmount;
+			this.balanceSign = balanceSign;
+			this.balance = balance;
+		}
+
+		/** 表題の勘定科目を返します。
+		 * 
+		 * @return 勘定科目
+		 */
+		public AccountTitle getAccountTitle() {
+			return accountTitle;
+		}
+
+		/** 明細行の仕訳を返します。
+		 * 
+		 * @return 仕訳
+		 */
+		public JournalEntry getJournalEntry() {
+			return journalEntry;
+		}
+
+		public LocalDate getDate() {
+			return journalEntry.getDate();
+		}
+
+		/** 摘要欄の相手勘定科目を返します。
+		 * 
+		 * @return 相手勘定科目（複数の場合は「諸口」、法人の開始仕訳の場合は仕訳摘要）
+		 */
+		public String getSummary() {
+			return summary;
+		}
+
+		/** 摘要欄に相手勘定科目と並べて印字する仕訳摘要を返します。
+		 * 
+		 * @return 仕訳摘要。印字しない場合は null
+		 */
+		public String getDescription() {
+			return description;
+		}
+
+		/** 仕丁（仕訳帳のページ番号）を返します。
+		 * 
+		 * @return 仕丁。仕訳帳に印字されない仕訳の場合は 0
+		 */
+		public int getJournalPageNumber() {
+			return journalPageNumber;
+		}
+
+		public long getDebtorAmount() {
+			return debtorAmount;
+		}
+
+		public long getCreditorAmount() {
+			return creditorAmount;
+		}
+
+		/** 残高の「借」または「貸」を返します。
+		 * 
+		 * @return 「借」または「貸」
+		 */
+		public String getBalanceSign() {
+			return balanceSign;
+		}
+
+		/** 残高（絶対値）を返します。
+		 * 
+		 * @return 残高
+		 */
+		public long getBalance() {
+			return balance;
+		}
+	}
 }
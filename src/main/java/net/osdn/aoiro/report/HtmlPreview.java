@@ -0,0 +1,432 @@
+package net.osdn.aoiro.report;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map.Entry;
+
+import net.osdn.aoiro.model.AccountTitle;
+import net.osdn.aoiro.model.Amount;
+import net.osdn.aoiro.model.Creditor;
+import net.osdn.aoiro.model.Debtor;
+import net.osdn.aoiro.model.JournalEntry;
+import net.osdn.aoiro.model.Node;
+import net.osdn.aoiro.report.layout.BalanceSheetLayout;
+import net.osdn.aoiro.report.layout.ProfitAndLossLayout;
+
+/** 帳簿・決算書のHTMLプレビュー
+ * 仕訳帳、総勘定元帳、損益計算書、貸借対照表を確認用のHTMLとして出力します。
+ * PDFと同じページ割り付け（元丁・仕丁）と計算済みのデータを使用しますが、フォントを埋め込まずにブラウザーのフォントで表示します。
+ * 行は 1行ずつファイルに書き出すため、仕訳が多い場合でもメモリに保持するのは 1行分だけです。
+ *
+ * 1ファイルの最大行数を設定すると、仕訳帳と総勘定元帳は最大行数ごとに複数のファイルに分けて出力します。
+ * 2つ目以降のファイル名は「総勘定元帳_2.html」のように連番を付けたものになり、各ファイルには前後のファイルへのリンクが含まれます。
+ * 仕訳帳は仕訳の途中で、総勘定元帳は明細行の途中でファイルが分かれることはありません。
+ *
+ * 総勘定元帳のプレビューには前頁繰越・次頁繰越、月計、締切行は含まれません。
+ *
+ */
+public class HtmlPreview {
+
+	private static final String STYLE = "body { font-family: system-ui, sans-serif; font-size: 14px; margin: 1em 2em; }\n"
+			+ "table { border-collapse: collapse; margin-bottom: 2em; }\n"
+			+ "th, td { border: 1px solid #aaa; padding: 2px 6px; }\n"
+			+ "th { background: #eef; font-weight: normal; }\n"
+			+ "td.n { text-align: right; font-variant-numeric: tabular-nums; }\n"
+			+ "td.c { text-align: center; }\n"
+			+ "tr.s td { font-weight: bold; }\n"
+			+ "tbody.e { border-top: 2px solid #666; }\n"
+			+ "nav { margin: 1em 0; }\n";
+
+	private int maxRowsPerFile;
+
+	/** 仕訳帳と総勘定元帳の 1ファイルの最大行数を設定します。
+	 *
+	 * @param maxRowsPerFile 1ファイルの最大行数。0 の場合は 1つのファイルに出力します。
+	 */
+	public void setMaxRowsPerFile(int maxRowsPerFile) {
+		this.maxRowsPerFile = maxRowsPerFile;
+	}
+
+	/** 仕訳帳のプレビューを出力します。
+	 * 頁は仕訳を印字する仕訳帳のページ番号、元丁は勘定科目を印字する総勘定元帳のページ番号です。
+	 *
+	 * @param generalJournal 仕訳帳
+	 * @param path 出力先のファイル（複数のファイルに分ける場合は先頭のファイル）
+	 * @throws IOException I/Oエラーが発生した場合
+	 */
+	public void writeGeneralJournal(GeneralJournal generalJournal, Path path) throws IOException {
+		Pagination pagination = generalJournal.getPagination();
+		String title = "仕訳帳";
+		String caption = generalJournal.financialYear + (generalJournal.isFromNewYearsDay ? "年" : "年度");
+		String header = "<tr><th>頁</th><th>月</th><th>日</th><th>借方</th><th>元丁</th><th>借方金額</th>"
+				+ "<th>貸方</th><th>元丁</th><th>貸方金額</th><th>摘要</th></tr>";
+
+		try(PagedHtml html = new PagedHtml(path, title)) {
+			html.beginTable(caption, header);
+			for(JournalEntry entry : generalJournal.getJournalEntries()) {
+				List<Debtor> debtors = entry.getDebtors();
+				List<Creditor> creditors = entry.getCreditors();
+				int lines = Math.max(1, Math.max(debtors.size(), creditors.size()));
+				if(html.isFull(lines)) {
+					html.nextFile();
+					html.beginTable(caption, header);
+				}
+				Writer w = html.getWriter();
+				w.write("<tbody class=\"e\">");
+				for(int i = 0; i < lines; i++) {
+					w.write("<tr>");
+					if(i == 0) {
+						writeCell(w, "c", lines, String.valueOf(pagination.getJournalPageNumber(entry)));
+						writeCell(w, "n", lines, String.valueOf(entry.getDate().getMonthValue()));
+						writeCell(w, "n", lines, String.valueOf(entry.getDate().getDayOfMonth()));
+					}
+					if(i < debtors.size()) {
+						Debtor debtor = debtors.get(i);
+						writeCell(w, null, 1, debtor.getAccountTitle().getDisplayName());
+						writeCell(w, "c", 1, formatPageNumber(pagination.getLedgerPageNumber(debtor)));
+						writeCell(w, "n", 1, NumberText.format(debtor.getAmount()));
+					} else {
+						w.write("<td></td><td></td><td></td>");
+					}
+					if(i < creditors.size()) {
+						Creditor creditor = creditors.get(i);
+						writeCell(w, null, 1, creditor.getAccountTitle().getDisplayName());
+						writeCell(w, "c", 1, formatPageNumber(pagination.getLedgerPageNumber(creditor)));
+						writeCell(w, "n", 1, NumberText.format(creditor.getAmount()));
+					} else {
+						w.write("<td></td><td></td><td></td>");
+					}
+					if(i == 0) {
+						writeCell(w, null, lines, entry.getDescription());
+					}
+					w.write("</tr>\n");
+				}
+				w.write("</tbody>\n");
+				html.addRows(lines);
+			}
+			html.endTable();
+		}
+	}
+
+	/** 総勘定元帳のプレビューを出力します。
+	 * 明細行の内容は総勘定元帳に印字される内容と同じです。（GeneralLedger#forEachRow を参照）
+	 * 勘定科目ごとに見出しを付け、見出しには総勘定元帳のページ範囲を表示します。
+	 *
+	 * @param generalLedger 総勘定元帳
+	 * @param path 出力先のファイル（複数のファイルに分ける場合は先頭のファイル）
+	 * @throws IOException I/Oエラーが発生した場合
+	 */
+	public void writeGeneralLedger(GeneralLedger generalLedger, Path path) throws IOException {
+		Pagination pagination = generalLedger.getPagination();
+		String header = "<tr><th>月</th><th>日</th><th>摘要</th><th>仕丁</th><th>借方</th><th>貸方</th><th>借貸</th><th>残高</th></tr>";
+
+		try(PagedHtml html = new PagedHtml(path, "総勘定元帳")) {
+			AccountTitle[] current = new AccountTitle[1];
+			generalLedger.forEachRow(row -> {
+				AccountTitle accountTitle = row.getAccountTitle();
+				boolean isNewAccountTitle = !accountTitle.equals(current[0]);
+				if(html.isFull(1)) {
+					html.nextFile();
+					if(!isNewAccountTitle) {
+						html.beginTable(accountTitle.getDisplayName() + "（続き）", header);
+					}
+				}
+				if(isNewAccountTitle) {
+					html.endTable();
+					int first = pagination.getLedgerFirstPageNumber(accountTitle);
+					int last = pagination.getLedgerLastPageNumber(accountTitle);
+					html.beginTable(accountTitle.getDisplayName() + "（" + (first == last ? first : first + "～" + last) + "頁）", header);
+				}
+				current[0] = accountTitle;
+
+				Writer w = html.getWriter();
+				w.write("<tr>");
+				writeCell(w, "n", 1, String.valueOf(row.getDate().getMonthValue()));
+				writeCell(w, "n", 1, String.valueOf(row.getDate().getDayOfMonth()));
+				writeCell(w, null, 1, row.getDescription() != null ? row.getSummary() + " / " + row.getDescription() : row.getSummary());
+				writeCell(w, "c", 1, formatPageNumber(row.getJournalPageNumber()));
+				writeCell(w, "n", 1, row.getDebtorAmount() != 0 ? NumberText.format(row.getDebtorAmount()) : "");
+				writeCell(w, "n", 1, row.getCreditorAmount() != 0 ? NumberText.format(row.getCreditorAmount()) : "");
+				writeCell(w, "c", 1, row.getBalanceSign());
+				writeCell(w, "n", 1, NumberText.format(row.getBalance()));
+				w.write("</tr>\n");
+				html.addRows(1);
+			});
+		}
+	}
+
+	/** 損益計算書のプレビューを出力します。
+	 * 表示する項目と金額の符号は損益計算書のPDFと同じです。
+	 *
+	 * @param profitAndLoss 損益計算書
+	 * @param path 出力先のファイル
+	 * @throws IOException I/Oエラーが発生した場合
+	 */
+	public void writeProfitAndLoss(ProfitAndLoss profitAndLoss, Path path) throws IOException {
+		ProfitAndLossLayout layout = profitAndLoss.getLayout();
+		try(PagedHtml html = new PagedHtml(path, "損益計算書")) {
+			html.beginTable(null, "<tr><th>科目</th><th>金額</th></tr>");
+			Writer w = html.getWriter();
+			for(Node<Entry<List<AccountTitle>, Amount>> node : profitAndLoss.getList()) {
+				Amount amount = node.getValue().getValue();
+				//表示条件は ProfitAndLoss#prepare と同じです。
+				if(amount == null && !layout.isAlwaysShown(node.getName())) {
+					continue;
+				}
+				if((amount == null || amount.getValue() == 0) && layout.isHidden(node.getName())) {
+					continue;
+				}
+				int sign = layout.isSignReversed(node.getName()) ? -1 : 1;
+				w.write(node.isSubTotal() ? "<tr class=\"s\">" : "<tr>");
+				writeCell(w, null, 1, indent(node.getLevel()) + node.getName());
+				writeCell(w, "n", 1, amount != null ? NumberText.format(sign * amount.getValue(), profitAndLoss.getMinusSign()) : "");
+				w.write("</tr>\n");
+			}
+			html.endTable();
+
+			html.beginTable("月別売上（収入）金額及び仕入金額", "<tr><th>月</th><th>売上（収入）金額</th><th>仕入金額</th></tr>");
+			for(Entry<String, Amount[]> monthlyTotal : profitAndLoss.getMonthlyTotals()) {
+				Amount[] amounts = monthlyTotal.getValue();
+				w.write("<tr>");
+				writeCell(w, null, 1, monthlyTotal.getKey());
+				writeCell(w, "n", 1, amounts[0] != null ? NumberText.format(amounts[0].getValue(), profitAndLoss.getMinusSign()) : "");
+				writeCell(w, "n", 1, amounts[1] != null ? NumberText.format(amounts[1].getValue(), profitAndLoss.getMinusSign()) : "");
+				w.write("</tr>\n");
+			}
+			html.endTable();
+		}
+	}
+
+	/** 貸借対照表のプレビューを出力します。
+	 * 表示する項目と金額の符号は貸借対照表のPDFと同じです。
+	 *
+	 * @param balanceSheet 貸借対照表
+	 * @param path 出力先のファイル
+	 * @throws IOException I/Oエラーが発生した場合
+	 */
+	public void writeBalanceSheet(BalanceSheet balanceSheet, Path path) throws IOException {
+		try(PagedHtml html = new PagedHtml(path, "貸借対照表")) {
+			writeBalanceSheetList(html, balanceSheet, balanceSheet.getAssetsList());
+			writeBalanceSheetList(html, balanceSheet, balanceSheet.getLiabilitiesList());
+			writeBalanceSheetList(html, balanceSheet, balanceSheet.getEquityList());
+		}
+	}
+
+	private static void writeBalanceSheetList(PagedHtml html, BalanceSheet balanceSheet, List<Node<Entry<List<AccountTitle>, Amount[]>>> list) throws IOException {
+		BalanceSheetLayout layout = balanceSheet.getLayout();
+		if(list.isEmpty()) {
+			return;
+		}
+		html.beginTable(list.get(0).getName(), "<tr><th>科目</th><th>期首</th><th>期末</th></tr>");
+		Writer w = html.getWriter();
+		for(int i = 0; i < list.size(); i++) {
+			Node<Entry<List<AccountTitle>, Amount[]>> node = list.get(i);
+			Amount[] amounts = node.getValue().getValue();
+			Amount openingAmount = amounts != null ? amounts[0] : null;
+			Amount closingAmount = amounts != null ? amounts[1] : null;
+			//表示条件は BalanceSheet#prepare と同じです。（先頭の見出しは合計として表示します。）
+			if(i >= 1) {
+				if(openingAmount == null && closingAmount == null && !layout.isAlwaysShown(node.getName())) {
+					continue;
+				}
+				if((openingAmount == null || openingAmount.getValue() == 0)
+						&& (closingAmount == null || closingAmount.getValue() == 0) && layout.isHidden(node.getName())) {
+					continue;
+				}
+			}
+			int sign = layout.isSignReversed(node.getName()) ? -1 : 1;
+			w.write(i == 0 ? "<tr class=\"s\">" : "<tr>");
+			writeCell(w, null, 1, i == 0 ? "合計" : indent(node.getLevel() - 1) + node.getName());
+			writeCell(w, "n", 1, openingAmount != null ? NumberText.format(sign * openingAmount.getValue(), balanceSheet.getMinusSign()) : "");
+			writeCell(w, "n", 1, closingAmount != null ? NumberText.format(sign * closingAmount.getValue(), balanceSheet.getMinusSign()) : "");
+			w.write("</tr>\n");
+		}
+		html.endTable();
+	}
+
+	private static void writeCell(Writer w, String cssClass, int rowspan, String text) throws IOException {
+		w.write("<td");
+		if(cssClass != null) {
+			w.write(" class=\"");
+			w.write(cssClass);
+			w.write('"');
+		}
+		if(rowspan > 1) {
+			w.write(" rowspan=\"");
+			w.write(String.valueOf(rowspan));
+			w.write('"');
+		}
+		w.write('>');
+		writeText(w, text);
+		w.write("</td>");
+	}
+
+	private static void writeText(Writer w, String text) throws IOException {
+		if(text == null) {
+			return;
+		}
+		for(int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			switch(c) {
+			case '<':
+				w.write("&lt;");
+				break;
+			case '>':
+				w.write("&gt;");
+				break;
+			case '&':
+				w.write("&amp;");
+				break;
+			case '"':
+				w.write("&quot;");
+				break;
+			default:
+				w.write(c);
+			}
+		}
+	}
+
+	private static String formatPageNumber(int pageNumber) {
+		return pageNumber >= 1 ? NumberText.valueOf(pageNumber) : "";
+	}
+
+	private static String indent(int level) {
+		StringBuilder sb = new StringBuilder();
+		for(int i = 1; i < level; i++) {
+			sb.append("　");
+		}
+		return sb.toString();
+	}
+
+	/** 最大行数ごとに複数のファイルに分けて出力するHTML
+	 *
+	 */
+	private class PagedHtml implements AutoCloseable {
+
+		private Path firstPath;
+		private String title;
+		private int fileNumber;
+		private int rowCount;
+		private Writer writer;
+		private boolean isTableOpen;
+
+		private PagedHtml(Path path, String title) throws IOException {
+			this.firstPath = path;
+			this.title = title;
+			open(1);
+		}
+
+		private Writer getWriter() {
+			return writer;
+		}
+
+		/** 指定した行数を追加すると最大行数を超えるかどうかを返します。
+		 * ファイルに 1行も出力していない場合は、最大行数を超える場合でも false を返します。
+		 */
+		private boolean isFull(int rows) {
+			return maxRowsPerFile > 0 && rowCount > 0 && rowCount + rows > maxRowsPerFile;
+		}
+
+		private void addRows(int rows) {
+			rowCount += rows;
+		}
+
+		private void beginTable(String caption, String header) throws IOException {
+			if(caption != null) {
+				writer.write("<h2>");
+				writeText(writer, caption);
+				writer.write("</h2>\n");
+			}
+			writer.write("<table>\n<thead>");
+			writer.write(header);
+			writer.write("</thead>\n");
+			isTableOpen = true;
+		}
+
+		private void endTable() throws IOException {
+			if(isTableOpen) {
+				writer.write("</table>\n");
+				isTableOpen = false;
+			}
+		}
+
+		/** 現在のファイルを閉じて、次のファイルを開きます。 */
+		private void nextFile() throws IOException {
+			endTable();
+			writeNavigation(true);
+			closeFile();
+			open(fileNumber + 1);
+		}
+
+		@Override
+		public void close() throws IOException {
+			if(writer != null) {
+				endTable();
+				writeNavigation(false);
+				closeFile();
+
+				//前回の出力で作成された、今回は使用しない連番のファイルを削除します。
+				for(int i = fileNumber + 1; Files.deleteIfExists(getPath(i)); i++);
+			}
+		}
+
+		private void open(int fileNumber) throws IOException {
+			this.fileNumber = fileNumber;
+			this.rowCount = 0;
+			this.writer = Files.newBufferedWriter(getPath(fileNumber), StandardCharsets.UTF_8);
+			writer.write("<!DOCTYPE html>\n<html lang=\"ja\">\n<head>\n<meta charset=\"UTF-8\">\n<title>");
+			writeText(writer, fileNumber == 1 ? title : title + " (" + fileNumber + ")");
+			writer.write("</title>\n<style>\n");
+			writer.write(STYLE);
+			writer.write("</style>\n</head>\n<body>\n<h1>");
+			writeText(writer, title);
+			writer.write("</h1>\n");
+			if(fileNumber > 1) {
+				writeNavigation(false);
+			}
+		}
+
+		private void closeFile() throws IOException {
+			try {
+				writer.write("</body>\n</html>\n");
+			} finally {
+				writer.close();
+				writer = null;
+			}
+		}
+
+		private void writeNavigation(boolean hasNext) throws IOException {
+			if(fileNumber == 1 && !hasNext) {
+				return;
+			}
+			writer.write("<nav>");
+			if(fileNumber > 1) {
+				writer.write("<a href=\"");
+				writeText(writer, getPath(fileNumber - 1).getFileName().toString());
+				writer.write("\">前へ</a> ");
+			}
+			writer.write(String.valueOf(fileNumber));
+			if(hasNext) {
+				writer.write(" <a href=\"");
+				writeText(writer, getPath(fileNumber + 1).getFileName().toString());
+				writer.write("\">次へ</a>");
+			}
+			writer.write("</nav>\n");
+		}
+
+		private Path getPath(int fileNumber) {
+			if(fileNumber == 1) {
+				return firstPath;
+			}
+			String filename = firstPath.getFileName().toString();
+			int i = filename.lastIndexOf('.');
+			String name = (i >= 0) ? filename.substring(0, i) : filename;
+			String extension = (i >= 0) ? filename.substring(i) : "";
+			return firstPath.resolveSibling(name + "_" + fileNumber + extension);
+		}
+	}
+}
@@ -0,0 +1,141 @@
+package net.osdn.aoiro.report;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import net.osdn.aoiro.AccountSettlement;
+import net.osdn.aoiro.model.AccountTitle;
+import net.osdn.aoiro.model.Creditor;
+import net.osdn.aoiro.model.Debtor;
+import net.osdn.aoiro.model.JournalEntry;
+
+/** 勘定科目ごとの月別集計
+ * 仕訳リストを 1回だけ走査して、勘定科目ごと・月ごとの借方金額と貸方金額を集計します。
+ * 月は 1～12 の月の値で表し、開始仕訳は 0 として集計します。締切仕訳は集計に含めません。
+ * 法人の 2年目以降の開始仕訳のように、締切の勘定科目（繰越利益剰余金など）を含む仕訳でも、期首の日付の仕訳は締切仕訳として扱わずに集計します。
+ *
+ * 損益計算書の月別売上（収入）金額及び仕入金額はこの集計から求めます。
+ * 総勘定元帳は月計の対象月の判定（getMonth）にこの集計を使用します。
+ *
+ */
+public class MonthlyTotals {
+
+	/** 開始仕訳を集計する月 */
+	public static final int OPENING = 0;
+
+	private static final int MONTHS = 13;
+
+	private boolean isSoloProprietorship;
+	private LocalDate openingDate;
+
+	/** 勘定科目 → 集計の行番号 */
+	private Map<AccountTitle, Integer> indexes = new HashMap<>();
+	/** [行番号][月] の借方金額 */
+	private long[][] debtorAmounts = new long[16][];
+	/** [行番号][月] の貸方金額 */
+	private long[][] creditorAmounts = new long[16][];
+	/** [行番号][月] の勘定の件数 */
+	private int[][] counts = new int[16][];
+
+	/** 仕訳リストを勘定科目ごと・月ごとに集計します。
+	 *
+	 * @param journalEntries 仕訳リスト
+	 * @param isSoloProprietorship 個人事業主の場合は true
+	 */
+	public MonthlyTotals(List<JournalEntry> journalEntries, boolean isSoloProprietorship) {
+		this.isSoloProprietorship = isSoloProprietorship;
+		this.openingDate = AccountSettlement.getOpeningDate(journalEntries, isSoloProprietorship);
+
+		for(JournalEntry entry : journalEntries) {
+			if(isClosing(entry)) {
+				continue;
+			}
+			int month = getMonth(entry);
+			for(Debtor debtor : entry.getDebtors()) {
+				int i = getIndex(debtor.getAccountTitle());
+				debtorAmounts[i][month] += debtor.getAmount();
+				counts[i][month]++;
+			}
+			for(Creditor creditor : entry.getCreditors()) {
+				int i = getIndex(creditor.getAccountTitle());
+				creditorAmounts[i][month] += creditor.getAmount();
+				counts[i][month]++;
+			}
+		}
+	}
+
+	/** 集計に含めない締切仕訳かどうかを返します。
+	 * 締切の勘定科目を含む仕訳であっても、期首の日付の仕訳（前期から繰り越した開始仕訳）は締切仕訳として扱いません。
+	 *
+	 * @param entry 仕訳
+	 * @return 締切仕訳の場合は true
+	 */
+	private boolean isClosing(JournalEntry entry) {
+		return entry.isClosing() && !Objects.equals(entry.getDate(), openingDate);
+	}
+
+	/** 仕訳を集計する月を返します。
+	 * 開始仕訳は 1月の仕訳と区別するために 0 を返します。
+	 *
+	 * @param entry 仕訳
+	 * @return 月の値（1～12）。開始仕訳の場合は 0
+	 */
+	public int getMonth(JournalEntry entry) {
+		return entry.isOpening(isSoloProprietorship, openingDate) ? OPENING : entry.getDate().getMonthValue();
+	}
+
+	/** 指定した勘定科目と月の借方金額の合計を返します。
+	 *
+	 * @param accountTitle 勘定科目
+	 * @param month 月の値（1～12）。開始仕訳の場合は 0
+	 * @return 借方金額の合計
+	 */
+	public long getDebtorAmount(AccountTitle accountTitle, int month) {
+		Integer i = indexes.get(accountTitle);
+		return i != null ? debtorAmounts[i][month] : 0;
+	}
+
+	/** 指定した勘定科目と月の貸方金額の合計を返します。
+	 *
+	 * @param accountTitle 勘定科目
+	 * @param month 月の値（1～12）。開始仕訳の場合は 0
+	 * @return 貸方金額の合計
+	 */
+	public long getCreditorAmount(AccountTitle accountTitle, int month) {
+		Integer i = indexes.get(accountTitle);
+		return i != null ? creditorAmounts[i][month] : 0;
+	}
+
+	/** 指定した勘定科目と月に集計した勘定があるかどうかを返します。
+	 * 金額の合計が 0 でも、勘定があれば true を返します。
+	 *
+	 * @param accountTitle 勘定科目
+	 * @param month 月の値（1～12）。開始仕訳の場合は 0
+	 * @return 勘定がある場合は true
+	 */
+	public boolean contains(AccountTitle accountTitle, int month) {
+		Integer i = indexes.get(accountTitle);
+		return i != null && counts[i][month] > 0;
+	}
+
+	private int getIndex(AccountTitle accountTitle) {
+		Integer i = indexes.get(accountTitle);
+		if(i == null) {
+			i = indexes.size();
+			if(i == counts.length) {
+				debtorAmounts = Arrays.copyOf(debtorAmounts, i * 2);
+				creditorAmounts = Arrays.copyOf(creditorAmounts, i * 2);
+				counts = Arrays.copyOf(counts, i * 2);
+			}
+			debtorAmounts[i] = new long[MONTHS];
+			creditorAmounts[i] = new long[MONTHS];
+			counts[i] = new int[MONTHS];
+			indexes.put(accountTitle, i);
+		}
+		return i;
+	}
+}
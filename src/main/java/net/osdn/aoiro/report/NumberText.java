@@ -0,0 +1,94 @@
+package net.osdn.aoiro.report;
+
+/** 印字する数値の文字列
+ * 帳簿・決算書の金額を 3桁区切りの文字列にします。String.format("%,d", ...) と同じ文字列になりますが、
+ * 書式の解析や Formatter の作成をおこなわずに、スレッドごとに再利用する文字配列に 3桁ずつ書き込みます。
+ * 区切り文字はロケールに関わらずカンマです。
+ * 日付やページ番号などの 0～999 の数値は、作成済みの文字列を返します。
+ *
+ */
+final class NumberText {
+
+	/** 0～999 を 3桁（ゼロ埋め）で並べた数字 */
+	private static final char[] DIGITS = new char[3000];
+	/** 0～999 の文字列 */
+	private static final String[] SMALL_NUMBERS = new String[1000];
+	/** 符号と 3桁区切りの 19桁を書き込める長さ */
+	private static final int BUFFER_LENGTH = 32;
+	private static final int MAX_SIGN_LENGTH = BUFFER_LENGTH - 26;
+
+	private static final ThreadLocal<char[]> buffer = ThreadLocal.withInitial(() -> new char[BUFFER_LENGTH]);
+
+	static {
+		for(int i = 0; i < 1000; i++) {
+			DIGITS[i * 3] = (char)('0' + i / 100);
+			DIGITS[i * 3 + 1] = (char)('0' + i / 10 % 10);
+			DIGITS[i * 3 + 2] = (char)('0' + i % 10);
+			SMALL_NUMBERS[i] = Integer.toString(i);
+		}
+	}
+
+	private NumberText() {
+	}
+
+	/** 金額を 3桁区切りの文字列にします。負の数にはマイナス記号 (-) が付きます。
+	 *
+	 * @param amount 金額
+	 * @return 3桁区切りの文字列
+	 */
+	static String format(long amount) {
+		return format(amount, "-");
+	}
+
+	/** 日付やページ番号などの数値を文字列にします。3桁区切りにはしません。
+	 *
+	 * @param value 数値
+	 * @return 文字列
+	 */
+	static String valueOf(int value) {
+		if(value >= 0 && value < 1000) {
+			return SMALL_NUMBERS[value];
+		}
+		return Integer.toString(value);
+	}
+
+	/** 金額を 3桁区切りの文字列にします。負の数には指定した符号が付きます。
+	 *
+	 * @param amount 金額
+	 * @param minusSign 負の数に付ける符号（△ など）。null の場合はマイナス記号 (-) になります。
+	 * @return 3桁区切りの文字列
+	 */
+	static String format(long amount, String minusSign) {
+		if(amount >= 0 && amount < 1000) {
+			return SMALL_NUMBERS[(int)amount];
+		}
+		if(minusSign == null) {
+			minusSign = "-";
+		}
+		if(amount == Long.MIN_VALUE || minusSign.length() > MAX_SIGN_LENGTH) {
+			return minusSign + String.format("%,d", amount).substring(1);
+		}
+
+		char[] chars = buffer.get();
+		int pos = chars.length;
+		long value = Math.abs(amount);
+		while(value >= 1000) {
+			int group = (int)(value % 1000) * 3;
+			value /= 1000;
+			chars[--pos] = DIGITS[group + 2];
+			chars[--pos] = DIGITS[group + 1];
+			chars[--pos] = DIGITS[group];
+			chars[--pos] = ',';
+		}
+		int head = (int)value;
+		do {
+			chars[--pos] = (char)('0' + head % 10);
+			head /= 10;
+		} while(head > 0);
+		if(amount < 0) {
+			pos -= minusSign.length();
+			minusSign.getChars(0, minusSign.length(), chars, pos);
+		}
+		return new String(chars, pos, chars.length - pos);
+	}
+}
@@ -0,0 +1,150 @@
+package net.osdn.aoiro.report;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Properties;
+import java.util.Set;
+
+/** 出力キャッシュ
+ * 出力した帳簿・決算書のフィンガープリントを出力先フォルダーの .aoiro フォルダーに記録します。
+ * フィンガープリントが前回と同じで、出力したファイルが変更されていない帳簿・決算書は作成を省略できます。
+ *
+ * 総勘定元帳は勘定科目ごとに、綴じ代の線とページ番号を除いた本文のページをフィンガープリントを名前にした PDF として保存します。
+ * 本文にはページ番号が含まれないため、前の勘定科目のページ数が変わって開始ページがずれても、保存したページを再利用できます。
+ *
+ */
+public class OutputCache {
+
+	private static final String DIRECTORY_NAME = ".aoiro";
+	private static final String FINGERPRINTS_FILENAME = "fingerprints.properties";
+	private static final String LEDGER_DIRECTORY_NAME = "ledger";
+
+	private Path outputDir;
+	private Path cacheDir;
+
+	/** ファイル名 → フィンガープリント,ファイルサイズ,最終更新日時 */
+	private Properties entries = new Properties();
+
+	/** 指定した出力先フォルダーの出力キャッシュを読み込みます。
+	 * キャッシュがない場合や読み込めない場合は空のキャッシュになります。
+	 *
+	 * @param outputDir 帳簿・決算書の出力先フォルダー
+	 */
+	public OutputCache(Path outputDir) {
+		this.outputDir = outputDir;
+		this.cacheDir = outputDir.resolve(DIRECTORY_NAME);
+
+		Path file = cacheDir.resolve(FINGERPRINTS_FILENAME);
+		if(Files.isRegularFile(file)) {
+			try(Reader r = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+				entries.load(r);
+			} catch(IOException | IllegalArgumentException e) {
+				// キャッシュが壊れている場合はすべて作成し直します。
+				entries.clear();
+			}
+		}
+	}
+
+	/** 指定したファイルが前回と同じフィンガープリントで出力され、その後に変更されていないかどうかを返します。
+	 *
+	 * @param filename 出力先フォルダーのファイル名
+	 * @param fingerprint 今回のフィンガープリント
+	 * @return ファイルの作成を省略できる場合は true
+	 */
+	public synchronized boolean isUpToDate(String filename, String fingerprint) {
+		String value = entries.getProperty(filename);
+		if(value == null) {
+			return false;
+		}
+		try {
+			return value.equals(getValue(outputDir.resolve(filename), fingerprint));
+		} catch(IOException e) {
+			return false;
+		}
+	}
+
+	/** 指定したファイルを出力したフィンガープリントを記録します。
+	 * ファイルを出力した後に呼び出す必要があります。
+	 *
+	 * @param filename 出力先フォルダーのファイル名
+	 * @param fingerprint 出力に使用した入力のフィンガープリント
+	 * @throws IOException I/Oエラーが発生した場合
+	 */
+	public synchronized void put(String filename, String fingerprint) throws IOException {
+		entries.setProperty(filename, getValue(outputDir.resolve(filename), fingerprint));
+	}
+
+	/** 指定したファイルの記録を削除します。
+	 * ファイルを出力し直す前に呼び出すことで、出力に失敗した場合に古い記録が残らないようにします。
+	 *
+	 * @param filename 出力先フォルダーのファイル名
+	 */
+	public synchronized void remove(String filename) {
+		entries.remove(filename);
+	}
+
+	/** 記録したフィンガープリントを保存します。
+	 *
+	 * @throws IOException I/Oエラーが発生した場合
+	 */
+	public synchronized void save() throws IOException {
+		Files.createDirectories(cacheDir);
+		Path file = cacheDir.resolve(FINGERPRINTS_FILENAME);
+		Path tmpFile = Files.createTempFile(cacheDir, FINGERPRINTS_FILENAME, ".tmp");
+		try {
+			try(Writer w = Files.newBufferedWriter(tmpFile, StandardCharsets.UTF_8)) {
+				entries.store(w, null);
+			}
+			Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING);
+		} finally {
+			Files.deleteIfExists(tmpFile);
+		}
+	}
+
+	/** 総勘定元帳の勘定科目ごとの本文を保存するファイルを返します。
+	 *
+	 * @param fingerprint 勘定科目の本文のフィンガープリント
+	 * @return 本文を保存するファイル（存在しない場合もあります）
+	 * @throws IOException I/Oエラーが発生した場合
+	 */
+	Path getLedgerSectionPath(String fingerprint) throws IOException {
+		Path dir = cacheDir.resolve(LEDGER_DIRECTORY_NAME);
+		Files.createDirectories(dir);
+		return dir.resolve(fingerprint + ".pdf");
+	}
+
+	/** 総勘定元帳の勘定科目ごとの本文のうち、指定したフィンガープリント以外のファイルを削除します。
+	 *
+	 * @param fingerprints 今回の総勘定元帳で使用した本文のフィンガープリント
+	 * @throws IOException I/Oエラーが発生した場合
+	 */
+	void retainLedgerSections(Collection<String> fingerprints) throws IOException {
+		Path dir = cacheDir.resolve(LEDGER_DIRECTORY_NAME);
+		if(!Files.isDirectory(dir)) {
+			return;
+		}
+		Set<String> filenames = new HashSet<>();
+		for(String fingerprint : fingerprints) {
+			filenames.add(fingerprint + ".pdf");
+		}
+		try(DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+			for(Path file : files) {
+				if(!filenames.contains(file.getFileName().toString())) {
+					Files.deleteIfExists(file);
+				}
+			}
+		}
+	}
+
+	private static String getValue(Path file, String fingerprint) throws IOException {
+		return fingerprint + "," + Files.size(file) + "," + Files.getLastModifiedTime(file).toMillis();
+	}
+}
@@ -0,0 +1,431 @@
+package net.osdn.aoiro.report;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import net.osdn.aoiro.AccountSettlement;
+import net.osdn.aoiro.model.Account;
+import net.osdn.aoiro.model.AccountTitle;
+import net.osdn.aoiro.model.Creditor;
+import net.osdn.aoiro.model.Debtor;
+import net.osdn.aoiro.model.JournalEntry;
+
+/** 仕訳帳と総勘定元帳のページ割り付け
+ * 印字データを作成せずに、仕訳や勘定の印字に必要な行数だけで仕訳帳と総勘定元帳のページを割り付けます。
+ * 総勘定元帳に記載する仕訳帳ページ(仕丁)は仕訳ごとに、仕訳帳に記載する総勘定元帳ページ(元丁)は勘定（仕訳の借方・貸方の各行）ごとに保持します。
+ * ページ番号は仕訳や勘定には書き込まないため、ページ割り付け後は仕訳帳と総勘定元帳をそれぞれ独立して並行に印字できます。
+ *
+ * 改ページの判定は GeneralJournal および GeneralLedger の印字処理と同じでなければなりません。
+ *
+ * 日計を指定した勘定科目は、同じ日付の仕訳を借方・貸方ごとに 1行にまとめた仕訳（日計の仕訳）でページを割り付けます。
+ * 日計の仕訳は総勘定元帳の印字だけに使用し、仕訳帳には元の仕訳がそのまま印字されます。
+ *
+ */
+public class Pagination {
+
+	/** 仕訳ごとの仕訳帳ページ番号 (仕丁) */
+	private Map<JournalEntry, Integer> journalPageNumbers = new IdentityHashMap<>();
+	/** 勘定ごとの総勘定元帳ページ番号 (元丁) */
+	private Map<Account, Integer> ledgerPageNumbers = new IdentityHashMap<>();
+	/** 勘定科目ごとの総勘定元帳の開始ページ番号（印字する仕訳がない勘定科目は含みません） */
+	private Map<AccountTitle, Integer> ledgerFirstPageNumbers = new HashMap<>();
+	/** 勘定科目ごとの総勘定元帳の最終ページ番号（印字する仕訳がない勘定科目は含みません） */
+	private Map<AccountTitle, Integer> ledgerLastPageNumbers = new HashMap<>();
+	/** 日計で印字する勘定科目ごとの日計の仕訳 */
+	private Map<AccountTitle, List<JournalEntry>> dailyTotalEntries = new HashMap<>();
+
+	private int journalPageCount;
+	private int ledgerPageCount;
+
+	/** 仕訳帳と総勘定元帳のページを割り付けます。
+	 *
+	 * @param accountTitles 勘定科目（総勘定元帳に印字する順序は GeneralLedger と同じになるように並べ替えられます）
+	 * @param journalEntries 仕訳リスト
+	 * @param isSoloProprietorship 個人事業主の場合は true
+	 * @param showMonthlyTotal 総勘定元帳に月計を印字する場合は true
+	 */
+	public Pagination(Set<AccountTitle> accountTitles, List<JournalEntry> journalEntries, boolean isSoloProprietorship, boolean showMonthlyTotal) {
+		this(accountTitles, journalEntries, isSoloProprietorship, showMonthlyTotal, Collections.emptySet());
+	}
+
+	/** 仕訳帳と総勘定元帳のページを割り付けます。
+	 * 日計を指定した勘定科目は、総勘定元帳に同じ日付の仕訳を借方・貸方ごとに 1行にまとめて印字します。
+	 *
+	 * @param accountTitles 勘定科目（総勘定元帳に印字する順序は GeneralLedger と同じになるように並べ替えられます）
+	 * @param journalEntries 仕訳リスト
+	 * @param isSoloProprietorship 個人事業主の場合は true
+	 * @param showMonthlyTotal 総勘定元帳に月計を印字する場合は true
+	 * @param dailyTotalAccountTitles 総勘定元帳に日計で印字する勘定科目（元入金と決算勘定は日計になりません）
+	 */
+	public Pagination(Set<AccountTitle> accountTitles, List<JournalEntry> journalEntries, boolean isSoloProprietorship, boolean showMonthlyTotal, Set<AccountTitle> dailyTotalAccountTitles) {
+		paginateJournal(journalEntries);
+		paginateLedger(GeneralLedger.getLedgerAccountTitles(accountTitles), journalEntries, isSoloProprietorship, showMonthlyTotal, dailyTotalAccountTitles);
+	}
+
+	/** 総勘定元帳に記載する仕訳帳ページ番号(仕丁)を取得します。
+	 *
+	 * @param entry 仕訳
+	 * @return 仕訳帳ページ番号(仕丁)。仕訳帳に記載されていない仕訳の場合は 0 が返されます。
+	 */
+	public int getJournalPageNumber(JournalEntry entry) {
+		return journalPageNumbers.getOrDefault(entry, 0);
+	}
+
+	/** 仕訳帳に記載する総勘定元帳ページ番号(元丁)を取得します。
+	 *
+	 * @param account 勘定（仕訳の借方・貸方の各行）
+	 * @return 総勘定元帳ページ番号(元丁)。総勘定元帳に記載されていない勘定の場合は 0 が返されます。
+	 */
+	public int getLedgerPageNumber(Account account) {
+		return ledgerPageNumbers.getOrDefault(account, 0);
+	}
+
+	/** 総勘定元帳で指定した勘定科目が始まるページ番号を取得します。
+	 *
+	 * @param accountTitle 勘定科目
+	 * @return 開始ページ番号。印字する仕訳がない勘定科目の場合は 0 が返されます。
+	 */
+	public int getLedgerFirstPageNumber(AccountTitle accountTitle) {
+		return ledgerFirstPageNumbers.getOrDefault(accountTitle, 0);
+	}
+
+	/** 総勘定元帳で指定した勘定科目が終わるページ番号を取得します。
+	 *
+	 * @param accountTitle 勘定科目
+	 * @return 最終ページ番号。印字する仕訳がない勘定科目の場合は 0 が返されます。
+	 */
+	public int getLedgerLastPageNumber(AccountTitle accountTitle) {
+		return ledgerLastPageNumbers.getOrDefault(accountTitle, 0);
+	}
+
+	/** 総勘定元帳に印字する日計の仕訳を取得します。
+	 *
+	 * @param accountTitle 勘定科目
+	 * @return 日計の仕訳リスト。日計で印字しない勘定科目の場合は null が返されます。
+	 */
+	List<JournalEntry> getDailyTotalEntries(AccountTitle accountTitle) {
+		return dailyTotalEntries.get(accountTitle);
+	}
+
+	/** 仕訳帳の総ページ数を取得します。
+	 *
+	 * @return 仕訳帳の総ページ数
+	 */
+	public int getJournalPageCount() {
+		return journalPageCount;
+	}
+
+	/** 総勘定元帳の総ページ数を取得します。
+	 *
+	 * @return 総勘定元帳の総ページ数
+	 */
+	public int getLedgerPageCount() {
+		return ledgerPageCount;
+	}
+
+	private void paginateJournal(List<JournalEntry> entries) {
+		int pageNumber = 0;
+		int restOfRows = 0;
+		int currentRow = 0;
+
+		for(int i = 0; i < entries.size(); i++) {
+			JournalEntry entry = entries.get(i);
+
+			//仕訳の印字に必要な行数を求めます。
+			int rowsRequired = GeneralJournal.getRowsRequired(entry);
+			//最後の明細の場合は締切行を追加するために 1行加算します。
+			if(i == entries.size() - 1) {
+				rowsRequired++;
+			} else if(currentRow != 0) {
+				if(rowsRequired <= restOfRows) {
+					//次の仕訳の印字必要行数を含めると超過する場合は次頁繰越の行を加算します。
+					int nextEntryRowsRequired = GeneralJournal.getRowsRequired(entries.get(i + 1));
+					if(rowsRequired + nextEntryRowsRequired + 1 > restOfRows) {
+						rowsRequired++;
+					}
+				}
+			}
+
+			//仕訳の印字に必要な行数が残り行数を超えているときに改ページします。
+			if(rowsRequired > restOfRows) {
+				restOfRows = GeneralJournal.ROWS;
+				currentRow = 0;
+
+				//2ページ目以降は前頁繰越を印字します。
+				if(++pageNumber >= 2) {
+					currentRow++;
+					restOfRows--;
+				}
+			}
+
+			journalPageNumbers.put(entry, pageNumber);
+
+			currentRow += rowsRequired;
+			restOfRows -= rowsRequired;
+		}
+		journalPageCount = pageNumber;
+	}
+
+	private void paginateLedger(Set<AccountTitle> accountTitles, List<JournalEntry> journalEntries, boolean isSoloProprietorship, boolean showMonthlyTotal, Set<AccountTitle> dailyTotalAccountTitles) {
+		LocalDate openingDate = AccountSettlement.getOpeningDate(journalEntries, isSoloProprietorship);
+		Map<AccountTitle, List<JournalEntry>> entriesByAccountTitle = getJournalEntriesByAccountTitle(journalEntries);
+		int pageNumber = 0;
+		AccountTitle currentAccountTitle = null;
+
+		for(AccountTitle accountTitle : accountTitles) {
+			List<JournalEntry> entries = entriesByAccountTitle.get(accountTitle);
+			if(entries == null) {
+				continue;
+			}
+
+			//日計の仕訳の勘定と、まとめられた元の勘定の対応（元の勘定の元丁は日計の仕訳の勘定と同じページ番号になります）
+			Map<Account, Account> dailyTotalAccounts = null;
+			if(dailyTotalAccountTitles.contains(accountTitle) && GeneralLedger.isDailyTotalAvailable(accountTitle)) {
+				dailyTotalAccounts = new IdentityHashMap<>();
+				entries = getDailyTotalEntries(accountTitle, entries, isSoloProprietorship, openingDate, dailyTotalAccounts);
+				dailyTotalEntries.put(accountTitle, entries);
+			}
+
+			//勘定科目は必ず新しいページから始まります。
+			ledgerFirstPageNumbers.put(accountTitle, pageNumber + 1);
+			int restOfRows = 0;
+			int currentRow = 0;
+
+			for(int j = 0; j < entries.size(); j++) {
+				JournalEntry entry = entries.get(j);
+
+				boolean isLastEntryInMonth = false;
+				if(showMonthlyTotal && !entry.isClosing()) {
+					// 開始仕訳は1月計に含めないようにするために0月として扱います。
+					int monthlyTotalMonth = entry.isOpening(isSoloProprietorship, openingDate) ? 0 : entry.getDate().getMonthValue();
+					if(j + 1 == entries.size()) {
+						isLastEntryInMonth = true;
+					} else {
+						JournalEntry nextEntry = entries.get(j + 1);
+						int nextEntryMonth = nextEntry.isOpening(isSoloProprietorship, openingDate) ? 0 : nextEntry.getDate().getMonthValue();
+						if(monthlyTotalMonth != nextEntryMonth || nextEntry.isClosing()) {
+							isLastEntryInMonth = true;
+						}
+					}
+				}
+
+				List<Account> accounts = GeneralLedger.getAccountsByAccountTitle(entry, accountTitle);
+				List<Account> capitals = null;
+				//元入金は 1つの仕訳に複数含まれていても 1つ目の勘定でまとめて印字します。
+				if(accountTitle.getDisplayName().equals("元入金") && accounts.size() >= 2) {
+					capitals = accounts.subList(1, accounts.size());
+					accounts = accounts.subList(0, 1);
+				}
+
+				for(int k = 0; k < accounts.size(); k++) {
+					Account account = accounts.get(k);
+					int counterpartAccountCount = GeneralLedger.getCounterpartAccounts(entry, account).size();
+					for(int l = 0; l < counterpartAccountCount; l++) {
+						boolean isCarriedForward = false;
+						boolean isLastInAccountTitle =
+								(l == counterpartAccountCount - 1) &&
+								(k == accounts.size() - 1) &&
+								(j == entries.size() - 1);
+
+						int rowsRequired = 1;
+						if(!isLastInAccountTitle && (currentRow + 1 == GeneralLedger.ROWS - 1)) {
+							rowsRequired++;
+							isCarriedForward = true;
+						}
+
+						//印字に必要な行数が残り行数を超えているか、または、勘定科目が変わったときに改ページします。
+						if(rowsRequired > restOfRows || !accountTitle.equals(currentAccountTitle)) {
+							pageNumber++;
+							restOfRows = GeneralLedger.ROWS;
+							currentRow = 0;
+							currentAccountTitle = account.getAccountTitle();
+
+							//勘定科目が変わった場合を除いて改ページが発生した場合、前頁繰越を印字します。
+							if(j != 0 || k != 0 || l != 0) {
+								currentRow++;
+								restOfRows--;
+							}
+						}
+
+						//仕訳帳に記載する総勘定元帳ページ(元丁)を設定します。
+						if(!ledgerPageNumbers.containsKey(account)) {
+							ledgerPageNumbers.put(account, pageNumber);
+							if(capitals != null) {
+								for(Account capital : capitals) {
+									ledgerPageNumbers.put(capital, pageNumber);
+								}
+							}
+						}
+
+						currentRow += rowsRequired;
+						restOfRows -= rowsRequired;
+
+						//月計
+						if(showMonthlyTotal && isLastEntryInMonth && (k + 1) == accounts.size() && (l + 1) == counterpartAccountCount) {
+							int emptyRows = (GeneralLedger.ROWS - 1) - currentRow - (isLastInAccountTitle ? 0 : 1);
+							if(emptyRows < 0) {
+								emptyRows = 0;
+							}
+							if(emptyRows > 2 || isCarriedForward) {
+								emptyRows = 2;
+							}
+							rowsRequired = 1 + emptyRows;
+							if(!isLastInAccountTitle && (currentRow + emptyRows + 1 == GeneralLedger.ROWS - 1)) {
+								rowsRequired++;
+							}
+
+							if(rowsRequired > restOfRows) {
+								pageNumber++;
+								restOfRows = GeneralLedger.ROWS;
+								currentRow = 0;
+								if(j != 0 || k != 0 || l != 0) {
+									currentRow++;
+									restOfRows--;
+								}
+							}
+
+							currentRow += rowsRequired;
+							restOfRows -= rowsRequired;
+						}
+					}
+				}
+			}
+			ledgerLastPageNumbers.put(accountTitle, pageNumber);
+
+			if(dailyTotalAccounts != null) {
+				for(Map.Entry<Account, Account> e : dailyTotalAccounts.entrySet()) {
+					ledgerPageNumbers.put(e.getKey(), ledgerPageNumbers.getOrDefault(e.getValue(), 0));
+				}
+			}
+		}
+		ledgerPageCount = pageNumber;
+	}
+
+	/** 指定した勘定科目の仕訳を、日付と借方・貸方ごとに 1つの仕訳（日計の仕訳）にまとめます。
+	 * 日計の仕訳の相手勘定科目は、まとめた仕訳の相手勘定科目がすべて同じ場合はその勘定科目、異なる場合は諸口になります。
+	 * 摘要は、まとめた仕訳が 1件の場合は元の仕訳の摘要、2件以上の場合は件数になります。
+	 * 開始仕訳と締切仕訳はまとめずにそのまま使用します。
+	 * 日計の仕訳の仕丁は、まとめた仕訳のうち最初の仕訳の仕丁になります。
+	 *
+	 * @param accountTitle 勘定科目
+	 * @param entries 指定した勘定科目を含む仕訳リスト
+	 * @param isSoloProprietorship 個人事業主の場合は true
+	 * @param openingDate 期首の日付
+	 * @param dailyTotalAccounts まとめた元の勘定から日計の仕訳の勘定への対応を格納するマップ
+	 * @return 日計の仕訳リスト（最初の仕訳の順序で並びます）
+	 */
+	private List<JournalEntry> getDailyTotalEntries(AccountTitle accountTitle, List<JournalEntry> entries, boolean isSoloProprietorship, LocalDate openingDate, Map<Account, Account> dailyTotalAccounts) {
+		List<DailyTotal> dailyTotals = new ArrayList<>();
+		Map<List<Object>, DailyTotal> dailyTotalsByKey = new HashMap<>();
+
+		for(JournalEntry entry : entries) {
+			if(entry.isOpening(isSoloProprietorship, openingDate) || entry.isClosing()) {
+				dailyTotals.add(new DailyTotal(entry));
+				continue;
+			}
+			for(Account account : GeneralLedger.getAccountsByAccountTitle(entry, accountTitle)) {
+				boolean isDebtor = account instanceof Debtor;
+				DailyTotal dailyTotal = dailyTotalsByKey.computeIfAbsent(List.of(entry.getDate(), isDebtor), key -> {
+					DailyTotal t = new DailyTotal(entry.getDate(), isDebtor, entry);
+					dailyTotals.add(t);
+					return t;
+				});
+				dailyTotal.add(account, GeneralLedger.getCounterpartAccounts(entry, account).get(0).getAccountTitle());
+			}
+		}
+
+		List<JournalEntry> dailyTotalEntries = new ArrayList<>(dailyTotals.size());
+		for(DailyTotal dailyTotal : dailyTotals) {
+			if(dailyTotal.entry != null) {
+				dailyTotalEntries.add(dailyTotal.entry);
+				continue;
+			}
+			AccountTitle counterpartAccountTitle = dailyTotal.counterpartAccountTitles.size() == 1
+					? dailyTotal.counterpartAccountTitles.iterator().next()
+					: AccountTitle.SUNDRIES;
+			String description = dailyTotal.accounts.size() == 1
+					? dailyTotal.firstEntry.getDescription()
+					: ("日計 " + dailyTotal.accounts.size() + "件");
+			List<Debtor> debtors = new ArrayList<>();
+			List<Creditor> creditors = new ArrayList<>();
+			Account account;
+			if(dailyTotal.isDebtor) {
+				account = new Debtor(accountTitle, dailyTotal.amount);
+				debtors.add((Debtor)account);
+				creditors.add(new Creditor(counterpartAccountTitle, dailyTotal.amount));
+			} else {
+				account = new Creditor(accountTitle, dailyTotal.amount);
+				debtors.add(new Debtor(counterpartAccountTitle, dailyTotal.amount));
+				creditors.add((Creditor)account);
+			}
+			JournalEntry entry = new JournalEntry(dailyTotal.date, description, debtors, creditors);
+			journalPageNumbers.put(entry, getJournalPageNumber(dailyTotal.firstEntry));
+			for(Account original : dailyTotal.accounts) {
+				dailyTotalAccounts.put(original, account);
+			}
+			dailyTotalEntries.add(entry);
+		}
+		return dailyTotalEntries;
+	}
+
+	/** 日計の仕訳にまとめる勘定 */
+	private static class DailyTotal {
+		/** まとめずにそのまま使用する仕訳（開始仕訳と締切仕訳） */
+		JournalEntry entry;
+
+		LocalDate date;
+		boolean isDebtor;
+		JournalEntry firstEntry;
+		List<Account> accounts = new ArrayList<>();
+		Set<AccountTitle> counterpartAccountTitles = new LinkedHashSet<>();
+		long amount;
+
+		DailyTotal(JournalEntry entry) {
+			this.entry = entry;
+		}
+
+		DailyTotal(LocalDate date, boolean isDebtor, JournalEntry firstEntry) {
+			this.date = date;
+			this.isDebtor = isDebtor;
+			this.firstEntry = firstEntry;
+		}
+
+		void add(Account account, AccountTitle counterpartAccountTitle) {
+			accounts.add(account);
+			counterpartAccountTitles.add(counterpartAccountTitle);
+			amount += account.getAmount();
+		}
+	}
+
+	/** 仕訳リストを勘定科目ごとに分類します。
+	 * 借方・貸方に同じ勘定科目が複数含まれる仕訳も、その勘定科目のリストには 1回だけ追加されます。
+	 *
+	 * @param journalEntries 仕訳リスト
+	 * @return 勘定科目ごとの仕訳リスト（仕訳の順序は仕訳リストと同じです）
+	 */
+	private static Map<AccountTitle, List<JournalEntry>> getJournalEntriesByAccountTitle(List<JournalEntry> journalEntries) {
+		Map<AccountTitle, List<JournalEntry>> map = new LinkedHashMap<>();
+		Set<AccountTitle> accountTitles = new LinkedHashSet<>();
+		for(JournalEntry entry : journalEntries) {
+			accountTitles.clear();
+			for(Debtor debtor : entry.getDebtors()) {
+				accountTitles.add(debtor.getAccountTitle());
+			}
+			for(Creditor creditor : entry.getCreditors()) {
+				accountTitles.add(creditor.getAccountTitle());
+			}
+			for(AccountTitle accountTitle : accountTitles) {
+				map.computeIfAbsent(accountTitle, key -> new ArrayList<>()).add(entry);
+			}
+		}
+		return map;
+	}
+}
@@ -0,0 +1,767 @@
+package net.osdn.aoiro.report;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Scanner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+
+import net.osdn.pdf_brewer.BrewerData;
+import net.osdn.pdf_brewer.Context;
+import net.osdn.pdf_brewer.FontLoader;
+import net.osdn.pdf_brewer.PdfBrewer;
+import net.osdn.pdf_brewer.TextBuffer;
+import net.osdn.pdf_brewer.instruction.Align;
+import net.osdn.pdf_brewer.instruction.Box;
+import net.osdn.pdf_brewer.instruction.Image;
+import net.osdn.pdf_brewer.instruction.Instruction;
+import net.osdn.pdf_brewer.instruction.Line;
+import net.osdn.pdf_brewer.instruction.LineStyle;
+import net.osdn.pdf_brewer.instruction.Media;
+import net.osdn.pdf_brewer.instruction.NewPage;
+import net.osdn.pdf_brewer.instruction.Rect;
+import net.osdn.pdf_brewer.instruction.text.Font;
+import net.osdn.pdf_brewer.instruction.text.LineHeight;
+import net.osdn.pdf_brewer.instruction.text.Text;
+import net.osdn.pdf_brewer.instruction.text.TextAlign;
+import net.osdn.pdf_brewer.instruction.text.TextBufferingInstruction;
+import net.osdn.pdf_brewer.instruction.text.TextOverflow;
+
+/** PdfBrewer に渡す印字データ
+ * 描画命令を文字列ではなく、命令の種類・インデント・座標（プリミティブ値）の配列として保持します。
+ * \align center right や \font serif 10 などの引数は解析済みのものをプロセス内で共有し、命令ごとには文字列を保持しません。
+ * 印字データは PdfBrewer の命令 (Instruction) に直接変換されるため、BrewerData による文字列の再解析はおこなわれません。
+ * ページごとに追加するテンプレートは命令をコピーせず、共有されたテンプレートへの参照として保持します。
+ * テンプレートは SharedFontPdfBrewer でドキュメントごとに 1度だけフォームXObjectとして描画され、各ページからはそれを参照します。
+ * テキスト形式 (.pb) はデバッグ用に toString で出力できます。
+ *
+ */
+class PrintData {
+
+	private static final byte ALIGN = 1;
+	private static final byte BOX = 2;
+	private static final byte IMAGE = 3;
+	private static final byte LINE = 4;
+	private static final byte LINE_STYLE = 5;
+	private static final byte NEW_PAGE = 6;
+	private static final byte RECT = 7;
+	private static final byte FONT = 8;
+	private static final byte LINE_HEIGHT = 9;
+	private static final byte TEXT = 10;
+	private static final byte TEXT_ALIGN = 11;
+	private static final byte TEXT_OVERFLOW = 12;
+	private static final byte TEMPLATE = 13;
+
+	private static final String[] COMMAND_NAMES = {
+		null, "align", "box", "image", "line", "line-style", "new-page", "rect", "font", "line-height", "text", "text-align", "text-overflow", "template"
+	};
+
+	/** 解析済みの引数（引数の文字列 → 引数）。同じ引数はプロセス内で共有されます。 */
+	private static Map<String, Arguments> argumentsCache = new ConcurrentHashMap<>();
+	private static AtomicInteger argumentsCount = new AtomicInteger();
+
+	/** 追加した順番に並んだ命令のまとまり（テンプレートの参照、またはこの印字データに追加した命令） */
+	private List<Commands> segments = new ArrayList<>();
+
+	/** 命令を追加中のまとまり */
+	private Commands tail;
+
+	/** 命令の数 */
+	private int size;
+
+	/** 用紙サイズ（最初に指定された \media の引数） */
+	private Arguments media;
+
+	/** テンプレートとして共有されている場合は true */
+	private boolean isShared;
+
+	/** フォームXObjectとして描画できるテンプレートの場合は true */
+	private boolean isDrawableAsForm;
+
+	/** 用紙サイズを指定します。最初に指定した用紙サイズだけが有効です。
+	 *
+	 * @param args 用紙サイズ（A4 など）または幅と高さ (mm)
+	 */
+	public void media(String args) {
+		if(media == null) {
+			media = getArguments(args);
+		}
+	}
+
+	public void align(int indent, String args) {
+		append(ALIGN, indent, getArguments(args));
+	}
+
+	public void box(int indent, double x, double y, double width, double height) {
+		append(BOX, indent, x, y, width, height);
+	}
+
+	public void line(int indent, double x1, double y1, double x2, double y2) {
+		append(LINE, indent, x1, y1, x2, y2);
+	}
+
+	public void rect(int indent, double x, double y, double width, double height) {
+		append(RECT, indent, x, y, width, height);
+	}
+
+	public void lineStyle(int indent, String args) {
+		append(LINE_STYLE, indent, getArguments(args));
+	}
+
+	public void newPage(int indent) {
+		append(NEW_PAGE, indent, getArguments(""));
+	}
+
+	public void font(int indent, String args) {
+		append(FONT, indent, getArguments(args));
+	}
+
+	public void lineHeight(int indent, String args) {
+		append(LINE_HEIGHT, indent, getArguments(args));
+	}
+
+	/** テキストを追加します。
+	 * .pb 形式の \text と同じように \n は改行に、タブは空白に置き換えられます。空のテキストは追加されません。
+	 *
+	 * @param indent インデント
+	 * @param text テキスト
+	 */
+	public void text(int indent, String text) {
+		text = text.replace("\\n", "\n").replace('\t', ' ');
+		if(text.length() > 0) {
+			append(TEXT, indent, text);
+		}
+	}
+
+	public void textAlign(int indent, String args) {
+		append(TEXT_ALIGN, indent, getArguments(args));
+	}
+
+	public void textOverflow(int indent, String args) {
+		append(TEXT_OVERFLOW, indent, getArguments(args));
+	}
+
+	/** .pb 形式の 1行を解析して命令を追加します。
+	 * 命令ではない行（コメントなど）は無視されます。
+	 *
+	 * @param line .pb 形式の行
+	 */
+	public void add(String line) {
+		int i = 0;
+		StringBuilder indent = new StringBuilder();
+		for(; i < line.length(); i++) {
+			char c = line.charAt(i);
+			if(c == ' ' || c == '\t') {
+				indent.append(c);
+			} else if(c == '　') {
+				indent.append("  ");
+			} else {
+				break;
+			}
+		}
+		int level = getIndent(indent);
+		String s = line.substring(i);
+		if(!s.startsWith("\\")) {
+			return;
+		}
+		int end = 1;
+		while(end < s.length() && !Character.isWhitespace(s.charAt(end))) {
+			end++;
+		}
+		String command = s.substring(1, end).toLowerCase();
+		String args = end < s.length() ? s.substring(end + 1) : "";
+		switch(command) {
+		case "media":
+			media(args);
+			break;
+		case "align":
+			align(level, args);
+			break;
+		case "box":
+		case "line":
+		case "rect":
+			List<Object> tokens = getArguments(args).tokens;
+			if(tokens.size() != 4
+					|| !(tokens.get(0) instanceof Double) || !(tokens.get(1) instanceof Double)
+					|| !(tokens.get(2) instanceof Double) || !(tokens.get(3) instanceof Double)) {
+				throw new IllegalArgumentException(line);
+			}
+			byte op = command.equals("box") ? BOX : (command.equals("line") ? LINE : RECT);
+			append(op, level, (Double)tokens.get(0), (Double)tokens.get(1), (Double)tokens.get(2), (Double)tokens.get(3));
+			break;
+		case "image":
+			append(IMAGE, level, getArguments(args));
+			break;
+		case "line-style":
+			lineStyle(level, args);
+			break;
+		case "new-page":
+			newPage(level);
+			break;
+		case "font":
+			font(level, args);
+			break;
+		case "line-height":
+			lineHeight(level, args);
+			break;
+		case "text":
+			text(level, args);
+			break;
+		case "text-align":
+			textAlign(level, args);
+			break;
+		case "text-overflow":
+			textOverflow(level, args);
+			break;
+		}
+	}
+
+	/** テンプレートを追加します。
+	 * テンプレートの命令はコピーされずに参照として保持されます。
+	 *
+	 * @param template テンプレート (Templates#get で取得した印字データ)
+	 */
+	public void addTemplate(PrintData template) {
+		if(!template.isShared) {
+			throw new IllegalArgumentException("template is not shared");
+		}
+		if(media == null) {
+			media = template.media;
+		}
+		if(template.isDrawableAsForm) {
+			append(TEMPLATE, 0, template);
+			return;
+		}
+		for(Commands commands : template.segments) {
+			segments.add(commands);
+			size += commands.size;
+		}
+		tail = null;
+	}
+
+	/** 命令の数を返します。
+	 *
+	 * @return 命令の数
+	 */
+	public int size() {
+		return size;
+	}
+
+	/** 印字データを変更できないようにして、テンプレートとして共有できるようにします。
+	 *
+	 * @return この印字データ
+	 */
+	PrintData share() {
+		isShared = true;
+		isDrawableAsForm = isDrawableAsForm();
+		tail = null;
+		return this;
+	}
+
+	/** フォームXObjectとして描画できるかどうかを返します。
+	 * テンプレートを描画した後の状態（インデント 0 の領域と、続く命令が引き継ぐ属性）が、
+	 * 命令を順番に処理した場合と同じになるテンプレートだけをフォームXObjectとして描画します。
+	 * つまり、インデント 0 で領域やテキストを変更せず、最後の命令がインデント 0 であるテンプレートです。
+	 *
+	 * @return フォームXObjectとして描画できる場合は true
+	 */
+	private boolean isDrawableAsForm() {
+		int lastIndent = -1;
+		for(Commands commands : segments) {
+			for(int i = 0; i < commands.size; i++) {
+				byte op = commands.ops[i];
+				if(op == NEW_PAGE || op == TEMPLATE) {
+					return false;
+				}
+				if(commands.indents[i] == 0 && (op == BOX || op == IMAGE || op == TEXT)) {
+					return false;
+				}
+				lastIndent = commands.indents[i];
+			}
+		}
+		return lastIndent == 0;
+	}
+
+	/** PdfBrewer の命令のリストを返します。
+	 * 命令はリストを列挙するときに 1つずつ作成されます。
+	 *
+	 * @param fontLoader フォントローダー
+	 * @return 命令のリスト
+	 */
+	List<Instruction> getInstructions(FontLoader fontLoader) {
+		return new InstructionList(fontLoader);
+	}
+
+	/** PdfBrewer で処理するための BrewerData を作成します。
+	 * 命令はこのメソッドで作成されるのではなく、PdfBrewer が命令を列挙するときに 1つずつ作成されます。
+	 *
+	 * @param fontLoader フォントローダー
+	 * @return BrewerData
+	 * @throws IOException I/Oエラーが発生した場合
+	 */
+	public BrewerData toBrewerData(FontLoader fontLoader) throws IOException {
+		return new PrintDataBrewerData(this, fontLoader);
+	}
+
+	/** 印字データから作成した BrewerData
+	 * 作成元の印字データを参照できるため、PdfBrewer に渡されたページの内容を .pb 形式のテキストで確認できます。
+	 *
+	 */
+	static class PrintDataBrewerData extends BrewerData {
+
+		private PrintData printData;
+		private PDRectangle mediaBox;
+		private List<Instruction> instructions;
+
+		private PrintDataBrewerData(PrintData printData, FontLoader fontLoader) throws IOException {
+			super(Collections.<String>emptyList(), fontLoader);
+			this.printData = printData;
+			this.mediaBox = (printData.media != null) ? new Media(0, new ArrayList<>(printData.media.tokens)).getRectangle() : null;
+			this.instructions = printData.new InstructionList(fontLoader);
+		}
+
+		/** 作成元の印字データを返します。
+		 *
+		 * @return 印字データ
+		 */
+		PrintData getPrintData() {
+			return printData;
+		}
+
+		@Override
+		public PDRectangle getMediaBox() {
+			return mediaBox;
+		}
+
+		@Override
+		public List<Instruction> getInstructions() {
+			return instructions;
+		}
+	}
+
+	/** 印字データを .pb 形式のテキストで返します（デバッグ用）。
+	 */
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		if(media != null) {
+			sb.append("\\media ").append(media.source).append("\r\n");
+		}
+		appendCommands(sb);
+		return sb.toString();
+	}
+
+	private void appendCommands(StringBuilder sb) {
+		for(Commands commands : segments) {
+			for(int i = 0; i < commands.size; i++) {
+				if(commands.ops[i] == TEMPLATE) {
+					((PrintData)commands.objects[i]).appendCommands(sb);
+					continue;
+				}
+				for(int j = 0; j < commands.indents[i]; j++) {
+					sb.append('\t');
+				}
+				byte op = commands.ops[i];
+				sb.append('\\').append(COMMAND_NAMES[op]);
+				Object o = commands.objects[i];
+				if(o == null) {
+					int n = commands.refs[i];
+					for(int j = 0; j < 4; j++) {
+						sb.append(' ').append(format(commands.numbers[n + j]));
+					}
+				} else if(o instanceof Arguments) {
+					if(((Arguments)o).source.length() > 0) {
+						sb.append(' ').append(((Arguments)o).source);
+					}
+				} else {
+					sb.append(' ').append(((String)o).replace("\n", "\\n"));
+				}
+				sb.append("\r\n");
+			}
+		}
+	}
+
+	private static String format(double value) {
+		if(value == -Double.MIN_VALUE) {
+			return "-0";
+		} else if(value == (long)value) {
+			return Long.toString((long)value);
+		}
+		return Double.toString(value);
+	}
+
+	private void append(byte op, int indent, Object object) {
+		writableTail().add(op, indent, object);
+		size++;
+	}
+
+	private void append(byte op, int indent, double p1, double p2, double p3, double p4) {
+		writableTail().add(op, indent, normalize(p1), normalize(p2), normalize(p3), normalize(p4));
+		size++;
+	}
+
+	private Commands writableTail() {
+		if(isShared) {
+			throw new IllegalStateException("shared template cannot be modified");
+		}
+		if(tail == null) {
+			tail = new Commands();
+			segments.add(tail);
+		}
+		return tail;
+	}
+
+	/** -0 を PdfBrewer の .pb 形式と同じ値に変換します。
+	 * .pb 形式の -0 は右端・下端からの位置を表すため、負の最小値として扱われます。
+	 */
+	private static double normalize(double value) {
+		if(value == 0.0 && Double.doubleToRawLongBits(value) != 0L) {
+			return -Double.MIN_VALUE;
+		}
+		return value;
+	}
+
+	/** インデントの空白をタブの数に変換します。（BrewerData と同じ規則で空白をタブに置き換えてから数えます） */
+	private static int getIndent(StringBuilder indent) {
+		for(String from : new String[] { "   \t", "  \t", " \t", "   ", "  ", " " }) {
+			int i = 0;
+			while((i = indent.indexOf(from, i)) != -1) {
+				indent.replace(i, i + from.length(), "\t");
+				i++;
+			}
+		}
+		return indent.length();
+	}
+
+	private static Arguments getArguments(String source) {
+		Arguments args = argumentsCache.get(source);
+		if(args == null) {
+			args = argumentsCache.computeIfAbsent(source, s -> new Arguments(s, argumentsCount.getAndIncrement()));
+		}
+		return args;
+	}
+
+	/** 解析済みの引数
+	 * 引数の文字列を .pb 形式と同じ規則で数値と文字列に分解したものです。
+	 */
+	private static class Arguments {
+		private final String source;
+		private final List<Object> tokens;
+		private final int id;
+
+		private Arguments(String source, int id) {
+			this.source = source;
+			this.id = id;
+			List<Object> list = new ArrayList<>();
+			try(Scanner scanner = new Scanner(source)) {
+				while(scanner.hasNext()) {
+					String s = scanner.next();
+					try {
+						double d = Double.parseDouble(s);
+						if(d == 0.0 && s.charAt(0) == '-') {
+							d = -Double.MIN_VALUE;
+						}
+						list.add(d);
+					} catch(NumberFormatException e) {
+						list.add(s);
+					}
+				}
+			}
+			this.tokens = Collections.unmodifiableList(list);
+		}
+	}
+
+	/** 命令のまとまり
+	 * 命令の種類・インデント・座標を配列で保持します。
+	 */
+	private static class Commands {
+		private byte[] ops = new byte[64];
+		private byte[] indents = new byte[64];
+		private int[] refs = new int[64];
+		private Object[] objects = new Object[64];
+		private double[] numbers = new double[64];
+		private int size;
+		private int numberCount;
+
+		private void add(byte op, int indent, Object object) {
+			ensureCapacity();
+			ops[size] = op;
+			indents[size] = (byte)indent;
+			objects[size] = object;
+			size++;
+		}
+
+		private void add(byte op, int indent, double p1, double p2, double p3, double p4) {
+			ensureCapacity();
+			if(numberCount + 4 > numbers.length) {
+				numbers = Arrays.copyOf(numbers, numbers.length * 2);
+			}
+			ops[size] = op;
+			indents[size] = (byte)indent;
+			refs[size] = numberCount;
+			numbers[numberCount++] = p1;
+			numbers[numberCount++] = p2;
+			numbers[numberCount++] = p3;
+			numbers[numberCount++] = p4;
+			size++;
+		}
+
+		private void ensureCapacity() {
+			if(size == ops.length) {
+				int capacity = size * 2;
+				ops = Arrays.copyOf(ops, capacity);
+				indents = Arrays.copyOf(indents, capacity);
+				refs = Arrays.copyOf(refs, capacity);
+				objects = Arrays.copyOf(objects, capacity);
+			}
+		}
+	}
+
+	/** 印字データの命令を PdfBrewer の命令として列挙するリスト
+	 * 命令は列挙するときに 1つずつ作成されます。
+	 * 属性を設定する命令 (\align, \font など) は引数とインデントが同じであれば同じインスタンスを使います。
+	 */
+	private class InstructionList extends AbstractList<Instruction> {
+
+		private FontLoader fontLoader;
+
+		/** 属性を設定する命令のキャッシュ [命令の種類][引数のID][インデント] */
+		private Instruction[][][] cache = new Instruction[COMMAND_NAMES.length][][];
+
+		private InstructionList(FontLoader fontLoader) {
+			this.fontLoader = fontLoader;
+		}
+
+		@Override
+		public Instruction get(int index) {
+			if(index < 0 || index >= size) {
+				throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+			}
+			for(Commands commands : segments) {
+				if(index < commands.size) {
+					return create(commands, index);
+				}
+				index -= commands.size;
+			}
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public Iterator<Instruction> iterator() {
+			return new Iterator<Instruction>() {
+				private int segment;
+				private int index;
+
+				@Override
+				public boolean hasNext() {
+					while(segment < segments.size()) {
+						if(index < segments.get(segment).size) {
+							return true;
+						}
+						segment++;
+						index = 0;
+					}
+					return false;
+				}
+
+				@Override
+				public Instruction next() {
+					if(!hasNext()) {
+						throw new NoSuchElementException();
+					}
+					return create(segments.get(segment), index++);
+				}
+			};
+		}
+
+		private Instruction create(Commands commands, int i) {
+			byte op = commands.ops[i];
+			int indent = commands.indents[i];
+			switch(op) {
+			case BOX:
+			case LINE:
+			case RECT:
+				int n = commands.refs[i];
+				List<Object> params = Arrays.asList(commands.numbers[n], commands.numbers[n + 1], commands.numbers[n + 2], commands.numbers[n + 3]);
+				if(op == BOX) {
+					return new Box(indent, params);
+				} else if(op == LINE) {
+					return new Line(indent, params);
+				}
+				return new Rect(indent, params);
+			case TEXT:
+				return new Text(indent, (String)commands.objects[i]);
+			case TEMPLATE:
+				return new TemplateInstruction(indent, (PrintData)commands.objects[i], fontLoader);
+			default:
+				return getCached(op, indent, (Arguments)commands.objects[i]);
+			}
+		}
+
+		private Instruction getCached(byte op, int indent, Arguments args) {
+			Instruction[][] byArguments = cache[op];
+			if(byArguments == null || byArguments.length <= args.id) {
+				byArguments = cache[op] = (byArguments == null)
+						? new Instruction[args.id + 16][]
+						: Arrays.copyOf(byArguments, Math.max(byArguments.length * 2, args.id + 1));
+			}
+			Instruction[] byIndent = byArguments[args.id];
+			if(byIndent == null || byIndent.length <= indent) {
+				byIndent = byArguments[args.id] = (byIndent == null)
+						? new Instruction[indent + 4]
+						: Arrays.copyOf(byIndent, indent + 4);
+			}
+			Instruction instruction = byIndent[indent];
+			if(instruction == null) {
+				instruction = byIndent[indent] = createAttribute(op, indent, args);
+			}
+			return instruction;
+		}
+
+		private Instruction createAttribute(byte op, int indent, Arguments args) {
+			List<Object> params = new ArrayList<>(args.tokens);
+			switch(op) {
+			case ALIGN:
+				return new Align(indent, params);
+			case IMAGE:
+				return new Image(indent, params);
+			case LINE_STYLE:
+				return new LineStyle(indent, params);
+			case NEW_PAGE:
+				return new NewPage(indent, params);
+			case FONT:
+				try {
+					return new Font(fontLoader, indent, params);
+				} catch(IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			case LINE_HEIGHT:
+				return new LineHeight(indent, params);
+			case TEXT_ALIGN:
+				return new TextAlign(indent, params);
+			case TEXT_OVERFLOW:
+				return new TextOverflow(indent, params);
+			}
+			throw new IllegalArgumentException("unknown command: " + op);
+		}
+	}
+
+	/** テンプレートを描画する命令
+	 * SharedFontPdfBrewer ではテンプレートをドキュメントごとに 1度だけフォームXObjectとして描画し、ページからはそれを参照します。
+	 * その他の PdfBrewer では、テンプレートの命令を順番に処理します。
+	 * どちらの場合も、テンプレートを描画した後の属性（線の種類など）は命令を順番に処理した場合と同じになります。
+	 */
+	static class TemplateInstruction extends Instruction {
+
+		private PrintData template;
+		private FontLoader fontLoader;
+
+		private TemplateInstruction(int indent, PrintData template, FontLoader fontLoader) {
+			super(indent, null);
+			this.template = template;
+			this.fontLoader = fontLoader;
+		}
+
+		/** 描画するテンプレートを返します。
+		 *
+		 * @return テンプレート
+		 */
+		PrintData getTemplate() {
+			return template;
+		}
+
+		@Override
+		public void process(PdfBrewer brewer, Context context) throws IOException {
+			if(brewer instanceof SharedFontPdfBrewer) {
+				((SharedFontPdfBrewer)brewer).drawTemplate(template, context);
+			} else {
+				Context base = new Context(context, context.getIndent());
+				process(brewer, base, template.getInstructions(fontLoader));
+				copyAttributes(base, context);
+			}
+		}
+
+		/** 命令を PdfBrewer#process と同じ規則で処理します。
+		 * インデント 0 の命令は指定したコンテキストで処理され、それより深いインデントの命令は子のコンテキストで処理されます。
+		 *
+		 * @param brewer PdfBrewer
+		 * @param base インデント 0 の命令を処理するコンテキスト
+		 * @param instructions 命令のリスト
+		 * @throws IOException I/Oエラーが発生した場合
+		 */
+		static void process(PdfBrewer brewer, Context base, List<Instruction> instructions) throws IOException {
+			ArrayDeque<Context> stack = new ArrayDeque<>();
+			Context context = base;
+			int baseIndent = base.getIndent();
+			TextBuffer textBuffer = new TextBuffer();
+			for(Instruction instruction : instructions) {
+				int indent = baseIndent + instruction.getIndent();
+				while(indent < context.getIndent()) {
+					if(!textBuffer.isEmpty()) {
+						textBuffer.process(brewer, context);
+						textBuffer.clear();
+					}
+					context = stack.pop();
+				}
+				if(indent > context.getIndent()) {
+					if(!textBuffer.isEmpty()) {
+						textBuffer.process(brewer, context);
+						textBuffer.clear();
+					}
+					stack.push(context);
+					context = new Context(context, indent);
+				}
+				if(instruction instanceof TextBufferingInstruction) {
+					textBuffer.add((TextBufferingInstruction)instruction);
+					continue;
+				}
+				if(!textBuffer.isEmpty()) {
+					textBuffer.process(brewer, context);
+					textBuffer.clear();
+				}
+				instruction.process(brewer, context);
+			}
+			if(!textBuffer.isEmpty()) {
+				textBuffer.process(brewer, context);
+				textBuffer.clear();
+			}
+		}
+
+		/** テンプレートの処理で変更された属性をコンテキストに反映します。
+		 * テンプレートはインデント 0 の領域を変更しないため、領域以外の属性をコピーします。
+		 *
+		 * @param from テンプレートを処理したコンテキスト
+		 * @param to 属性を反映するコンテキスト
+		 * @throws IOException I/Oエラーが発生した場合
+		 */
+		static void copyAttributes(Context from, Context to) throws IOException {
+			if(!from.getFontName().equals(to.getFontName()) || from.getFontSize() != to.getFontSize()) {
+				to.setFont(from.getFontName(), from.getFontSize());
+			}
+			to.setLineHeight(from.getLineHeight());
+			to.setTextAlignment(from.getTextAlignment());
+			to.setTextOverflow(from.getTextOverflow());
+			to.setLineWidth(from.getLineWidth());
+			to.setLineStyle(from.getLineStyle());
+			to.setCapStyle(from.getCapStyle());
+			to.setHorizontalAlignment(from.getHorizontalAlignment());
+			to.setVerticalAlignment(from.getVerticalAlignment());
+		}
+	}
+}
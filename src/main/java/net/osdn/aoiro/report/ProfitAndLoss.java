@@ -1,14 +1,9 @@
 package net.osdn.aoiro.report;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.io.OutputStream;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.time.LocalDate;
-import java.time.YearMonth;
 import java.time.chrono.JapaneseChronology;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
@@ -22,6 +17,7 @@ import java.util.Set;
 
 import net.osdn.aoiro.AccountSettlement;
 import net.osdn.aoiro.Util;
+import net.osdn.aoiro.model.Account;
 import net.osdn.aoiro.model.AccountTitle;
 import net.osdn.aoiro.model.Amount;
 import net.osdn.aoiro.model.Creditor;
@@ -38,7 +34,8 @@ import net.osdn.pdf_brewer.PdfBrewer;
  */
 public class ProfitAndLoss {
 	
-	public static String MINUS_SIGN = "△";
+	/** 負の金額に付ける既定の符号 */
+	public static final String MINUS_SIGN = "△";
 	private static final int ROWS = 40;
 	private static final double ROW_HEIGHT = 6.0;
 	
@@ -51,12 +48,26 @@ public class ProfitAndLoss {
 	private Map<AccountTitle, Amount> incomeSummaries = new HashMap<>();
 	private List<Node<Entry<List<AccountTitle>, Amount>>> list;
 	private List<Entry<String, Amount[]>> monthlyTotals;
-	private List<String> pageData = new ArrayList<>();
-	private List<String> printData;
+	private PrintData pageData;
+	private PrintData printData;
 	private FontLoader fontLoader;
 	private boolean bindingMarginEnabled = true;
+	private String minusSign = MINUS_SIGN;
 
 	public ProfitAndLoss(ProfitAndLossLayout plLayout, List<JournalEntry> journalEntries, boolean isSoloProprietorship) throws IOException {
+		this(plLayout, journalEntries, isSoloProprietorship, new MonthlyTotals(journalEntries, isSoloProprietorship));
+	}
+
+	/** 損益計算書を作成します。
+	 * 月別売上（収入）金額及び仕入金額は、総勘定元帳と共有する勘定科目ごとの月別集計から求めます。
+	 *
+	 * @param plLayout 損益計算書の構成
+	 * @param journalEntries 仕訳リスト
+	 * @param isSoloProprietorship 個人事業主の場合は true
+	 * @param accountMonthlyTotals 同じ仕訳リストから作成した勘定科目ごとの月別集計
+	 * @throws IOException I/Oエラーが発生した場合
+	 */
+	public ProfitAndLoss(ProfitAndLossLayout plLayout, List<JournalEntry> journalEntries, boolean isSoloProprietorship, MonthlyTotals accountMonthlyTotals) throws IOException {
 		this.plLayout = plLayout;
 		this.journalEntries = journalEntries;
 		this.isSoloProprietorship = isSoloProprietorship;
@@ -105,21 +116,19 @@ public class ProfitAndLoss {
 		//list = getList(plRoot);
 
 		//月別集計
-		monthlyTotals = getMonthlyTotals(journalEntries);
+		monthlyTotals = getMonthlyTotals(accountMonthlyTotals);
 		
-		InputStream in = getClass().getResourceAsStream("/templates/損益計算書.pb");
-		BufferedReader r = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
-		String line;
-		while((line = r.readLine()) != null) {
-			pageData.add(line);
-		}
-		r.close();
+		pageData = Templates.get("損益計算書");
 	}
 
 	public List<JournalEntry> getJournalEntries() {
 		return journalEntries;
 	}
 
+	public ProfitAndLossLayout getLayout() {
+		return plLayout;
+	}
+
 	public Map<AccountTitle, Amount> getIncomeSummaries() {
 		return incomeSummaries;
 	}
@@ -221,105 +230,84 @@ public class ProfitAndLoss {
 	}
 
 	//月別集計
-	protected List<Entry<String, Amount[]>> getMonthlyTotals(List<JournalEntry> journalEntries) {
+	protected List<Entry<String, Amount[]>> getMonthlyTotals(MonthlyTotals accountMonthlyTotals) {
+		Set<AccountTitle> salesAccounts = getGroupAccounts(plLayout.getRoot(), "売上");
+		Set<AccountTitle> purchaseAccounts = getGroupAccounts(plLayout.getRoot(), "仕入");
+		//売上と仕入の両方のグループにある勘定科目は売上として集計します。
+		purchaseAccounts.removeAll(salesAccounts);
+
 		Map<String, Amount[]> map = new LinkedHashMap<>();
 		if(this.openingDate != null) {
-			if(isSoloProprietorship) {
-				// 個人の場合は仕訳の開始日に関わらず 1月～12月の順番で表示します。
-				for(int i = 0; i < 12; i++) {
-					String month = (i + 1) + "月";
-					map.put(month, new Amount[2]);
+			// 個人の場合は仕訳の開始日に関わらず 1月～12月の順番で表示します。
+			// 法人の場合は仕訳の開始日の月から順番に12ヶ月を表示します。（翌年同月の前の月までになります。）
+			int firstMonth = isSoloProprietorship ? 1 : this.openingDate.getMonthValue();
+			for(int i = 0; i < 12; i++) {
+				int month = (firstMonth - 1 + i) % 12 + 1;
+				Amount[] amounts = new Amount[2];
+				for(AccountTitle accountTitle : salesAccounts) {
+					String displayName = accountTitle.getDisplayName();
+					if(displayName.equals("家事消費等") || displayName.equals("雑収入")) {
+						continue;
+					}
+					// 月別の売上および同じグループの勘定科目
+					amounts[0] = addMonthlyTotal(amounts[0], Creditor.class, accountMonthlyTotals, accountTitle, month);
 				}
-			} else {
-				// 法人の場合は仕訳の開始日の月から順番に12ヶ月を表示します。（翌年同月の前の月までになります。）
-				YearMonth ym = YearMonth.from(this.openingDate);
-				for(int i = 0; i < 12; i++) {
-					String month = ym.plusMonths(i).getMonthValue() + "月";
-					map.put(month, new Amount[2]);
+				for(AccountTitle accountTitle : purchaseAccounts) {
+					// 月別の仕入および同じグループの勘定科目
+					amounts[1] = addMonthlyTotal(amounts[1], Debtor.class, accountMonthlyTotals, accountTitle, month);
 				}
+				map.put(month + "月", amounts);
 			}
 		}
+		// 家事消費等または雑収入（法人の場合は「家事消費等」はありません。）
 		if(isSoloProprietorship) {
 			map.put("家事消費等", new Amount[2]);
 		}
 		map.put("雑収入", new Amount[2]);
-
-		Set<AccountTitle> salesAccounts = getGroupAccounts(plLayout.getRoot(), "売上");
-		Set<AccountTitle> purchaseAccounts = getGroupAccounts(plLayout.getRoot(), "仕入");
-
-		for(JournalEntry entry : journalEntries) {
-			//開始仕訳と締切仕訳は集計に含めません。
-			if(entry.isOpening(isSoloProprietorship, openingDate) || entry.isClosing()) {
-				continue;
-			}
-			String month = entry.getDate().getMonthValue() + "月";
-			
-			for(Debtor debtor : entry.getDebtors()) {
-				if(salesAccounts.contains(debtor.getAccountTitle())) {
-					String displayName = debtor.getAccountTitle().getDisplayName();
-					if(displayName.equals("家事消費等") || displayName.equals("雑収入")) {
-						// 家事消費等または雑収入
-						Amount[] amounts = map.get(displayName);
-						if(amounts != null) { // 法人の場合は「家事消費等」がないためamountsがnullになる可能性があります。
-							if(amounts[0] == null) {
-								amounts[0] = new Amount(Creditor.class, 0);
-							}
-							amounts[0].decrease(debtor.getAmount());
-						}
-					} else {
-						// 月別の売上および同じグループの勘定科目
-						Amount[] amounts = map.get(month);
-						if(amounts[0] == null) {
-							amounts[0] = new Amount(Creditor.class, 0);
-						}
-						amounts[0].decrease(debtor.getAmount());
-					}
-				} else if(purchaseAccounts.contains(debtor.getAccountTitle())) {
-					// 月別の仕入および同じグループの勘定科目
-					Amount[] amounts = map.get(month);
-					if(amounts[1] == null) {
-						amounts[1] = new Amount(Debtor.class, 0);
-					}
-					amounts[1].increase(debtor.getAmount());
-				}
-			}
-			for(Creditor creditor : entry.getCreditors()) {
-				if(salesAccounts.contains(creditor.getAccountTitle())) {
-					String displayName = creditor.getAccountTitle().getDisplayName();
-					if(displayName.equals("家事消費等") || displayName.equals("雑収入")) {
-						// 家事消費等または雑収入
-						Amount[] amounts = map.get(displayName);
-						if (amounts != null) { // 法人の場合は「家事消費等」がないためamountsがnullになる可能性があります。
-							if (amounts[0] == null) {
-								amounts[0] = new Amount(Creditor.class, 0);
-							}
-							amounts[0].increase(creditor.getAmount());
-						}
-					} else {
-						// 月別の売上および同じグループの勘定科目
-						Amount[] amounts = map.get(month);
-						if(amounts[0] == null) {
-							amounts[0] = new Amount(Creditor.class, 0);
-						}
-						amounts[0].increase(creditor.getAmount());
-					}
-				} else if(purchaseAccounts.contains(creditor.getAccountTitle())) {
-					// 月別の仕入および同じグループの勘定科目
-					Amount[] amounts = map.get(month);
-					if(amounts[1] == null) {
-						amounts[1] = new Amount(Debtor.class, 0);
-					}
-					amounts[1].decrease(creditor.getAmount());
+		for(AccountTitle accountTitle : salesAccounts) {
+			String displayName = accountTitle.getDisplayName();
+			Amount[] amounts = (displayName.equals("家事消費等") || displayName.equals("雑収入")) ? map.get(displayName) : null;
+			if(amounts != null) {
+				for(int month = 1; month <= 12; month++) {
+					amounts[0] = addMonthlyTotal(amounts[0], Creditor.class, accountMonthlyTotals, accountTitle, month);
 				}
 			}
 		}
-		
+
 		List<Entry<String, Amount[]>> list = new ArrayList<Entry<String, Amount[]>>();
 		for(Entry<String, Amount[]> e : map.entrySet()) {
 			list.add(e);
 		}
 		return list;
 	}
+
+	/** 月別集計の金額に、指定した勘定科目と月の金額を加算します。
+	 * 勘定がない月は加算しません。
+	 *
+	 * @param amount 加算先の金額（null の場合は勘定があれば新しく作成します）
+	 * @param normalBalance 加算先の金額の借方または貸方
+	 * @param accountMonthlyTotals 勘定科目ごとの月別集計
+	 * @param accountTitle 勘定科目
+	 * @param month 月の値（1～12）
+	 * @return 加算後の金額（勘定がない場合は amount のまま）
+	 */
+	private static Amount addMonthlyTotal(Amount amount, Class<? extends Account> normalBalance, MonthlyTotals accountMonthlyTotals, AccountTitle accountTitle, int month) {
+		if(accountMonthlyTotals.contains(accountTitle, month)) {
+			if(amount == null) {
+				amount = new Amount(normalBalance, 0);
+			}
+			long debtorAmount = accountMonthlyTotals.getDebtorAmount(accountTitle, month);
+			long creditorAmount = accountMonthlyTotals.getCreditorAmount(accountTitle, month);
+			if(normalBalance == Debtor.class) {
+				amount.increase(debtorAmount);
+				amount.decrease(creditorAmount);
+			} else {
+				amount.increase(creditorAmount);
+				amount.decrease(debtorAmount);
+			}
+		}
+		return amount;
+	}
 	
 	protected void prepare() {
 		
@@ -331,38 +319,38 @@ public class ProfitAndLoss {
 		String openingDate = dtf.format(this.openingDate).replace(" 1 年", "元年");
 		String closingDate = dtf.format(this.closingDate).replace(" 1 年", "元年");
 		
-		printData = new ArrayList<String>();
+		printData = new PrintData();
 		if(bindingMarginEnabled) {
-			printData.add("\\media A4");
+			printData.media("A4");
 
 			//穴あけパンチの位置を合わせるための中心線を先頭ページのみ印字します。
-			printData.add("\\line-style thin dot");
-			printData.add("\\line 0 148.5 5 148.5");
+			printData.lineStyle(0, "thin dot");
+			printData.line(0, 0, 148.5, 5, 148.5);
 
-			printData.add("\\box 15 0 0 0");
-			printData.add("\\line-style thin dot");
-			printData.add("\\line 0 0 0 -0");
-			printData.add("\\box 25 0 -10 -10");
+			printData.box(0, 15, 0, 0, 0);
+			printData.lineStyle(0, "thin dot");
+			printData.line(0, 0, 0, 0, -0.0);
+			printData.box(0, 25, 0, -10, -10);
 		} else {
 			// 綴じ代なしの場合は15mm分だけ横幅を短くして195mmとします。(A4本来の横幅は210mm)
 			// 穴あけパンチ用の中心線も出力しません。
-			printData.add("\\media 195 297");
+			printData.media("195 297");
 
-			printData.add("\\box 10 0 -10 -10");
+			printData.box(0, 10, 0, -10, -10);
 		}
 
-		printData.addAll(pageData);
+		printData.addTemplate(pageData);
 
 		//日付
-		printData.add("\t\\box 0 16 -0 7");
-		printData.add("\t\\font serif 10");
-		printData.add("\t\\align center");
-		printData.add("\t\\text " + openingDate + " ～ " + closingDate);
+		printData.box(1, 0, 16, -0.0, 7);
+		printData.font(1, "serif 10");
+		printData.align(1, "center");
+		printData.text(1, openingDate + " ～ " + closingDate);
 
 		//印字領域の設定
-		printData.add("\t\\box 0 37 -0 -0");
-		printData.add("\t\\font serif 10");
-		printData.add("\t\\line-style thin dot");
+		printData.box(1, 0, 37, -0.0, -0.0);
+		printData.font(1, "serif 10");
+		printData.lineStyle(1, "thin dot");
 		
 		double y = 0.0;
 		for(int i = 0; i < list.size(); i++) {
@@ -380,11 +368,11 @@ public class ProfitAndLoss {
 
 			if(i >= 1) {
 				if(node.isSubTotal()) {
-					printData.add("\t\\line-style thin solid");
+					printData.lineStyle(1, "thin solid");
 				} else {
-					printData.add("\t\\line-style thin dot");
+					printData.lineStyle(1, "thin dot");
 				}
-				printData.add("\t\\line " + String.format("0 %.2f 95 %.2f", y, y));
+				printData.line(1, 0, y, 95, y);
 			}
 
 			// ノードのレベル 0 または、レベル 0 のノード数が 1つの場合は ノードレベル 1 もボールド表示にします。
@@ -395,39 +383,39 @@ public class ProfitAndLoss {
 			// 「売上総利益」「営業利益」「経常利益」「税引前当期純利益」「当期純利益」です。
 			// これらもボールド表示にします。
 			if(node.getLevel() == 0 || (plLayout.getRoot().getChildren().size() == 1 && node.getLevel() == 1)) {
-				printData.add("\t\t\\font serif 10 bold");
+				printData.font(2, "serif 10 bold");
 			} else {
-				printData.add("\t\t\\font serif 10");
+				printData.font(2, "serif 10");
 			}
 			StringBuilder displayName = new StringBuilder();
 			for(int j = 1; j < node.getLevel(); j++) {
 				displayName.append("\u3000 ");//階層ごとに全角スペース1つと半角スペース1つを追加します。
 			}
 			displayName.append(node.getName());
-			printData.add("\t\t\\box " + String.format("2 %.2f 63 %.2f", y, ROW_HEIGHT));
-			printData.add("\t\t\\align center left");
-			printData.add("\t\t\\text " + displayName);
+			printData.box(2, 2, y, 63, ROW_HEIGHT);
+			printData.align(2, "center left");
+			printData.text(2, displayName.toString());
 			
 			if(amount != null) {
-				printData.add("\t\t\\box " + String.format("63 %.2f 27 %.2f", y, ROW_HEIGHT));
-				printData.add("\t\t\\align center right");
+				printData.box(2, 63, y, 27, ROW_HEIGHT);
+				printData.align(2, "center right");
 				int sign = plLayout.isSignReversed(node.getName()) ? -1 : 1;
-				printData.add("\t\t\\text " + formatMoney(sign * amount.getValue()));
+				printData.text(2, formatMoney(sign * amount.getValue()));
 			}
 			y += ROW_HEIGHT;
 		}
-		printData.add("\t\\line-style thin solid");
+		printData.lineStyle(1, "thin solid");
 		if(y > 0) {
-			printData.add("\t\\line " + String.format("0 %.2f 95 %.2f", y - ROW_HEIGHT, y - ROW_HEIGHT));
-			printData.add("\t\\line " + String.format("0 %.2f 95 %.2f", y, y));
-			printData.add("\t\\line " + String.format("0 %.2f 95 %.2f", y + 0.4, y + 0.4));
+			printData.line(1, 0, y - ROW_HEIGHT, 95, y - ROW_HEIGHT);
+			printData.line(1, 0, y, 95, y);
+			printData.line(1, 0, y + 0.4, 95, y + 0.4);
 		}
-		printData.add("\t\\box 0 0 -0 -0");
-		printData.add("\t\\line " + String.format("63 31.2 63 %.2f", 37 + y));
-		printData.add("\t\\line-style thin dot");
-		printData.add("\t\\line " + String.format(" 0 31.2  0 %.2f", 37 + y));
-		printData.add("\t\\line " + String.format("95 31.2 95 %.2f", 37 + y));
-		printData.add("\t\\box 0 37 -0 -0");
+		printData.box(1, 0, 0, -0.0, -0.0);
+		printData.line(1, 63, 31.2, 63, 37 + y);
+		printData.lineStyle(1, "thin dot");
+		printData.line(1, 0, 31.2, 0, 37 + y);
+		printData.line(1, 95, 31.2, 95, 37 + y);
+		printData.box(1, 0, 37, -0.0, -0.0);
 		
 		//月別
 		Amount salesTotal = null;
@@ -477,40 +465,40 @@ public class ProfitAndLoss {
 		}
 
 		y = 0.0;
-		printData.add("\t\\box 0 37 -0 -0");
-		printData.add("\t\t\\font serif 10");
-		printData.add("\t\t\\line-style thin dot");
+		printData.box(1, 0, 37, -0.0, -0.0);
+		printData.font(2, "serif 10");
+		printData.lineStyle(2, "thin dot");
 		for(Entry<String, Amount[]> e : monthlyTotals) {
 			String displayName = e.getKey();
 			Amount[] amounts = e.getValue();
 
 			if(y > 0.0) {
-				printData.add("\t\t\\line " + String.format("105 %.2f -0 %.2f", y, y));
+				printData.line(2, 105, y, -0.0, y);
 			}
 
 			if(displayName.endsWith("月")) {
-				printData.add("\t\t\t\\box " + String.format("105 %.2f 13.5 %.2f", y, ROW_HEIGHT));
-				printData.add("\t\t\t\\align center right");
+				printData.box(3, 105, y, 13.5, ROW_HEIGHT);
+				printData.align(3, "center right");
 			} else {
-				printData.add("\t\t\\line " + String.format("-0 %.2f 150 %.2f", y + 0.15, y + ROW_HEIGHT - 0.15));
-				printData.add("\t\t\t\\box " + String.format("105 %.2f 20 %.2f", y, ROW_HEIGHT));
-				printData.add("\t\t\t\\align center");
+				printData.line(2, -0.0, y + 0.15, 150, y + ROW_HEIGHT - 0.15);
+				printData.box(3, 105, y, 20, ROW_HEIGHT);
+				printData.align(3, "center");
 			}
-			printData.add("\t\t\t\\text " + displayName);
+			printData.text(3, displayName);
 			
 			if(amounts[0] != null) {
-				printData.add("\t\t\t\\box " + String.format("125 %.2f %.2f %.2f", y, amountPrintWidth, ROW_HEIGHT));
-				printData.add("\t\t\t\\align center right");
-				printData.add("\t\t\t\\text " + formatMoney(amounts[0].getValue()));
+				printData.box(3, 125, y, amountPrintWidth, ROW_HEIGHT);
+				printData.align(3, "center right");
+				printData.text(3, formatMoney(amounts[0].getValue()));
 				if(salesTotal == null) {
 					salesTotal = new Amount(Creditor.class, 0);
 				}
 				salesTotal.increase(amounts[0].getValue());
 			}
 			if(amounts[1] != null) {
-				printData.add("\t\t\t\\box " + String.format("150 %.2f %.2f %.2f", y, amountPrintWidth, ROW_HEIGHT));
-				printData.add("\t\t\t\\align center right");
-				printData.add("\t\t\t\\text " + formatMoney(amounts[1].getValue()));
+				printData.box(3, 150, y, amountPrintWidth, ROW_HEIGHT);
+				printData.align(3, "center right");
+				printData.text(3, formatMoney(amounts[1].getValue()));
 				if(purchaseTotal == null) {
 					purchaseTotal = new Amount(Debtor.class, 0);
 				}
@@ -518,31 +506,31 @@ public class ProfitAndLoss {
 			}
 			y += ROW_HEIGHT;
 		}
-		printData.add("\t\t\\line-style thin solid");
-		printData.add("\t\t\\line " + String.format("105 %.2f -0 %.2f", y, y));
-		printData.add("\t\t\\line " + String.format("105 %.2f -0 %.2f", y + ROW_HEIGHT, y + ROW_HEIGHT));
-		printData.add("\t\t\\line " + String.format("105 %.2f -0 %.2f", y + ROW_HEIGHT + 0.4, y + ROW_HEIGHT + 0.4));
-		printData.add("\t\t\\font serif 10 bold");
-		printData.add("\t\t\t\\box " + String.format("105 %.2f 20 %.2f", y, ROW_HEIGHT));
-		printData.add("\t\t\t\\align center");
-		printData.add("\t\t\t\\text 計");
+		printData.lineStyle(2, "thin solid");
+		printData.line(2, 105, y, -0.0, y);
+		printData.line(2, 105, y + ROW_HEIGHT, -0.0, y + ROW_HEIGHT);
+		printData.line(2, 105, y + ROW_HEIGHT + 0.4, -0.0, y + ROW_HEIGHT + 0.4);
+		printData.font(2, "serif 10 bold");
+		printData.box(3, 105, y, 20, ROW_HEIGHT);
+		printData.align(3, "center");
+		printData.text(3, "計");
 		if(salesTotal != null) {
-			printData.add("\t\t\t\\box " + String.format("125 %.2f %.2f %.2f", y, amountPrintWidth, ROW_HEIGHT));
-			printData.add("\t\t\t\\align center right");
-			printData.add("\t\t\t\\text " + formatMoney(salesTotal.getValue()));
+			printData.box(3, 125, y, amountPrintWidth, ROW_HEIGHT);
+			printData.align(3, "center right");
+			printData.text(3, formatMoney(salesTotal.getValue()));
 		}
 		if(purchaseTotal != null) {
-			printData.add("\t\t\t\\box " + String.format("150 %.2f %.2f %.2f", y, amountPrintWidth, ROW_HEIGHT));
-			printData.add("\t\t\t\\align center right");
-			printData.add("\t\t\t\\text " + formatMoney(purchaseTotal.getValue()));
+			printData.box(3, 150, y, amountPrintWidth, ROW_HEIGHT);
+			printData.align(3, "center right");
+			printData.text(3, formatMoney(purchaseTotal.getValue()));
 		}
-		printData.add("\t\\box 0 31 -0 -0");
-		printData.add("\t\t\\line-style thin dot");
-		printData.add("\t\t\\line " + String.format("105 0.2 105 %.2f", y + ROW_HEIGHT + ROW_HEIGHT));
-		printData.add("\t\t\\line " + String.format(" -0 0.2  -0 %.2f", y + ROW_HEIGHT + ROW_HEIGHT));
-		printData.add("\t\t\\line-style thin solid");
-		printData.add("\t\t\\line " + String.format("126 0.2 126 %.2f", y + ROW_HEIGHT + ROW_HEIGHT));
-		printData.add("\t\t\\line " + String.format("150 0.2 150 %.2f", y + ROW_HEIGHT + ROW_HEIGHT));
+		printData.box(1, 0, 31, -0.0, -0.0);
+		printData.lineStyle(2, "thin dot");
+		printData.line(2, 105, 0.2, 105, y + ROW_HEIGHT + ROW_HEIGHT);
+		printData.line(2, -0.0, 0.2, -0.0, y + ROW_HEIGHT + ROW_HEIGHT);
+		printData.lineStyle(2, "thin solid");
+		printData.line(2, 126, 0.2, 126, y + ROW_HEIGHT + ROW_HEIGHT);
+		printData.line(2, 150, 0.2, 150, y + ROW_HEIGHT + ROW_HEIGHT);
 	}
 
 	public void setFontLoader(FontLoader fontLoader) {
@@ -553,17 +541,29 @@ public class ProfitAndLoss {
 		this.bindingMarginEnabled = enabled;
 	}
 
+	/** 負の金額に付ける符号を返します。
+	 *
+	 * @return 負の金額に付ける符号
+	 */
+	public String getMinusSign() {
+		return minusSign;
+	}
+
+	/** 負の金額に付ける符号を設定します。
+	 * 符号はこの決算書だけに適用され、同じプロセスで作成する他の決算書には影響しません。
+	 *
+	 * @param minusSign 負の金額に付ける符号。null の場合はマイナス記号 (-) になります。
+	 */
+	public void setMinusSign(String minusSign) {
+		this.minusSign = minusSign;
+	}
+
 	public void writeTo(Path path) throws IOException {
 		prepare();
 
-		PdfBrewer brewer;
-		if(fontLoader != null) {
-			brewer = new PdfBrewer(fontLoader);
-		} else {
-			brewer = new PdfBrewer();
-		}
+		PdfBrewer brewer = new SharedFontPdfBrewer(fontLoader);
 		brewer.setCreator(Util.getPdfCreator());
-		BrewerData pb = new BrewerData(printData, brewer.getFontLoader());
+		BrewerData pb = printData.toBrewerData(brewer.getFontLoader());
 		brewer.setTitle("損益計算書");
 		brewer.process(pb);
 		brewer.save(path);
@@ -573,25 +573,28 @@ public class ProfitAndLoss {
 	public void writeTo(OutputStream out) throws IOException {
 		prepare();
 
-		PdfBrewer brewer;
-		if(fontLoader != null) {
-			brewer = new PdfBrewer(fontLoader);
-		} else {
-			brewer = new PdfBrewer();
-		}
+		PdfBrewer brewer = new SharedFontPdfBrewer(fontLoader);
 		brewer.setCreator(Util.getPdfCreator());
-		BrewerData pb = new BrewerData(printData, brewer.getFontLoader());
+		BrewerData pb = printData.toBrewerData(brewer.getFontLoader());
 		brewer.setTitle("損益計算書");
 		brewer.process(pb);
 		brewer.save(out);
 		brewer.close();
 	}
 
-	private static String formatMoney(long amount) {
-		if(MINUS_SIGN != null && amount < 0) {
-			return MINUS_SIGN + String.format("%,d", -amount);
-		}
-		return String.format("%,d", amount);
+	/** 損益計算書を指定した PdfBrewer の新しいページから印字します。
+	 * 帳簿・決算書を 1つのPDFにまとめる場合に使用します。
+	 *
+	 * @param brewer 印字データを出力する PdfBrewer
+	 * @throws IOException I/Oエラーが発生した場合
+	 */
+	void printTo(PdfBrewer brewer) throws IOException {
+		prepare();
+		brewer.process(printData.toBrewerData(brewer.getFontLoader()));
+	}
+
+	private String formatMoney(long amount) {
+		return NumberText.format(amount, minusSign);
 	}
 	
 	/*
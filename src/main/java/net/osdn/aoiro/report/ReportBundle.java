@@ -0,0 +1,154 @@
+package net.osdn.aoiro.report;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDDocumentCatalog;
+import org.apache.pdfbox.pdmodel.PageMode;
+import org.apache.pdfbox.pdmodel.interactive.documentnavigation.outline.PDDocumentOutline;
+import org.apache.pdfbox.pdmodel.interactive.documentnavigation.outline.PDOutlineItem;
+
+import net.osdn.aoiro.Util;
+import net.osdn.aoiro.model.AccountTitle;
+import net.osdn.pdf_brewer.FontLoader;
+
+/** 帳簿・決算書の合本
+ * 追加した帳簿・決算書を追加した順番で 1つのPDFに印字します。
+ * フォントとテンプレートのフォームXObjectはドキュメントで共有されるため、帳簿・決算書を別々のPDFに出力するよりもファイルサイズが小さくなります。
+ * 帳簿・決算書ごとにしおりを作成し、総勘定元帳のしおりには勘定科目ごとのしおりを追加します。
+ * ページ番号、元丁・仕丁は帳簿・決算書を別々のPDFに出力した場合と同じです。
+ *
+ */
+public class ReportBundle {
+
+	private FontLoader fontLoader;
+	private MemoryUsageSetting memUsageSetting;
+	private String title;
+
+	/** 追加した帳簿・決算書（印字する順番） */
+	private List<Book> books = new ArrayList<>();
+
+	/** 帳簿・決算書の合本を作成します。
+	 *
+	 * @param title PDFのタイトル
+	 */
+	public ReportBundle(String title) {
+		this.title = title;
+	}
+
+	public void setFontLoader(FontLoader fontLoader) {
+		this.fontLoader = fontLoader;
+	}
+
+	/** PDFを作成するときのメモリの使用方法を設定します。
+	 * 一時ファイルを使用するように設定すると、印字したページは一時ファイルに書き出されるため、
+	 * ページ数が多い場合でもメモリ使用量が一定になります。
+	 *
+	 * @param memUsageSetting メモリの使用方法。null の場合はメインメモリのみを使用します。
+	 */
+	public void setMemoryUsageSetting(MemoryUsageSetting memUsageSetting) {
+		this.memUsageSetting = memUsageSetting;
+	}
+
+	public void add(GeneralJournal generalJournal) {
+		books.add(new Book("仕訳帳", generalJournal::prepare, null));
+	}
+
+	public void add(GeneralLedger generalLedger) {
+		books.add(new Book("総勘定元帳", generalLedger::prepare, generalLedger));
+	}
+
+	public void add(ProfitAndLoss profitAndLoss) {
+		books.add(new Book("損益計算書", profitAndLoss::printTo, null));
+	}
+
+	public void add(BalanceSheet balanceSheet) {
+		books.add(new Book("貸借対照表", balanceSheet::printTo, null));
+	}
+
+	public void add(StatementOfChangesInEquity statementOfChangesInEquity) {
+		books.add(new Book("社員資本等変動計算書", statementOfChangesInEquity::printTo, null));
+	}
+
+	public void writeTo(Path path) throws IOException {
+		SharedFontPdfBrewer brewer = new SharedFontPdfBrewer(fontLoader, memUsageSetting);
+		try {
+			print(brewer);
+			brewer.save(path);
+		} finally {
+			brewer.close();
+		}
+	}
+
+	public void writeTo(OutputStream out) throws IOException {
+		SharedFontPdfBrewer brewer = new SharedFontPdfBrewer(fontLoader, memUsageSetting);
+		try {
+			print(brewer);
+			brewer.save(out);
+		} finally {
+			brewer.close();
+		}
+	}
+
+	/** 帳簿・決算書を順番に印字して、しおりを作成します。
+	 * 帳簿・決算書は新しいページから印字されるため、印字する前のページ数がその帳簿・決算書の先頭ページの位置になります。
+	 *
+	 * @param brewer 印字データを出力する PdfBrewer
+	 * @throws IOException I/Oエラーが発生した場合
+	 */
+	private void print(SharedFontPdfBrewer brewer) throws IOException {
+		brewer.setCreator(Util.getPdfCreator());
+		brewer.setTitle(title);
+
+		PDDocument document = brewer.getDocument();
+		PDDocumentOutline outline = new PDDocumentOutline();
+		for(Book book : books) {
+			int pageIndex = document.getNumberOfPages();
+			book.printer.print(brewer);
+			if(document.getNumberOfPages() == pageIndex) {
+				continue;
+			}
+
+			PDOutlineItem item = new PDOutlineItem();
+			item.setTitle(book.title);
+			item.setDestination(document.getPage(pageIndex));
+			if(book.generalLedger != null) {
+				for(Map.Entry<AccountTitle, Integer> e : book.generalLedger.getFirstPageNumbers().entrySet()) {
+					PDOutlineItem child = new PDOutlineItem();
+					child.setTitle(e.getKey().getDisplayName());
+					child.setDestination(document.getPage(pageIndex + e.getValue() - 1));
+					item.addLast(child);
+				}
+			}
+			outline.addLast(item);
+		}
+		outline.openNode();
+
+		PDDocumentCatalog catalog = document.getDocumentCatalog();
+		catalog.setDocumentOutline(outline);
+		catalog.setPageMode(PageMode.USE_OUTLINES);
+	}
+
+	/** 帳簿・決算書を PdfBrewer に印字する処理 */
+	private interface Printer {
+		void print(SharedFontPdfBrewer brewer) throws IOException;
+	}
+
+	private static class Book {
+		private String title;
+		private Printer printer;
+		private GeneralLedger generalLedger;
+
+		private Book(String title, Printer printer, GeneralLedger generalLedger) {
+			this.title = title;
+			this.printer = printer;
+			this.generalLedger = generalLedger;
+		}
+	}
+}
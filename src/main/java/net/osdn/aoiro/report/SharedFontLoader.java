@@ -0,0 +1,64 @@
+package net.osdn.aoiro.report;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+
+import net.osdn.pdf_brewer.FontLoader;
+
+/** 解析済みのフォントを帳簿・決算書の間で共有するフォントローダー
+ * PdfBrewer はドキュメントごとに TrueTypeコレクション (.ttc) を開き直してフォントを解析します。
+ * このフォントローダーを使用して帳簿・決算書を作成すると、埋め込みに使用するフォントをこのフォントローダーが 1度だけ解析し、
+ * グリフのメトリクスやサブセット作成に使うテーブルを帳簿・決算書ごとに読み直さないようにします。
+ *
+ * 共有するフォントは、このフォントローダーを使用するすべての帳簿・決算書の作成が終わった後に close で閉じてください。
+ * 複数のスレッドで同時に帳簿・決算書を作成するときに共有することができます。
+ * フォントのテーブルとグリフの読み込みはフォントごとに同期されるため（fontbox 2.0.24）、
+ * 同じフォントからそれぞれのドキュメントにサブセットを作成することができます。
+ *
+ */
+public class SharedFontLoader extends FontLoader implements Closeable {
+
+	/** 埋め込みに使用するフォント */
+	private final EmbeddableFonts embeddableFonts = new EmbeddableFonts(this);
+
+	/** 指定したフォルダーのフォントを読み込むフォントローダーを作成します。
+	 *
+	 * @param dir フォントフォルダー
+	 */
+	public SharedFontLoader(File dir) {
+		super(dir);
+	}
+
+	/** 指定したフォルダーのフォントを読み込むフォントローダーを作成します。
+	 *
+	 * @param dir フォントフォルダー
+	 * @param fileNames 読み込むフォントのファイル名（null の場合はすべてのファイル）
+	 * @param fontNames 読み込むフォント名（null の場合はすべてのフォント）
+	 */
+	public SharedFontLoader(File dir, Collection<String> fileNames, Collection<String> fontNames) {
+		super(dir, fileNames, fontNames);
+	}
+
+	/** 埋め込みに使用するフォントを返します。
+	 *
+	 * @return 埋め込みに使用するフォント
+	 */
+	EmbeddableFonts getEmbeddableFonts() {
+		return embeddableFonts;
+	}
+
+	/** 共有しているフォントと、読み込んだフォントを閉じます。 */
+	@Override
+	public void close() {
+		try {
+			embeddableFonts.close();
+		} catch(IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			super.close();
+		}
+	}
+}
@@ -0,0 +1,383 @@
+package net.osdn.aoiro.report;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.fontbox.ttf.TrueTypeFont;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.multipdf.LayerUtility;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDDocumentInformation;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDType0Font;
+import org.apache.pdfbox.pdmodel.graphics.form.PDFormXObject;
+import org.apache.pdfbox.util.Matrix;
+
+import net.osdn.pdf_brewer.BrewerData;
+import net.osdn.pdf_brewer.Context;
+import net.osdn.pdf_brewer.FontLoader;
+import net.osdn.pdf_brewer.PdfBrewer;
+import net.osdn.pdf_brewer.instruction.Instruction;
+
+/** 解析済みのフォントを共有する PdfBrewer
+ * PdfBrewer はドキュメントごとに TrueTypeコレクション (.ttc) を開き直してフォントを解析します。
+ * フォントローダーに {@link SharedFontLoader} を指定すると、このクラスはフォントローダーが解析したフォントを共有し、
+ * グリフのメトリクスやサブセット作成に使うテーブルを帳簿・決算書ごとに読み直さないようにします。サブセットはドキュメントごとに作成されます。
+ * 共有するフォントはフォントローダーが所有し、フォントローダーを閉じるときに閉じられます。
+ * それ以外のフォントローダーを指定した場合は、PdfBrewer と同じようにドキュメントごとにコレクションを開き、このドキュメントを閉じるときに閉じます。
+ * フォントローダーを指定しない場合は、既定のフォントフォルダーを読み込んだ SharedFontLoader をプロセスの終了まで共有します。
+ *
+ * PdfBrewer が作成したドキュメントはメモリの使用方法を変更できないため、このクラスは別にドキュメントを作成して印字します。
+ * PdfBrewer が作成したドキュメントは使用せず、close で PdfBrewer を閉じるときに閉じられます。
+ *
+ * ドキュメントはメモリの使用方法を指定して作成できます。一時ファイルを使用するように指定すると、
+ * 作成済みのページのコンテンツは一時ファイルに書き出されるため、ページ数が多くてもメモリ使用量が増えません。
+ * process は複数回呼び出すことができ、呼び出すたびに新しいページから印字します。
+ *
+ * 帳簿・決算書のテンプレート（罫線や見出し）は、ドキュメントごとに 1度だけフォームXObjectとして描画し、各ページからはそれを参照します。
+ * そのため、ページ数が多くてもテンプレートの描画命令はドキュメントに 1つしか含まれません。
+ *
+ */
+class SharedFontPdfBrewer extends PdfBrewer {
+
+	private static SharedFontLoader defaultFontLoader;
+
+	/** 埋め込みに使用するフォント */
+	private EmbeddableFonts embeddableFonts;
+
+	/** 埋め込みに使用するフォントをこのドキュメントで作成した場合は true（このドキュメントを閉じるときに閉じます） */
+	private boolean isEmbeddableFontsOwner;
+
+	/** このドキュメントに読み込んだフォント */
+	private Map<String, PDFont> fonts = new HashMap<>();
+
+	private MemoryUsageSetting memUsageSetting;
+	private PDRectangle mediaBox;
+	private PDDocument document;
+	private PDPage page;
+	private PDPageContentStream stream;
+
+	/** ページを取り込むために読み込んだドキュメント（このドキュメントを閉じるときに閉じます） */
+	private List<PDDocument> sources = new ArrayList<>();
+	private LayerUtility layerUtility;
+
+	/** このドキュメントに描画したテンプレートのフォームXObject（テンプレート → 描画を開始したときの領域の大きさと属性 → フォーム） */
+	private Map<PrintData, Map<String, TemplateForm>> templateForms = new IdentityHashMap<>();
+
+	/** 指定したフォントローダーを使用する PdfBrewer を作成します。
+	 *
+	 * @param fontLoader フォントローダー。null の場合は既定のフォントフォルダーを読み込んだ共有のフォントローダーを使用します。
+	 */
+	SharedFontPdfBrewer(FontLoader fontLoader) {
+		this(fontLoader, null);
+	}
+
+	/** 指定したフォントローダーとメモリの使用方法で PdfBrewer を作成します。
+	 *
+	 * @param fontLoader フォントローダー。null の場合は既定のフォントフォルダーを読み込んだ共有のフォントローダーを使用します。
+	 * @param memUsageSetting ドキュメントのメモリの使用方法。null の場合はメインメモリのみを使用します。
+	 */
+	SharedFontPdfBrewer(FontLoader fontLoader, MemoryUsageSetting memUsageSetting) {
+		super(fontLoader != null ? fontLoader : getDefaultFontLoader());
+
+		if(getFontLoader() instanceof SharedFontLoader) {
+			embeddableFonts = ((SharedFontLoader)getFontLoader()).getEmbeddableFonts();
+		} else {
+			embeddableFonts = new EmbeddableFonts(getFontLoader());
+			isEmbeddableFontsOwner = true;
+		}
+
+		// PdfBrewer が作成したドキュメントはメモリの使用方法を変更できないため、別に作成します。
+		String producer = super.getProducer();
+		String creator = super.getCreator();
+		this.memUsageSetting = memUsageSetting != null ? memUsageSetting : MemoryUsageSetting.setupMainMemoryOnly();
+		document = new PDDocument(this.memUsageSetting);
+		PDDocumentInformation info = document.getDocumentInformation();
+		info.setProducer(producer);
+		info.setCreator(creator);
+	}
+
+	@Override
+	public String getProducer() {
+		return document.getDocumentInformation().getProducer();
+	}
+
+	@Override
+	public void setProducer(String producer) {
+		document.getDocumentInformation().setProducer(producer != null ? producer : "");
+	}
+
+	@Override
+	public String getCreator() {
+		return document.getDocumentInformation().getCreator();
+	}
+
+	@Override
+	public void setCreator(String creator) {
+		document.getDocumentInformation().setCreator(creator != null ? creator : "");
+	}
+
+	@Override
+	public String getTitle() {
+		return document.getDocumentInformation().getTitle();
+	}
+
+	@Override
+	public void setTitle(String title) {
+		document.getDocumentInformation().setTitle(title);
+	}
+
+	@Override
+	public String getAuthor() {
+		return document.getDocumentInformation().getAuthor();
+	}
+
+	@Override
+	public void setAuthor(String author) {
+		document.getDocumentInformation().setAuthor(author);
+	}
+
+	@Override
+	public PDDocument getDocument() {
+		return document;
+	}
+
+	@Override
+	public PDPage getPage() {
+		return page;
+	}
+
+	@Override
+	public PDPageContentStream getContentStream() {
+		return stream;
+	}
+
+	/** 新しいページを追加します。
+	 * 前のページのコンテンツストリームはここで閉じられます。
+	 * 一時ファイルを使用するドキュメントでは、閉じたコンテンツはメモリから一時ファイルに書き出されます。
+	 *
+	 * @throws IOException I/Oエラーが発生した場合
+	 */
+	@Override
+	public void newPage() throws IOException {
+		if(stream != null) {
+			stream.close();
+		}
+		page = new PDPage(mediaBox);
+		document.addPage(page);
+		stream = new PDPageContentStream(document, page);
+	}
+
+	@Override
+	public void process(BrewerData pb) throws IOException {
+		mediaBox = pb.getMediaBox() != null ? pb.getMediaBox() : PDRectangle.A4;
+		super.process(pb);
+	}
+
+	@Override
+	public void save(OutputStream output) throws IOException {
+		if(stream != null) {
+			stream.close();
+			stream = null;
+		}
+		PDDocumentInformation info = document.getDocumentInformation();
+		Calendar date = Calendar.getInstance();
+		info.setCreationDate(date);
+		info.setModificationDate(date);
+		document.save(output);
+	}
+
+	@Override
+	public void close() throws IOException {
+		if(document != null) {
+			document.close();
+			document = null;
+		}
+		for(PDDocument source : sources) {
+			source.close();
+		}
+		sources.clear();
+		if(isEmbeddableFontsOwner) {
+			embeddableFonts.close();
+			isEmbeddableFontsOwner = false;
+		}
+		// PdfBrewer が作成したドキュメントを閉じます。
+		super.close();
+	}
+
+	/** フォントを読み込みます。
+	 * 共有するフォントは複数のスレッドで同時に作成しているドキュメントから読み込まれることがあるため、
+	 * ドキュメントへの読み込み（埋め込みに使用するテーブルの解析）はフォントごとに同期します。
+	 *
+	 * @param fontName フォント名
+	 * @return フォント。フォントローダーにフォントがない場合は null
+	 * @throws IOException I/Oエラーが発生した場合
+	 */
+	@Override
+	public PDFont loadFont(String fontName) throws IOException {
+		TrueTypeFont ttf = getFontLoader().getFont(fontName);
+		if(ttf == null) {
+			return null;
+		}
+		PDFont font = fonts.get(ttf.getName());
+		if(font == null) {
+			TrueTypeFont embeddableFont = embeddableFonts.get(ttf);
+			synchronized (embeddableFont) {
+				font = PDType0Font.load(getDocument(), embeddableFont, true);
+			}
+			fonts.put(ttf.getName(), font);
+		}
+		return font;
+	}
+
+	/** 指定した PdfBrewer で印字したページを、このドキュメントの末尾に追加します。
+	 * 追加したページは元のドキュメントのオブジェクトを参照するため、元の PdfBrewer はこのドキュメントを保存するまで閉じないでください。
+	 * 元のドキュメントのフォントは、このドキュメントの保存時にはサブセット化されないため、ここでサブセット化します。
+	 *
+	 * @param other ページを追加する PdfBrewer（以降、この PdfBrewer で印字することはできません）
+	 * @throws IOException I/Oエラーが発生した場合
+	 */
+	void appendPages(SharedFontPdfBrewer other) throws IOException {
+		if(other.stream != null) {
+			other.stream.close();
+			other.stream = null;
+		}
+		for(PDFont font : other.fonts.values()) {
+			if(font.willBeSubset()) {
+				font.subset();
+			}
+		}
+		for(PDPage page : other.document.getPages()) {
+			document.addPage(page);
+		}
+	}
+
+	/** ページを取り込むための PDF を読み込みます。
+	 * 読み込んだドキュメントは、取り込んだページのリソースを参照するため、この PdfBrewer を閉じるときに閉じられます。
+	 *
+	 * @param file PDFファイル
+	 * @return 読み込んだドキュメント
+	 * @throws IOException I/Oエラーが発生した場合
+	 */
+	PDDocument load(Path file) throws IOException {
+		PDDocument source = PDDocument.load(file.toFile(), memUsageSetting);
+		sources.add(source);
+		return source;
+	}
+
+	/** 指定したドキュメントのページを、現在のページにフォームXObjectとして描画します。
+	 * 同じドキュメントから取り込んだフォントなどのリソースは、このドキュメントで 1つにまとめられます。
+	 *
+	 * @param source ページを取り込むドキュメント
+	 * @param pageIndex 取り込むページのインデックス（0から始まります）
+	 * @param dx 水平方向の移動量（ミリメートル）
+	 * @throws IOException I/Oエラーが発生した場合
+	 */
+	void drawPage(PDDocument source, int pageIndex, double dx) throws IOException {
+		if(layerUtility == null) {
+			layerUtility = new LayerUtility(document);
+		}
+		PDFormXObject form = layerUtility.importPageAsForm(source, pageIndex);
+		stream.saveGraphicsState();
+		stream.transform(Matrix.getTranslateInstance((float)(dx * 72.0 / 25.4), 0f));
+		stream.drawForm(form);
+		stream.restoreGraphicsState();
+	}
+
+	/** テンプレートを現在のページに描画します。
+	 * テンプレートは初めて描画するときにフォームXObjectとして描画され、以降は同じフォームXObjectを参照します。
+	 * テンプレートの描画結果は領域の大きさと描画を開始したときの属性（線の種類やフォントなど）で決まるため、
+	 * それらが異なる場合は別のフォームXObjectを作成します。領域の位置の違いはフォームXObjectを移動して描画します。
+	 *
+	 * @param template テンプレート
+	 * @param context テンプレートを描画するインデント 0 のコンテキスト（描画後の属性が反映されます）
+	 * @throws IOException I/Oエラーが発生した場合
+	 */
+	void drawTemplate(PrintData template, Context context) throws IOException {
+		double width = context.getRight() - context.getLeft();
+		double height = context.getBottom() - context.getTop();
+		String key = width + " " + height
+				+ " " + context.getFontName() + " " + context.getFontSize() + " " + context.getLineHeight()
+				+ " " + context.getTextAlignment() + " " + context.getTextOverflow()
+				+ " " + context.getLineWidth() + " " + context.getLineStyle() + " " + context.getCapStyle()
+				+ " " + context.getHorizontalAlignment() + " " + context.getVerticalAlignment();
+
+		Map<String, TemplateForm> forms = templateForms.computeIfAbsent(template, k -> new HashMap<>());
+		TemplateForm templateForm = forms.get(key);
+		if(templateForm == null) {
+			templateForm = createTemplateForm(template, context, width, height);
+			forms.put(key, templateForm);
+		}
+
+		stream.saveGraphicsState();
+		stream.transform(Matrix.getTranslateInstance(Instruction.mm2pt(context.getLeft()), -Instruction.mm2pt(context.getTop())));
+		stream.drawForm(templateForm.form);
+		stream.restoreGraphicsState();
+		PrintData.TemplateInstruction.copyAttributes(templateForm.context, context);
+	}
+
+	/** テンプレートを領域の左上を原点としてフォームXObjectに描画します。
+	 *
+	 * @param template テンプレート
+	 * @param context テンプレートを描画するインデント 0 のコンテキスト（属性だけを使用します）
+	 * @param width 領域の幅 (mm)
+	 * @param height 領域の高さ (mm)
+	 * @return フォームXObjectと、テンプレートを描画した後のコンテキスト
+	 * @throws IOException I/Oエラーが発生した場合
+	 */
+	private TemplateForm createTemplateForm(PrintData template, Context context, double width, double height) throws IOException {
+		Context base = new Context(context, context.getIndent());
+		base.setBox(0, 0, width, height);
+
+		PDRectangle pageSize = page.getMediaBox();
+		PDFormXObject form = new PDFormXObject(document);
+		form.setResources(new PDResources());
+		form.setBBox(new PDRectangle(pageSize.getWidth(), pageSize.getHeight()));
+
+		PDPageContentStream pageStream = stream;
+		try(PDPageContentStream formStream = new PDPageContentStream(document, form, form.getContentStream().createOutputStream(COSName.FLATE_DECODE))) {
+			stream = formStream;
+			PrintData.TemplateInstruction.process(this, base, template.getInstructions(getFontLoader()));
+		} finally {
+			stream = pageStream;
+		}
+		return new TemplateForm(form, base);
+	}
+
+	/** テンプレートを描画したフォームXObject */
+	private static class TemplateForm {
+		/** フォームXObject */
+		private final PDFormXObject form;
+		/** テンプレートを描画した後のコンテキスト */
+		private final Context context;
+
+		private TemplateForm(PDFormXObject form, Context context) {
+			this.form = form;
+			this.context = context;
+		}
+	}
+
+	/** 既定のフォントフォルダーを読み込んだ共有のフォントローダーを返します。
+	 * このフォントローダーはプロセスの終了まで閉じません。
+	 *
+	 * @return フォントローダー
+	 */
+	private static synchronized FontLoader getDefaultFontLoader() {
+		if(defaultFontLoader == null) {
+			defaultFontLoader = new SharedFontLoader(FontLoader.getDefaultFontDir());
+		}
+		return defaultFontLoader;
+	}
+}
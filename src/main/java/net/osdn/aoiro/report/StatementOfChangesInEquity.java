@@ -1,11 +1,7 @@
 package net.osdn.aoiro.report;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.io.OutputStream;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.chrono.JapaneseChronology;
@@ -38,7 +34,8 @@ import net.osdn.pdf_brewer.PdfBrewer;
 
 public class StatementOfChangesInEquity {
 	
-	public static String MINUS_SIGN = "△";
+	/** 負の金額に付ける既定の符号 */
+	public static final String MINUS_SIGN = "△";
 	private static final double HEADER_TITLE_WIDTH = 140.0;
 	private static final double ROW_HEIGHT = 6.0;
 	
@@ -51,6 +48,9 @@ public class StatementOfChangesInEquity {
 	}
 
 	private StatementOfChangesInEquityLayout sceLayout;
+	/** 変動事由 → 摘要のリスト。構成情報の変動事由に、構成情報に含まれていない摘要を追加したものです。
+	 * 構成情報は複数回の作成で再利用できるように変更しません。 */
+	private Map<String, List<String>> reasons;
 	private List<JournalEntry> journalEntries;
 
 	private LocalDate openingDate;
@@ -64,25 +64,21 @@ public class StatementOfChangesInEquity {
 	private Map<Node<List<AccountTitle>>, Rectangle> headerRects = new LinkedHashMap<>();
 	private List<Node<Amount[]>> rows = new ArrayList<>();
 	
-	private List<String> pageData = new ArrayList<>();
-	private List<String> printData;
+	private PrintData pageData;
+	private PrintData printData;
 	private FontLoader fontLoader;
 	private boolean bindingMarginEnabled = true;
+	private String minusSign = MINUS_SIGN;
 
 	public StatementOfChangesInEquity(StatementOfChangesInEquityLayout sceLayout, List<JournalEntry> journalEntries) throws IOException {
 		this.sceLayout = sceLayout;
+		this.reasons = new LinkedHashMap<>(sceLayout.getReasons());
 		this.journalEntries = journalEntries;
 
 		this.openingDate = AccountSettlement.getOpeningDate(journalEntries, false);
 		this.closingDate = AccountSettlement.getClosingDate(journalEntries, false);
 		
-		InputStream in = getClass().getResourceAsStream("/templates/社員資本等変動計算書.pb");
-		BufferedReader r = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
-		String line;
-		while((line = r.readLine()) != null) {
-			pageData.add(line);
-		}
-		r.close();
+		pageData = Templates.get("社員資本等変動計算書");
 		
 		for(JournalEntry entry : journalEntries) {
 			if(entry.isOpening(false, openingDate)) { //当期首残高
@@ -187,7 +183,7 @@ public class StatementOfChangesInEquity {
 
 		{ //変動事由に含まれていない摘要が存在した場合は変動事由に追加します。
 			Set<String> descriptions = new HashSet<>();
-			for(List<String> list : sceLayout.getReasons().values()) {
+			for(List<String> list : reasons.values()) {
 				if(list != null) {
 					for(String s : list) {
 						descriptions.add(s);
@@ -196,7 +192,7 @@ public class StatementOfChangesInEquity {
 			}
 			for(String description : changes.keySet()) {
 				if(!descriptions.contains(description)) {
-					sceLayout.getReasons().put(description, Arrays.asList(description));
+					reasons.put(description, Arrays.asList(description));
 				}
 			}
 		}
@@ -223,7 +219,7 @@ public class StatementOfChangesInEquity {
 		Node<Amount[]> totalChangesRow = new Node<>(0, "当期変動額合計");
 		totalChangesRow.setValue(new Amount[headerColumns]);
 		rows.add(totalChangesRow);
-		for(Entry<String, List<String>> ey : sceLayout.getReasons().entrySet()) {
+		for(Entry<String, List<String>> ey : reasons.entrySet()) {
 			Node<Amount[]> changeRow = new Node<>(1, "　" + ey.getKey());
 			changeRow.setValue(new Amount[headerColumns]);
 			rows.add(changeRow);
@@ -382,93 +378,93 @@ public class StatementOfChangesInEquity {
 		String openingDate = dtf.format(this.openingDate).replace(" 1 年", "元年");
 		String closingDate = dtf.format(this.closingDate).replace(" 1 年", "元年");
 		
-		printData = new ArrayList<String>();
+		printData = new PrintData();
 		if(bindingMarginEnabled) {
-			printData.add("\\media A4");
+			printData.media("A4");
 
 			//穴あけパンチの位置を合わせるための中心線を先頭ページのみ印字します。
-			printData.add("\\line-style thin dot");
-			printData.add("\\line 0 148.5 5 148.5");
+			printData.lineStyle(0, "thin dot");
+			printData.line(0, 0, 148.5, 5, 148.5);
 
-			printData.add("\\box 15 0 0 0");
-			printData.add("\\line-style thin dot");
-			printData.add("\\line 0 0 0 -0");
-			printData.add("\\box 25 0 -10 -10");
+			printData.box(0, 15, 0, 0, 0);
+			printData.lineStyle(0, "thin dot");
+			printData.line(0, 0, 0, 0, -0.0);
+			printData.box(0, 25, 0, -10, -10);
 		} else {
 			// 綴じ代なしの場合は15mm分だけ横幅を短くして195mmとします。(A4本来の横幅は210mm)
 			// 穴あけパンチ用の中心線も出力しません。
-			printData.add("\\media 195 297");
+			printData.media("195 297");
 
-			printData.add("\\box 10 0 -10 -10");
+			printData.box(0, 10, 0, -10, -10);
 		}
 
-		printData.addAll(pageData);
+		printData.addTemplate(pageData);
 
 		//日付
-		printData.add("\t\\box 0 16 -0 7");
-		printData.add("\t\t\\font serif 10");
-		printData.add("\t\t\\align center");
-		printData.add("\t\t\\text " + openingDate + " ～ " + closingDate);
+		printData.box(1, 0, 16, -0.0, 7);
+		printData.font(2, "serif 10");
+		printData.align(2, "center");
+		printData.text(2, openingDate + " ～ " + closingDate);
 		
 		//印字領域の設定
-		printData.add("\t\\box 0 0 -0 -0");
-		printData.add("\t\t\\line-style thin solid");
+		printData.box(1, 0, 0, -0.0, -0.0);
+		printData.lineStyle(2, "thin solid");
 
 		//ボディ部分の横罫線
 		y = 25.2 + headerRows * ROW_HEIGHT;
-		printData.add("\t\t\\line " + String.format("0 %.2f -0 %.2f", y, y));
+		printData.line(2, 0, y, -0.0, y);
 		y += ROW_HEIGHT;
-		printData.add("\t\t\\line " + String.format("0 %.2f -0 %.2f", y, y));
-		printData.add("\t\t\\line-style thin dot");
-		for(int i = 0; i < sceLayout.getReasons().keySet().size(); i++) {
+		printData.line(2, 0, y, -0.0, y);
+		printData.lineStyle(2, "thin dot");
+		for(int i = 0; i < reasons.keySet().size(); i++) {
 			y += ROW_HEIGHT;
-			printData.add("\t\t\\line " + String.format("0 %.2f -0 %.2f", y, y));
+			printData.line(2, 0, y, -0.0, y);
 		}
-		printData.add("\t\t\\line-style thin solid");
+		printData.lineStyle(2, "thin solid");
 		y += ROW_HEIGHT;
-		printData.add("\t\t\\line " + String.format("0 %.2f -0 %.2f", y, y));
+		printData.line(2, 0, y, -0.0, y);
 		y += ROW_HEIGHT;
-		printData.add("\t\t\\line " + String.format("0 %.2f -0 %.2f", y, y));
-		printData.add("\t\t\\line " + String.format("0 %.2f -0 %.2f", y + 0.4, y + 0.4));
+		printData.line(2, 0, y, -0.0, y);
+		printData.line(2, 0, y + 0.4, -0.0, y + 0.4);
 		
 		//ヘッダー部分
-		printData.add("\t\\box " + String.format("35.0 25.2 %.2f %.2f", HEADER_TITLE_WIDTH, y - 25.2));
+		printData.box(1, 35.0, 25.2, HEADER_TITLE_WIDTH, y - 25.2);
 		Set<Double> lineX = new HashSet<>();
 		for(Entry<Node<List<AccountTitle>>, Rectangle> e : this.headerRects.entrySet()) {
 			Rectangle rect = e.getValue();
 			Node<List<AccountTitle>> node = e.getKey();
-			printData.add("\t\t\\box " + String.format("%.2f %.2f %.2f %.2f", rect.x, rect.y, rect.width, rect.height));
+			printData.box(2, rect.x, rect.y, rect.width, rect.height);
 			if(node.getChildren().size() > 0 &&node.getName().length() > 7) {
-				printData.add("\t\t\t\\font serif 7");
+				printData.font(3, "serif 7");
 			} else {
-				printData.add("\t\t\t\\font serif 8");
+				printData.font(3, "serif 8");
 			}
-			printData.add("\t\t\t\\text " + node.getName());
-			printData.add("\t\t\t\\line " + String.format("0 %.2f -0 %.2f", rect.height, rect.height));
+			printData.text(3, node.getName());
+			printData.line(3, 0, rect.height, -0.0, rect.height);
 			if(!lineX.contains(rect.x)) {
-				printData.add("\t\t\\box " + String.format("%.2f %.2f %.2f -0", rect.x, rect.y, rect.width));
-				printData.add("\t\t\t\\line 0 0 0 -0");
+				printData.box(2, rect.x, rect.y, rect.width, -0.0);
+				printData.line(3, 0, 0, 0, -0.0);
 				lineX.add(rect.x);
 			}
 		}
 		
 		y = 25.2 + headerRows * ROW_HEIGHT;
 		for(Node<Amount[]> row : rows) {
-			printData.add("\t\\box " + String.format("0 %.2f -0 -0", y));
-			printData.add("\t\t\\font serif 10" + (row.getLevel() == 0 ? " bold" : ""));
+			printData.box(1, 0, y, -0.0, -0.0);
+			printData.font(2, "serif 10" + (row.getLevel() == 0 ? " bold" : ""));
 			//
-			printData.add("\t\t\\align center left");
-			printData.add("\t\t\\box " + String.format("2 0 33.0 %.2f", ROW_HEIGHT));
-			printData.add("\t\t\t\\text " + row.getName());
+			printData.align(2, "center left");
+			printData.box(2, 2, 0, 33.0, ROW_HEIGHT);
+			printData.text(3, row.getName());
 			//
-			printData.add("\t\t\\align center right");
+			printData.align(2, "center right");
 			Amount[] amounts = row.getValue();
 			for(int i = 0; i < amounts.length; i++) {
 				if(amounts[i] != null) {
 					double x = 35.0 + (HEADER_TITLE_WIDTH * i / amounts.length);
 					double w = (HEADER_TITLE_WIDTH / amounts.length) - 2.0;
-					printData.add("\t\t\\box " + String.format("%.2f 0 %.2f %.2f", x, w, ROW_HEIGHT));
-					printData.add("\t\t\t\\text " + formatMoney(amounts[i].getValue()));
+					printData.box(2, x, 0, w, ROW_HEIGHT);
+					printData.text(3, formatMoney(amounts[i].getValue()));
 				}
 			}
 			y += ROW_HEIGHT;
@@ -483,17 +479,29 @@ public class StatementOfChangesInEquity {
 		this.bindingMarginEnabled = enabled;
 	}
 
+	/** 負の金額に付ける符号を返します。
+	 *
+	 * @return 負の金額に付ける符号
+	 */
+	public String getMinusSign() {
+		return minusSign;
+	}
+
+	/** 負の金額に付ける符号を設定します。
+	 * 符号はこの決算書だけに適用され、同じプロセスで作成する他の決算書には影響しません。
+	 *
+	 * @param minusSign 負の金額に付ける符号。null の場合はマイナス記号 (-) になります。
+	 */
+	public void setMinusSign(String minusSign) {
+		this.minusSign = minusSign;
+	}
+
 	public void writeTo(Path path) throws IOException {
 		prepare();
 
-		PdfBrewer brewer;
-		if(fontLoader != null) {
-			brewer = new PdfBrewer(fontLoader);
-		} else {
-			brewer = new PdfBrewer();
-		}
+		PdfBrewer brewer = new SharedFontPdfBrewer(fontLoader);
 		brewer.setCreator(Util.getPdfCreator());
-		BrewerData pb = new BrewerData(printData, brewer.getFontLoader());
+		BrewerData pb = printData.toBrewerData(brewer.getFontLoader());
 		brewer.setTitle("社員資本等変動計算書");
 		brewer.process(pb);
 		brewer.save(path);
@@ -503,24 +511,27 @@ public class StatementOfChangesInEquity {
 	public void writeTo(OutputStream out) throws IOException {
 		prepare();
 
-		PdfBrewer brewer;
-		if(fontLoader != null) {
-			brewer = new PdfBrewer(fontLoader);
-		} else {
-			brewer = new PdfBrewer();
-		}
+		PdfBrewer brewer = new SharedFontPdfBrewer(fontLoader);
 		brewer.setCreator(Util.getPdfCreator());
-		BrewerData pb = new BrewerData(printData, brewer.getFontLoader());
+		BrewerData pb = printData.toBrewerData(brewer.getFontLoader());
 		brewer.setTitle("社員資本等変動計算書");
 		brewer.process(pb);
 		brewer.save(out);
 		brewer.close();
 	}
 
-	private static String formatMoney(long amount) {
-		if(MINUS_SIGN != null && amount < 0) {
-			return MINUS_SIGN + String.format("%,d", -amount);
-		}
-		return String.format("%,d", amount);
+	/** 社員資本等変動計算書を指定した PdfBrewer の新しいページから印字します。
+	 * 帳簿・決算書を 1つのPDFにまとめる場合に使用します。
+	 *
+	 * @param brewer 印字データを出力する PdfBrewer
+	 * @throws IOException I/Oエラーが発生した場合
+	 */
+	void printTo(PdfBrewer brewer) throws IOException {
+		prepare();
+		brewer.process(printData.toBrewerData(brewer.getFontLoader()));
+	}
+
+	private String formatMoney(long amount) {
+		return NumberText.format(amount, minusSign);
 	}
 }
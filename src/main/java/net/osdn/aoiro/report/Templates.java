@@ -0,0 +1,50 @@
+package net.osdn.aoiro.report;
+
+import java.io.BufferedReader;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/** 帳簿・決算書のテンプレート
+ * クラスパスの /templates/*.pb をプロセス内で 1度だけ読み込んで解析し、変更できない印字データとして共有します。
+ *
+ */
+class Templates {
+
+	private static Map<String, PrintData> templates = new HashMap<>();
+
+	/** テンプレートを返します。
+	 * 初めて要求されたテンプレートはクラスパスから読み込まれます。2回目以降は読み込み済みのテンプレートを返します。
+	 *
+	 * @param name テンプレート名（拡張子 .pb を除いたファイル名）
+	 * @return テンプレートの印字データ（変更できません）
+	 * @throws IOException I/Oエラーが発生した場合
+	 */
+	static synchronized PrintData get(String name) throws IOException {
+		PrintData template = templates.get(name);
+		if(template == null) {
+			template = load(name).share();
+			templates.put(name, template);
+		}
+		return template;
+	}
+
+	private static PrintData load(String name) throws IOException {
+		InputStream in = Templates.class.getResourceAsStream("/templates/" + name + ".pb");
+		if(in == null) {
+			throw new FileNotFoundException("/templates/" + name + ".pb");
+		}
+		PrintData template = new PrintData();
+		try(BufferedReader r = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+			String line;
+			while((line = r.readLine()) != null) {
+				template.add(line);
+			}
+		}
+		return template;
+	}
+}
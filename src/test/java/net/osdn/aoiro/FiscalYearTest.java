@@ -0,0 +1,97 @@
+package net.osdn.aoiro;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import net.osdn.aoiro.loader.yaml.AccountTitlesLoader;
+import net.osdn.aoiro.loader.yaml.JournalEntriesLoader;
+import net.osdn.aoiro.model.JournalEntry;
+import net.osdn.aoiro.report.DataExporter;
+
+public class FiscalYearTest {
+
+	@Rule
+	public TemporaryFolder outputDir = new TemporaryFolder();
+
+	/** 前年度の期末残高を引き継いだ 2年度分の比較損益計算書と比較貸借対照表を出力します。 */
+	@Test
+	public void testWriteComparativeDataTo() throws Exception {
+		List<FiscalYear> fiscalYears = new ArrayList<>();
+		for(String name : new String[] { "第1期.yml", "第2期.yml" }) {
+			FiscalYear fiscalYear = load("comparative/" + name);
+			if(!fiscalYears.isEmpty()) {
+				fiscalYear.setOpeningJournalEntries(fiscalYears.get(fiscalYears.size() - 1).getNextOpeningJournalEntries());
+			}
+			fiscalYear.settle();
+			fiscalYears.add(fiscalYear);
+		}
+
+		List<Path> paths = FiscalYear.writeComparativeDataTo(fiscalYears, DataExporter.Format.CSV, outputDir.getRoot().toPath());
+		assertEquals(2, paths.size());
+
+		List<String> pl = Files.readAllLines(paths.get(0), StandardCharsets.UTF_8);
+		assertEquals("階層,科目,小計,2022-03-31,2023-03-31", pl.get(0));
+		assertContains(pl, "1,売上高,false,800000,500000");
+		assertContains(pl, "2,通信費,false,12000,12000");
+		assertContains(pl, "2,地代家賃,false,200000,200000");
+		assertContains(pl, "0,当期純利益,true,588000,288000");
+
+		List<String> bs = Files.readAllLines(paths.get(1), StandardCharsets.UTF_8);
+		assertEquals("区分,階層,科目,2022-03-31,2023-03-31", bs.get(0));
+		assertContains(bs, "資産,2,その他の預金,1588000,1876000");
+		assertContains(bs, "資本,2,資本金,1000000,1000000");
+		assertContains(bs, "資本,2,繰越利益剰余金,588000,876000");
+	}
+
+	/** 次年度の仕訳データファイルに貼り付けた前期繰越（繰越利益剰余金を含む）は、引き継いだ開始仕訳に置き換えられます。 */
+	@Test
+	public void testSetOpeningJournalEntriesReplacesPastedEntry() throws Exception {
+		FiscalYear firstYear = load("comparative/第1期.yml");
+		firstYear.settle();
+		FiscalYear secondYear = load("comparative/第2期_開始仕訳あり.yml");
+		secondYear.setOpeningJournalEntries(firstYear.getNextOpeningJournalEntries());
+
+		List<JournalEntry> openingEntries = new ArrayList<>();
+		for(JournalEntry entry : secondYear.getJournalEntries()) {
+			if(entry.getDate().equals(LocalDate.of(2022, 4, 1))) {
+				openingEntries.add(entry);
+			}
+		}
+		assertEquals(1, openingEntries.size());
+		assertEquals("[2022-04-01, 借方:[{普通預金:1588000}], 貸方:[{資本金:1000000}, {繰越利益剰余金:588000}], 前期繰越]",
+				openingEntries.toString());
+
+		secondYear.settle();
+		List<Path> paths = FiscalYear.writeComparativeDataTo(List.of(firstYear, secondYear), DataExporter.Format.CSV, outputDir.getRoot().toPath());
+		List<String> bs = Files.readAllLines(paths.get(1), StandardCharsets.UTF_8);
+		assertContains(bs, "資産,2,その他の預金,1588000,1876000");
+		assertContains(bs, "資本,2,繰越利益剰余金,588000,876000");
+	}
+
+	private static FiscalYear load(String name) throws Exception {
+		AccountTitlesLoader accountTitlesLoader = new AccountTitlesLoader(Paths.get("default", "法人", "勘定科目.yml"));
+		JournalEntriesLoader journalEntriesLoader = new JournalEntriesLoader(getResource(name), accountTitlesLoader.getAccountTitles());
+		return new FiscalYear(accountTitlesLoader, null, journalEntriesLoader.getJournalEntries(), false);
+	}
+
+	private static Path getResource(String name) throws URISyntaxException {
+		return Paths.get(FiscalYearTest.class.getResource(name).toURI());
+	}
+
+	private static void assertContains(List<String> lines, String line) {
+		assertTrue(line + " が出力されていません。\n" + String.join("\n", lines), lines.contains(line));
+	}
+}
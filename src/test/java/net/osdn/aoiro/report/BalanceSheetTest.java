@@ -0,0 +1,62 @@
+package net.osdn.aoiro.report;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import net.osdn.aoiro.model.AccountTitle;
+
+public class BalanceSheetTest {
+
+	@Test
+	public void testNextOpeningJournalEntriesOfCorporation() throws Exception {
+		BooksFixture books = BooksFixture.load("corporate");
+		BalanceSheet bs = books.getBalanceSheet();
+		List<AccountTitle> accountTitles = new ArrayList<>(books.getAccountTitles());
+
+		assertEquals("[2023-04-01, 借方:[{現金:293500}, {普通預金:1641200}], 貸方:[{資本金:1000000}, {繰越利益剰余金:934700}], 前期繰越]",
+				bs.getNextOpeningJournalEntries(accountTitles).toString());
+
+		assertEquals("- 日付: 2023-04-01\r\n"
+				+ "  摘要: 前期繰越\r\n"
+				+ "  借方: [ {勘定科目: 現金, 金額: 293500}, {勘定科目: 普通預金, 金額: 1641200} ]\r\n"
+				+ "  貸方: [ {勘定科目: 資本金, 金額: 1000000}, {勘定科目: 繰越利益剰余金, 金額: 934700} ]\r\n"
+				+ "\r\n",
+				bs.createNextOpeningJournalEntriesCompat(accountTitles, null));
+
+		assertEquals("- \"日付\" : \"2023-04-01\"\r\n"
+				+ "  \"摘要\" : \"前期繰越\"\r\n"
+				+ "  \"借方\" : [ { \"勘定科目\" : \"現金\", \"金額\" : 293500 }, { \"勘定科目\" : \"普通預金\", \"金額\" : 1641200 } ]\r\n"
+				+ "  \"貸方\" : [ { \"勘定科目\" : \"資本金\", \"金額\" : 1000000 }, { \"勘定科目\" : \"繰越利益剰余金\", \"金額\" : 934700 } ]\r\n"
+				+ "\r\n",
+				bs.createNextOpeningJournalEntries(accountTitles, null));
+	}
+
+	/** 期末商品棚卸高が借方・貸方のどちらにあっても、期首棚卸の借方と貸方を両方とも出力します。 */
+	@Test
+	public void testNextOpeningJournalEntriesWithInventory() throws Exception {
+		BooksFixture books = BooksFixture.load("inventory", true);
+		BalanceSheet bs = books.getBalanceSheet();
+		List<AccountTitle> accountTitles = new ArrayList<>(books.getAccountTitles());
+
+		assertEquals("- 日付: 2022-01-01\r\n"
+				+ "  摘要: 元入金\r\n"
+				+ "  借方: [ {勘定科目: 普通預金, 金額: 40000}, {勘定科目: 商品, 金額: 6500} ]\r\n"
+				+ "  貸方: [ {勘定科目: 元入金, 金額: 46500} ]\r\n"
+				+ "\r\n"
+				+ "- 日付: 2022-01-01\r\n"
+				+ "  摘要: 期首棚卸\r\n"
+				+ "  借方: [ {勘定科目: 期首商品棚卸高, 金額: 4000} ]\r\n"
+				+ "  貸方: [ {勘定科目: 商品, 金額: 4000} ]\r\n"
+				+ "\r\n"
+				+ "- 日付: 2022-01-01\r\n"
+				+ "  摘要: 期首棚卸\r\n"
+				+ "  借方: [ {勘定科目: 商品, 金額: 500} ]\r\n"
+				+ "  貸方: [ {勘定科目: 期首商品棚卸高, 金額: 500} ]\r\n"
+				+ "\r\n",
+				bs.createNextOpeningJournalEntriesCompat(accountTitles, null));
+	}
+}
@@ -0,0 +1,209 @@
+package net.osdn.aoiro.report;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import net.osdn.aoiro.AccountSettlement;
+import net.osdn.aoiro.loader.yaml.AccountTitlesLoader;
+import net.osdn.aoiro.loader.yaml.JournalEntriesLoader;
+import net.osdn.aoiro.model.AccountTitle;
+import net.osdn.aoiro.model.JournalEntry;
+import net.osdn.pdf_brewer.BrewerData;
+import net.osdn.pdf_brewer.FontLoader;
+import net.osdn.pdf_brewer.PdfBrewer;
+
+/** テスト用の仕訳データから作成した帳簿
+ * 仕訳データはテストのリソース（solo は個人事業主、corporate は法人の 2年目、inventory は個人事業主の棚卸）から読み込み、決算仕訳を追加します。
+ * 帳簿はフォントを使用せずに、ページごとに印字する文字列のリストとして取得します。
+ *
+ */
+class BooksFixture {
+
+	private AccountTitlesLoader accountTitlesLoader;
+	private Set<AccountTitle> accountTitles;
+	private List<JournalEntry> journalEntries;
+	private boolean isSoloProprietorship;
+	private Pagination pagination;
+
+	/** テスト用の仕訳データを読み込んで決算します。
+	 *
+	 * @param name テストデータの名前（solo または corporate）
+	 * @return テスト用の帳簿
+	 * @throws IOException I/Oエラーが発生した場合
+	 */
+	static BooksFixture load(String name) throws IOException {
+		return load(name, name.equals("solo"));
+	}
+
+	/** テスト用の仕訳データを読み込んで決算します。
+	 *
+	 * @param name テストデータの名前（テストのリソースのフォルダー名）
+	 * @param isSoloProprietorship 個人事業主の場合は true
+	 * @return テスト用の帳簿
+	 * @throws IOException I/Oエラーが発生した場合
+	 */
+	static BooksFixture load(String name, boolean isSoloProprietorship) throws IOException {
+		Path accountTitlesPath = Paths.get("default", isSoloProprietorship ? "個人" : "法人", "勘定科目.yml");
+		AccountTitlesLoader accountTitlesLoader = new AccountTitlesLoader(accountTitlesPath);
+		Set<AccountTitle> accountTitles = accountTitlesLoader.getAccountTitles();
+		List<JournalEntry> journalEntries = new JournalEntriesLoader(getResource(name + "/仕訳データ.yml"), accountTitles).getJournalEntries();
+		new AccountSettlement(accountTitles, isSoloProprietorship).addClosingEntries(journalEntries, null);
+
+		BooksFixture fixture = new BooksFixture();
+		fixture.accountTitlesLoader = accountTitlesLoader;
+		fixture.accountTitles = accountTitles;
+		fixture.journalEntries = journalEntries;
+		fixture.isSoloProprietorship = isSoloProprietorship;
+		fixture.pagination = new Pagination(accountTitles, journalEntries, isSoloProprietorship, true);
+		return fixture;
+	}
+
+	Set<AccountTitle> getAccountTitles() {
+		return accountTitles;
+	}
+
+	List<JournalEntry> getJournalEntries() {
+		return journalEntries;
+	}
+
+	boolean isSoloProprietorship() {
+		return isSoloProprietorship;
+	}
+
+	/** 貸借対照表を作成します。
+	 *
+	 * @return 貸借対照表
+	 * @throws IOException I/Oエラーが発生した場合
+	 */
+	BalanceSheet getBalanceSheet() throws IOException {
+		return new BalanceSheet(accountTitlesLoader.getBalanceSheetLayout(), journalEntries, isSoloProprietorship);
+	}
+
+	/** 仕訳帳の各ページに印字する文字列を返します。
+	 *
+	 * @param fontLoader フォントローダー（フォントは使用しないため空のフォルダーから作成したもので構いません）
+	 * @return ページごとの文字列のリスト
+	 * @throws IOException I/Oエラーが発生した場合
+	 */
+	List<List<String>> getGeneralJournalTexts(FontLoader fontLoader) throws IOException {
+		try(TextRecorder recorder = new TextRecorder(fontLoader)) {
+			new GeneralJournal(journalEntries, isSoloProprietorship, pagination).prepare(recorder);
+			return recorder.pages;
+		}
+	}
+
+	/** 総勘定元帳（月計あり）の各ページに印字する文字列を返します。
+	 *
+	 * @param fontLoader フォントローダー（フォントは使用しないため空のフォルダーから作成したもので構いません）
+	 * @return ページごとの文字列のリスト
+	 * @throws IOException I/Oエラーが発生した場合
+	 */
+	List<List<String>> getGeneralLedgerTexts(FontLoader fontLoader) throws IOException {
+		try(TextRecorder recorder = new TextRecorder(fontLoader)) {
+			new GeneralLedger(accountTitles, journalEntries, isSoloProprietorship, true, pagination).prepare(recorder);
+			return recorder.pages;
+		}
+	}
+
+	/** 仕訳帳の各ページの印字データを返します。
+	 *
+	 * @param fontLoader フォントローダー（フォントは使用しないため空のフォルダーから作成したもので構いません）
+	 * @return ページごとの印字データ
+	 * @throws IOException I/Oエラーが発生した場合
+	 */
+	List<PrintData> getGeneralJournalPrintData(FontLoader fontLoader) throws IOException {
+		try(TextRecorder recorder = new TextRecorder(fontLoader)) {
+			new GeneralJournal(journalEntries, isSoloProprietorship, pagination).prepare(recorder);
+			return recorder.printDataList;
+		}
+	}
+
+	/** 総勘定元帳（月計あり）の各ページの印字データを返します。
+	 *
+	 * @param fontLoader フォントローダー（フォントは使用しないため空のフォルダーから作成したもので構いません）
+	 * @return ページごとの印字データ
+	 * @throws IOException I/Oエラーが発生した場合
+	 */
+	List<PrintData> getGeneralLedgerPrintData(FontLoader fontLoader) throws IOException {
+		try(TextRecorder recorder = new TextRecorder(fontLoader)) {
+			new GeneralLedger(accountTitles, journalEntries, isSoloProprietorship, true, pagination).prepare(recorder);
+			return recorder.printDataList;
+		}
+	}
+
+	/** ページごとの文字列を期待値ファイルと同じ形式のテキストにします。
+	 * 各ページは「--- ページ番号 ---」の行から始まり、印字する文字列を 1行に 1つずつ出力します。
+	 *
+	 * @param pages ページごとの文字列のリスト
+	 * @return テキスト
+	 */
+	static String toText(List<List<String>> pages) {
+		StringBuilder sb = new StringBuilder();
+		for(int i = 0; i < pages.size(); i++) {
+			sb.append("--- ").append(i + 1).append(" ---\n");
+			for(String text : pages.get(i)) {
+				sb.append(text).append('\n');
+			}
+		}
+		return sb.toString();
+	}
+
+	/** テストのリソースからテキストを読み込みます。改行は LF に統一されます。
+	 *
+	 * @param name リソース名
+	 * @return テキスト
+	 * @throws IOException I/Oエラーが発生した場合
+	 */
+	static String readText(String name) throws IOException {
+		try(InputStream in = BooksFixture.class.getResourceAsStream(name)) {
+			if(in == null) {
+				throw new IOException("リソースが見つかりません: " + name);
+			}
+			return new String(in.readAllBytes(), StandardCharsets.UTF_8).replace("\r\n", "\n");
+		}
+	}
+
+	private static Path getResource(String name) {
+		try {
+			return Paths.get(BooksFixture.class.getResource(name).toURI());
+		} catch(URISyntaxException e) {
+			throw new IllegalArgumentException(name, e);
+		}
+	}
+
+	/** PdfBrewer に渡されたページの印字データと、印字する文字列を取り出します。
+	 * PDF には何も印字しません。
+	 *
+	 */
+	private static class TextRecorder extends PdfBrewer implements AutoCloseable {
+
+		private List<List<String>> pages = new ArrayList<>();
+		private List<PrintData> printDataList = new ArrayList<>();
+
+		TextRecorder(FontLoader fontLoader) {
+			super(fontLoader);
+		}
+
+		@Override
+		public void process(BrewerData data) {
+			PrintData printData = ((PrintData.PrintDataBrewerData)data).getPrintData();
+			printDataList.add(printData);
+			List<String> texts = new ArrayList<>();
+			for(String line : printData.toString().split("\r\n")) {
+				line = line.trim();
+				if(line.startsWith("\\text ")) {
+					texts.add(line.substring("\\text ".length()));
+				}
+			}
+			pages.add(Collections.unmodifiableList(texts));
+		}
+	}
+}
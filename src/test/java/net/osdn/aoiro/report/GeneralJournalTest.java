@@ -0,0 +1,29 @@
+package net.osdn.aoiro.report;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import net.osdn.pdf_brewer.FontLoader;
+
+public class GeneralJournalTest {
+
+	@Rule
+	public TemporaryFolder fontDir = new TemporaryFolder();
+
+	@Test
+	public void testSoloProprietorshipGoldenText() throws Exception {
+		List<List<String>> pages = BooksFixture.load("solo").getGeneralJournalTexts(new FontLoader(fontDir.getRoot()));
+		assertEquals(BooksFixture.readText("solo/仕訳帳.txt"), BooksFixture.toText(pages));
+	}
+
+	@Test
+	public void testCorporateSecondYearGoldenText() throws Exception {
+		List<List<String>> pages = BooksFixture.load("corporate").getGeneralJournalTexts(new FontLoader(fontDir.getRoot()));
+		assertEquals(BooksFixture.readText("corporate/仕訳帳.txt"), BooksFixture.toText(pages));
+	}
+}
@@ -0,0 +1,68 @@
+package net.osdn.aoiro.report;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import net.osdn.pdf_brewer.FontLoader;
+
+public class GeneralLedgerTest {
+
+	@Rule
+	public TemporaryFolder fontDir = new TemporaryFolder();
+
+	/** 法人の 2年目の開始仕訳（繰越利益剰余金を含む）も、印字した明細と同じ金額を 4月計に含めます。 */
+	@Test
+	public void testMonthlyTotalIncludesCorporateOpeningEntry() throws Exception {
+		List<List<String>> pages = BooksFixture.load("corporate").getGeneralLedgerTexts(new FontLoader(fontDir.getRoot()));
+
+		assertRow(pages, "現金", "4月計", "300,000", "5,500");
+		assertRow(pages, "普通預金", "4月計", "1,420,000", "8,800");
+		assertRow(pages, "普通預金", "5月計", "330,000", "100,000");
+	}
+
+	/** 開始仕訳の借方と貸方の両方に元入金がある場合、前期繰越計は印字した借方・貸方の金額の合計になります。 */
+	@Test
+	public void testOpeningTotalOfCapitalOnBothSides() throws Exception {
+		List<List<String>> pages = BooksFixture.load("solo").getGeneralLedgerTexts(new FontLoader(fontDir.getRoot()));
+
+		assertRow(pages, "元入金", "前期繰越計", "110", "589,340");
+		assertRow(pages, "現金", "前期繰越計", "89,340", "0");
+		assertRow(pages, "現金", "1月計", "0", "3,410");
+	}
+
+	@Test
+	public void testSoloProprietorshipGoldenText() throws Exception {
+		List<List<String>> pages = BooksFixture.load("solo").getGeneralLedgerTexts(new FontLoader(fontDir.getRoot()));
+		assertEquals(BooksFixture.readText("solo/総勘定元帳.txt"), BooksFixture.toText(pages));
+	}
+
+	@Test
+	public void testCorporateSecondYearGoldenText() throws Exception {
+		List<List<String>> pages = BooksFixture.load("corporate").getGeneralLedgerTexts(new FontLoader(fontDir.getRoot()));
+		assertEquals(BooksFixture.readText("corporate/総勘定元帳.txt"), BooksFixture.toText(pages));
+	}
+
+	/** 指定した勘定科目のページに、見出しと借方・貸方の金額が続けて印字されていることを確認します。
+	 * 勘定科目名は、ページの上部の「年」または「年度」の直前に印字されています。
+	 */
+	private static void assertRow(List<List<String>> pages, String accountTitle, String... row) {
+		for(List<String> texts : pages) {
+			int i = Math.max(texts.indexOf("年"), texts.indexOf("年度"));
+			if(i < 1 || !texts.get(i - 1).equals(accountTitle)) {
+				continue;
+			}
+			for(int j = i; j + row.length <= texts.size(); j++) {
+				if(texts.subList(j, j + row.length).equals(List.of(row))) {
+					return;
+				}
+			}
+		}
+		assertTrue(accountTitle + " " + String.join(" ", row) + " が印字されていません。", false);
+	}
+}
@@ -0,0 +1,63 @@
+package net.osdn.aoiro.report;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import net.osdn.aoiro.model.AccountTitle;
+import net.osdn.aoiro.model.JournalEntry;
+
+public class MonthlyTotalsTest {
+
+	/** 法人の 2年目の開始仕訳（繰越利益剰余金を含む）は締切仕訳として除外せずに、期首の月に集計します。 */
+	@Test
+	public void testCorporateOpeningEntryWithClosingAccountTitle() throws Exception {
+		BooksFixture books = BooksFixture.load("corporate");
+		MonthlyTotals totals = new MonthlyTotals(books.getJournalEntries(), books.isSoloProprietorship());
+
+		JournalEntry opening = books.getJournalEntries().get(0);
+		assertEquals(4, totals.getMonth(opening));
+
+		AccountTitle cash = getAccountTitle(books, "現金");
+		assertEquals(300000, totals.getDebtorAmount(cash, 4));
+		assertEquals(5500, totals.getCreditorAmount(cash, 4));
+
+		AccountTitle deposit = getAccountTitle(books, "普通預金");
+		assertEquals(1420000, totals.getDebtorAmount(deposit, 4));
+		assertEquals(8800, totals.getCreditorAmount(deposit, 4));
+
+		AccountTitle retainedEarnings = getAccountTitle(books, "繰越利益剰余金");
+		assertEquals(0, totals.getDebtorAmount(retainedEarnings, 4));
+		assertEquals(500000, totals.getCreditorAmount(retainedEarnings, 4));
+	}
+
+	/** 決算日の締切仕訳は集計に含めません。 */
+	@Test
+	public void testClosingEntriesAreExcluded() throws Exception {
+		BooksFixture books = BooksFixture.load("corporate");
+		MonthlyTotals totals = new MonthlyTotals(books.getJournalEntries(), books.isSoloProprietorship());
+
+		AccountTitle cash = getAccountTitle(books, "現金");
+		assertEquals(0, totals.getDebtorAmount(cash, 3));
+		assertEquals(1000, totals.getCreditorAmount(cash, 3));
+	}
+
+	/** 個人事業主の開始仕訳は 1月ではなく開始仕訳として集計します。 */
+	@Test
+	public void testSoloProprietorshipOpeningEntry() throws Exception {
+		BooksFixture books = BooksFixture.load("solo");
+		MonthlyTotals totals = new MonthlyTotals(books.getJournalEntries(), books.isSoloProprietorship());
+
+		JournalEntry opening = books.getJournalEntries().get(0);
+		assertEquals(MonthlyTotals.OPENING, totals.getMonth(opening));
+
+		AccountTitle cash = getAccountTitle(books, "現金");
+		assertEquals(89340, totals.getDebtorAmount(cash, MonthlyTotals.OPENING));
+		assertEquals(0, totals.getDebtorAmount(cash, 1));
+		assertEquals(3410, totals.getCreditorAmount(cash, 1));
+	}
+
+	private static AccountTitle getAccountTitle(BooksFixture books, String displayName) {
+		return AccountTitle.getByDisplayName(books.getAccountTitles(), displayName);
+	}
+}
@@ -0,0 +1,97 @@
+package net.osdn.aoiro.report;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import net.osdn.pdf_brewer.BrewerData;
+import net.osdn.pdf_brewer.FontLoader;
+import net.osdn.pdf_brewer.instruction.Instruction;
+import net.osdn.pdf_brewer.instruction.Media;
+
+/** PrintData の命令が、同じ .pb 形式のテキストを BrewerData で解析した命令と同じになることを確認します。 */
+public class PrintDataTest {
+
+	@Rule
+	public TemporaryFolder fontDir = new TemporaryFolder();
+
+	/** インデント（空白・タブ・全角空白）、-0、\n とタブを含むテキスト、命令ではない行を解析します。 */
+	@Test
+	public void testParseSameAsBrewerData() throws Exception {
+		String[] lines = {
+			"\\media A4",
+			"# コメント",
+			"\\line-style thin solid",
+			"\\box 10 20 -10 -0",
+			"\t\\align center right",
+			"\t\\font serif 10.5",
+			"\t\\line-height 0.8",
+			"\t\\text-align center",
+			"\t\\text-overflow shrink",
+			"\t\\text 損益\\n計算書\tです",
+			"  \\box -0 0 0 -0",
+			" \t\\line 0 0 -0 0.5",
+			"　\\rect 1.25 -2 3 -0",
+			"\\new-page",
+			"\t\\text 2ページ",
+		};
+		FontLoader fontLoader = new FontLoader(fontDir.getRoot());
+		PrintData printData = new PrintData();
+		for(String line : lines) {
+			printData.add(line);
+		}
+		BrewerData brewerData = new BrewerData(String.join("\r\n", lines), fontLoader);
+
+		assertEquals(toStrings(brewerData.getInstructions()), toStrings(printData.getInstructions(fontLoader), fontLoader));
+		assertEquals(brewerData.getMediaBox().toString(), printData.toBrewerData(fontLoader).getMediaBox().toString());
+	}
+
+	/** 帳簿の各ページ（テンプレートを含む）の印字データを、.pb 形式のテキストに出力して BrewerData で解析し直しても同じ命令になります。 */
+	@Test
+	public void testBooksSameAsBrewerData() throws Exception {
+		FontLoader fontLoader = new FontLoader(fontDir.getRoot());
+		for(String name : new String[] { "solo", "corporate" }) {
+			BooksFixture books = BooksFixture.load(name);
+			List<PrintData> pages = new ArrayList<>();
+			pages.addAll(books.getGeneralJournalPrintData(fontLoader));
+			pages.addAll(books.getGeneralLedgerPrintData(fontLoader));
+			assertTrue(pages.size() > 0);
+
+			for(PrintData printData : pages) {
+				BrewerData brewerData = new BrewerData(printData.toString(), fontLoader);
+				assertEquals(toStrings(brewerData.getInstructions()), toStrings(printData.getInstructions(fontLoader), fontLoader));
+			}
+		}
+	}
+
+	/** BrewerData の命令を文字列にします。用紙サイズは命令ではなく BrewerData#getMediaBox で比較するため除きます。 */
+	private static List<String> toStrings(List<Instruction> instructions) {
+		List<String> list = new ArrayList<>();
+		for(Instruction instruction : instructions) {
+			if(!(instruction instanceof Media)) {
+				list.add(instruction.toString());
+			}
+		}
+		return list;
+	}
+
+	/** PrintData の命令を文字列にします。テンプレートは .pb 形式と同じようにテンプレートの命令に展開します。 */
+	private static List<String> toStrings(List<Instruction> instructions, FontLoader fontLoader) {
+		List<String> list = new ArrayList<>();
+		for(Instruction instruction : instructions) {
+			if(instruction instanceof PrintData.TemplateInstruction) {
+				PrintData template = ((PrintData.TemplateInstruction)instruction).getTemplate();
+				list.addAll(toStrings(template.getInstructions(fontLoader), fontLoader));
+			} else {
+				list.add(instruction.toString());
+			}
+		}
+		return list;
+	}
+}